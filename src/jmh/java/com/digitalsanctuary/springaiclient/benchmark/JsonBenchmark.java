@@ -0,0 +1,58 @@
+package com.digitalsanctuary.springaiclient.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.OpenAICodec;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Measures Jackson serialization of requests and deserialization of responses for the payload shapes in {@link Payloads}, with data binding
+ * and with the streaming {@link OpenAICodec}.
+ */
+@State(Scope.Thread)
+public class JsonBenchmark {
+
+    @Param({"SMALL", "LARGE", "MANY_CHOICES", "LOGPROBS"})
+    private Payloads.Shape shape;
+
+    private final JsonMapper mapper = ProviderJson.mapper();
+    private final OpenAICodec codec = new OpenAICodec(false, false);
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(32 * 1024);
+    private OpenAIRequest request;
+    private byte[] responseJson;
+
+    @Setup
+    public void setUp() {
+        request = Payloads.request(shape);
+        responseJson = mapper.writeValueAsBytes(Payloads.response(shape));
+    }
+
+    @Benchmark
+    public byte[] serializeRequest() {
+        return mapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public OpenAIResponse deserializeResponse() {
+        return mapper.readValue(responseJson, OpenAIResponse.class);
+    }
+
+    @Benchmark
+    public int codecWriteRequest() {
+        buffer.reset();
+        codec.writeRequest(request, buffer);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public OpenAIResponse codecReadResponse() {
+        return codec.readResponse(responseJson);
+    }
+}
@@ -0,0 +1,93 @@
+package com.digitalsanctuary.springaiclient.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Choice;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.RequestBuilder;
+
+/**
+ * Request and response payloads of representative shapes for the benchmarks.
+ */
+final class Payloads {
+
+    /**
+     * The payload shapes: a short single answer, a single answer of about 16 KB, 16 short choices, and a short answer with log probabilities.
+     */
+    enum Shape {
+        SMALL(1, 200, false), LARGE(1, 16 * 1024, false), MANY_CHOICES(16, 200, false), LOGPROBS(1, 200, true);
+
+        private final int choices;
+        private final int contentLength;
+        private final boolean logprobs;
+
+        Shape(int choices, int contentLength, boolean logprobs) {
+            this.choices = choices;
+            this.contentLength = contentLength;
+            this.logprobs = logprobs;
+        }
+    }
+
+    private Payloads() {}
+
+    static OpenAIRequest request(Shape shape) {
+        return new RequestBuilder().model("gpt-4o").outputTokens(4096).systemPrompt("You are a helpful assistant.")
+                .userMessage(text(shape.contentLength)).build();
+    }
+
+    static OpenAIResponse response(Shape shape) {
+        List<Choice> choices = new ArrayList<>(shape.choices);
+        for (int i = 0; i < shape.choices; i++) {
+            Message message = new Message();
+            message.setRole("assistant");
+            message.setContent(text(shape.contentLength));
+            Choice choice = new Choice();
+            choice.setIndex(i);
+            choice.setMessage(message);
+            choice.setFinishReason("stop");
+            if (shape.logprobs) {
+                choice.setLogprobs(logprobs(shape.contentLength / 4));
+            }
+            choices.add(choice);
+        }
+        Usage usage = new Usage();
+        usage.setPromptTokens(25);
+        usage.setCompletionTokens(shape.choices * shape.contentLength / 4);
+        usage.setTotalTokens(usage.getPromptTokens() + usage.getCompletionTokens());
+        OpenAIResponse response = new OpenAIResponse();
+        response.setId("chatcmpl-benchmark");
+        response.setObject("chat.completion");
+        response.setCreated(1_700_000_000L);
+        response.setModel("gpt-4o-2024-08-06");
+        response.setChoices(choices);
+        response.setUsage(usage);
+        response.setSystemFingerprint("fp_benchmark");
+        return response;
+    }
+
+    private static Map<String, Object> logprobs(int tokens) {
+        List<Map<String, Object>> content = new ArrayList<>(tokens);
+        for (int i = 0; i < tokens; i++) {
+            List<Map<String, Object>> top = new ArrayList<>();
+            for (int j = 0; j < 5; j++) {
+                top.add(Map.of("token", "tok" + j, "logprob", -0.1 * j, "bytes", List.of(116, 111, 107)));
+            }
+            content.add(Map.of("token", "tok", "logprob", -0.01, "bytes", List.of(116, 111, 107), "top_logprobs", top));
+        }
+        return Map.of("content", content);
+    }
+
+    private static String text(int length) {
+        String words = "The quick brown fox jumps over the lazy dog, \"quoted\" and unicode éè text. ";
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            builder.append(words);
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+}
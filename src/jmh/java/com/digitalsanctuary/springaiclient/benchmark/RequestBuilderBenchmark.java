@@ -0,0 +1,22 @@
+package com.digitalsanctuary.springaiclient.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.RequestBuilder;
+
+/**
+ * Measures the cost of building a request with {@link RequestBuilder}.
+ */
+@State(Scope.Thread)
+public class RequestBuilderBenchmark {
+
+    private final String systemPrompt = "You are a helpful assistant.";
+    private final String userMessage = "Summarize the plot of Hamlet in three sentences.";
+
+    @Benchmark
+    public OpenAIRequest build() {
+        return new RequestBuilder().model("gpt-4o").outputTokens(4096).systemPrompt(systemPrompt).userMessage(userMessage).build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.digitalsanctuary.springaiclient.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIService;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.OpenAIStubServer;
+
+/**
+ * Measures the full {@link OpenAIService#sendRequest(OpenAIRequest)} path, including the HTTP exchange, against the {@link OpenAIStubServer}
+ * on the loopback interface. The stub answers without latency, so the result is the per-call overhead of the client.
+ */
+@State(Scope.Benchmark)
+public class SendRequestBenchmark {
+
+    @Param({"SMALL", "LARGE"})
+    private Payloads.Shape shape;
+
+    private OpenAIStubServer server;
+    private OpenAIService service;
+    private OpenAIRequest request;
+
+    @Setup
+    public void setUp() {
+        server = OpenAIStubServer.start().content(Payloads.response(shape).getChoices().get(0).getMessage().getContent());
+        service = server.createService(server.properties());
+        request = Payloads.request(shape);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public OpenAIResponse sendRequest() {
+        return service.sendRequest(request);
+    }
+}
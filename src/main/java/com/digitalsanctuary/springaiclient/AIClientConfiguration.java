@@ -3,8 +3,14 @@ package com.digitalsanctuary.springaiclient;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.config.AnthropicConfig;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.config.AnthropicConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.failover.config.FailoverConfig;
+import com.digitalsanctuary.springaiclient.adapters.failover.config.FailoverConfigProperties;
 import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfig;
 import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIMetricsConfig;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.ReactiveOpenAIConfig;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 
@@ -12,7 +18,13 @@ import lombok.extern.slf4j.Slf4j;
  * A configuration class for the Spring AI Client.
  * <p>
  * This class is responsible for configuring the necessary components and dependencies required by the client. It imports the
- * {@link com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfig} class.
+ * {@link com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfig} class, and the
+ * {@link com.digitalsanctuary.springaiclient.adapters.openai.config.ReactiveOpenAIConfig} class which is only active when Spring WebFlux is present.
+ * The {@link com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIMetricsConfig} class records request metrics when a Micrometer
+ * {@code MeterRegistry} is available, so this configuration runs after the Micrometer auto-configuration. The
+ * {@link com.digitalsanctuary.springaiclient.adapters.anthropic.config.AnthropicConfig} and
+ * {@link com.digitalsanctuary.springaiclient.adapters.failover.config.FailoverConfig} classes create the Anthropic adapter and the failover service
+ * over all providers when they are enabled.
  * </p>
  * <p>
  * The {@link #onStartup()} method is annotated with {@link jakarta.annotation.PostConstruct} and is executed after the bean initialization. It logs a
@@ -21,8 +33,10 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 @Configuration
-@AutoConfiguration
-@Import({OpenAIConfigProperties.class, OpenAIConfig.class})
+@AutoConfiguration(afterName = {"org.springframework.boot.micrometer.metrics.autoconfigure.MetricsAutoConfiguration",
+        "org.springframework.boot.micrometer.metrics.autoconfigure.CompositeMeterRegistryAutoConfiguration"})
+@Import({OpenAIConfigProperties.class, OpenAIConfig.class, ReactiveOpenAIConfig.class, OpenAIMetricsConfig.class, AnthropicConfigProperties.class,
+        AnthropicConfig.class, FailoverConfigProperties.class, FailoverConfig.class})
 public class AIClientConfiguration {
 
     /**
@@ -0,0 +1,69 @@
+package com.digitalsanctuary.springaiclient.adapters;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when an AI provider cannot serve a request.
+ * <p>
+ * Transient failures are about the provider rather than the request: rate limits, overload, server errors, timeouts and connection failures. The
+ * same request may succeed later or with another provider, which is what
+ * {@link com.digitalsanctuary.springaiclient.adapters.failover.FailoverAIService} relies on. Other failures, such as an invalid request or API key,
+ * are not transient.
+ * </p>
+ */
+public class AIServiceException extends RuntimeException {
+
+    private final boolean transientFailure;
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new AIServiceException for a failure that is not transient.
+     *
+     * @param message the detail message
+     */
+    public AIServiceException(String message) {
+        this(message, false, null, null);
+    }
+
+    /**
+     * Constructs a new AIServiceException for a failure that is not transient, with the specified cause.
+     *
+     * @param message the detail message
+     * @param cause the cause of the exception
+     */
+    public AIServiceException(String message, Throwable cause) {
+        this(message, false, null, cause);
+    }
+
+    /**
+     * Constructs a new AIServiceException.
+     *
+     * @param message the detail message
+     * @param transientFailure whether the request may succeed later or with another provider
+     * @param retryAfter the time after which the provider may accept requests again, or null if unknown
+     * @param cause the cause of the exception, or null
+     */
+    public AIServiceException(String message, boolean transientFailure, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.transientFailure = transientFailure;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns whether the failure is about the provider rather than the request, so the request may succeed later or with another provider.
+     *
+     * @return true for rate limits, overload, server errors, timeouts and connection failures
+     */
+    public boolean isTransient() {
+        return transientFailure;
+    }
+
+    /**
+     * Returns the time after which the provider may accept requests again, such as the delay requested with a rate limit.
+     *
+     * @return the delay, or null if unknown
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -1,33 +1,103 @@
 package com.digitalsanctuary.springaiclient.adapters;
 
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatMessage;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatRequest;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatResponse;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatStreamListener;
+
 /**
  * Abstract base class for AI service implementations.
  * <p>
- * This class serves as the foundation for all AI service implementations in the library.
- * It defines the common contract and shared functionality across different AI providers
- * such as OpenAI, Anthropic, Google, etc.
+ * This class defines the contract shared by every AI provider: a chat call and a streaming chat call on the provider-neutral {@link ChatRequest},
+ * answered with a {@link ChatResponse}, and failures reported as {@link AIServiceException}s telling whether another provider may serve the
+ * request. Code written against this class can switch providers through configuration, and
+ * {@link com.digitalsanctuary.springaiclient.adapters.failover.FailoverAIService} can spread requests over several providers and fail over between
+ * them.
  * </p>
  * <p>
- * Implementing classes should extend this abstract class and provide the specific
- * logic for interacting with their respective AI providers. This ensures a consistent
- * interface for consumers of the library while allowing provider-specific implementation
- * details.
+ * Implementing classes provide {@link #doChat(ChatRequest)} and {@link #doStreamChat(ChatRequest, ChatStreamListener)}, translating the request
+ * into their provider's API, and are free to offer their provider's full API besides.
  * </p>
  * <p>
  * Currently, the library includes the following implementations:
  * <ul>
- *   <li>OpenAIService - For interacting with OpenAI's models</li>
+ *   <li>OpenAIService - For OpenAI's models, and OpenAI-compatible servers such as vLLM, Ollama or LM Studio through
+ *   {@code ds.ai.openai.api-endpoint}</li>
+ *   <li>AnthropicService - For Claude models through the Anthropic Messages API</li>
+ *   <li>FailoverAIService - Routing requests over the other providers by health and latency</li>
  * </ul>
  * <p>
  * Future implementations may include:
  * <ul>
- *   <li>AnthropicService - For Claude and other Anthropic models</li>
  *   <li>GeminiService - For Google's Gemini models</li>
  *   <li>MistralService - For Mistral AI models</li>
  * </ul>
  *
  * @see com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIService
+ * @see com.digitalsanctuary.springaiclient.adapters.anthropic.service.AnthropicService
  */
 public abstract class AbstractAIService {
-    // Common functionality for AI services can be added here
+
+    /**
+     * Returns the name of the provider, used in configuration and reported in {@link ChatResponse#getProvider()}.
+     *
+     * @return the provider name, such as {@code openai}
+     */
+    public abstract String getProviderName();
+
+    /**
+     * Sends a chat request and waits for the complete reply.
+     *
+     * @param request the request
+     * @return the reply
+     * @throws IllegalArgumentException if the request has no user or assistant message
+     * @throws AIServiceException if the provider cannot serve the request
+     */
+    public ChatResponse chat(ChatRequest request) {
+        validate(request);
+        return doChat(request);
+    }
+
+    /**
+     * Sends a chat request, passing the text of the reply to the listener as it is generated.
+     *
+     * @param request the request
+     * @param listener the callback receiving the generated text
+     * @return the reply, with its full content
+     * @throws IllegalArgumentException if the request has no user or assistant message
+     * @throws AIServiceException if the provider cannot serve the request or the listener fails
+     */
+    public ChatResponse streamChat(ChatRequest request, ChatStreamListener listener) {
+        validate(request);
+        return doStreamChat(request, listener);
+    }
+
+    /**
+     * Sends a validated chat request to the provider.
+     *
+     * @param request the request
+     * @return the reply
+     */
+    protected abstract ChatResponse doChat(ChatRequest request);
+
+    /**
+     * Sends a validated chat request to the provider in streaming mode.
+     *
+     * @param request the request
+     * @param listener the callback receiving the generated text
+     * @return the reply, with its full content
+     */
+    protected abstract ChatResponse doStreamChat(ChatRequest request, ChatStreamListener listener);
+
+    private static void validate(ChatRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Request cannot be null");
+        }
+        for (ChatMessage message : request.getMessages()) {
+            if (message.getRole() != ChatMessage.Role.SYSTEM) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Request must contain a user or assistant message");
+    }
 }
@@ -0,0 +1,72 @@
+package com.digitalsanctuary.springaiclient.adapters.anthropic.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.service.AnthropicService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuration class for setting up the Anthropic adapter when {@code ds.ai.anthropic.enabled} is set.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class AnthropicConfig {
+
+    /**
+     * The name of the header carrying the API key.
+     */
+    static final String API_KEY_HEADER = "x-api-key";
+
+    /**
+     * The name of the header carrying the API version.
+     */
+    static final String API_VERSION_HEADER = "anthropic-version";
+
+    /**
+     * The Anthropic configuration properties.
+     */
+    private final AnthropicConfigProperties properties;
+
+    /**
+     * Creates the REST client for the Anthropic Messages API.
+     * <p>
+     * The client is configured with the API endpoint, key and version, and uses the HTTP transport configured through the {@code ds.ai.openai.http}
+     * properties.
+     * </p>
+     *
+     * @param openAIClientHttpRequestFactory the HTTP request factory for the configured transport
+     * @return an instance of {@link RestClient}
+     */
+    @Bean(name = "anthropicRestClient")
+    @ConditionalOnProperty(prefix = "ds.ai.anthropic", name = "enabled", havingValue = "true")
+    public RestClient anthropicRestClient(@Qualifier("openAIClientHttpRequestFactory") ClientHttpRequestFactory openAIClientHttpRequestFactory) {
+        log.info("Creating Anthropic REST client with endpoint: {}", properties.getApiEndpoint());
+        return RestClient.builder().baseUrl(properties.getApiEndpoint()).requestFactory(openAIClientHttpRequestFactory)
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE).defaultHeader(API_KEY_HEADER, properties.getApiKey())
+                .defaultHeader(API_VERSION_HEADER, properties.getApiVersion()).build();
+    }
+
+    /**
+     * Creates the Anthropic service.
+     *
+     * @param anthropicRestClient the REST client for the Anthropic Messages API
+     * @return the Anthropic service
+     */
+    @Bean(name = "anthropicService")
+    @ConditionalOnMissingBean(AnthropicService.class)
+    @ConditionalOnProperty(prefix = "ds.ai.anthropic", name = "enabled", havingValue = "true")
+    public AnthropicService anthropicService(@Qualifier("anthropicRestClient") RestClient anthropicRestClient) {
+        log.info("Creating Anthropic service with model: {}", properties.getModel());
+        return new AnthropicService(anthropicRestClient, properties);
+    }
+}
@@ -0,0 +1,70 @@
+package com.digitalsanctuary.springaiclient.adapters.anthropic.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+/**
+ * Configuration properties for Anthropic integration.
+ * <p>
+ * The properties are loaded from application configuration files with the prefix "ds.ai.anthropic". The Anthropic adapter is only created when
+ * enabled, for example in YAML:
+ * </p>
+ * <pre>
+ * ds:
+ *   ai:
+ *     anthropic:
+ *       enabled: true
+ *       api-key: ${ANTHROPIC_API_KEY}
+ *       api-endpoint: https://api.anthropic.com/v1/messages
+ *       api-version: "2023-06-01"
+ *       model: claude-sonnet-4-5
+ *       output-tokens: 4096
+ *       system-prompt: "You are a helpful assistant."
+ * </pre>
+ * <p>
+ * Requests are sent through the HTTP transport configured with the {@code ds.ai.openai.http} properties.
+ * </p>
+ */
+@Data
+@Component
+@PropertySource("classpath:config/dsspringaiconfig.properties")
+@ConfigurationProperties(prefix = "ds.ai.anthropic")
+public class AnthropicConfigProperties {
+
+    /**
+     * Whether the Anthropic adapter is created.
+     */
+    private boolean enabled;
+
+    /**
+     * The API key for authenticating with the Anthropic API, sent in the {@code x-api-key} header.
+     */
+    private String apiKey;
+
+    /**
+     * The endpoint URL of the Messages API.
+     */
+    private String apiEndpoint;
+
+    /**
+     * The API version, sent in the {@code anthropic-version} header.
+     */
+    private String apiVersion;
+
+    /**
+     * The model used when a request does not name one.
+     */
+    private String model;
+
+    /**
+     * The maximum number of tokens generated when a request does not set one.
+     */
+    private int outputTokens;
+
+    /**
+     * The system prompt used when a request has no system message.
+     */
+    private String systemPrompt;
+}
@@ -0,0 +1,23 @@
+package com.digitalsanctuary.springaiclient.adapters.anthropic.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a content block of an Anthropic response.
+ */
+@Data
+public class AnthropicContent {
+
+    /**
+     * The type of the block, such as {@code text}.
+     */
+    @JsonProperty("type")
+    private String type;
+
+    /**
+     * The text of a {@code text} block.
+     */
+    @JsonProperty("text")
+    private String text;
+}
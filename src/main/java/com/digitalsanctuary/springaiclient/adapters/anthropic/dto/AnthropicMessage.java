@@ -0,0 +1,23 @@
+package com.digitalsanctuary.springaiclient.adapters.anthropic.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a message of the conversation sent to the Anthropic Messages API.
+ */
+@Data
+public class AnthropicMessage {
+
+    /**
+     * The author of the message: {@code user} or {@code assistant}.
+     */
+    @JsonProperty("role")
+    private String role;
+
+    /**
+     * The text of the message.
+     */
+    @JsonProperty("content")
+    private String content;
+}
@@ -0,0 +1,51 @@
+package com.digitalsanctuary.springaiclient.adapters.anthropic.dto;
+
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a request to the Anthropic Messages API.
+ * <p>
+ * Unlike the OpenAI chat completions API, the system prompt is a top-level field rather than a message, and the conversation alternates between
+ * {@code user} and {@code assistant} messages, starting with a user message.
+ * </p>
+ *
+ * @see com.digitalsanctuary.springaiclient.adapters.anthropic.service.AnthropicService
+ */
+@Data
+public class AnthropicRequest {
+
+    /**
+     * The model to be used for generating responses.
+     */
+    @JsonProperty("model")
+    private String model;
+
+    /**
+     * The maximum number of tokens to be generated in the response. Required by the API.
+     */
+    @JsonProperty("max_tokens")
+    private int maxTokens;
+
+    /**
+     * The system prompt, or null for none.
+     */
+    @JsonProperty("system")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String system;
+
+    /**
+     * The conversation, starting with a user message.
+     */
+    @JsonProperty("messages")
+    private List<AnthropicMessage> messages;
+
+    /**
+     * Whether the response is streamed as server-sent events. Omitted from the request when null.
+     */
+    @JsonProperty("stream")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean stream;
+}
@@ -0,0 +1,75 @@
+package com.digitalsanctuary.springaiclient.adapters.anthropic.dto;
+
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a response from the Anthropic Messages API.
+ */
+@Data
+public class AnthropicResponse {
+
+    /**
+     * The unique identifier for the response.
+     */
+    @JsonProperty("id")
+    private String id;
+
+    /**
+     * The type of object returned, {@code message}.
+     */
+    @JsonProperty("type")
+    private String type;
+
+    /**
+     * The author of the response, {@code assistant}.
+     */
+    @JsonProperty("role")
+    private String role;
+
+    /**
+     * The model used to generate the response.
+     */
+    @JsonProperty("model")
+    private String model;
+
+    /**
+     * The content blocks generated by the model.
+     */
+    @JsonProperty("content")
+    private List<AnthropicContent> content;
+
+    /**
+     * Why generation ended, such as {@code end_turn}, {@code max_tokens} or {@code stop_sequence}.
+     */
+    @JsonProperty("stop_reason")
+    private String stopReason;
+
+    /**
+     * The usage details of the API request.
+     */
+    @JsonProperty("usage")
+    private AnthropicUsage usage;
+
+    /**
+     * Gets the text of the response.
+     * <p>
+     * This is a helper method joining the text of every {@code text} content block.
+     * </p>
+     *
+     * @return the text of the response, or null if there is no text block
+     */
+    public String getText() {
+        if (content == null) {
+            return null;
+        }
+        StringBuilder text = null;
+        for (AnthropicContent block : content) {
+            if ("text".equals(block.getType()) && block.getText() != null) {
+                text = text == null ? new StringBuilder(block.getText()) : text.append(block.getText());
+            }
+        }
+        return text == null ? null : text.toString();
+    }
+}
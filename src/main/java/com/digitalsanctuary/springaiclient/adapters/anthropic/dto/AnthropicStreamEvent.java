@@ -0,0 +1,96 @@
+package com.digitalsanctuary.springaiclient.adapters.anthropic.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a server-sent event of a streamed Anthropic response.
+ * <p>
+ * A stream starts with a {@code message_start} event carrying the response metadata, followed by {@code content_block_delta} events carrying the
+ * generated text, a {@code message_delta} event carrying the stop reason and output tokens, and a {@code message_stop} event. A failure after the
+ * stream has started is reported as an {@code error} event. Only the fields of the event's type are set.
+ * </p>
+ */
+@Data
+public class AnthropicStreamEvent {
+
+    /**
+     * The type of the event.
+     */
+    @JsonProperty("type")
+    private String type;
+
+    /**
+     * The response metadata, in {@code message_start} events.
+     */
+    @JsonProperty("message")
+    private AnthropicResponse message;
+
+    /**
+     * The index of the content block, in content block events.
+     */
+    @JsonProperty("index")
+    private int index;
+
+    /**
+     * The increment, in {@code content_block_delta} and {@code message_delta} events.
+     */
+    @JsonProperty("delta")
+    private Delta delta;
+
+    /**
+     * The cumulative usage, in {@code message_delta} events.
+     */
+    @JsonProperty("usage")
+    private AnthropicUsage usage;
+
+    /**
+     * The failure, in {@code error} events.
+     */
+    @JsonProperty("error")
+    private StreamError error;
+
+    /**
+     * The increment carried by a delta event.
+     */
+    @Data
+    public static class Delta {
+
+        /**
+         * The type of a content block delta, such as {@code text_delta}.
+         */
+        @JsonProperty("type")
+        private String type;
+
+        /**
+         * The text generated, in {@code text_delta} increments.
+         */
+        @JsonProperty("text")
+        private String text;
+
+        /**
+         * Why generation ended, in {@code message_delta} events.
+         */
+        @JsonProperty("stop_reason")
+        private String stopReason;
+    }
+
+    /**
+     * The failure carried by an {@code error} event.
+     */
+    @Data
+    public static class StreamError {
+
+        /**
+         * The type of the failure, such as {@code overloaded_error}.
+         */
+        @JsonProperty("type")
+        private String type;
+
+        /**
+         * The description of the failure.
+         */
+        @JsonProperty("message")
+        private String message;
+    }
+}
@@ -0,0 +1,27 @@
+package com.digitalsanctuary.springaiclient.adapters.anthropic.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents the token usage reported by the Anthropic Messages API.
+ * <p>
+ * In a streamed response, the input tokens are reported in the {@code message_start} event and the output tokens, cumulatively, in the
+ * {@code message_delta} events.
+ * </p>
+ */
+@Data
+public class AnthropicUsage {
+
+    /**
+     * The number of tokens in the prompt.
+     */
+    @JsonProperty("input_tokens")
+    private int inputTokens;
+
+    /**
+     * The number of tokens generated.
+     */
+    @JsonProperty("output_tokens")
+    private int outputTokens;
+}
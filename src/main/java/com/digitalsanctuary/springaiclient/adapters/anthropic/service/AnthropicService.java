@@ -0,0 +1,235 @@
+package com.digitalsanctuary.springaiclient.adapters.anthropic.service;
+
+import java.io.InterruptedIOException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.springaiclient.adapters.AIServiceException;
+import com.digitalsanctuary.springaiclient.adapters.AbstractAIService;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.config.AnthropicConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.dto.AnthropicMessage;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.dto.AnthropicRequest;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.dto.AnthropicResponse;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.dto.AnthropicStreamEvent;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.dto.AnthropicUsage;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatMessage;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatRequest;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatResponse;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatStreamListener;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import com.digitalsanctuary.springaiclient.adapters.support.RateLimitHeaders;
+import com.digitalsanctuary.springaiclient.adapters.support.SseEventReader;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service for interacting with the Anthropic Messages API.
+ * <p>
+ * The service serves provider-neutral {@link ChatRequest}s, in JSON or streaming mode, and raw {@link AnthropicRequest}s through
+ * {@link #sendRequest(AnthropicRequest)}. System messages are sent as the top-level system prompt, joined with blank lines, and the configured
+ * system prompt is used when a request has none. Stop reasons are reported as {@link ChatResponse#FINISH_STOP} for {@code end_turn} and
+ * {@code stop_sequence}, and {@link ChatResponse#FINISH_LENGTH} for {@code max_tokens}.
+ * </p>
+ * <p>
+ * Failures are reported as {@link AIServiceException}s: rate limits (429, with the {@code retry-after} delay), overload (529), server errors,
+ * timeouts and connection failures are transient, other HTTP errors are not. Requests are not retried; combine the service with
+ * {@link com.digitalsanctuary.springaiclient.adapters.failover.FailoverAIService} to move failed requests to another provider.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * ChatResponse response = anthropicService.chat(new ChatRequest().user("Tell me a joke"));
+ * }
+ * </pre>
+ */
+@Slf4j
+public class AnthropicService extends AbstractAIService {
+
+    /**
+     * The provider name of this service, as returned by {@link #getProviderName()}.
+     */
+    public static final String PROVIDER_NAME = "anthropic";
+
+    private final RestClient anthropicRestClient;
+    private final AnthropicConfigProperties properties;
+
+    /**
+     * Constructor for AnthropicService.
+     *
+     * @param anthropicRestClient the RestClient for the Messages API, with the API key and version headers
+     * @param properties the Anthropic configuration properties
+     */
+    public AnthropicService(RestClient anthropicRestClient, AnthropicConfigProperties properties) {
+        this.anthropicRestClient = anthropicRestClient;
+        this.properties = properties;
+    }
+
+    @Override
+    public String getProviderName() {
+        return PROVIDER_NAME;
+    }
+
+    /**
+     * Sends a request to the Messages API.
+     *
+     * @param request the Anthropic request
+     * @return the response
+     * @throws AIServiceException if there is an error communicating with the Anthropic API
+     */
+    public AnthropicResponse sendRequest(AnthropicRequest request) {
+        log.debug("Sending request to Anthropic with model: {}", request.getModel());
+        try {
+            AnthropicResponse response = anthropicRestClient.post().body(request).retrieve().body(AnthropicResponse.class);
+            if (response == null) {
+                throw new AIServiceException("Received an empty response from Anthropic");
+            }
+            return response;
+        } catch (HttpStatusCodeException e) {
+            throw statusFailure(e.getStatusCode().value(), e.getResponseHeaders(), e);
+        } catch (AIServiceException e) {
+            throw e;
+        } catch (ResourceAccessException e) {
+            throw accessFailure(e);
+        } catch (Exception e) {
+            log.error("Error occurred while communicating with Anthropic: {}", e.getMessage(), e);
+            throw new AIServiceException("Failed to communicate with Anthropic", e);
+        }
+    }
+
+    @Override
+    protected ChatResponse doChat(ChatRequest request) {
+        AnthropicResponse response = sendRequest(toAnthropicRequest(request, null));
+        AnthropicUsage usage = response.getUsage();
+        return new ChatResponse(PROVIDER_NAME, response.getModel(), response.getText(), finishReason(response.getStopReason()),
+                usage == null ? 0 : usage.getInputTokens(), usage == null ? 0 : usage.getOutputTokens());
+    }
+
+    @Override
+    protected ChatResponse doStreamChat(ChatRequest request, ChatStreamListener listener) {
+        AnthropicRequest streamingRequest = toAnthropicRequest(request, Boolean.TRUE);
+        log.debug("Sending streaming request to Anthropic with model: {}", streamingRequest.getModel());
+        try {
+            return anthropicRestClient.post().accept(MediaType.TEXT_EVENT_STREAM).body(streamingRequest).exchange((clientRequest, clientResponse) -> {
+                if (clientResponse.getStatusCode().isError()) {
+                    throw statusFailure(clientResponse.getStatusCode().value(), clientResponse.getHeaders(), null);
+                }
+                String model = streamingRequest.getModel();
+                StringBuilder content = new StringBuilder();
+                String stopReason = null;
+                int inputTokens = 0;
+                int outputTokens = 0;
+                SseEventReader events = new SseEventReader(clientResponse.getBody());
+                String data;
+                while ((data = events.next()) != null) {
+                    AnthropicStreamEvent event = ProviderJson.mapper().readValue(data, AnthropicStreamEvent.class);
+                    switch (String.valueOf(event.getType())) {
+                        case "message_start":
+                            if (event.getMessage() != null) {
+                                model = event.getMessage().getModel();
+                                inputTokens = event.getMessage().getUsage() == null ? 0 : event.getMessage().getUsage().getInputTokens();
+                            }
+                            break;
+                        case "content_block_delta":
+                            String text = event.getDelta() == null ? null : event.getDelta().getText();
+                            if (text != null && !text.isEmpty()) {
+                                content.append(text);
+                                listener.onDelta(text);
+                            }
+                            break;
+                        case "message_delta":
+                            if (event.getDelta() != null && event.getDelta().getStopReason() != null) {
+                                stopReason = event.getDelta().getStopReason();
+                            }
+                            if (event.getUsage() != null) {
+                                outputTokens = event.getUsage().getOutputTokens();
+                            }
+                            break;
+                        case "error":
+                            throw streamFailure(event.getError());
+                        default:
+                            break;
+                    }
+                }
+                return new ChatResponse(PROVIDER_NAME, model, content.toString(), finishReason(stopReason), inputTokens, outputTokens);
+            });
+        } catch (AIServiceException e) {
+            log.error("Error occurred while streaming from Anthropic: {}", e.getMessage());
+            throw e;
+        } catch (ResourceAccessException e) {
+            throw accessFailure(e);
+        } catch (Exception e) {
+            log.error("Error occurred while streaming from Anthropic: {}", e.getMessage(), e);
+            throw new AIServiceException("Failed to communicate with Anthropic", e);
+        }
+    }
+
+    /**
+     * Translates a provider-neutral request, filling in the configured model, output tokens and, without a system message, system prompt.
+     */
+    AnthropicRequest toAnthropicRequest(ChatRequest chatRequest, Boolean stream) {
+        List<String> system = new ArrayList<>();
+        List<AnthropicMessage> messages = new ArrayList<>();
+        for (ChatMessage chatMessage : chatRequest.getMessages()) {
+            if (chatMessage.getRole() == ChatMessage.Role.SYSTEM) {
+                system.add(chatMessage.getContent());
+            } else {
+                AnthropicMessage message = new AnthropicMessage();
+                message.setRole(chatMessage.getRole().name().toLowerCase(Locale.ROOT));
+                message.setContent(chatMessage.getContent());
+                messages.add(message);
+            }
+        }
+        AnthropicRequest request = new AnthropicRequest();
+        request.setModel(chatRequest.getModel() != null ? chatRequest.getModel() : properties.getModel());
+        request.setMaxTokens(chatRequest.getMaxTokens() > 0 ? chatRequest.getMaxTokens() : properties.getOutputTokens());
+        request.setSystem(system.isEmpty() ? properties.getSystemPrompt() : String.join("\n\n", system));
+        request.setMessages(messages);
+        request.setStream(stream);
+        return request;
+    }
+
+    private static String finishReason(String stopReason) {
+        if ("end_turn".equals(stopReason) || "stop_sequence".equals(stopReason)) {
+            return ChatResponse.FINISH_STOP;
+        }
+        return "max_tokens".equals(stopReason) ? ChatResponse.FINISH_LENGTH : stopReason;
+    }
+
+    /**
+     * Translates an HTTP error status: rate limits, overload and server errors are transient.
+     */
+    private static AIServiceException statusFailure(int status, HttpHeaders headers, Throwable cause) {
+        if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            log.error("Anthropic rate limit exceeded");
+            return new AIServiceException("Anthropic rate limit exceeded", true, RateLimitHeaders.retryAfter(headers), cause);
+        }
+        log.error("Anthropic returned HTTP status {}", status);
+        return new AIServiceException("Anthropic returned HTTP status " + status, status >= 500, null, cause);
+    }
+
+    private static AIServiceException accessFailure(ResourceAccessException e) {
+        if (e.getCause() instanceof HttpTimeoutException || e.getCause() instanceof InterruptedIOException) {
+            log.error("Timed out communicating with Anthropic: {}", e.getMessage());
+            return new AIServiceException("Timed out communicating with Anthropic", true, null, e);
+        }
+        log.error("Error occurred while communicating with Anthropic: {}", e.getMessage(), e);
+        return new AIServiceException("Failed to communicate with Anthropic", true, null, e);
+    }
+
+    /**
+     * Translates an error event received after the stream started: overload and internal errors are transient.
+     */
+    private static AIServiceException streamFailure(AnthropicStreamEvent.StreamError error) {
+        String type = error == null ? null : error.getType();
+        String message = error == null ? null : error.getMessage();
+        boolean transientFailure = "overloaded_error".equals(type) || "api_error".equals(type) || "rate_limit_error".equals(type);
+        return new AIServiceException("Anthropic stream failed with " + type + ": " + message, transientFailure, null, null);
+    }
+}
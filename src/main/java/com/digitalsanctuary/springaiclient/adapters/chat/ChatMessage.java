@@ -0,0 +1,32 @@
+package com.digitalsanctuary.springaiclient.adapters.chat;
+
+import lombok.Value;
+
+/**
+ * A message of a provider-neutral {@link ChatRequest}.
+ */
+@Value
+public class ChatMessage {
+
+    /**
+     * The author of a message.
+     */
+    public enum Role {
+        /** Instructions for the model. */
+        SYSTEM,
+        /** A message from the user. */
+        USER,
+        /** A previous reply of the model. */
+        ASSISTANT
+    }
+
+    /**
+     * The author of the message.
+     */
+    Role role;
+
+    /**
+     * The text of the message.
+     */
+    String content;
+}
@@ -0,0 +1,132 @@
+package com.digitalsanctuary.springaiclient.adapters.chat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A chat request understood by every {@link com.digitalsanctuary.springaiclient.adapters.AbstractAIService}, and translated by each provider into
+ * its own API.
+ * <p>
+ * Requests are built through chained methods, for example:
+ * <pre>
+ * {@code
+ * ChatResponse response = aiService.chat(new ChatRequest().system("You only tell jokes about birds").user("Tell me a joke."));
+ * }
+ * </pre>
+ * <p>
+ * Settings left unset are taken from the configuration of the provider serving the request: its default model, output tokens and, when the request
+ * has no system message, its system prompt. Model names differ between providers, so requests that may fail over from one provider to another
+ * should leave the model unset.
+ * </p>
+ */
+public class ChatRequest {
+
+    private final List<ChatMessage> messages = new ArrayList<>();
+    private String model;
+    private int maxTokens;
+
+    /**
+     * Adds a system message.
+     *
+     * @param content the instructions for the model
+     * @return the current instance of {@code ChatRequest} for method chaining.
+     */
+    public ChatRequest system(String content) {
+        return message(new ChatMessage(ChatMessage.Role.SYSTEM, content));
+    }
+
+    /**
+     * Adds a user message.
+     *
+     * @param content the message from the user
+     * @return the current instance of {@code ChatRequest} for method chaining.
+     */
+    public ChatRequest user(String content) {
+        return message(new ChatMessage(ChatMessage.Role.USER, content));
+    }
+
+    /**
+     * Adds a previous reply of the model, to continue a conversation.
+     *
+     * @param content the reply of the model
+     * @return the current instance of {@code ChatRequest} for method chaining.
+     */
+    public ChatRequest assistant(String content) {
+        return message(new ChatMessage(ChatMessage.Role.ASSISTANT, content));
+    }
+
+    /**
+     * Adds a message.
+     *
+     * @param message the message
+     * @return the current instance of {@code ChatRequest} for method chaining.
+     */
+    public ChatRequest message(ChatMessage message) {
+        messages.add(message);
+        return this;
+    }
+
+    /**
+     * Sets the model, overriding the default model of the provider.
+     *
+     * @param model the provider-specific model name, or null for the provider's default
+     * @return the current instance of {@code ChatRequest} for method chaining.
+     */
+    public ChatRequest model(String model) {
+        this.model = model;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of tokens to generate, overriding the output tokens configured for the provider.
+     *
+     * @param maxTokens the maximum output tokens, or 0 for the provider's default
+     * @return the current instance of {@code ChatRequest} for method chaining.
+     */
+    public ChatRequest maxTokens(int maxTokens) {
+        this.maxTokens = maxTokens;
+        return this;
+    }
+
+    /**
+     * Returns the messages, in order.
+     *
+     * @return the messages
+     */
+    public List<ChatMessage> getMessages() {
+        return Collections.unmodifiableList(messages);
+    }
+
+    /**
+     * Returns whether the request has a system message.
+     *
+     * @return true if a system message was added
+     */
+    public boolean hasSystemMessage() {
+        for (ChatMessage message : messages) {
+            if (message.getRole() == ChatMessage.Role.SYSTEM) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the model.
+     *
+     * @return the model, or null for the provider's default
+     */
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the maximum number of tokens to generate.
+     *
+     * @return the maximum output tokens, or 0 for the provider's default
+     */
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+}
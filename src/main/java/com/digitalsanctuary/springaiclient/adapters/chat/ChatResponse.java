@@ -0,0 +1,51 @@
+package com.digitalsanctuary.springaiclient.adapters.chat;
+
+import lombok.Value;
+
+/**
+ * The reply to a {@link ChatRequest}, in the same form whichever provider served it.
+ */
+@Value
+public class ChatResponse {
+
+    /**
+     * The finish reason of a reply that ended naturally or at a stop sequence.
+     */
+    public static final String FINISH_STOP = "stop";
+
+    /**
+     * The finish reason of a reply cut off at the maximum number of tokens.
+     */
+    public static final String FINISH_LENGTH = "length";
+
+    /**
+     * The name of the provider that served the request, as returned by
+     * {@link com.digitalsanctuary.springaiclient.adapters.AbstractAIService#getProviderName()}.
+     */
+    String provider;
+
+    /**
+     * The model that generated the reply, as reported by the provider.
+     */
+    String model;
+
+    /**
+     * The generated text.
+     */
+    String content;
+
+    /**
+     * Why generation ended: {@link #FINISH_STOP}, {@link #FINISH_LENGTH}, or the provider's own reason for other endings. Null if not reported.
+     */
+    String finishReason;
+
+    /**
+     * The number of prompt tokens billed, or 0 if not reported.
+     */
+    int promptTokens;
+
+    /**
+     * The number of generated tokens billed, or 0 if not reported.
+     */
+    int completionTokens;
+}
@@ -0,0 +1,24 @@
+package com.digitalsanctuary.springaiclient.adapters.chat;
+
+import java.io.IOException;
+
+/**
+ * Callback receiving the text of a streamed chat reply as it is generated.
+ * <p>
+ * The listener is invoked on the thread performing the request, in order. Implementations should return quickly, as the rest of the reply is not
+ * read until the callback returns.
+ * </p>
+ *
+ * @see com.digitalsanctuary.springaiclient.adapters.AbstractAIService#streamChat(ChatRequest, ChatStreamListener)
+ */
+@FunctionalInterface
+public interface ChatStreamListener {
+
+    /**
+     * Called for every piece of text received from the provider.
+     *
+     * @param content the text generated since the previous call, never empty
+     * @throws IOException if the listener fails to forward the text
+     */
+    void onDelta(String content) throws IOException;
+}
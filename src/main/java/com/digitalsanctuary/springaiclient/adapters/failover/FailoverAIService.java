@@ -0,0 +1,206 @@
+package com.digitalsanctuary.springaiclient.adapters.failover;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import com.digitalsanctuary.springaiclient.adapters.AIServiceException;
+import com.digitalsanctuary.springaiclient.adapters.AbstractAIService;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatRequest;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatResponse;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatStreamListener;
+import com.digitalsanctuary.springaiclient.adapters.failover.config.FailoverConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.support.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Routes chat requests over several AI providers by health and latency, and fails over to another provider when one cannot serve a request.
+ * <p>
+ * Each request goes to the healthy provider with the lowest expected latency: its moving average latency scaled by the requests it has in flight,
+ * so load spreads over providers of similar speed, and a provider whose average is missing or stale is probed first. Providers whose circuit
+ * breaker is open or whose error rate exceeds {@code max-error-rate} are only tried after the healthy ones. Ties keep the configured order.
+ * </p>
+ * <p>
+ * A request that fails transiently, by a rate limit, overload, server error, timeout or connection failure, moves on to the next provider; the
+ * failure of the last provider is thrown. Other failures, such as invalid requests, are thrown at once. A streamed request only fails over until the
+ * first text has been passed to the listener. The provider that served a request is reported in {@link ChatResponse#getProvider()}. Each provider
+ * keeps its own retries, so a request may be retried by its provider before failing over. The service is thread-safe.
+ * </p>
+ * <p>
+ * Model names differ between providers, so requests should leave the model unset and let each provider use its configured default.
+ * </p>
+ */
+@Slf4j
+public class FailoverAIService extends AbstractAIService {
+
+    /**
+     * The provider name of this service, as returned by {@link #getProviderName()}.
+     */
+    public static final String PROVIDER_NAME = "failover";
+
+    private final List<ProviderRoute> routes;
+    private final double maxErrorRate;
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates a failover service over the given providers.
+     *
+     * @param services the available providers
+     * @param properties the failover settings, selecting and ordering the providers
+     * @throws IllegalArgumentException if two providers have the same name, a configured provider is not available, or there is no provider
+     */
+    public FailoverAIService(List<? extends AbstractAIService> services, FailoverConfigProperties properties) {
+        this(services, properties, System::nanoTime);
+    }
+
+    /**
+     * Creates a failover service with an explicit clock.
+     */
+    FailoverAIService(List<? extends AbstractAIService> services, FailoverConfigProperties properties, LongSupplier nanoClock) {
+        this.maxErrorRate = properties.getMaxErrorRate();
+        this.nanoClock = nanoClock;
+        Map<String, AbstractAIService> available = new LinkedHashMap<>();
+        for (AbstractAIService service : services) {
+            if (available.put(service.getProviderName(), service) != null) {
+                throw new IllegalArgumentException("Provider " + service.getProviderName() + " is available more than once.");
+            }
+        }
+        List<String> names = properties.getProviders().isEmpty() ? new ArrayList<>(available.keySet()) : properties.getProviders();
+        List<ProviderRoute> configured = new ArrayList<>();
+        for (String name : names) {
+            AbstractAIService service = available.get(name);
+            if (service == null) {
+                throw new IllegalArgumentException("Provider " + name + " is not available, check that it is enabled.");
+            }
+            CircuitBreaker breaker = new CircuitBreaker(properties.getFailureThreshold(), properties.getOpenDuration(),
+                    properties.getHalfOpenProbes(), nanoClock);
+            configured.add(new ProviderRoute(service, breaker, properties.getEwmaDecay(), nanoClock));
+        }
+        if (configured.isEmpty()) {
+            throw new IllegalArgumentException("At least one provider is required.");
+        }
+        this.routes = List.copyOf(configured);
+    }
+
+    @Override
+    public String getProviderName() {
+        return PROVIDER_NAME;
+    }
+
+    @Override
+    protected ChatResponse doChat(ChatRequest request) {
+        return execute(service -> service.chat(request), () -> false);
+    }
+
+    @Override
+    protected ChatResponse doStreamChat(ChatRequest request, ChatStreamListener listener) {
+        AtomicBoolean started = new AtomicBoolean();
+        return execute(service -> service.streamChat(request, content -> {
+            started.set(true);
+            listener.onDelta(content);
+        }), started::get);
+    }
+
+    /**
+     * Sends a request through the planned providers until one serves it.
+     *
+     * @param call performs the request on one provider
+     * @param committed tells whether the failed attempt already produced output, so the request may not be repeated elsewhere
+     */
+    private ChatResponse execute(Function<AbstractAIService, ChatResponse> call, BooleanSupplier committed) {
+        List<ProviderRoute> plan = plan();
+        RuntimeException lastFailure = null;
+        for (int i = 0; i < plan.size(); i++) {
+            ProviderRoute route = plan.get(i);
+            if (!route.tryAcquire()) {
+                continue;
+            }
+            long started = nanoClock.getAsLong();
+            RuntimeException failure = null;
+            try {
+                ChatResponse response = call.apply(route.getService());
+                if (lastFailure != null) {
+                    log.info("Request failed over to provider {}", route);
+                }
+                return response;
+            } catch (RuntimeException e) {
+                failure = e;
+                if (!shouldFailOver(e) || committed.getAsBoolean()) {
+                    throw e;
+                }
+                if (i < plan.size() - 1) {
+                    log.warn("Provider {} failed with {}, failing over", route, e.getMessage());
+                }
+                lastFailure = e;
+            } finally {
+                route.complete(nanoClock.getAsLong() - started, failure);
+            }
+        }
+        if (lastFailure != null) {
+            throw lastFailure;
+        }
+        throw new AIServiceException("All providers " + plan + " are unavailable", true, null, null);
+    }
+
+    /**
+     * Plans the providers tried for a request: the healthy ones by expected latency, then the unhealthy ones, each in configured order on ties.
+     *
+     * @return the providers, in the order they are tried
+     */
+    public List<ProviderRoute> plan() {
+        int size = routes.size();
+        boolean[] healthy = new boolean[size];
+        double[] latency = new double[size];
+        List<Integer> order = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            healthy[i] = routes.get(i).isHealthy(maxErrorRate);
+            latency[i] = routes.get(i).getExpectedLatencyNanos();
+            order.add(i);
+        }
+        // Sort on a snapshot, the live values may change while sorting
+        order.sort((a, b) -> healthy[a] != healthy[b] ? (healthy[a] ? -1 : 1) : healthy[a] ? Double.compare(latency[a], latency[b]) : 0);
+        List<ProviderRoute> plan = new ArrayList<>(size);
+        for (int index : order) {
+            plan.add(routes.get(index));
+        }
+        return plan;
+    }
+
+    /**
+     * Returns whether a failure should move the request on to the next provider.
+     *
+     * @param failure the failure
+     * @return whether another provider may serve the request
+     */
+    static boolean shouldFailOver(Throwable failure) {
+        return failure instanceof AIServiceException serviceFailure && serviceFailure.isTransient();
+    }
+
+    /**
+     * Returns the route of a provider.
+     *
+     * @param providerName the provider name
+     * @return the route, or null if the provider is not routed to
+     */
+    public ProviderRoute getRoute(String providerName) {
+        for (ProviderRoute route : routes) {
+            if (route.getName().equals(providerName)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the routes of the providers, in configured order.
+     *
+     * @return the routes
+     */
+    public List<ProviderRoute> getRoutes() {
+        return routes;
+    }
+}
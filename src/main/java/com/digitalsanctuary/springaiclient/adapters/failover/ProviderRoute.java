@@ -0,0 +1,198 @@
+package com.digitalsanctuary.springaiclient.adapters.failover;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import com.digitalsanctuary.springaiclient.adapters.AIServiceException;
+import com.digitalsanctuary.springaiclient.adapters.AbstractAIService;
+import com.digitalsanctuary.springaiclient.adapters.support.CircuitBreaker;
+
+/**
+ * A provider the {@link FailoverAIService} can send requests to, with its live health.
+ * <p>
+ * A route tracks the number of requests in flight, moving averages of the latency and error rate of the requests sent to its provider, and a
+ * {@link CircuitBreaker}. Each request weighs at least a fixed share in the averages, and more after a quiet period. Averages older than the decay
+ * time are considered stale: the provider is then trusted again and expected to be fast, which lets a request probe it.
+ * </p>
+ */
+public class ProviderRoute {
+
+    /**
+     * The minimum weight of the latest request in the moving averages.
+     */
+    private static final double MIN_SAMPLE_WEIGHT = 0.2;
+
+    private final AbstractAIService service;
+    private final CircuitBreaker circuitBreaker;
+    private final double decayNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private double latencyNanos;
+    private double errorRate;
+    private long lastObserved;
+    private boolean observed;
+
+    /**
+     * Creates a route.
+     *
+     * @param service the provider
+     * @param circuitBreaker the circuit breaker
+     * @param ewmaDecay the time after which the moving averages are stale
+     * @param nanoClock the clock, usually {@code System::nanoTime}
+     */
+    public ProviderRoute(AbstractAIService service, CircuitBreaker circuitBreaker, Duration ewmaDecay, LongSupplier nanoClock) {
+        this.service = service;
+        this.circuitBreaker = circuitBreaker;
+        this.decayNanos = Math.max(1, ewmaDecay.toNanos());
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns whether the provider currently looks healthy: its circuit breaker lets requests through and, unless it is stale, its error rate is
+     * within the limit.
+     *
+     * @param maxErrorRate the error rate above which the provider is failing
+     * @return whether requests should be sent to the provider before the unhealthy ones
+     */
+    public boolean isHealthy(double maxErrorRate) {
+        if (!circuitBreaker.isAvailable()) {
+            return false;
+        }
+        synchronized (this) {
+            return isStale() || errorRate <= maxErrorRate;
+        }
+    }
+
+    /**
+     * Returns the expected latency of a new request: the moving average latency scaled by the requests already in flight, so that load spreads
+     * over providers of similar speed.
+     *
+     * @return the expected latency in nanoseconds, or 0 before the first request completes and once the average is stale
+     */
+    public synchronized double getExpectedLatencyNanos() {
+        return isStale() ? 0 : latencyNanos * (outstanding.get() + 1);
+    }
+
+    /**
+     * Asks the circuit breaker to let a request through and counts it in flight.
+     */
+    boolean tryAcquire() {
+        if (!circuitBreaker.tryAcquire()) {
+            return false;
+        }
+        outstanding.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Records the outcome of a request sent to the provider. Every successful {@link #tryAcquire()} must be followed by exactly one call to this
+     * method.
+     * <p>
+     * Transient failures with a retry delay, such as rate limits, open the circuit breaker for that delay and leave the averages unchanged. Other
+     * transient failures count as failures. Failures that are not transient, such as invalid requests, show the provider is working and count as
+     * successes. Requests cancelled by interrupting their thread are not counted.
+     * </p>
+     *
+     * @param latencyNanos the time the request took
+     * @param failure the failure, or null if the request succeeded
+     */
+    void complete(long latencyNanos, Throwable failure) {
+        outstanding.decrementAndGet();
+        if (Thread.currentThread().isInterrupted()) {
+            circuitBreaker.onIgnored();
+            return;
+        }
+        if (failure instanceof AIServiceException serviceFailure && serviceFailure.isTransient()) {
+            if (serviceFailure.getRetryAfter() != null) {
+                circuitBreaker.onRateLimited(serviceFailure.getRetryAfter());
+                return;
+            }
+            observe(latencyNanos, 1);
+            circuitBreaker.onFailure();
+            return;
+        }
+        observe(latencyNanos, 0);
+        circuitBreaker.onSuccess();
+    }
+
+    private boolean isStale() {
+        return !observed || nanoClock.getAsLong() - lastObserved >= decayNanos;
+    }
+
+    /**
+     * Folds a request into the moving averages.
+     */
+    private synchronized void observe(long latency, double error) {
+        long now = nanoClock.getAsLong();
+        if (!observed) {
+            latencyNanos = latency;
+            errorRate = error;
+            observed = true;
+        } else {
+            double weight = Math.max(MIN_SAMPLE_WEIGHT, 1 - Math.exp(-Math.max(0, now - lastObserved) / decayNanos));
+            latencyNanos += weight * (latency - latencyNanos);
+            errorRate += weight * (error - errorRate);
+        }
+        lastObserved = now;
+    }
+
+    /**
+     * Returns the provider.
+     *
+     * @return the service of the provider
+     */
+    public AbstractAIService getService() {
+        return service;
+    }
+
+    /**
+     * Returns the name of the provider.
+     *
+     * @return the provider name
+     */
+    public String getName() {
+        return service.getProviderName();
+    }
+
+    /**
+     * Returns the number of requests in flight.
+     *
+     * @return the outstanding requests
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * Returns the moving average latency of the requests to the provider.
+     *
+     * @return the latency, or zero before the first request completes
+     */
+    public synchronized Duration getLatencyEwma() {
+        return Duration.ofNanos((long) latencyNanos);
+    }
+
+    /**
+     * Returns the moving average error rate of the requests to the provider.
+     *
+     * @return the error rate between 0 and 1
+     */
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Returns the circuit breaker of the provider.
+     *
+     * @return the circuit breaker
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,49 @@
+package com.digitalsanctuary.springaiclient.adapters.failover.config;
+
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import com.digitalsanctuary.springaiclient.adapters.AbstractAIService;
+import com.digitalsanctuary.springaiclient.adapters.failover.FailoverAIService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuration class for setting up the failover service when {@code ds.ai.failover.enabled} is set.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class FailoverConfig {
+
+    /**
+     * The failover configuration properties.
+     */
+    private final FailoverConfigProperties properties;
+
+    /**
+     * Creates the failover service over every other {@link AbstractAIService} bean, or those named in {@code ds.ai.failover.providers}.
+     * <p>
+     * The service is the primary {@link AbstractAIService}, so code injecting the abstract type gets the failover service while the providers
+     * can still be injected by their own type.
+     * </p>
+     *
+     * @param services the AI service beans
+     * @return the failover service
+     * @see FailoverConfigProperties
+     */
+    @Bean(name = "failoverAIService")
+    @Primary
+    @ConditionalOnMissingBean(FailoverAIService.class)
+    @ConditionalOnProperty(prefix = "ds.ai.failover", name = "enabled", havingValue = "true")
+    public FailoverAIService failoverAIService(ObjectProvider<AbstractAIService> services) {
+        List<AbstractAIService> providers = services.orderedStream().filter(service -> !(service instanceof FailoverAIService)).toList();
+        FailoverAIService failover = new FailoverAIService(providers, properties);
+        log.info("Creating failover service over providers: {}", failover.getRoutes());
+        return failover;
+    }
+}
@@ -0,0 +1,71 @@
+package com.digitalsanctuary.springaiclient.adapters.failover.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+/**
+ * Configuration properties for routing requests over several AI providers.
+ * <p>
+ * The properties are loaded from application configuration files with the prefix "ds.ai.failover". The failover service is only created when
+ * enabled, for example in YAML:
+ * </p>
+ * <pre>
+ * ds:
+ *   ai:
+ *     anthropic:
+ *       enabled: true
+ *       api-key: ${ANTHROPIC_API_KEY}
+ *     failover:
+ *       enabled: true
+ *       providers: openai,anthropic
+ *       max-error-rate: 0.5
+ *       failure-threshold: 5
+ *       open-duration: 30s
+ * </pre>
+ */
+@Data
+@Component
+@PropertySource("classpath:config/dsspringaiconfig.properties")
+@ConfigurationProperties(prefix = "ds.ai.failover")
+public class FailoverConfigProperties {
+
+    /**
+     * Whether the failover service is created.
+     */
+    private boolean enabled;
+
+    /**
+     * The names of the providers requests are routed over, in order of preference when they look alike. Empty for every provider.
+     */
+    private List<String> providers = new ArrayList<>();
+
+    /**
+     * The moving average error rate above which a provider is only tried after the healthy ones.
+     */
+    private double maxErrorRate = 0.5;
+
+    /**
+     * The number of consecutive failures opening the circuit breaker of a provider.
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * How long an open circuit breaker rejects requests before probing the provider, unless a rate limit asked for another delay.
+     */
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    /**
+     * The number of concurrent probe requests while a circuit breaker is half-open.
+     */
+    private int halfOpenProbes = 1;
+
+    /**
+     * The time after which the moving averages of a provider are stale, so the provider is probed again.
+     */
+    private Duration ewmaDecay = Duration.ofSeconds(30);
+}
@@ -0,0 +1,118 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.admission;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIOverloadedException;
+
+/**
+ * Admission control for the calls sent to OpenAI: one {@link Bulkhead} per model or named pool of models.
+ * <p>
+ * Each configured pool gets a bulkhead shared by the models it lists; a pool without models takes every model not listed by another pool. Any
+ * other model gets a bulkhead of its own with the default concurrency and queue size. Isolating models this way keeps a flood of calls to one
+ * model from queueing up the calls to the others, and the priority queue of each bulkhead keeps background work from delaying interactive calls.
+ * </p>
+ *
+ * @see Bulkhead
+ */
+public class AdmissionController {
+
+    private static final String DEFAULT_POOL = "default";
+
+    private final OpenAIConfigProperties.Admission settings;
+    private final LongSupplier nanoClock;
+    private final Map<String, Bulkhead> poolsByModel = new HashMap<>();
+    private final Bulkhead catchAll;
+    private final ConcurrentMap<String, Bulkhead> modelBulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an admission controller from the admission configuration properties.
+     *
+     * @param settings the admission settings
+     */
+    public AdmissionController(OpenAIConfigProperties.Admission settings) {
+        this(settings, System::nanoTime);
+    }
+
+    /**
+     * Creates an admission controller with an explicit clock.
+     */
+    AdmissionController(OpenAIConfigProperties.Admission settings, LongSupplier nanoClock) {
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+        Bulkhead catchAllPool = null;
+        for (OpenAIConfigProperties.Admission.PoolSettings pool : settings.getPools()) {
+            Bulkhead bulkhead = new Bulkhead(pool.getName(), pool.getMaxConcurrency() > 0 ? pool.getMaxConcurrency() : settings.getMaxConcurrency(),
+                    pool.getMaxQueueSize() > 0 ? pool.getMaxQueueSize() : settings.getMaxQueueSize(), settings.getMaxQueueWait(),
+                    settings.getAgingInterval(), nanoClock);
+            if (pool.getModels().isEmpty()) {
+                if (catchAllPool != null) {
+                    throw new IllegalArgumentException("Only one admission pool may leave its models empty.");
+                }
+                catchAllPool = bulkhead;
+            }
+            for (String model : pool.getModels()) {
+                if (poolsByModel.put(model, bulkhead) != null) {
+                    throw new IllegalArgumentException("Model " + model + " is listed by more than one admission pool.");
+                }
+            }
+        }
+        this.catchAll = catchAllPool;
+    }
+
+    /**
+     * Waits until a call to the model can run within the limits of its bulkhead.
+     *
+     * @param model the model of the call, or null for the default pool
+     * @param priority the priority class of the call
+     * @param deadline the overall time allowed for the call, or null to bound only the queueing time
+     * @return the permit, to be closed once the call has finished
+     * @throws OpenAIOverloadedException if the call is shed
+     * @throws OpenAICommunicationException if the thread is interrupted while waiting
+     */
+    public Bulkhead.Permit acquire(String model, Priority priority, Duration deadline) {
+        return bulkhead(model).acquire(priority, deadline);
+    }
+
+    /**
+     * Returns the bulkhead admitting calls to the model.
+     *
+     * @param model the model, or null for the default pool
+     * @return the bulkhead
+     */
+    public Bulkhead bulkhead(String model) {
+        String key = model != null ? model : DEFAULT_POOL;
+        Bulkhead pool = poolsByModel.get(key);
+        if (pool != null) {
+            return pool;
+        }
+        if (catchAll != null) {
+            return catchAll;
+        }
+        return modelBulkheads.computeIfAbsent(key, name -> new Bulkhead(name, settings.getMaxConcurrency(), settings.getMaxQueueSize(),
+                settings.getMaxQueueWait(), settings.getAgingInterval(), nanoClock));
+    }
+
+    /**
+     * Returns the bulkheads created so far: those of the configured pools and those of the models called outside the pools.
+     *
+     * @return the bulkheads
+     */
+    public List<Bulkhead> getBulkheads() {
+        Set<Bulkhead> bulkheads = new LinkedHashSet<>(poolsByModel.values());
+        if (catchAll != null) {
+            bulkheads.add(catchAll);
+        }
+        bulkheads.addAll(modelBulkheads.values());
+        return new ArrayList<>(bulkheads);
+    }
+}
@@ -0,0 +1,272 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.admission;
+
+import java.time.Duration;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIOverloadedException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounds the number of concurrent calls of a pool of models, queueing the excess by priority and shedding it early under overload.
+ * <p>
+ * Up to the maximum concurrency, callers are admitted at once. Beyond it, they wait in a bounded queue ordered by a virtual start time: their
+ * arrival time plus one aging interval per {@link Priority} class below {@link Priority#INTERACTIVE}. A background request is thus overtaken by
+ * later interactive requests only until it has waited two aging intervals, and no class can starve another.
+ * </p>
+ * <p>
+ * Requests are shed with an {@link OpenAIOverloadedException} rather than queued when the queue is full, or when the expected queueing delay plus
+ * the expected call time would exceed the request's deadline: the delay is estimated from the number of requests queued ahead and a moving
+ * average of the time calls hold their permit, so a request that would time out anyway fails immediately instead of adding to the pile-up. For a
+ * request without a deadline, the maximum queue wait takes the place of the deadline minus the call time. Queued requests whose deadline or
+ * maximum wait passes are shed as well. Until the first call has finished, the call time is unknown and requests are only shed once queued.
+ * </p>
+ */
+@Slf4j
+public class Bulkhead {
+
+    /**
+     * The weight of the latest sample in the moving average of the call time.
+     */
+    private static final double SERVICE_TIME_ALPHA = 0.2;
+
+    private final String name;
+    private final int maxConcurrency;
+    private final int maxQueueSize;
+    private final long maxQueueWaitNanos;
+    private final long agingNanos;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>();
+    private final LongAdder shed = new LongAdder();
+    private int active;
+    private long sequence;
+    private double serviceNanos;
+
+    /**
+     * Creates a bulkhead.
+     *
+     * @param name the name of the pool, used in logs and exceptions
+     * @param maxConcurrency the maximum number of concurrent calls
+     * @param maxQueueSize the maximum number of queued calls
+     * @param maxQueueWait the longest a call without a deadline may be queued
+     * @param agingInterval the time a queued call waits to climb one priority class
+     */
+    public Bulkhead(String name, int maxConcurrency, int maxQueueSize, Duration maxQueueWait, Duration agingInterval) {
+        this(name, maxConcurrency, maxQueueSize, maxQueueWait, agingInterval, System::nanoTime);
+    }
+
+    /**
+     * Creates a bulkhead with an explicit clock.
+     */
+    Bulkhead(String name, int maxConcurrency, int maxQueueSize, Duration maxQueueWait, Duration agingInterval, LongSupplier nanoClock) {
+        if (maxConcurrency <= 0 || maxQueueSize < 0) {
+            throw new IllegalArgumentException("Bulkhead " + name + " needs a positive concurrency and a non-negative queue size.");
+        }
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueueSize = maxQueueSize;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+        this.agingNanos = agingInterval.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Waits until the call can run within the concurrency limit.
+     *
+     * @param priority the priority class of the call
+     * @param deadline the overall time allowed for the call, or null to bound only the queueing time by the maximum queue wait
+     * @return the permit, to be closed once the call has finished
+     * @throws OpenAIOverloadedException if the call is shed
+     * @throws OpenAICommunicationException if the thread is interrupted while waiting
+     */
+    public Permit acquire(Priority priority, Duration deadline) {
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            if (active < maxConcurrency && queue.isEmpty()) {
+                active++;
+                return new Permit(now);
+            }
+            if (queue.size() >= maxQueueSize) {
+                throw shed("queue of " + maxQueueSize + " requests is full", null);
+            }
+            Waiter waiter = new Waiter(now + priority.ordinal() * agingNanos, sequence++, lock.newCondition());
+            long expectedWait = expectedWaitNanos(waiter);
+            long waitBudget = deadline != null ? deadline.toNanos() - (long) serviceNanos : maxQueueWaitNanos;
+            if (serviceNanos > 0 && expectedWait > waitBudget) {
+                throw shed("expected wait of " + TimeUnit.NANOSECONDS.toMillis(expectedWait) + " ms exceeds the time left for queueing",
+                        expectedWait);
+            }
+            long waitUntil = now + (deadline != null ? deadline.toNanos() : maxQueueWaitNanos);
+            queue.add(waiter);
+            log.debug("Bulkhead {} queueing {} request, {} queued", name, priority, queue.size());
+            return await(waiter, waitUntil);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the name of the pool.
+     *
+     * @return the pool name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of calls holding a permit.
+     *
+     * @return the active calls
+     */
+    public int getActive() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of queued calls.
+     *
+     * @return the queued calls
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of calls shed so far.
+     *
+     * @return the shed calls
+     */
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    /**
+     * Waits for the waiter to be handed a permit by a finishing call, or for its time to run out. Called with the lock held.
+     */
+    private Permit await(Waiter waiter, long waitUntil) {
+        while (!waiter.admitted) {
+            long remaining = waitUntil - nanoClock.getAsLong();
+            if (remaining <= 0) {
+                queue.remove(waiter);
+                throw shed("deadline passed while queued", null);
+            }
+            try {
+                waiter.condition.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                if (waiter.admitted) {
+                    release(0);
+                } else {
+                    queue.remove(waiter);
+                }
+                Thread.currentThread().interrupt();
+                throw new OpenAICommunicationException("Interrupted while waiting for the " + name + " bulkhead", e);
+            }
+        }
+        return new Permit(nanoClock.getAsLong());
+    }
+
+    /**
+     * Estimates how long the waiter will be queued: each permit frees up after the average call time, spread over the concurrent calls. Called
+     * with the lock held.
+     */
+    private long expectedWaitNanos(Waiter waiter) {
+        int ahead = 0;
+        for (Waiter queued : queue) {
+            if (queued.compareTo(waiter) < 0) {
+                ahead++;
+            }
+        }
+        return (long) ((ahead + 1) * serviceNanos / maxConcurrency);
+    }
+
+    private OpenAIOverloadedException shed(String reason, Long expectedWaitNanos) {
+        shed.increment();
+        log.debug("Bulkhead {} shedding request: {}", name, reason);
+        return new OpenAIOverloadedException("Request shed by the " + name + " bulkhead: " + reason, name,
+                expectedWaitNanos == null ? null : Duration.ofNanos(expectedWaitNanos));
+    }
+
+    /**
+     * Hands the permit of a finished call to the first queued waiter, or frees it.
+     */
+    private void release(long heldNanos) {
+        lock.lock();
+        try {
+            if (heldNanos > 0) {
+                serviceNanos = serviceNanos == 0 ? heldNanos : serviceNanos + SERVICE_TIME_ALPHA * (heldNanos - serviceNanos);
+            }
+            Waiter next = queue.poll();
+            if (next != null) {
+                next.admitted = true;
+                next.condition.signal();
+            } else {
+                active--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The right to run one call, returned to the bulkhead when closed.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long admittedAt;
+        private boolean closed;
+
+        private Permit(long admittedAt) {
+            this.admittedAt = admittedAt;
+        }
+
+        /**
+         * Returns the permit, recording how long it was held. Closing a permit more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(Math.max(1, nanoClock.getAsLong() - admittedAt));
+            }
+        }
+    }
+
+    /**
+     * A queued call, ordered by its virtual start time and then by arrival.
+     */
+    private static final class Waiter implements Comparable<Waiter> {
+        final long key;
+        final long sequence;
+        final Condition condition;
+        boolean admitted;
+
+        Waiter(long key, long sequence, Condition condition) {
+            this.key = key;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byKey = Long.compare(key, other.key);
+            return byKey != 0 ? byKey : Long.compare(sequence, other.sequence);
+        }
+    }
+}
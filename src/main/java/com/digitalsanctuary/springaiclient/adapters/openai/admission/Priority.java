@@ -0,0 +1,26 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.admission;
+
+/**
+ * The priority class of a request, deciding its place in the queue of a {@link Bulkhead}.
+ * <p>
+ * Queued requests are admitted in order of priority class, and by arrival within a class. To keep lower classes from starving, a queued
+ * request climbs one class for every aging interval it has waited.
+ * </p>
+ */
+public enum Priority {
+
+    /**
+     * Requests a user is waiting for.
+     */
+    INTERACTIVE,
+
+    /**
+     * Requests without a particular urgency. This is the default.
+     */
+    STANDARD,
+
+    /**
+     * Bulk and background work that can wait.
+     */
+    BACKGROUND
+}
@@ -0,0 +1,21 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.batch;
+
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import lombok.Value;
+
+/**
+ * A request submitted as one line of a batch, with the custom id its result is matched by.
+ */
+@Value
+public class BatchItem {
+
+    /**
+     * The custom id of the request, unique within the batch. The Batch API returns results out of order, tagged with this id.
+     */
+    String customId;
+
+    /**
+     * The request to send.
+     */
+    OpenAIRequest request;
+}
@@ -0,0 +1,138 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Consumer;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.OpenAICodec;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Writes the JSONL input files of the Batch API and reads its output and error files, one line at a time.
+ * <p>
+ * Input lines wrap each request, encoded by the {@link OpenAICodec}, in the envelope of the Batch API:
+ * {@code {"custom_id":"...","method":"POST","url":"/v1/chat/completions","body":{...}}}. The items are written as they are pulled from their
+ * iterator, so an input file or upload body of any size is produced without holding the requests in memory; only the custom ids are kept, to
+ * reject duplicates before the API does. Output lines are parsed one by one into {@link BatchResult}s.
+ * </p>
+ * <p>
+ * The codec is stateless and thread-safe.
+ * </p>
+ */
+public class BatchJsonlCodec {
+
+    /**
+     * The endpoint of the requests in a batch input file.
+     */
+    public static final String CHAT_COMPLETIONS_URL = "/v1/chat/completions";
+
+    private static final byte[] CUSTOM_ID = "{\"custom_id\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BODY = (",\"method\":\"POST\",\"url\":\"" + CHAT_COMPLETIONS_URL + "\",\"body\":").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] END = "}\n".getBytes(StandardCharsets.UTF_8);
+
+    private final OpenAICodec codec;
+
+    /**
+     * Creates a batch codec.
+     *
+     * @param codec the codec encoding the request bodies
+     */
+    public BatchJsonlCodec(OpenAICodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Writes the items as batch input lines to the output stream. The stream is flushed but not closed.
+     *
+     * @param items the items to write
+     * @param out the output stream
+     * @return the number of items written
+     * @throws IllegalArgumentException if an item has no custom id or the same custom id as an earlier item
+     * @throws UncheckedIOException if writing fails
+     */
+    public int write(Iterator<BatchItem> items, OutputStream out) {
+        Set<String> customIds = new HashSet<>();
+        int count = 0;
+        try {
+            while (items.hasNext()) {
+                BatchItem item = items.next();
+                if (item.getCustomId() == null || item.getCustomId().isEmpty()) {
+                    throw new IllegalArgumentException("Batch item " + count + " has no custom id.");
+                }
+                if (!customIds.add(item.getCustomId())) {
+                    throw new IllegalArgumentException("Duplicate custom id in batch: " + item.getCustomId());
+                }
+                out.write(CUSTOM_ID);
+                out.write(ProviderJson.mapper().writeValueAsBytes(item.getCustomId()));
+                out.write(BODY);
+                codec.writeRequest(item.getRequest(), out);
+                out.write(END);
+                count++;
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the batch input", e);
+        }
+        return count;
+    }
+
+    /**
+     * Reads the result lines of a batch output or error file from the input stream, passing each result to the consumer as it is parsed. The
+     * stream is not closed.
+     *
+     * @param in the input stream
+     * @param consumer the consumer of the results
+     * @return the number of results read
+     * @throws UncheckedIOException if reading fails
+     * @throws tools.jackson.core.JacksonException if a line is not valid JSON
+     */
+    public int read(InputStream in, Consumer<BatchResult> consumer) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        int count = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    consumer.accept(readResult(line));
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the batch results", e);
+        }
+        return count;
+    }
+
+    /**
+     * Parses one line of a batch output or error file.
+     *
+     * @param line the line
+     * @return the result
+     * @throws tools.jackson.core.JacksonException if the line is not valid JSON
+     */
+    public BatchResult readResult(String line) {
+        JsonNode json = ProviderJson.mapper().readTree(line);
+        String customId = json.path("custom_id").asString(null);
+        JsonNode response = json.path("response");
+        int statusCode = response.path("status_code").asInt(0);
+        JsonNode body = response.path("body");
+        if (statusCode >= 200 && statusCode < 300 && body.isObject()) {
+            return new BatchResult(customId, statusCode, ProviderJson.mapper().treeToValue(body, OpenAIResponse.class), null);
+        }
+        JsonNode error = json.path("error").isObject() ? json.path("error") : body.path("error");
+        String message = error.path("message").asString(null);
+        if (message == null) {
+            message = "Batch request failed with HTTP status " + statusCode;
+        }
+        return new BatchResult(customId, statusCode, null, message);
+    }
+}
@@ -0,0 +1,40 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.batch;
+
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import lombok.Value;
+
+/**
+ * The result of one request of a batch, read from the output or error file of the batch.
+ */
+@Value
+public class BatchResult {
+
+    /**
+     * The custom id of the request, as given in its {@link BatchItem}.
+     */
+    String customId;
+
+    /**
+     * The HTTP status the request was answered with, or 0 if it was never sent, for example because the batch expired first.
+     */
+    int statusCode;
+
+    /**
+     * The chat completion response, or null if the request failed.
+     */
+    OpenAIResponse response;
+
+    /**
+     * The error message, or null if the request succeeded.
+     */
+    String error;
+
+    /**
+     * Returns whether the request succeeded.
+     *
+     * @return true if a response was returned
+     */
+    public boolean isSuccess() {
+        return response != null;
+    }
+}
@@ -0,0 +1,198 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.bulk;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.RequestOptions;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fans a sequence of requests out over an executor with bounded concurrency.
+ * <p>
+ * The input is pulled lazily from an {@link Iterator}, so it is never materialized: the calling thread only takes the next request once a
+ * concurrency permit is free, and, when results are delivered in input order, once the reorder buffer has room. Memory use is therefore
+ * bounded by the reorder window regardless of the input size.
+ * </p>
+ * <p>
+ * A failing request does not stop the run; its failure is captured in its {@link BulkItemResult}. Results are handed to the consumer one at a
+ * time, so the consumer does not need to be thread-safe. An exception thrown by the consumer stops the dispatch of further requests and is
+ * rethrown once the requests already in flight have completed.
+ * </p>
+ */
+@Slf4j
+public class BulkExecutor {
+
+    private final BiFunction<OpenAIRequest, RequestOptions, OpenAIResponse> sender;
+    private final Executor executor;
+
+    /**
+     * Creates a bulk executor.
+     *
+     * @param sender the function sending a single request
+     * @param executor the executor running the requests
+     */
+    public BulkExecutor(BiFunction<OpenAIRequest, RequestOptions, OpenAIResponse> sender, Executor executor) {
+        this.sender = sender;
+        this.executor = executor;
+    }
+
+    /**
+     * Sends all requests and hands each result to the consumer, blocking until every request has completed.
+     *
+     * @param requests the requests to send
+     * @param options the options of the run
+     * @param resultConsumer the consumer receiving each result
+     * @return the summary of the run
+     * @throws OpenAICommunicationException if the calling thread is interrupted
+     */
+    public BulkProgress run(Iterator<? extends OpenAIRequest> requests, BulkOptions options, Consumer<BulkItemResult> resultConsumer) {
+        Run run = new Run(options, resultConsumer);
+        run.dispatch(requests);
+        BulkProgress summary = run.snapshot();
+        if (options.getProgressListener() != null) {
+            options.getProgressListener().accept(summary);
+        }
+        if (run.consumerFailure != null) {
+            throw run.consumerFailure;
+        }
+        log.debug("Bulk run completed: {} succeeded, {} failed in {}", summary.getSucceeded(), summary.getFailed(), summary.getElapsed());
+        return summary;
+    }
+
+    /**
+     * The state of a single bulk run.
+     */
+    private final class Run {
+
+        private final BulkOptions options;
+        private final Consumer<BulkItemResult> resultConsumer;
+        private final Semaphore concurrency;
+        private final Semaphore window;
+        private final int windowSize;
+        private final long startNanos = System.nanoTime();
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, BulkItemResult> pending = new HashMap<>();
+        private long nextIndex;
+        private long succeeded;
+        private long failed;
+        private long promptTokens;
+        private long completionTokens;
+        private long totalTokens;
+        private volatile long submitted;
+        private volatile RuntimeException consumerFailure;
+
+        Run(BulkOptions options, Consumer<BulkItemResult> resultConsumer) {
+            this.options = options;
+            this.resultConsumer = resultConsumer;
+            this.concurrency = new Semaphore(options.getMaxConcurrency());
+            this.windowSize = options.getOrder() == BulkOrder.INPUT ? Math.max(options.getReorderWindow(), options.getMaxConcurrency())
+                    : options.getMaxConcurrency();
+            this.window = new Semaphore(windowSize);
+        }
+
+        void dispatch(Iterator<? extends OpenAIRequest> requests) {
+            try {
+                while (consumerFailure == null && requests.hasNext()) {
+                    window.acquire();
+                    concurrency.acquire();
+                    OpenAIRequest request = requests.next();
+                    long index = submitted;
+                    submitted = index + 1;
+                    try {
+                        executor.execute(() -> process(index, request));
+                    } catch (RejectedExecutionException e) {
+                        concurrency.release();
+                        complete(new BulkItemResult(index, request, null, new OpenAICommunicationException("Request rejected by the executor", e)));
+                    }
+                }
+                window.acquire(windowSize);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OpenAICommunicationException("Bulk run interrupted", e);
+            }
+        }
+
+        private void process(long index, OpenAIRequest request) {
+            OpenAIResponse response = null;
+            RuntimeException error = null;
+            try {
+                response = sender.apply(request, options.getRequestOptions());
+            } catch (RuntimeException e) {
+                error = e;
+            } finally {
+                concurrency.release();
+            }
+            complete(new BulkItemResult(index, request, response, error));
+        }
+
+        private void complete(BulkItemResult result) {
+            lock.lock();
+            try {
+                if (result.isSuccess()) {
+                    succeeded++;
+                    Usage usage = result.getResponse() != null ? result.getResponse().getUsage() : null;
+                    if (usage != null) {
+                        promptTokens += usage.getPromptTokens();
+                        completionTokens += usage.getCompletionTokens();
+                        totalTokens += usage.getTotalTokens();
+                    }
+                } else {
+                    failed++;
+                }
+                if (options.getOrder() == BulkOrder.COMPLETION) {
+                    deliver(result);
+                } else {
+                    pending.put(result.getIndex(), result);
+                    BulkItemResult next;
+                    while ((next = pending.remove(nextIndex)) != null) {
+                        nextIndex++;
+                        deliver(next);
+                    }
+                }
+                int interval = options.getProgressInterval();
+                if (interval > 0 && options.getProgressListener() != null && (succeeded + failed) % interval == 0) {
+                    options.getProgressListener().accept(snapshot());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void deliver(BulkItemResult result) {
+            try {
+                if (consumerFailure == null) {
+                    resultConsumer.accept(result);
+                }
+            } catch (RuntimeException e) {
+                consumerFailure = e;
+            } finally {
+                window.release();
+            }
+        }
+
+        BulkProgress snapshot() {
+            lock.lock();
+            try {
+                Usage usage = new Usage();
+                usage.setPromptTokens((int) Math.min(promptTokens, Integer.MAX_VALUE));
+                usage.setCompletionTokens((int) Math.min(completionTokens, Integer.MAX_VALUE));
+                usage.setTotalTokens((int) Math.min(totalTokens, Integer.MAX_VALUE));
+                return new BulkProgress(submitted, succeeded, failed, Duration.ofNanos(System.nanoTime() - startNanos), usage);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
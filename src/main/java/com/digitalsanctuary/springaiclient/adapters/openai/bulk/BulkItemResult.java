@@ -0,0 +1,41 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.bulk;
+
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import lombok.Value;
+
+/**
+ * The outcome of a single request of a bulk run: either a response or the failure that prevented it.
+ */
+@Value
+public class BulkItemResult {
+
+    /**
+     * The zero-based position of the request in the input.
+     */
+    long index;
+
+    /**
+     * The request that was sent.
+     */
+    OpenAIRequest request;
+
+    /**
+     * The response from OpenAI, or null if the request failed.
+     */
+    OpenAIResponse response;
+
+    /**
+     * The failure of the request, or null if it succeeded.
+     */
+    RuntimeException error;
+
+    /**
+     * Returns whether the request succeeded.
+     *
+     * @return true if a response was received
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
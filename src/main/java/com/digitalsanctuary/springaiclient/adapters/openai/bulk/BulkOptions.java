@@ -0,0 +1,151 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.bulk;
+
+import java.util.function.Consumer;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.RequestOptions;
+
+/**
+ * Options of a bulk run, set through chained methods.
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * BulkOptions options = new BulkOptions()
+ *     .maxConcurrency(32)
+ *     .order(BulkOrder.COMPLETION)
+ *     .progressInterval(1000)
+ *     .progressListener(progress -> log.info("{} done, {} req/s", progress.getCompleted(), progress.getRequestsPerSecond()));
+ * }
+ * </pre>
+ */
+public class BulkOptions {
+
+    private int maxConcurrency = 16;
+    private BulkOrder order = BulkOrder.INPUT;
+    private int reorderWindow;
+    private int progressInterval = 100;
+    private Consumer<BulkProgress> progressListener;
+    private RequestOptions requestOptions = new RequestOptions();
+
+    /**
+     * Sets the maximum number of requests in flight at once.
+     *
+     * @param maxConcurrency the maximum number of concurrent requests (default 16)
+     * @return the current instance of {@code BulkOptions} for method chaining.
+     */
+    public BulkOptions maxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be positive.");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * Sets the order in which results are delivered.
+     *
+     * @param order the delivery order (default {@link BulkOrder#INPUT})
+     * @return the current instance of {@code BulkOptions} for method chaining.
+     */
+    public BulkOptions order(BulkOrder order) {
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Sets how many completed results may wait for an earlier, slower request when delivering in input order.
+     *
+     * @param reorderWindow the number of buffered results (default four times the max concurrency)
+     * @return the current instance of {@code BulkOptions} for method chaining.
+     */
+    public BulkOptions reorderWindow(int reorderWindow) {
+        this.reorderWindow = reorderWindow;
+        return this;
+    }
+
+    /**
+     * Sets how often the progress listener is called.
+     *
+     * @param progressInterval the number of completed requests between progress reports, or 0 to only report at the end (default 100)
+     * @return the current instance of {@code BulkOptions} for method chaining.
+     */
+    public BulkOptions progressInterval(int progressInterval) {
+        this.progressInterval = progressInterval;
+        return this;
+    }
+
+    /**
+     * Sets the listener receiving progress reports.
+     *
+     * @param progressListener the progress listener, called from the thread completing a request
+     * @return the current instance of {@code BulkOptions} for method chaining.
+     */
+    public BulkOptions progressListener(Consumer<BulkProgress> progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Sets the per-request options applied to every request of the run.
+     *
+     * @param requestOptions the per-request options
+     * @return the current instance of {@code BulkOptions} for method chaining.
+     */
+    public BulkOptions requestOptions(RequestOptions requestOptions) {
+        this.requestOptions = requestOptions;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of requests in flight at once.
+     *
+     * @return the maximum concurrency
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Returns the order in which results are delivered.
+     *
+     * @return the delivery order
+     */
+    public BulkOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the number of completed results that may be buffered when delivering in input order.
+     *
+     * @return the reorder window
+     */
+    public int getReorderWindow() {
+        return reorderWindow > 0 ? reorderWindow : maxConcurrency * 4;
+    }
+
+    /**
+     * Returns how often the progress listener is called.
+     *
+     * @return the number of completed requests between progress reports
+     */
+    public int getProgressInterval() {
+        return progressInterval;
+    }
+
+    /**
+     * Returns the listener receiving progress reports.
+     *
+     * @return the progress listener, or null
+     */
+    public Consumer<BulkProgress> getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * Returns the per-request options applied to every request of the run.
+     *
+     * @return the per-request options
+     */
+    public RequestOptions getRequestOptions() {
+        return requestOptions;
+    }
+}
@@ -0,0 +1,17 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.bulk;
+
+/**
+ * The order in which the results of a bulk run are delivered.
+ */
+public enum BulkOrder {
+
+    /**
+     * Results are delivered in the order of the input requests. A slow request holds back the delivery of later results, up to the reorder window.
+     */
+    INPUT,
+
+    /**
+     * Results are delivered as soon as each request completes.
+     */
+    COMPLETION
+}
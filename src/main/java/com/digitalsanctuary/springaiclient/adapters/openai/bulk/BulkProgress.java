@@ -0,0 +1,56 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.bulk;
+
+import java.time.Duration;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import lombok.Value;
+
+/**
+ * A snapshot of the progress of a bulk run. The same type is returned as the summary once the run has finished.
+ */
+@Value
+public class BulkProgress {
+
+    /**
+     * The number of requests submitted so far.
+     */
+    long submitted;
+
+    /**
+     * The number of requests that succeeded.
+     */
+    long succeeded;
+
+    /**
+     * The number of requests that failed.
+     */
+    long failed;
+
+    /**
+     * The time elapsed since the run started.
+     */
+    Duration elapsed;
+
+    /**
+     * The token usage summed over all successful requests.
+     */
+    Usage usage;
+
+    /**
+     * Returns the number of completed requests, successful or not.
+     *
+     * @return the number of completed requests
+     */
+    public long getCompleted() {
+        return succeeded + failed;
+    }
+
+    /**
+     * Returns the average throughput of the run so far.
+     *
+     * @return the completed requests per second
+     */
+    public double getRequestsPerSecond() {
+        double seconds = elapsed.toNanos() / 1_000_000_000d;
+        return seconds <= 0 ? 0 : getCompleted() / seconds;
+    }
+}
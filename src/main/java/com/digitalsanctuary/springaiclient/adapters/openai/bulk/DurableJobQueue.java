@@ -0,0 +1,450 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.bulk;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * A durable queue of requests whose progress survives restarts, for long bulk jobs.
+ * <p>
+ * The queue lives in a directory holding an append-only journal of JSONL segments and the output file. {@link #enqueue(Iterator)} journals
+ * each {@link JobItem} under its idempotency id, skipping ids already known, so re-enqueuing the whole input after a restart is harmless.
+ * {@link #run(BulkExecutor, BulkOptions)} streams the pending items back from the journal into a {@link BulkExecutor}, appends each response to
+ * the output file as a line of JSON and journals its completion with the end offset of the output. Nothing but the ids is held in memory, so
+ * jobs of any size are processed with a flat heap.
+ * </p>
+ * <p>
+ * The output file and the journal are fsync'd together in groups, output first, as configured in {@link JobQueueOptions}. On opening, the
+ * journal is replayed and the output file is truncated to the offset of the last committed completion, so lines written after the last commit
+ * disappear and their items are sent again: each item appears in the output exactly once, at the cost of re-sending at most one commit group
+ * after a crash. A failed item is journaled and sent again by the next run, until it has failed {@code maxAttempts} times; it is then written to
+ * the output with its error instead of a response.
+ * </p>
+ * <p>
+ * Output lines look like {@code {"id":"row-17","response":{...}}} or {@code {"id":"row-18","error":"..."}}. The queue is thread-safe, but only
+ * one run may be active at a time.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * try (DurableJobQueue queue = DurableJobQueue.open(Path.of("/var/lib/myapp/jobs/nightly"), new JobQueueOptions())) {
+ *     queue.enqueue(rows.stream().map(row -> new JobItem(row.getKey(), toRequest(row))).iterator());
+ *     BulkProgress summary = openAIService.runJob(queue, new BulkOptions().maxConcurrency(32));
+ * }
+ * }
+ * </pre>
+ */
+@Slf4j
+public class DurableJobQueue implements Closeable {
+
+    /**
+     * The name of the output file within the queue directory.
+     */
+    public static final String OUTPUT_FILE = "output.jsonl";
+
+    private static final String JOURNAL_DIRECTORY = "journal";
+
+    private final JobQueueOptions options;
+    private final Path outputPath;
+    private final JobJournal journal;
+    private final FileChannel output;
+    private final OutputStream outputStream;
+    private final Set<String> known = new HashSet<>();
+    private final Set<String> done = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(1024);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long outputSize;
+    private int uncommitted;
+    private long lastCommitNanos = System.nanoTime();
+    private boolean running;
+    private boolean closed;
+
+    private DurableJobQueue(Path directory, JobQueueOptions options) throws IOException {
+        this.options = options;
+        this.outputPath = directory.resolve(OUTPUT_FILE);
+        long[] committedOutput = new long[1];
+        this.journal = new JobJournal(directory.resolve(JOURNAL_DIRECTORY), options.getSegmentSize(), record -> {
+            String id = record.path("id").asString();
+            switch (record.path("op").asString()) {
+                case "in" -> known.add(id);
+                case "out" -> {
+                    done.add(id);
+                    attempts.remove(id);
+                    committedOutput[0] = record.path("end").asLong();
+                }
+                case "fail" -> {
+                    attempts.merge(id, 1, Integer::sum);
+                    if (record.path("final").asBoolean()) {
+                        done.add(id);
+                        attempts.remove(id);
+                        committedOutput[0] = record.path("end").asLong();
+                    }
+                }
+                default -> throw new IOException("Unknown journal record " + record.path("op").asString());
+            }
+        });
+        this.output = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (output.size() < committedOutput[0]) {
+            throw new IOException("The output file " + outputPath + " is shorter than its journaled length " + committedOutput[0]);
+        }
+        if (output.size() > committedOutput[0]) {
+            log.info("Truncating {} uncommitted bytes of the job output {}", output.size() - committedOutput[0], outputPath);
+            output.truncate(committedOutput[0]);
+            output.force(false);
+        }
+        this.outputSize = committedOutput[0];
+        output.position(outputSize);
+        this.outputStream = new BufferedOutputStream(Channels.newOutputStream(output), 64 * 1024);
+    }
+
+    /**
+     * Opens the queue in a directory, creating it if needed and recovering the state left by a previous process.
+     *
+     * @param directory the directory of the queue, which must not be shared with another open queue
+     * @param options the options of the queue
+     * @return the queue
+     * @throws UncheckedIOException if the directory cannot be opened or its journal is corrupt
+     */
+    public static DurableJobQueue open(Path directory, JobQueueOptions options) {
+        try {
+            Files.createDirectories(directory);
+            DurableJobQueue queue = new DurableJobQueue(directory, options);
+            log.debug("Opened job queue {} with {} items, {} pending", directory, queue.known.size(), queue.getPendingCount());
+            return queue;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the job queue in " + directory, e);
+        }
+    }
+
+    /**
+     * Journals the items whose ids are not yet in the queue. The items are durable once this method returns.
+     *
+     * @param items the items to enqueue, consumed lazily
+     * @return the number of items added
+     * @throws IllegalArgumentException if an item has no id or no request
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    public int enqueue(Iterator<JobItem> items) {
+        int added = 0;
+        lock.lock();
+        try {
+            checkOpen();
+            while (items.hasNext()) {
+                JobItem item = items.next();
+                if (item.getId() == null || item.getId().isEmpty() || item.getRequest() == null) {
+                    throw new IllegalArgumentException("Job items need an id and a request.");
+                }
+                if (known.add(item.getId())) {
+                    journal.append(record(generator -> {
+                        generator.writeStringProperty("op", "in");
+                        generator.writeStringProperty("id", item.getId());
+                        generator.writeName("request");
+                        generator.writePOJO(item.getRequest());
+                    }));
+                    added++;
+                    maybeCommit();
+                }
+            }
+            commit();
+            return added;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal the job items", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the pending items through the bulk executor, streaming the responses to the output file. Items enqueued while the run is active are
+     * left for the next run.
+     *
+     * @param executor the bulk executor sending the requests
+     * @param bulkOptions the options of the run, such as its concurrency
+     * @return the summary of the run
+     * @throws IllegalStateException if another run is active
+     * @throws UncheckedIOException if the journal or the output file cannot be read or written
+     */
+    public BulkProgress run(BulkExecutor executor, BulkOptions bulkOptions) {
+        List<JobJournal.Segment> segments;
+        lock.lock();
+        try {
+            checkOpen();
+            if (running) {
+                throw new IllegalStateException("The job queue is already running.");
+            }
+            commit();
+            segments = journal.segments();
+            running = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not commit the job journal", e);
+        } finally {
+            lock.unlock();
+        }
+        Map<Long, String> inFlight = new ConcurrentHashMap<>();
+        try (PendingItems pending = new PendingItems(segments, inFlight)) {
+            return executor.run(pending, bulkOptions, result -> complete(inFlight.remove(result.getIndex()), result));
+        } finally {
+            lock.lock();
+            try {
+                running = false;
+                commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not commit the job journal", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of items that have neither been written to the output nor exhausted their attempts.
+     *
+     * @return the number of pending items
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return known.size() - done.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of items written to the output, with a response or an error.
+     *
+     * @return the number of completed items
+     */
+    public int getCompletedCount() {
+        return done.size();
+    }
+
+    /**
+     * Returns the path of the output file. Lines past the last commit may still be rewritten after a crash, so the file is best read once no
+     * run is active.
+     *
+     * @return the output file
+     */
+    public Path getOutputPath() {
+        return outputPath;
+    }
+
+    /**
+     * Commits the pending records and closes the files.
+     *
+     * @throws IOException if the files cannot be committed or closed
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                commit();
+            } finally {
+                try {
+                    outputStream.close();
+                } finally {
+                    journal.close();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the result of an item: its output line and its journal record. Called by one thread at a time.
+     */
+    private void complete(String id, BulkItemResult result) {
+        lock.lock();
+        try {
+            if (result.isSuccess()) {
+                writeOutput(id, result.getResponse(), null);
+                long end = outputSize;
+                journal.append(record(generator -> {
+                    generator.writeStringProperty("op", "out");
+                    generator.writeStringProperty("id", id);
+                    generator.writeNumberProperty("end", end);
+                }));
+                done.add(id);
+                attempts.remove(id);
+            } else {
+                String error = String.valueOf(result.getError().getMessage());
+                boolean last = attempts.merge(id, 1, Integer::sum) >= options.getMaxAttempts();
+                if (last) {
+                    writeOutput(id, null, error);
+                }
+                long end = outputSize;
+                journal.append(record(generator -> {
+                    generator.writeStringProperty("op", "fail");
+                    generator.writeStringProperty("id", id);
+                    generator.writeStringProperty("error", error);
+                    if (last) {
+                        generator.writeBooleanProperty("final", true);
+                        generator.writeNumberProperty("end", end);
+                    }
+                }));
+                if (last) {
+                    done.add(id);
+                    attempts.remove(id);
+                }
+            }
+            maybeCommit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not record the result of job item " + id, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeOutput(String id, OpenAIResponse response, String error) throws IOException {
+        byte[] bytes = record(generator -> {
+            generator.writeStringProperty("id", id);
+            if (response != null) {
+                generator.writeName("response");
+                generator.writePOJO(response);
+            } else {
+                generator.writeStringProperty("error", error);
+            }
+        });
+        outputStream.write(bytes);
+        outputSize += bytes.length;
+    }
+
+    private void maybeCommit() throws IOException {
+        uncommitted++;
+        if (uncommitted >= options.getGroupCommitSize()
+                || System.nanoTime() - lastCommitNanos >= options.getGroupCommitInterval().toNanos()) {
+            commit();
+        }
+    }
+
+    /**
+     * Makes the output durable, then the journal records pointing into it.
+     */
+    private void commit() throws IOException {
+        outputStream.flush();
+        output.force(false);
+        journal.commit();
+        uncommitted = 0;
+        lastCommitNanos = System.nanoTime();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The job queue is closed.");
+        }
+    }
+
+    /**
+     * Serializes a JSON object as a single line ending with a newline, reusing the line buffer. Must be called with the lock held.
+     */
+    private byte[] record(RecordWriter writer) {
+        line.reset();
+        try (JsonGenerator generator = ProviderJson.mapper().createGenerator(line)) {
+            generator.writeStartObject();
+            writer.write(generator);
+            generator.writeEndObject();
+        }
+        line.write('\n');
+        return line.toByteArray();
+    }
+
+    private interface RecordWriter {
+        void write(JsonGenerator generator);
+    }
+
+    /**
+     * Streams the pending items from the committed part of the journal, remembering the id of each request handed to the executor.
+     */
+    private final class PendingItems implements Iterator<OpenAIRequest>, Closeable {
+
+        private final List<JobJournal.Segment> segments;
+        private final Map<Long, String> inFlight;
+        private int segment;
+        private JobJournal.RecordReader reader;
+        private JsonNode nextRecord;
+        private long index;
+
+        PendingItems(List<JobJournal.Segment> segments, Map<Long, String> inFlight) {
+            this.segments = segments;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (nextRecord == null) {
+                    if (reader == null) {
+                        if (segment == segments.size()) {
+                            return false;
+                        }
+                        JobJournal.Segment next = segments.get(segment++);
+                        reader = new JobJournal.RecordReader(next.path, next.length);
+                    }
+                    JsonNode record = reader.next();
+                    if (record == null) {
+                        reader.close();
+                        reader = null;
+                    } else if ("in".equals(record.path("op").asString()) && !done.contains(record.path("id").asString())) {
+                        nextRecord = record;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read the job journal", e);
+            }
+        }
+
+        @Override
+        public OpenAIRequest next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JsonNode record = nextRecord;
+            nextRecord = null;
+            inFlight.put(index++, record.path("id").asString());
+            return ProviderJson.mapper().treeToValue(record.get("request"), OpenAIRequest.class);
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (reader != null) {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not close the job journal", e);
+            }
+        }
+    }
+}
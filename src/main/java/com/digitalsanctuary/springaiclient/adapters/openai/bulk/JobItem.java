@@ -0,0 +1,22 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.bulk;
+
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import lombok.Value;
+
+/**
+ * A request enqueued in a {@link DurableJobQueue}, with the idempotency id that identifies it across restarts.
+ */
+@Value
+public class JobItem {
+
+    /**
+     * The idempotency id of the item, unique within the queue, such as the key of the source record. It is written with the response to the
+     * output file.
+     */
+    String id;
+
+    /**
+     * The request to send.
+     */
+    OpenAIRequest request;
+}
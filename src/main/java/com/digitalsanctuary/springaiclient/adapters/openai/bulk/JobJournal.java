@@ -0,0 +1,247 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.bulk;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * The append-only journal of a {@link DurableJobQueue}: JSON records, one per line, in numbered segment files.
+ * <p>
+ * Records are buffered by {@link #append(byte[])} and made durable by {@link #commit()}, which flushes and fsyncs the active segment and moves
+ * on to a new segment once it has grown past the segment size. On opening, the segments are replayed in order; an incomplete or unparsable
+ * line at the end of the last segment is the trace of a crash during a commit and is truncated away. The journal is not thread-safe.
+ * </p>
+ */
+final class JobJournal implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final List<Segment> sealed = new ArrayList<>();
+    private long activeId;
+    private FileChannel active;
+    private OutputStream out;
+    private long activeSize;
+    private long committedSize;
+
+    /**
+     * Receives the records replayed when the journal is opened.
+     */
+    interface RecordHandler {
+        void handle(JsonNode record) throws IOException;
+    }
+
+    /**
+     * A segment file and the number of its bytes holding committed records.
+     */
+    static final class Segment {
+        final Path path;
+        final long length;
+
+        Segment(Path path, long length) {
+            this.path = path;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Opens the journal in a directory, creating it if needed, and replays its records.
+     */
+    JobJournal(Path directory, long segmentSize, RecordHandler replay) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().matches("\\d{10}\\" + SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (int i = 0; i < paths.size(); i++) {
+            boolean last = i == paths.size() - 1;
+            long valid;
+            try (RecordReader reader = new RecordReader(paths.get(i), Long.MAX_VALUE)) {
+                JsonNode record;
+                while ((record = reader.next()) != null) {
+                    replay.handle(record);
+                }
+                if (reader.isTorn() && !last) {
+                    throw new IOException("Corrupt record in sealed journal segment " + paths.get(i));
+                }
+                valid = reader.getValidLength();
+            }
+            if (last) {
+                activeId = id(paths.get(i));
+                openActive(valid);
+            } else {
+                sealed.add(new Segment(paths.get(i), valid));
+            }
+        }
+        if (active == null) {
+            openActive(0);
+        }
+    }
+
+    /**
+     * Appends a record, which must be a single line of JSON ending with a newline. The record is durable once {@link #commit()} returns.
+     */
+    void append(byte[] line) throws IOException {
+        out.write(line);
+        activeSize += line.length;
+    }
+
+    /**
+     * Makes the appended records durable, then starts a new segment if the active one is full.
+     */
+    void commit() throws IOException {
+        if (activeSize == committedSize) {
+            return;
+        }
+        out.flush();
+        active.force(false);
+        committedSize = activeSize;
+        if (activeSize >= segmentSize) {
+            out.close();
+            sealed.add(new Segment(segmentPath(activeId), activeSize));
+            activeId++;
+            openActive(0);
+        }
+    }
+
+    /**
+     * Returns the segments with their committed lengths, oldest first.
+     */
+    List<Segment> segments() {
+        List<Segment> segments = new ArrayList<>(sealed);
+        segments.add(new Segment(segmentPath(activeId), committedSize));
+        return segments;
+    }
+
+    @Override
+    public void close() throws IOException {
+        commit();
+        out.close();
+    }
+
+    private void openActive(long validLength) throws IOException {
+        active = FileChannel.open(segmentPath(activeId), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (active.size() > validLength) {
+            active.truncate(validLength);
+            active.force(false);
+        }
+        active.position(validLength);
+        out = new BufferedOutputStream(Channels.newOutputStream(active), 64 * 1024);
+        activeSize = validLength;
+        committedSize = validLength;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%010d", id) + SEGMENT_SUFFIX);
+    }
+
+    private static long id(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Reads the records of a segment up to a length, line by line, through a fixed buffer.
+     */
+    static final class RecordReader implements Closeable {
+
+        private final InputStream in;
+        private final long limit;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+        private int end;
+        private long read;
+        private byte[] line = new byte[1024];
+        private long validLength;
+        private boolean torn;
+
+        RecordReader(Path path, long limit) throws IOException {
+            this.in = Files.newInputStream(path);
+            this.limit = limit;
+        }
+
+        /**
+         * Returns the next record, or null at the end of the complete lines.
+         */
+        JsonNode next() throws IOException {
+            int length = 0;
+            long start = validLength;
+            while (true) {
+                if (position == end && !fill()) {
+                    torn = length > 0;
+                    return null;
+                }
+                byte b = buffer[position++];
+                if (b == '\n') {
+                    break;
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+            try {
+                JsonNode record = ProviderJson.mapper().readTree(line, 0, length);
+                if (record == null || !record.isObject()) {
+                    torn = true;
+                    return null;
+                }
+                validLength = start + length + 1;
+                return record;
+            } catch (JacksonException e) {
+                torn = true;
+                return null;
+            }
+        }
+
+        /**
+         * Returns whether reading stopped on an incomplete or unparsable line.
+         */
+        boolean isTorn() {
+            return torn;
+        }
+
+        /**
+         * Returns the number of bytes up to the end of the last record returned.
+         */
+        long getValidLength() {
+            return validLength;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private boolean fill() throws IOException {
+            if (torn || read >= limit) {
+                return false;
+            }
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, limit - read));
+            if (n <= 0) {
+                return false;
+            }
+            read += n;
+            position = 0;
+            end = n;
+            return true;
+        }
+    }
+}
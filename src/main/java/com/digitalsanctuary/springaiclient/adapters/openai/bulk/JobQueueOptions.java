@@ -0,0 +1,118 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.bulk;
+
+import java.time.Duration;
+
+/**
+ * Options of a {@link DurableJobQueue}, set through chained methods.
+ * <p>
+ * Records are made durable in groups: the output file and the journal are fsync'd once {@code groupCommitSize} records are pending or
+ * {@code groupCommitInterval} has passed since the last commit, whichever comes first. A crash loses at most the uncommitted group, whose
+ * requests are sent again on the next run; larger groups mean fewer fsyncs but more requests sent twice after a crash.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * JobQueueOptions options = new JobQueueOptions()
+ *     .groupCommitSize(512)
+ *     .groupCommitInterval(Duration.ofMillis(500))
+ *     .maxAttempts(5);
+ * }
+ * </pre>
+ */
+public class JobQueueOptions {
+
+    private long segmentSize = 64L * 1024 * 1024;
+    private int groupCommitSize = 256;
+    private Duration groupCommitInterval = Duration.ofMillis(200);
+    private int maxAttempts = 3;
+
+    /**
+     * Sets the size beyond which the journal moves on to a new segment file.
+     *
+     * @param segmentSize the segment size in bytes (default 64 MB)
+     * @return the current instance of {@code JobQueueOptions} for method chaining.
+     */
+    public JobQueueOptions segmentSize(long segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive.");
+        }
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    /**
+     * Sets the number of pending records that triggers a commit.
+     *
+     * @param groupCommitSize the number of records per commit (default 256)
+     * @return the current instance of {@code JobQueueOptions} for method chaining.
+     */
+    public JobQueueOptions groupCommitSize(int groupCommitSize) {
+        if (groupCommitSize <= 0) {
+            throw new IllegalArgumentException("Group commit size must be positive.");
+        }
+        this.groupCommitSize = groupCommitSize;
+        return this;
+    }
+
+    /**
+     * Sets the time after which pending records are committed, checked as each record is appended.
+     *
+     * @param groupCommitInterval the maximum time between commits (default 200 ms)
+     * @return the current instance of {@code JobQueueOptions} for method chaining.
+     */
+    public JobQueueOptions groupCommitInterval(Duration groupCommitInterval) {
+        this.groupCommitInterval = groupCommitInterval;
+        return this;
+    }
+
+    /**
+     * Sets how many runs may fail an item before it is written to the output as failed and not sent again.
+     *
+     * @param maxAttempts the number of attempts per item (default 3)
+     * @return the current instance of {@code JobQueueOptions} for method chaining.
+     */
+    public JobQueueOptions maxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max attempts must be positive.");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Returns the size beyond which the journal moves on to a new segment file.
+     *
+     * @return the segment size in bytes
+     */
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Returns the number of pending records that triggers a commit.
+     *
+     * @return the number of records per commit
+     */
+    public int getGroupCommitSize() {
+        return groupCommitSize;
+    }
+
+    /**
+     * Returns the time after which pending records are committed.
+     *
+     * @return the maximum time between commits
+     */
+    public Duration getGroupCommitInterval() {
+        return groupCommitInterval;
+    }
+
+    /**
+     * Returns how many runs may fail an item before it is written to the output as failed.
+     *
+     * @return the number of attempts per item
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
@@ -0,0 +1,50 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.cache;
+
+import lombok.Value;
+
+/**
+ * An immutable snapshot of the statistics of a {@link ResponseCache}.
+ */
+@Value
+public class CacheStats {
+
+    /**
+     * The number of lookups that returned a cached response.
+     */
+    long hits;
+
+    /**
+     * The number of lookups that found no live entry.
+     */
+    long misses;
+
+    /**
+     * The number of entries evicted to stay within the size bounds.
+     */
+    long evictions;
+
+    /**
+     * The number of entries dropped because their time-to-live had passed.
+     */
+    long expirations;
+
+    /**
+     * The number of entries currently held.
+     */
+    long entries;
+
+    /**
+     * The estimated number of bytes currently held.
+     */
+    long bytes;
+
+    /**
+     * Returns the ratio of hits to lookups.
+     *
+     * @return the hit ratio between 0 and 1, or 0 when there have been no lookups
+     */
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
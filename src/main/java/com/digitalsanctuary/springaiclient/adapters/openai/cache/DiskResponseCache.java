@@ -0,0 +1,543 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.OpenAICodec;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+
+/**
+ * A persistent {@link ResponseCache} kept in append-only segment files that are read back through memory mappings.
+ * <p>
+ * Each response is appended to the active segment as a record holding a CRC32C checksum, the length of the response, its creation time, the
+ * request fingerprint and the response JSON. An off-heap hash index maps {@link RequestFingerprint#toLong()} to the segment and offset of the
+ * latest record for the request. A lookup compares the full fingerprint in place and decodes the response straight from the mapped segment, so
+ * after a restart repeated prompts are served at the speed of the page cache, without reading the segments onto the heap.
+ * </p>
+ * <p>
+ * When the active segment is full it is sealed and a new one is started. A sealed segment is compacted when less than
+ * {@code minLiveRatio} of it is still live, or when its newest record has outlived the time-to-live: its live records are copied forward and its
+ * file is deleted. When the segments exceed the maximum size, the oldest segment is dropped as a whole. Compaction runs on the writing thread when
+ * a segment is sealed, and can also be started with {@link #compact()}.
+ * </p>
+ * <p>
+ * On startup the segments are scanned to rebuild the index. A record with a bad checksum, as left by a crash in the middle of a write, ends the
+ * scan of its segment and the torn bytes are cleared; the last segment is reopened for appending.
+ * </p>
+ * <p>
+ * Lookups share a read lock and writes take a write lock. The cache owns its directory, which must not be shared with another instance.
+ * </p>
+ */
+@Slf4j
+public class DiskResponseCache implements ResponseCache, Closeable {
+
+    /**
+     * The size of a record header: checksum, length, creation time and fingerprint.
+     */
+    static final int HEADER_BYTES = 48;
+
+    private static final int CRC_OFFSET = 0;
+    private static final int LENGTH_OFFSET = 4;
+    private static final int CREATED_OFFSET = 8;
+    private static final int DIGEST_OFFSET = 16;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int EXPECTED_ENTRIES = 16384;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final double minLiveRatio;
+    private final Clock clock;
+    private final OpenAICodec codec = new OpenAICodec(true, true);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final OffHeapIndex index = new OffHeapIndex(EXPECTED_ENTRIES);
+    private Segment active;
+    private int nextSegmentId = 1;
+    private long totalBytes;
+    private boolean closed;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Opens a cache from the disk cache configuration properties.
+     *
+     * @param settings the disk cache settings
+     * @throws IllegalStateException if no directory is configured
+     * @throws UncheckedIOException if the directory cannot be opened
+     */
+    public DiskResponseCache(OpenAIConfigProperties.Cache.Disk settings) {
+        this(directory(settings.getDirectory()), settings.getSegmentSize().toBytes(), settings.getMaxSize().toBytes(), settings.getTtl(),
+                settings.getMinLiveRatio(), Clock.systemUTC());
+    }
+
+    /**
+     * Opens a cache in the given directory, recovering the segments left by a previous instance.
+     *
+     * @param directory the directory holding the segment files, created if missing
+     * @param segmentSize the size at which a segment is sealed, at most 2 GB
+     * @param maxBytes the maximum size of all segments
+     * @param ttl how long an entry stays valid, or null for no expiry
+     * @param minLiveRatio the share of live records below which a sealed segment is compacted
+     * @param clock the clock used to expire entries
+     * @throws UncheckedIOException if the directory cannot be opened
+     */
+    public DiskResponseCache(Path directory, long segmentSize, long maxBytes, Duration ttl, double minLiveRatio, Clock clock) {
+        if (segmentSize <= HEADER_BYTES || segmentSize > Integer.MAX_VALUE || maxBytes < segmentSize) {
+            throw new IllegalArgumentException("The segment size must be between 48 bytes and 2 GB, and no larger than the maximum size.");
+        }
+        this.directory = directory;
+        this.segmentSize = (int) segmentSize;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl == null || ttl.isZero() ? Long.MAX_VALUE : ttl.toMillis();
+        this.minLiveRatio = minLiveRatio;
+        this.clock = clock;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            closeSegments();
+            throw new UncheckedIOException("Could not open the response cache in " + directory, e);
+        }
+        log.info("Opened disk response cache in {} with {} entries in {} segments", directory, index.size(), segments.size());
+    }
+
+    @Override
+    public OpenAIResponse get(RequestFingerprint fingerprint) {
+        ByteBuffer record = null;
+        lock.readLock().lock();
+        try {
+            long location = closed ? -1 : index.get(indexKey(fingerprint.toLong()));
+            if (location >= 0) {
+                record = record(location);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Written records never change and the mapping outlives the segment file, so the record is read without the lock
+        if (record == null || !fingerprint.matches(record, DIGEST_OFFSET) || isExpired(record.getLong(CREATED_OFFSET), clock.millis())) {
+            misses.increment();
+            return null;
+        }
+        try {
+            OpenAIResponse response = codec.readResponse(new RecordInputStream(record.position(HEADER_BYTES)));
+            hits.increment();
+            return response;
+        } catch (JacksonException e) {
+            log.warn("Could not read the cached response {} from {}", fingerprint, directory, e);
+            misses.increment();
+            return null;
+        }
+    }
+
+    @Override
+    public void put(RequestFingerprint fingerprint, OpenAIResponse response) {
+        byte[] json = codec.writeResponse(response);
+        if (HEADER_BYTES + json.length > segmentSize) {
+            return;
+        }
+        long now = clock.millis();
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + json.length);
+        record.putInt(CRC_OFFSET, 0).position(LENGTH_OFFSET);
+        record.putInt(json.length).putLong(now);
+        fingerprint.writeTo(record);
+        record.put(json).flip();
+        record.putInt(CRC_OFFSET, checksum(record));
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            Segment previous = active;
+            long location = append(record);
+            release(index.put(indexKey(fingerprint.toLong()), location));
+            if (previous != null && active != previous) {
+                compact(now);
+            }
+            dropOldest(now);
+        } catch (IOException e) {
+            log.warn("Could not write to the response cache in {}", directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : new ArrayList<>(segments.values())) {
+                delete(segment);
+            }
+            active = null;
+            index.clear();
+        } catch (IOException e) {
+            log.warn("Could not clear the response cache in {}", directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        lock.readLock().lock();
+        try {
+            return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), index.size(), totalBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts the sealed segments that are mostly dead or expired, copying their live records to the active segment.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                compact(clock.millis());
+            }
+        } catch (IOException e) {
+            log.warn("Could not compact the response cache in {}", directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes the active segment to disk and closes the segment files. Later lookups miss and later writes are ignored.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                if (active != null) {
+                    active.buffer.force();
+                }
+                closeSegments();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Scans the existing segment files in order, rebuilding the index and reopening the last segment for appending.
+     */
+    private void recover() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString()).filter(name -> name.matches("\\d{10}" + SEGMENT_SUFFIX.replace(".", "\\.")))
+                    .map(name -> Integer.valueOf(name.substring(0, 10))).sorted().forEach(ids::add);
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            int id = ids.get(i);
+            Path path = segmentPath(id);
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                log.warn("Skipping response cache segment {}, which is larger than 2 GB", path);
+                channel.close();
+                continue;
+            }
+            boolean reopen = i == ids.size() - 1 && fileSize <= segmentSize;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, reopen ? segmentSize : fileSize);
+            Segment segment = new Segment(id, path, channel, buffer);
+            segments.put(id, segment);
+            nextSegmentId = id + 1;
+            scan(segment, (int) fileSize);
+            if (reopen) {
+                active = segment;
+            }
+        }
+    }
+
+    /**
+     * Indexes the valid records of a segment up to the first empty or corrupt one, clearing any torn bytes after it.
+     */
+    private void scan(Segment segment, int limit) {
+        ByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER_BYTES <= limit) {
+            int length = buffer.getInt(offset + LENGTH_OFFSET);
+            if (length <= 0 || length > limit - offset - HEADER_BYTES
+                    || buffer.getInt(offset + CRC_OFFSET) != checksum(buffer.slice(offset, HEADER_BYTES + length))) {
+                break;
+            }
+            long location = location(segment.id, offset);
+            segment.size = offset + HEADER_BYTES + length;
+            segment.liveBytes += HEADER_BYTES + length;
+            segment.newestCreated = Math.max(segment.newestCreated, buffer.getLong(offset + CREATED_OFFSET));
+            totalBytes += HEADER_BYTES + length;
+            release(index.put(indexKey(buffer.getLong(offset + DIGEST_OFFSET)), location));
+            offset = segment.size;
+        }
+        // A sealed segment ends with an empty header; anything else is a record torn by a crash
+        if (offset + LENGTH_OFFSET + Integer.BYTES <= limit && (buffer.getInt(offset + CRC_OFFSET) != 0 || buffer.getInt(offset + LENGTH_OFFSET) != 0)) {
+            log.warn("Discarding a torn record at offset {} of response cache segment {}", offset, segment.path);
+            for (int i = offset; i < limit; i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Appends a complete record to the active segment, starting a new segment when it does not fit.
+     *
+     * @return the location of the record
+     */
+    private long append(ByteBuffer record) throws IOException {
+        int length = record.remaining();
+        if (active == null || active.size + length > segmentSize) {
+            rotate();
+        }
+        int offset = active.size;
+        active.buffer.put(offset, record, record.position(), length);
+        active.size += length;
+        active.liveBytes += length;
+        active.newestCreated = Math.max(active.newestCreated, record.getLong(record.position() + CREATED_OFFSET));
+        totalBytes += length;
+        return location(active.id, offset);
+    }
+
+    /**
+     * Seals the active segment and starts a new one.
+     */
+    private void rotate() throws IOException {
+        if (active != null) {
+            active.buffer.force();
+        }
+        int id = nextSegmentId++;
+        Path path = segmentPath(id);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            active = new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        } catch (IOException e) {
+            channel.close();
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        segments.put(id, active);
+    }
+
+    /**
+     * Rewrites the sealed segments whose live share is below the threshold or whose records have all expired.
+     */
+    private void compact(long now) throws IOException {
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment == active || !segments.containsKey(segment.id)) {
+                continue;
+            }
+            if (isExpired(segment.newestCreated, now) || segment.liveBytes < segment.size * minLiveRatio) {
+                int copied = 0;
+                for (int offset = 0; offset < segment.size; offset += HEADER_BYTES + segment.buffer.getInt(offset + LENGTH_OFFSET)) {
+                    long key = indexKey(segment.buffer.getLong(offset + DIGEST_OFFSET));
+                    if (index.get(key) != location(segment.id, offset)) {
+                        continue;
+                    }
+                    if (isExpired(segment.buffer.getLong(offset + CREATED_OFFSET), now)) {
+                        index.remove(key);
+                        expirations.increment();
+                    } else {
+                        index.put(key, append(segment.buffer.slice(offset, HEADER_BYTES + segment.buffer.getInt(offset + LENGTH_OFFSET))));
+                        copied++;
+                    }
+                }
+                log.debug("Compacted response cache segment {}, keeping {} records", segment.path, copied);
+                delete(segment);
+            }
+        }
+    }
+
+    /**
+     * Drops the oldest sealed segments, with all their entries, while the cache is larger than its maximum size.
+     */
+    private void dropOldest(long now) throws IOException {
+        while (totalBytes > maxBytes && segments.size() > 1 && segments.firstEntry().getValue() != active) {
+            Segment oldest = segments.firstEntry().getValue();
+            for (int offset = 0; offset < oldest.size; offset += HEADER_BYTES + oldest.buffer.getInt(offset + LENGTH_OFFSET)) {
+                long key = indexKey(oldest.buffer.getLong(offset + DIGEST_OFFSET));
+                if (index.get(key) == location(oldest.id, offset)) {
+                    index.remove(key);
+                    if (isExpired(oldest.buffer.getLong(offset + CREATED_OFFSET), now)) {
+                        expirations.increment();
+                    } else {
+                        evictions.increment();
+                    }
+                }
+            }
+            delete(oldest);
+        }
+    }
+
+    /**
+     * Accounts for a record that is no longer the latest for its request.
+     */
+    private void release(long location) {
+        if (location < 0) {
+            return;
+        }
+        Segment segment = segments.get(segmentId(location));
+        if (segment != null) {
+            segment.liveBytes -= HEADER_BYTES + segment.buffer.getInt(offset(location) + LENGTH_OFFSET);
+        }
+    }
+
+    /**
+     * Returns a view of the record at the location. Must be called with a lock held.
+     */
+    private ByteBuffer record(long location) {
+        Segment segment = segments.get(segmentId(location));
+        if (segment == null) {
+            return null;
+        }
+        int offset = offset(location);
+        return segment.buffer.slice(offset, HEADER_BYTES + segment.buffer.getInt(offset + LENGTH_OFFSET));
+    }
+
+    private void delete(Segment segment) throws IOException {
+        segments.remove(segment.id);
+        totalBytes -= segment.size;
+        if (segment == active) {
+            active = null;
+        }
+        // The mapping is released by the garbage collector once no lookup still refers to it
+        segment.channel.close();
+        Files.deleteIfExists(segment.path);
+    }
+
+    private void closeSegments() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                log.debug("Could not close response cache segment {}", segment.path, e);
+            }
+        }
+    }
+
+    private boolean isExpired(long createdMillis, long now) {
+        return now - createdMillis >= ttlMillis;
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("%010d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | offset;
+    }
+
+    private static int segmentId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    /**
+     * Maps a fingerprint hash to an index key; zero marks empty index slots. A rare collision only replaces the older entry, as lookups
+     * compare the full fingerprint.
+     */
+    private static long indexKey(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Computes the checksum of a record, covering everything after the checksum field.
+     */
+    private static int checksum(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.slice(LENGTH_OFFSET, record.limit() - LENGTH_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    private static Path directory(String directory) {
+        if (directory == null || directory.isBlank()) {
+            throw new IllegalStateException("ds.ai.openai.cache.disk.directory must be set when the disk cache is enabled.");
+        }
+        return Paths.get(directory);
+    }
+
+    /**
+     * A segment file and its mapping.
+     */
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int size;
+        private long liveBytes;
+        private long newestCreated;
+
+        private Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Streams the remaining bytes of a record view to the JSON parser.
+     */
+    private static final class RecordInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private RecordInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Choice;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * A bounded, in-memory {@link ResponseCache} with least-recently-used eviction and a time-to-live.
+ * <p>
+ * The cache is bounded both by its number of entries and by the estimated heap size of the cached responses, so large prompts with many distinct
+ * responses cannot grow it without limit. Entries older than the time-to-live are dropped when they are next looked up or when they reach the
+ * eviction end of the LRU order. Responses larger than the byte bound are never cached.
+ * </p>
+ * <p>
+ * All operations take a single short lock around an access-ordered {@link LinkedHashMap}, which keeps a lookup in the order of microseconds.
+ * </p>
+ */
+public class InMemoryResponseCache implements ResponseCache {
+
+    /**
+     * The estimated fixed overhead of an entry: the map node, the fingerprint and the response objects.
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+
+    /**
+     * The estimated fixed overhead of a choice and its message.
+     */
+    private static final long CHOICE_OVERHEAD_BYTES = 96;
+
+    /**
+     * The estimated size of the usage object.
+     */
+    private static final long USAGE_BYTES = 32;
+
+    /**
+     * The estimated fixed overhead of a node of a logprobs tree, or of a map entry or boxed value when it was bound to plain collections.
+     */
+    private static final long NODE_OVERHEAD_BYTES = 48;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<RequestFingerprint, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Creates a cache from the cache configuration properties.
+     *
+     * @param settings the cache settings
+     */
+    public InMemoryResponseCache(OpenAIConfigProperties.Cache settings) {
+        this(settings.getMaxEntries(), settings.getMaxSize().toBytes(), settings.getTtl(), Clock.systemUTC());
+    }
+
+    /**
+     * Creates a cache with explicit bounds.
+     *
+     * @param maxEntries the maximum number of entries
+     * @param maxBytes the maximum estimated size of all cached responses in bytes
+     * @param ttl how long an entry stays valid, or null for no expiry
+     * @param clock the clock used to expire entries
+     */
+    public InMemoryResponseCache(int maxEntries, long maxBytes, Duration ttl, Clock clock) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache bounds must be positive.");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl == null || ttl.isZero() ? Long.MAX_VALUE : ttl.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public OpenAIResponse get(RequestFingerprint fingerprint) {
+        long now = clock.millis();
+        lock.lock();
+        try {
+            Entry entry = entries.get(fingerprint);
+            if (entry != null && entry.isExpired(now, ttlMillis)) {
+                entries.remove(fingerprint);
+                currentBytes -= entry.bytes;
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.response;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(RequestFingerprint fingerprint, OpenAIResponse response) {
+        long bytes = estimateBytes(response);
+        if (bytes > maxBytes) {
+            return;
+        }
+        Entry entry = new Entry(response, bytes, clock.millis());
+        lock.lock();
+        try {
+            Entry previous = entries.put(fingerprint, entry);
+            if (previous != null) {
+                currentBytes -= previous.bytes;
+            }
+            currentBytes += bytes;
+            evict(entry.createdMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            currentBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        lock.lock();
+        try {
+            return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), entries.size(), currentBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes entries from the least recently used end until both bounds are met. Must be called with the lock held.
+     */
+    private void evict(long now) {
+        Iterator<Map.Entry<RequestFingerprint, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            currentBytes -= eldest.bytes;
+            if (eldest.isExpired(now, ttlMillis)) {
+                expirations.increment();
+            } else {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap size of a response, dominated by the generated content (two bytes per char in the worst case) and, when they were
+     * requested, the logprobs, which take several objects per generated token.
+     *
+     * @param response the response to measure
+     * @return the estimated size in bytes
+     */
+    static long estimateBytes(OpenAIResponse response) {
+        long bytes = ENTRY_OVERHEAD_BYTES + stringBytes(response.getId()) + stringBytes(response.getObject()) + stringBytes(response.getModel())
+                + stringBytes(response.getSystemFingerprint()) + (response.getUsage() == null ? 0 : USAGE_BYTES);
+        if (response.getChoices() != null) {
+            for (Choice choice : response.getChoices()) {
+                bytes += CHOICE_OVERHEAD_BYTES + stringBytes(choice.getFinishReason()) + treeBytes(choice.getLogprobs());
+                if (choice.getMessage() != null) {
+                    bytes += stringBytes(choice.getMessage().getContent()) + stringBytes(choice.getMessage().getRole());
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the size of a logprobs value, a {@link JsonNode} tree when read by the codec or maps and lists when bound by Jackson.
+     */
+    private static long treeBytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        long bytes = NODE_OVERHEAD_BYTES;
+        if (value instanceof JsonNode node) {
+            if (node.isObject()) {
+                for (Map.Entry<String, JsonNode> property : node.properties()) {
+                    bytes += stringBytes(property.getKey()) + treeBytes(property.getValue());
+                }
+            } else if (node.isArray()) {
+                for (JsonNode element : node) {
+                    bytes += treeBytes(element);
+                }
+            } else {
+                bytes += stringBytes(node.toString());
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                bytes += NODE_OVERHEAD_BYTES + treeBytes(entry.getKey()) + treeBytes(entry.getValue());
+            }
+        } else if (value instanceof Collection<?> collection) {
+            for (Object element : collection) {
+                bytes += treeBytes(element);
+            }
+        } else if (value instanceof CharSequence text) {
+            bytes += stringBytes(text.toString());
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40L + 2L * value.length();
+    }
+
+    private static final class Entry {
+        private final OpenAIResponse response;
+        private final long bytes;
+        private final long createdMillis;
+
+        private Entry(OpenAIResponse response, long bytes, long createdMillis) {
+            this.response = response;
+            this.bytes = bytes;
+            this.createdMillis = createdMillis;
+        }
+
+        private boolean isExpired(long now, long ttlMillis) {
+            return now - createdMillis >= ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A linear-probing hash table from long keys to non-negative long values, stored in a direct buffer so that millions of entries add nothing to
+ * the heap or to garbage collection work.
+ * <p>
+ * Each slot holds a key and a value in 16 bytes; a zero key marks an empty slot, so callers must not use zero as a key. Removal shifts the
+ * following entries back instead of leaving tombstones, which keeps probe sequences short however many entries are replaced. Not thread-safe.
+ * </p>
+ */
+final class OffHeapIndex {
+
+    private static final int SLOT_BYTES = 16;
+    private static final int MIN_CAPACITY = 1024;
+    private static final float MAX_LOAD = 0.6f;
+
+    private ByteBuffer table;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates an index.
+     *
+     * @param expectedEntries the number of entries to size the table for
+     */
+    OffHeapIndex(int expectedEntries) {
+        allocate(capacityFor(expectedEntries));
+    }
+
+    /**
+     * Returns the value for a key.
+     *
+     * @param key the key, not zero
+     * @return the value, or -1 if the key is absent
+     */
+    long get(long key) {
+        int slot = find(key);
+        return slot < 0 ? -1 : value(slot);
+    }
+
+    /**
+     * Sets the value for a key.
+     *
+     * @param key the key, not zero
+     * @param value the value, not negative
+     * @return the previous value, or -1 if the key was absent
+     */
+    long put(long key, long value) {
+        if (size + 1 > (mask + 1) * MAX_LOAD) {
+            resize((mask + 1) * 2);
+        }
+        int slot = home(key);
+        while (true) {
+            long existing = key(slot);
+            if (existing == 0) {
+                table.putLong(slot * SLOT_BYTES, key);
+                table.putLong(slot * SLOT_BYTES + Long.BYTES, value);
+                size++;
+                return -1;
+            }
+            if (existing == key) {
+                long previous = value(slot);
+                table.putLong(slot * SLOT_BYTES + Long.BYTES, value);
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the key, not zero
+     * @return the removed value, or -1 if the key was absent
+     */
+    long remove(long key) {
+        int hole = find(key);
+        if (hole < 0) {
+            return -1;
+        }
+        long removed = value(hole);
+        // Move back every following entry of the cluster that may not sit between its home slot and the hole
+        int slot = (hole + 1) & mask;
+        long next;
+        while ((next = key(slot)) != 0) {
+            int home = home(next);
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table.putLong(hole * SLOT_BYTES, next);
+                table.putLong(hole * SLOT_BYTES + Long.BYTES, value(slot));
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table.putLong(hole * SLOT_BYTES, 0);
+        table.putLong(hole * SLOT_BYTES + Long.BYTES, 0);
+        size--;
+        return removed;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all entries and releases the table for the minimum capacity.
+     */
+    void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private int find(long key) {
+        int slot = home(key);
+        long existing;
+        while ((existing = key(slot)) != 0) {
+            if (existing == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        ByteBuffer old = table;
+        int oldCapacity = mask + 1;
+        allocate(capacity);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long key = old.getLong(slot * SLOT_BYTES);
+            if (key != 0) {
+                int target = home(key);
+                while (key(target) != 0) {
+                    target = (target + 1) & mask;
+                }
+                table.putLong(target * SLOT_BYTES, key);
+                table.putLong(target * SLOT_BYTES + Long.BYTES, old.getLong(slot * SLOT_BYTES + Long.BYTES));
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private int home(long key) {
+        // Mix the key so that arbitrary keys spread over the table as well as fingerprint hashes do
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    private long key(int slot) {
+        return table.getLong(slot * SLOT_BYTES);
+    }
+
+    private long value(int slot) {
+        return table.getLong(slot * SLOT_BYTES + Long.BYTES);
+    }
+
+    private static int capacityFor(int expectedEntries) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * MAX_LOAD < expectedEntries && capacity < (1 << 26)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
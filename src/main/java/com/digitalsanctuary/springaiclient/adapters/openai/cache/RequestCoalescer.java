@@ -0,0 +1,203 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.cache;
+
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAITimeoutException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces identical in-flight requests into a single call to OpenAI ("single flight").
+ * <p>
+ * The first caller for a given {@link RequestFingerprint} and options performs the call; callers arriving with the same fingerprint and equal
+ * options while it is running wait for and share its outcome, including its failure. The entry is removed as soon as the call completes, so later
+ * callers start a fresh call (or hit the response cache, which is filled before the entry is removed).
+ * </p>
+ * <p>
+ * Every waiting caller is bounded by its own timeout, independently of the call it shares. When the leading call fails because its own thread was
+ * interrupted or cancelled, the failure is not shared: the waiting callers race to become the leader of a new call instead.
+ * </p>
+ * <p>
+ * Pending calls are tracked in a {@link ConcurrentHashMap}, whose per-bin locking keeps unrelated requests from contending with each other.
+ * </p>
+ */
+@Slf4j
+public class RequestCoalescer {
+
+    private final ConcurrentHashMap<Key, CompletableFuture<OpenAIResponse>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+
+    /**
+     * Runs the call for the given fingerprint, or joins the identical call already in flight, waiting for it without a timeout.
+     *
+     * @param fingerprint the fingerprint of the request
+     * @param call the call to OpenAI, only invoked if no identical call is in flight
+     * @return the response of the call
+     * @throws RuntimeException the failure of the call, rethrown to every caller sharing it
+     * @throws OpenAICommunicationException if the thread is interrupted while waiting for the shared call
+     */
+    public OpenAIResponse execute(RequestFingerprint fingerprint, Supplier<OpenAIResponse> call) {
+        return execute(fingerprint, null, null, call);
+    }
+
+    /**
+     * Runs the call for the given fingerprint and options, or joins the identical call already in flight.
+     * <p>
+     * Calls are only shared between callers with equal options, so that a caller never receives the outcome of a call made under different
+     * conditions, such as another deadline, priority or model tier.
+     * </p>
+     *
+     * @param fingerprint the fingerprint of the request
+     * @param options the client-side options the call is made with, compared with {@link Object#equals(Object)}, or null
+     * @param timeout the maximum time to wait for an identical call in flight, or null to wait as long as it runs
+     * @param call the call to OpenAI, only invoked if no identical call is in flight
+     * @return the response of the call
+     * @throws RuntimeException the failure of the call, rethrown to every caller sharing it
+     * @throws OpenAITimeoutException if the timeout elapses while waiting for the shared call
+     * @throws OpenAICommunicationException if the thread is interrupted while waiting for the shared call
+     */
+    public OpenAIResponse execute(RequestFingerprint fingerprint, Object options, Duration timeout, Supplier<OpenAIResponse> call) {
+        Key key = new Key(fingerprint, options);
+        long deadline = timeout == null ? 0 : System.nanoTime() + timeout.toNanos();
+        boolean joined = false;
+        while (true) {
+            CompletableFuture<OpenAIResponse> pending = new CompletableFuture<>();
+            CompletableFuture<OpenAIResponse> existing = inFlight.putIfAbsent(key, pending);
+            if (existing == null) {
+                return lead(key, pending, call);
+            }
+            if (!joined) {
+                joined = true;
+                followers.increment();
+            }
+            log.debug("Joining in-flight OpenAI request {}", fingerprint);
+            try {
+                return await(existing, timeout == null ? -1 : deadline - System.nanoTime());
+            } catch (LeaderAbandonedException e) {
+                log.debug("The leader of OpenAI request {} was interrupted, taking over", fingerprint);
+                inFlight.remove(key, existing);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of calls currently in flight.
+     *
+     * @return the number of distinct requests being executed
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Returns the number of calls that were actually sent to OpenAI.
+     *
+     * @return the number of leading calls
+     */
+    public long getLeaderCount() {
+        return leaders.sum();
+    }
+
+    /**
+     * Returns the number of callers that shared the result of an identical in-flight call.
+     *
+     * @return the number of coalesced calls
+     */
+    public long getCoalescedCount() {
+        return followers.sum();
+    }
+
+    private OpenAIResponse lead(Key key, CompletableFuture<OpenAIResponse> pending, Supplier<OpenAIResponse> call) {
+        leaders.increment();
+        try {
+            OpenAIResponse response = call.get();
+            pending.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            // An interrupted leader failed for its own reasons, the waiting callers retry rather than share its failure
+            pending.completeExceptionally(isInterruption(e) ? new LeaderAbandonedException() : e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    private static boolean isInterruption(Throwable failure) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof ClosedByInterruptException || cause instanceof CancellationException
+                    || cause.getClass() == InterruptedIOException.class) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static OpenAIResponse await(CompletableFuture<OpenAIResponse> pending, long timeoutNanos) {
+        try {
+            return timeoutNanos == -1 ? pending.get() : pending.get(Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenAICommunicationException("Interrupted while waiting for an identical in-flight request", e);
+        } catch (TimeoutException e) {
+            throw new OpenAITimeoutException("Timed out waiting for an identical in-flight request", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new OpenAICommunicationException("Failed to communicate with OpenAI", cause);
+        }
+    }
+
+    /**
+     * The key of a call in flight: the request and the options it is made with.
+     */
+    private static final class Key {
+
+        private final RequestFingerprint fingerprint;
+        private final Object options;
+
+        private Key(RequestFingerprint fingerprint, Object options) {
+            this.fingerprint = fingerprint;
+            this.options = options;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other || (other instanceof Key key && fingerprint.equals(key.fingerprint) && Objects.equals(options, key.options));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fingerprint.hashCode() + Objects.hashCode(options);
+        }
+    }
+
+    /**
+     * Signals the callers waiting for a call that its leader was interrupted, without sharing the failure of the leader.
+     */
+    private static final class LeaderAbandonedException extends RuntimeException {
+
+        private LeaderAbandonedException() {
+            super("The leading call was interrupted", null, false, false);
+        }
+    }
+}
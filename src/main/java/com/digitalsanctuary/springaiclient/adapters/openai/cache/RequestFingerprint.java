@@ -0,0 +1,151 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.cache;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import tools.jackson.databind.MapperFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * A stable SHA-256 fingerprint of the canonical JSON form of an {@link OpenAIRequest}.
+ * <p>
+ * Two requests with the same model, messages, token limit and options have the same fingerprint, across instances and JVM restarts. The request
+ * is serialized with alphabetically sorted properties straight into the digest, so no intermediate JSON string is built.
+ * </p>
+ */
+public final class RequestFingerprint {
+
+    private static final JsonMapper CANONICAL_MAPPER = JsonMapper.builder().enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY).build();
+
+    private final byte[] digest;
+    private final int hashCode;
+
+    private RequestFingerprint(byte[] digest) {
+        this.digest = digest;
+        this.hashCode = Arrays.hashCode(digest);
+    }
+
+    /**
+     * Computes the fingerprint of the given request.
+     *
+     * @param request the request to fingerprint
+     * @return the fingerprint of the request
+     */
+    public static RequestFingerprint of(OpenAIRequest request) {
+        MessageDigest messageDigest = sha256();
+        CANONICAL_MAPPER.writeValue(new DigestOutputStream(OutputStream.nullOutputStream(), messageDigest), request);
+        return new RequestFingerprint(messageDigest.digest());
+    }
+
+    /**
+     * Computes the fingerprint of the given request within a scope, such as the model tier a routed request is served at. Requests differing only
+     * by their scope have different fingerprints.
+     *
+     * @param request the request to fingerprint
+     * @param scope the scope, or null for the fingerprint of {@link #of(OpenAIRequest)}
+     * @return the fingerprint of the request in the scope
+     */
+    public static RequestFingerprint of(OpenAIRequest request, String scope) {
+        if (scope == null) {
+            return of(request);
+        }
+        MessageDigest messageDigest = sha256();
+        CANONICAL_MAPPER.writeValue(new DigestOutputStream(OutputStream.nullOutputStream(), messageDigest), request);
+        // A zero byte never occurs in the JSON of a request, so the scope cannot be confused with its content
+        messageDigest.update((byte) 0);
+        messageDigest.update(scope.getBytes(StandardCharsets.UTF_8));
+        return new RequestFingerprint(messageDigest.digest());
+    }
+
+    /**
+     * Restores a fingerprint from its raw digest bytes.
+     *
+     * @param digest the 32 bytes of a SHA-256 digest
+     * @return the fingerprint
+     */
+    public static RequestFingerprint fromBytes(byte[] digest) {
+        if (digest.length != 32) {
+            throw new IllegalArgumentException("A request fingerprint must be 32 bytes long.");
+        }
+        return new RequestFingerprint(digest.clone());
+    }
+
+    /**
+     * Returns a copy of the raw digest bytes.
+     *
+     * @return the 32 bytes of the SHA-256 digest
+     */
+    public byte[] toBytes() {
+        return digest.clone();
+    }
+
+    /**
+     * Returns the first 8 bytes of the digest as a long, suitable for primitive hash tables.
+     *
+     * @return the leading 64 bits of the digest
+     */
+    public long toLong() {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (digest[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Writes the digest bytes at the current position of the buffer.
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.put(digest);
+    }
+
+    /**
+     * Returns whether the buffer holds this digest at the given index, without copying it.
+     */
+    boolean matches(ByteBuffer buffer, int index) {
+        for (int i = 0; i < digest.length; i++) {
+            if (buffer.get(index + i) != digest[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the digest as a lowercase hexadecimal string.
+     *
+     * @return the hexadecimal representation of the digest
+     */
+    public String toHex() {
+        return HexFormat.of().formatHex(digest);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof RequestFingerprint && Arrays.equals(digest, ((RequestFingerprint) other).digest));
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
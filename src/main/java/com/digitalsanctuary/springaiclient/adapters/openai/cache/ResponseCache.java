@@ -0,0 +1,41 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.cache;
+
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+
+/**
+ * A cache of OpenAI responses keyed on the {@link RequestFingerprint} of the request that produced them.
+ * <p>
+ * When a cache is configured, {@code OpenAIService.sendRequest} looks the request up before calling OpenAI and stores successful responses
+ * afterwards. Cached responses are shared between callers and must be treated as read-only. Implementations must be thread-safe.
+ * </p>
+ */
+public interface ResponseCache {
+
+    /**
+     * Looks up the response for a request.
+     *
+     * @param fingerprint the fingerprint of the request
+     * @return the cached response, or null if there is no live entry
+     */
+    OpenAIResponse get(RequestFingerprint fingerprint);
+
+    /**
+     * Stores the response for a request.
+     *
+     * @param fingerprint the fingerprint of the request
+     * @param response the response to cache
+     */
+    void put(RequestFingerprint fingerprint, OpenAIResponse response);
+
+    /**
+     * Removes all entries from the cache.
+     */
+    void clear();
+
+    /**
+     * Returns a snapshot of the cache statistics.
+     *
+     * @return the current statistics
+     */
+    CacheStats stats();
+}
@@ -0,0 +1,81 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+
+/**
+ * A {@link ResponseCache} that keeps a small, fast cache in front of a larger one, typically an {@link InMemoryResponseCache} in front of a
+ * {@link DiskResponseCache}.
+ * <p>
+ * Lookups try the first tier, then the second, and copy second-tier hits into the first tier. Responses are stored in both tiers. The statistics
+ * combine the hits of both tiers with the misses, entries and size of the second tier.
+ * </p>
+ */
+public class TieredResponseCache implements ResponseCache, Closeable {
+
+    private final ResponseCache first;
+    private final ResponseCache second;
+
+    /**
+     * Creates a tiered cache.
+     *
+     * @param first the tier looked up first
+     * @param second the tier looked up when the first misses
+     */
+    public TieredResponseCache(ResponseCache first, ResponseCache second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public OpenAIResponse get(RequestFingerprint fingerprint) {
+        OpenAIResponse response = first.get(fingerprint);
+        if (response == null) {
+            response = second.get(fingerprint);
+            if (response != null) {
+                first.put(fingerprint, response);
+            }
+        }
+        return response;
+    }
+
+    @Override
+    public void put(RequestFingerprint fingerprint, OpenAIResponse response) {
+        first.put(fingerprint, response);
+        second.put(fingerprint, response);
+    }
+
+    @Override
+    public void clear() {
+        first.clear();
+        second.clear();
+    }
+
+    @Override
+    public CacheStats stats() {
+        CacheStats firstStats = first.stats();
+        CacheStats secondStats = second.stats();
+        return new CacheStats(firstStats.getHits() + secondStats.getHits(), secondStats.getMisses(),
+                firstStats.getEvictions() + secondStats.getEvictions(), firstStats.getExpirations() + secondStats.getExpirations(),
+                secondStats.getEntries(), secondStats.getBytes());
+    }
+
+    /**
+     * Closes the tiers that hold resources, such as the files of a {@link DiskResponseCache}.
+     *
+     * @throws IOException if a tier cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (first instanceof Closeable closeable) {
+                closeable.close();
+            }
+        } finally {
+            if (second instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
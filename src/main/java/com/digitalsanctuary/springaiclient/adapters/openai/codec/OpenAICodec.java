@@ -0,0 +1,463 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Choice;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChoice;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChunk;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamOptions;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.StreamReadFeature;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.core.exc.StreamReadException;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Reads and writes the OpenAI DTOs with the Jackson streaming API, without data binding or intermediate trees.
+ * <p>
+ * Responses are read in a single pass straight into the DTOs. Properties the client does not model are skipped, and so is
+ * {@code logprobs} unless it is asked for: it is otherwise bound to deep map and list trees, which dominates the allocations of a response when
+ * log probabilities are requested. {@code system_fingerprint} is read by default and can be skipped as well. Requests are written directly to
+ * the output stream with pre-encoded property names; for a {@link PreEncodedRequest} created by a {@code RequestTemplate}, only the user message
+ * content is encoded.
+ * </p>
+ * <p>
+ * The codec is stateless and thread-safe. It is used by the REST client through {@link OpenAICodecHttpMessageConverter} when
+ * {@code ds.ai.openai.codec.enabled} is set, which is the default.
+ * </p>
+ */
+public class OpenAICodec {
+
+    static final SerializableString MESSAGES = new SerializedString("messages");
+    static final SerializableString ROLE = new SerializedString("role");
+    static final SerializableString CONTENT = new SerializedString("content");
+    static final SerializableString MAX_TOKENS = new SerializedString("max_tokens");
+    static final SerializableString MODEL = new SerializedString("model");
+    static final SerializableString STREAM = new SerializedString("stream");
+    static final SerializableString STREAM_OPTIONS = new SerializedString("stream_options");
+    static final SerializableString INCLUDE_USAGE = new SerializedString("include_usage");
+    private static final SerializableString STREAM_TRUE = new SerializedString(",\"stream\":true");
+    private static final SerializableString STREAM_FALSE = new SerializedString(",\"stream\":false");
+    private static final SerializableString STREAM_OPTIONS_USAGE = new SerializedString(",\"stream_options\":{\"include_usage\":true}");
+    private static final SerializableString STREAM_OPTIONS_NO_USAGE = new SerializedString(",\"stream_options\":{\"include_usage\":false}");
+
+    private final JsonMapper mapper = JsonMapper.builder().disable(StreamReadFeature.AUTO_CLOSE_SOURCE).disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+    private final boolean includeLogprobs;
+    private final boolean includeSystemFingerprint;
+
+    /**
+     * Creates a codec from the configuration properties.
+     *
+     * @param codec the codec settings
+     */
+    public OpenAICodec(OpenAIConfigProperties.Codec codec) {
+        this(codec.isIncludeLogprobs(), codec.isIncludeSystemFingerprint());
+    }
+
+    /**
+     * Creates a codec.
+     *
+     * @param includeLogprobs whether {@code logprobs} are read, as a {@code JsonNode} tree, instead of being skipped
+     * @param includeSystemFingerprint whether {@code system_fingerprint} is read instead of being skipped
+     */
+    public OpenAICodec(boolean includeLogprobs, boolean includeSystemFingerprint) {
+        this.includeLogprobs = includeLogprobs;
+        this.includeSystemFingerprint = includeSystemFingerprint;
+    }
+
+    /**
+     * Writes a request as JSON to the output stream. The stream is flushed but not closed.
+     *
+     * @param request the request
+     * @param out the output stream
+     */
+    public void writeRequest(OpenAIRequest request, OutputStream out) {
+        if (request instanceof PreEncodedRequest preEncoded && preEncoded.matchesFragments()) {
+            writePreEncoded(preEncoded, out);
+            return;
+        }
+        try (JsonGenerator generator = mapper.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeName(MESSAGES);
+            writeMessages(generator, request.getMessages());
+            generator.writeName(MAX_TOKENS);
+            generator.writeNumber(request.getMaxTokens());
+            generator.writeName(MODEL);
+            generator.writeString(request.getModel());
+            if (request.getStream() != null) {
+                generator.writeName(STREAM);
+                generator.writeBoolean(request.getStream());
+            }
+            StreamOptions streamOptions = request.getStreamOptions();
+            if (streamOptions != null) {
+                generator.writeName(STREAM_OPTIONS);
+                generator.writeStartObject();
+                generator.writeName(INCLUDE_USAGE);
+                generator.writeBoolean(streamOptions.isIncludeUsage());
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes a templated request by copying its pre-encoded fragments and encoding only the user message content.
+     */
+    private void writePreEncoded(PreEncodedRequest request, OutputStream out) {
+        RequestFragments fragments = request.fragments();
+        try (JsonGenerator generator = mapper.createGenerator(out)) {
+            generator.writeRaw(fragments.prefix);
+            generator.writeString(request.getMessages().get(1).getContent());
+            generator.writeRaw(fragments.suffix);
+            if (request.getStream() != null) {
+                generator.writeRaw(request.getStream() ? STREAM_TRUE : STREAM_FALSE);
+            }
+            if (request.getStreamOptions() != null) {
+                generator.writeRaw(request.getStreamOptions().isIncludeUsage() ? STREAM_OPTIONS_USAGE : STREAM_OPTIONS_NO_USAGE);
+            }
+            generator.writeRaw('}');
+        }
+    }
+
+    /**
+     * Writes a request as JSON.
+     *
+     * @param request the request
+     * @return the JSON bytes
+     */
+    public byte[] writeRequest(OpenAIRequest request) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        writeRequest(request, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a list of messages, or null.
+     */
+    static void writeMessages(JsonGenerator generator, List<Message> messages) {
+        if (messages == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (Message message : messages) {
+            if (message == null) {
+                generator.writeNull();
+                continue;
+            }
+            generator.writeStartObject();
+            generator.writeName(ROLE);
+            generator.writeString(message.getRole());
+            generator.writeName(CONTENT);
+            generator.writeString(message.getContent());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Writes a chat completion response as JSON to the output stream, in the form returned by OpenAI. Null properties are omitted, and so are
+     * {@code logprobs} and {@code system_fingerprint} unless the codec reads them. The stream is flushed but not closed.
+     *
+     * @param response the response
+     * @param out the output stream
+     */
+    public void writeResponse(OpenAIResponse response, OutputStream out) {
+        try (JsonGenerator generator = mapper.createGenerator(out)) {
+            generator.writeStartObject();
+            writeOptionalString(generator, "id", response.getId());
+            writeOptionalString(generator, "object", response.getObject());
+            generator.writeName("created");
+            generator.writeNumber(response.getCreated());
+            writeOptionalString(generator, "model", response.getModel());
+            if (response.getChoices() != null) {
+                generator.writeName("choices");
+                generator.writeStartArray();
+                for (Choice choice : response.getChoices()) {
+                    writeChoice(generator, choice);
+                }
+                generator.writeEndArray();
+            }
+            Usage usage = response.getUsage();
+            if (usage != null) {
+                generator.writeName("usage");
+                generator.writeStartObject();
+                generator.writeName("prompt_tokens");
+                generator.writeNumber(usage.getPromptTokens());
+                generator.writeName("completion_tokens");
+                generator.writeNumber(usage.getCompletionTokens());
+                generator.writeName("total_tokens");
+                generator.writeNumber(usage.getTotalTokens());
+                generator.writeEndObject();
+            }
+            if (includeSystemFingerprint) {
+                writeOptionalString(generator, "system_fingerprint", response.getSystemFingerprint());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes a chat completion response as JSON.
+     *
+     * @param response the response
+     * @return the JSON bytes
+     */
+    public byte[] writeResponse(OpenAIResponse response) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        writeResponse(response, out);
+        return out.toByteArray();
+    }
+
+    private void writeChoice(JsonGenerator generator, Choice choice) {
+        if (choice == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeName("index");
+        generator.writeNumber(choice.getIndex());
+        Message message = choice.getMessage();
+        if (message != null) {
+            generator.writeName("message");
+            generator.writeStartObject();
+            writeOptionalString(generator, "role", message.getRole());
+            writeOptionalString(generator, "content", message.getContent());
+            generator.writeEndObject();
+        }
+        if (includeLogprobs && choice.getLogprobs() != null) {
+            generator.writeName("logprobs");
+            generator.writePOJO(choice.getLogprobs());
+        }
+        writeOptionalString(generator, "finish_reason", choice.getFinishReason());
+        generator.writeEndObject();
+    }
+
+    private static void writeOptionalString(JsonGenerator generator, String name, String value) {
+        if (value != null) {
+            generator.writeName(name);
+            generator.writeString(value);
+        }
+    }
+
+    /**
+     * Reads a chat completion response from the input stream. The stream is not closed.
+     *
+     * @param in the input stream
+     * @return the response
+     * @throws tools.jackson.core.JacksonException if the input is not a valid response
+     */
+    public OpenAIResponse readResponse(InputStream in) {
+        try (JsonParser parser = mapper.createParser(in)) {
+            return readResponse(parser);
+        }
+    }
+
+    /**
+     * Reads a chat completion response.
+     *
+     * @param json the JSON bytes
+     * @return the response
+     * @throws tools.jackson.core.JacksonException if the input is not a valid response
+     */
+    public OpenAIResponse readResponse(byte[] json) {
+        try (JsonParser parser = mapper.createParser(json)) {
+            return readResponse(parser);
+        }
+    }
+
+    /**
+     * Reads a chunk of a streamed chat completion, as carried by one server-sent event.
+     *
+     * @param json the event data
+     * @return the chunk
+     * @throws tools.jackson.core.JacksonException if the input is not a valid chunk
+     */
+    public StreamChunk readStreamChunk(String json) {
+        try (JsonParser parser = mapper.createParser(json)) {
+            startObject(parser);
+            StreamChunk chunk = new StreamChunk();
+            String name;
+            while ((name = parser.nextName()) != null) {
+                parser.nextToken();
+                switch (name) {
+                    case "id" -> chunk.setId(readString(parser));
+                    case "object" -> chunk.setObject(readString(parser));
+                    case "created" -> chunk.setCreated(readLong(parser));
+                    case "model" -> chunk.setModel(readString(parser));
+                    case "choices" -> chunk.setChoices(readStreamChoices(parser));
+                    case "usage" -> chunk.setUsage(readUsage(parser));
+                    case "system_fingerprint" -> chunk.setSystemFingerprint(includeSystemFingerprint ? readString(parser) : skip(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            return chunk;
+        }
+    }
+
+    private OpenAIResponse readResponse(JsonParser parser) {
+        startObject(parser);
+        OpenAIResponse response = new OpenAIResponse();
+        String name;
+        while ((name = parser.nextName()) != null) {
+            parser.nextToken();
+            switch (name) {
+                case "id" -> response.setId(readString(parser));
+                case "object" -> response.setObject(readString(parser));
+                case "created" -> response.setCreated(readLong(parser));
+                case "model" -> response.setModel(readString(parser));
+                case "choices" -> response.setChoices(readChoices(parser));
+                case "usage" -> response.setUsage(readUsage(parser));
+                case "system_fingerprint" -> response.setSystemFingerprint(includeSystemFingerprint ? readString(parser) : skip(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return response;
+    }
+
+    private List<Choice> readChoices(JsonParser parser) {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<Choice> choices = new ArrayList<>(1);
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            Choice choice = new Choice();
+            String name;
+            while ((name = parser.nextName()) != null) {
+                parser.nextToken();
+                switch (name) {
+                    case "index" -> choice.setIndex(readInt(parser));
+                    case "message" -> choice.setMessage(readMessage(parser));
+                    case "logprobs" -> choice.setLogprobs(readLogprobs(parser));
+                    case "finish_reason" -> choice.setFinishReason(readString(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            choices.add(choice);
+        }
+        return choices;
+    }
+
+    private List<StreamChoice> readStreamChoices(JsonParser parser) {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<StreamChoice> choices = new ArrayList<>(1);
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            StreamChoice choice = new StreamChoice();
+            String name;
+            while ((name = parser.nextName()) != null) {
+                parser.nextToken();
+                switch (name) {
+                    case "index" -> choice.setIndex(readInt(parser));
+                    case "delta" -> choice.setDelta(readMessage(parser));
+                    case "logprobs" -> choice.setLogprobs(readLogprobs(parser));
+                    case "finish_reason" -> choice.setFinishReason(readString(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            choices.add(choice);
+        }
+        return choices;
+    }
+
+    private static Message readMessage(JsonParser parser) {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Message message = new Message();
+        String name;
+        while ((name = parser.nextName()) != null) {
+            parser.nextToken();
+            switch (name) {
+                case "role" -> message.setRole(readString(parser));
+                case "content" -> message.setContent(readString(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return message;
+    }
+
+    private static Usage readUsage(JsonParser parser) {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Usage usage = new Usage();
+        String name;
+        while ((name = parser.nextName()) != null) {
+            parser.nextToken();
+            switch (name) {
+                case "prompt_tokens" -> usage.setPromptTokens(readInt(parser));
+                case "completion_tokens" -> usage.setCompletionTokens(readInt(parser));
+                case "total_tokens" -> usage.setTotalTokens(readInt(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return usage;
+    }
+
+    private Object readLogprobs(JsonParser parser) {
+        if (!includeLogprobs || parser.currentToken() == JsonToken.VALUE_NULL) {
+            return skip(parser);
+        }
+        return mapper.readTree(parser);
+    }
+
+    private static void startObject(JsonParser parser) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new StreamReadException(parser, "Expected a JSON object but found " + parser.currentToken());
+        }
+    }
+
+    private static String readString(JsonParser parser) {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return parser.getString();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static int readInt(JsonParser parser) {
+        return parser.currentToken().isNumeric() ? parser.getIntValue() : 0;
+    }
+
+    private static long readLong(JsonParser parser) {
+        return parser.currentToken().isNumeric() ? parser.getLongValue() : 0;
+    }
+
+    private static <T> T skip(JsonParser parser) {
+        parser.skipChildren();
+        return null;
+    }
+}
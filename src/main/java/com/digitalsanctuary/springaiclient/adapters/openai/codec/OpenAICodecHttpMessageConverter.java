@@ -0,0 +1,69 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.codec;
+
+import java.io.IOException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import tools.jackson.core.JacksonException;
+
+/**
+ * A message converter writing {@link OpenAIRequest} and reading {@link OpenAIResponse} with the {@link OpenAICodec}.
+ * <p>
+ * Subclasses of {@link OpenAIRequest}, such as the {@link PreEncodedRequest} rendered by a {@code RequestTemplate}, are written as well.
+ * </p>
+ * <p>
+ * It is registered ahead of the generic Jackson converter of the OpenAI REST client, and leaves all other types to it.
+ * </p>
+ */
+public class OpenAICodecHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final OpenAICodec codec;
+
+    /**
+     * Creates a converter.
+     *
+     * @param codec the codec
+     */
+    public OpenAICodecHttpMessageConverter(OpenAICodec codec) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.codec = codec;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return OpenAIRequest.class.isAssignableFrom(clazz) || clazz == OpenAIResponse.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == OpenAIResponse.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return OpenAIRequest.class.isAssignableFrom(clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return codec.readResponse(inputMessage.getBody());
+        } catch (JacksonException e) {
+            throw new HttpMessageNotReadableException("Could not read OpenAI response: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object request, HttpOutputMessage outputMessage) throws IOException {
+        try {
+            codec.writeRequest((OpenAIRequest) request, outputMessage.getBody());
+        } catch (JacksonException e) {
+            throw new HttpMessageNotWritableException("Could not write OpenAI request: " + e.getOriginalMessage(), e);
+        }
+    }
+}
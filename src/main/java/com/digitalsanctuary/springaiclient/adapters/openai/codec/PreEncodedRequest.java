@@ -0,0 +1,81 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.codec;
+
+import java.util.Arrays;
+import java.util.List;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+
+/**
+ * A request whose model, {@code max_tokens} and system prompt come from shared {@link RequestFragments}.
+ * <p>
+ * It is a regular {@link OpenAIRequest} for every other purpose, such as caching, token estimation or data binding. As long as the fixed part
+ * is left unchanged, {@link OpenAICodec} writes the pre-encoded fragments and only encodes the user message content. Once the fixed part is
+ * modified, the request is encoded like any other.
+ * </p>
+ */
+public class PreEncodedRequest extends OpenAIRequest {
+
+    private static final String SYSTEM = "system";
+    private static final String USER = "user";
+
+    private final RequestFragments fragments;
+    private final List<Message> templateMessages;
+
+    /**
+     * Creates a request from the fragments and the user message content.
+     *
+     * @param fragments the pre-encoded fixed part of the request
+     * @param userMessage the user message content
+     */
+    public PreEncodedRequest(RequestFragments fragments, String userMessage) {
+        this.fragments = fragments;
+        Message systemMessage = new Message();
+        systemMessage.setRole(SYSTEM);
+        systemMessage.setContent(fragments.systemPrompt);
+        Message userMessageObj = new Message();
+        userMessageObj.setRole(USER);
+        userMessageObj.setContent(userMessage);
+        this.templateMessages = Arrays.asList(systemMessage, userMessageObj);
+        setMessages(templateMessages);
+        setModel(fragments.model);
+        setMaxTokens(fragments.maxTokens);
+    }
+
+    private PreEncodedRequest(PreEncodedRequest source) {
+        this.fragments = source.fragments;
+        this.templateMessages = source.templateMessages;
+        setMessages(source.getMessages());
+        setModel(source.getModel());
+        setMaxTokens(source.getMaxTokens());
+        setStream(source.getStream());
+        setStreamOptions(source.getStreamOptions());
+    }
+
+    /**
+     * Creates a copy sharing the fragments and messages of this request.
+     *
+     * @return the copy
+     */
+    public PreEncodedRequest copy() {
+        return new PreEncodedRequest(this);
+    }
+
+    RequestFragments fragments() {
+        return fragments;
+    }
+
+    /**
+     * Returns whether the fixed part still matches the fragments, so they can be written as-is. The checks are identity comparisons and cost
+     * nothing compared to encoding the system prompt.
+     */
+    boolean matchesFragments() {
+        List<Message> messages = getMessages();
+        if (messages != templateMessages || getMaxTokens() != fragments.maxTokens || getModel() != fragments.model) {
+            return false;
+        }
+        Message systemMessage = messages.get(0);
+        Message userMessage = messages.get(1);
+        return systemMessage != null && userMessage != null && systemMessage.getContent() == fragments.systemPrompt
+                && SYSTEM.equals(systemMessage.getRole()) && USER.equals(userMessage.getRole());
+    }
+}
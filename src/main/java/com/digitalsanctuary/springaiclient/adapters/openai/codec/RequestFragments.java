@@ -0,0 +1,70 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.codec;
+
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+
+/**
+ * The pre-encoded JSON of the fixed part of a templated request: the model, {@code max_tokens} and the system prompt.
+ * <p>
+ * The JSON before and after the user message content is encoded once, and its UTF-8 bytes are copied as-is by {@link OpenAICodec} for every
+ * {@link PreEncodedRequest} sharing these fragments. Instances are immutable and thread-safe.
+ * </p>
+ */
+public final class RequestFragments {
+
+    final String model;
+    final int maxTokens;
+    final String systemPrompt;
+    final SerializableString prefix;
+    final SerializableString suffix;
+
+    /**
+     * Encodes the fixed part of a request.
+     *
+     * @param model the model
+     * @param maxTokens the maximum number of output tokens
+     * @param systemPrompt the system prompt
+     */
+    public RequestFragments(String model, int maxTokens, String systemPrompt) {
+        this.model = model;
+        this.maxTokens = maxTokens;
+        this.systemPrompt = systemPrompt;
+        // Same property order as OpenAICodec.writeRequest, so templated and plain requests encode identically
+        this.prefix = new SerializedString("{\"messages\":[{\"role\":\"system\",\"content\":" + quote(systemPrompt) + "},{\"role\":\"user\",\"content\":");
+        this.suffix = new SerializedString("}],\"max_tokens\":" + maxTokens + ",\"model\":" + quote(model));
+        this.prefix.asUnquotedUTF8();
+        this.suffix.asUnquotedUTF8();
+    }
+
+    /**
+     * Returns the model.
+     *
+     * @return the model
+     */
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the maximum number of output tokens.
+     *
+     * @return the maximum number of output tokens
+     */
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    /**
+     * Returns the system prompt.
+     *
+     * @return the system prompt
+     */
+    public String getSystemPrompt() {
+        return systemPrompt;
+    }
+
+    private static String quote(String value) {
+        return ProviderJson.mapper().writeValueAsString(value);
+    }
+}
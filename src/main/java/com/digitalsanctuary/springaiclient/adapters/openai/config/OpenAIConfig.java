@@ -1,11 +1,41 @@
 package com.digitalsanctuary.springaiclient.adapters.openai.config;
 
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.springaiclient.adapters.openai.admission.AdmissionController;
+import com.digitalsanctuary.springaiclient.adapters.openai.cache.DiskResponseCache;
+import com.digitalsanctuary.springaiclient.adapters.openai.cache.InMemoryResponseCache;
+import com.digitalsanctuary.springaiclient.adapters.openai.cache.RequestCoalescer;
+import com.digitalsanctuary.springaiclient.adapters.openai.cache.ResponseCache;
+import com.digitalsanctuary.springaiclient.adapters.openai.cache.TieredResponseCache;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.OpenAICodec;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.OpenAICodecHttpMessageConverter;
+import com.digitalsanctuary.springaiclient.adapters.openai.conversation.ConversationStore;
+import com.digitalsanctuary.springaiclient.adapters.openai.conversation.FileConversationStore;
+import com.digitalsanctuary.springaiclient.adapters.openai.conversation.InMemoryConversationStore;
+import com.digitalsanctuary.springaiclient.adapters.openai.metrics.RequestObserver;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.RateLimiter;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.ModelRouter;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.UpstreamRouter;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.AsyncExecutors;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIBatchService;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIEmbeddingService;
 import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIService;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.BpeEncoding;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.BpeTokenizer;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.HeuristicTokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.TokenEstimator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -21,11 +51,6 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class OpenAIConfig {
 
-    /**
-     * The Bearer token prefix for the authorization header.
-     */
-    private static final String BEARER_TOKEN_PREFIX = "Bearer ";
-
     /**
      * The OpenAI configuration properties.
      */
@@ -37,26 +62,293 @@ public class OpenAIConfig {
      * This bean provides the main service for interacting with the OpenAI API.
      * </p>
      *
+     * @param openAIRestClient the REST client for the OpenAI API
+     * @param openAIAsyncExecutor the executor for asynchronous requests
+     * @param responseCache the response cache, if one is configured
+     * @param requestCoalescer the request coalescer, if coalescing is enabled
+     * @param rateLimiter the client-side rate limiter, if rate limiting is enabled
+     * @param requestObserver the request observer, if metrics are enabled
+     * @param tokenEstimator the estimator for prompt tokens
+     * @param conversationStore the conversation store, if one is configured
+     * @param upstreamRouter the upstream router, if routing is enabled
+     * @param admissionController the admission controller, if admission control is enabled
+     * @param modelRouter the model router, if model routing is enabled
      * @return an instance of {@link OpenAIService}
      */
     @Bean
-    public OpenAIService openAIService() {
-        return new OpenAIService(openAIRestClient(), properties);
+    public OpenAIService openAIService(@Qualifier("openAIRestClient") RestClient openAIRestClient,
+            @Qualifier("openAIAsyncExecutor") Executor openAIAsyncExecutor, ObjectProvider<ResponseCache> responseCache,
+            ObjectProvider<RequestCoalescer> requestCoalescer, ObjectProvider<RateLimiter> rateLimiter,
+            ObjectProvider<RequestObserver> requestObserver, ObjectProvider<TokenEstimator> tokenEstimator,
+            ObjectProvider<ConversationStore> conversationStore, ObjectProvider<UpstreamRouter> upstreamRouter,
+            ObjectProvider<AdmissionController> admissionController, ObjectProvider<ModelRouter> modelRouter) {
+        OpenAIService service = new OpenAIService(openAIRestClient, properties, openAIAsyncExecutor);
+        service.setResponseCache(responseCache.getIfAvailable());
+        service.setRequestCoalescer(requestCoalescer.getIfAvailable());
+        service.setRateLimiter(rateLimiter.getIfAvailable());
+        service.setRequestObserver(requestObserver.getIfAvailable());
+        service.setTokenEstimator(tokenEstimator.getIfAvailable());
+        service.setConversationStore(conversationStore.getIfAvailable());
+        service.setUpstreamRouter(upstreamRouter.getIfAvailable());
+        service.setAdmissionController(admissionController.getIfAvailable());
+        service.setModelRouter(modelRouter.getIfAvailable());
+        return service;
+    }
+
+    /**
+     * Creates the in-memory response cache when {@code ds.ai.openai.cache.enabled} is set.
+     * <p>
+     * When {@code ds.ai.openai.cache.disk.enabled} is also set, the in-memory cache is backed by a persistent {@link DiskResponseCache}, whose
+     * files are closed with the application context. Applications can supply their own {@link ResponseCache} bean instead.
+     * </p>
+     *
+     * @return the response cache
+     * @see OpenAIConfigProperties.Cache
+     */
+    @Bean(name = "openAIResponseCache")
+    @ConditionalOnMissingBean(ResponseCache.class)
+    @ConditionalOnProperty(prefix = "ds.ai.openai.cache", name = "enabled", havingValue = "true")
+    public ResponseCache openAIResponseCache() {
+        log.info("Creating OpenAI response cache with max entries: {}", properties.getCache().getMaxEntries());
+        ResponseCache memory = new InMemoryResponseCache(properties.getCache());
+        if (!properties.getCache().getDisk().isEnabled()) {
+            return memory;
+        }
+        return new TieredResponseCache(memory, new DiskResponseCache(properties.getCache().getDisk()));
+    }
+
+    /**
+     * Creates the in-memory conversation store when {@code ds.ai.openai.conversation.store} is {@code memory}.
+     * <p>
+     * Applications can supply their own {@link ConversationStore} bean instead.
+     * </p>
+     *
+     * @return the conversation store
+     * @see OpenAIConfigProperties.ConversationSettings
+     */
+    @Bean(name = "openAIInMemoryConversationStore")
+    @ConditionalOnMissingBean(ConversationStore.class)
+    @ConditionalOnProperty(prefix = "ds.ai.openai.conversation", name = "store", havingValue = "memory")
+    public ConversationStore openAIInMemoryConversationStore() {
+        return new InMemoryConversationStore(properties.getConversation().getMaxConversations());
+    }
+
+    /**
+     * Creates the file-backed conversation store when {@code ds.ai.openai.conversation.store} is {@code file}.
+     *
+     * @return the conversation store
+     * @see OpenAIConfigProperties.ConversationSettings
+     */
+    @Bean(name = "openAIFileConversationStore")
+    @ConditionalOnMissingBean(ConversationStore.class)
+    @ConditionalOnProperty(prefix = "ds.ai.openai.conversation", name = "store", havingValue = "file")
+    public ConversationStore openAIFileConversationStore() {
+        String directory = properties.getConversation().getDirectory();
+        if (directory == null || directory.isBlank()) {
+            throw new IllegalStateException("ds.ai.openai.conversation.directory must be set for the file conversation store.");
+        }
+        log.info("Creating OpenAI conversation store in {}", directory);
+        return new FileConversationStore(Path.of(directory));
+    }
+
+    /**
+     * Creates the executor used by the asynchronous request methods of the OpenAI service.
+     * <p>
+     * The executor uses virtual threads on JDK 21 and later, and a bounded platform thread pool otherwise. Applications can supply their own
+     * executor by defining a bean named {@code openAIAsyncExecutor}.
+     * </p>
+     *
+     * @return the executor for asynchronous OpenAI requests
+     */
+    @Bean(name = "openAIAsyncExecutor")
+    @ConditionalOnMissingBean(name = "openAIAsyncExecutor")
+    public ExecutorService openAIAsyncExecutor() {
+        return AsyncExecutors.create(properties.getAsync());
+    }
+
+    /**
+     * Creates the HTTP request factory used by the OpenAI REST client.
+     * <p>
+     * The transport, connection pool and timeouts are configured through the {@code ds.ai.openai.http} properties. Applications can supply their
+     * own factory by defining a bean named {@code openAIClientHttpRequestFactory}. Pooled clients are released when the context shuts down.
+     * </p>
+     *
+     * @return the request factory for the configured transport
+     * @see OpenAIConfigProperties.Http
+     */
+    @Bean(name = "openAIClientHttpRequestFactory")
+    @ConditionalOnMissingBean(name = "openAIClientHttpRequestFactory")
+    public ClientHttpRequestFactory openAIClientHttpRequestFactory() {
+        return OpenAIHttpClientFactory.create(properties.getHttp());
     }
 
     /**
      * Creates an instance of the OpenAI REST client.
      * <p>
-     * The client is configured with the API endpoint, content type, and authorization header.
+     * The client is configured with the API endpoint and content type, and uses the configured HTTP transport. The authorization header is added
+     * to every request by {@link OpenAIService}, so that the API key can differ per upstream or per request. Unless
+     * disabled through {@code ds.ai.openai.codec.enabled}, requests and responses are converted with the streaming {@link OpenAICodec}.
      * </p>
      *
+     * @param openAIClientHttpRequestFactory the HTTP request factory for the configured transport
      * @return an instance of {@link RestClient}
      */
     @Bean(name = "openAIRestClient")
-    public RestClient openAIRestClient() {
+    public RestClient openAIRestClient(@Qualifier("openAIClientHttpRequestFactory") ClientHttpRequestFactory openAIClientHttpRequestFactory) {
         log.info("Creating OpenAI REST client with endpoint: {}", properties.getApiEndpoint());
-        return RestClient.builder().baseUrl(properties.getApiEndpoint()).defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-                .defaultHeader(HttpHeaders.AUTHORIZATION, BEARER_TOKEN_PREFIX + properties.getApiKey()).build();
+        RestClient.Builder builder = RestClient.builder().baseUrl(properties.getApiEndpoint()).requestFactory(openAIClientHttpRequestFactory)
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+        if (properties.getCodec().isEnabled()) {
+            OpenAICodec codec = new OpenAICodec(properties.getCodec());
+            builder.messageConverters(converters -> converters.add(0, new OpenAICodecHttpMessageConverter(codec)));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates the request coalescer when {@code ds.ai.openai.coalescing.enabled} is set.
+     *
+     * @return the request coalescer
+     * @see OpenAIConfigProperties.Coalescing
+     */
+    @Bean(name = "openAIRequestCoalescer")
+    @ConditionalOnMissingBean(RequestCoalescer.class)
+    @ConditionalOnProperty(prefix = "ds.ai.openai.coalescing", name = "enabled", havingValue = "true")
+    public RequestCoalescer openAIRequestCoalescer() {
+        return new RequestCoalescer();
+    }
+
+    /**
+     * Creates the embeddings service when {@code ds.ai.openai.embeddings.enabled} is set.
+     * <p>
+     * The service shares the REST client and the asynchronous executor of the {@link OpenAIService}; its pending batch is sent when the
+     * application context is closed.
+     * </p>
+     *
+     * @param openAIRestClient the REST client for the OpenAI API
+     * @param openAIAsyncExecutor the executor sending the batches
+     * @param tokenEstimator the estimator bounding the tokens of a batch
+     * @return the embeddings service
+     * @see OpenAIConfigProperties.Embeddings
+     */
+    @Bean(name = "openAIEmbeddingService")
+    @ConditionalOnMissingBean(OpenAIEmbeddingService.class)
+    @ConditionalOnProperty(prefix = "ds.ai.openai.embeddings", name = "enabled", havingValue = "true")
+    public OpenAIEmbeddingService openAIEmbeddingService(@Qualifier("openAIRestClient") RestClient openAIRestClient,
+            @Qualifier("openAIAsyncExecutor") Executor openAIAsyncExecutor, TokenEstimator tokenEstimator) {
+        log.info("Creating OpenAI embeddings service with model: {}", properties.getEmbeddings().getModel());
+        return new OpenAIEmbeddingService(openAIRestClient, properties, openAIAsyncExecutor, tokenEstimator);
+    }
+
+    /**
+     * Creates the Batch API service when {@code ds.ai.openai.batch.enabled} is set.
+     *
+     * @param openAIRestClient the REST client
+     * @return the batch service
+     * @see OpenAIConfigProperties.Batch
+     */
+    @Bean(name = "openAIBatchService")
+    @ConditionalOnMissingBean(OpenAIBatchService.class)
+    @ConditionalOnProperty(prefix = "ds.ai.openai.batch", name = "enabled", havingValue = "true")
+    public OpenAIBatchService openAIBatchService(@Qualifier("openAIRestClient") RestClient openAIRestClient) {
+        log.info("Creating OpenAI batch service with base URL: {}", properties.getBatch().getBaseUrl());
+        return new OpenAIBatchService(openAIRestClient, properties);
+    }
+
+    /**
+     * Creates the upstream router when {@code ds.ai.openai.routing.enabled} is set.
+     * <p>
+     * When {@code ds.ai.openai.rate-limit.enabled} is also set, each upstream has its own rate limiter for the quota of its API key. Applications
+     * can supply their own {@link UpstreamRouter} bean instead.
+     * </p>
+     *
+     * @param tokenEstimator the estimator for prompt tokens
+     * @return the upstream router
+     * @see OpenAIConfigProperties.Routing
+     */
+    @Bean(name = "openAIUpstreamRouter")
+    @ConditionalOnMissingBean(UpstreamRouter.class)
+    @ConditionalOnProperty(prefix = "ds.ai.openai.routing", name = "enabled", havingValue = "true")
+    public UpstreamRouter openAIUpstreamRouter(TokenEstimator tokenEstimator) {
+        return new UpstreamRouter(properties.getRouting(), properties.getRateLimit(), tokenEstimator);
+    }
+
+    /**
+     * Creates the estimator used to budget prompt tokens before a request is sent.
+     * <p>
+     * Tokens are counted exactly by a {@link BpeTokenizer} when the vocabulary of the configured encoding is on the classpath, and estimated from
+     * the text length otherwise. Applications can supply their own {@link TokenEstimator} bean instead.
+     * </p>
+     *
+     * @return the token estimator
+     * @see OpenAIConfigProperties.Tokenizer
+     */
+    @Bean(name = "openAITokenEstimator")
+    @ConditionalOnMissingBean(TokenEstimator.class)
+    public TokenEstimator openAITokenEstimator() {
+        OpenAIConfigProperties.Tokenizer tokenizer = properties.getTokenizer();
+        BpeEncoding encoding = "auto".equalsIgnoreCase(tokenizer.getEncoding()) ? BpeEncoding.forModel(properties.getModel())
+                : BpeEncoding.fromName(tokenizer.getEncoding());
+        if (BpeTokenizer.isAvailable(encoding)) {
+            log.info("Creating OpenAI tokenizer with the {} encoding", encoding.getEncodingName());
+            return BpeTokenizer.load(encoding, tokenizer.getCacheSize());
+        }
+        log.warn("No {} vocabulary found on the classpath at {}: token counts are only estimated from the text length. Download {}.tiktoken from "
+                + "https://openaipublic.blob.core.windows.net/encodings/ into your resources for exact counts", encoding.getEncodingName(),
+                encoding.getResourceName(), encoding.getEncodingName());
+        return new HeuristicTokenEstimator();
+    }
+
+    /**
+     * Creates the client-side rate limiter when {@code ds.ai.openai.rate-limit.enabled} is set.
+     * <p>
+     * It limits the calls sent to {@code api-endpoint} with {@code api-key}; with routing enabled, the upstreams have their own limiters.
+     * </p>
+     *
+     * @param tokenEstimator the estimator for prompt tokens
+     * @return the rate limiter
+     * @see OpenAIConfigProperties.RateLimit
+     */
+    @Bean(name = "openAIRateLimiter")
+    @ConditionalOnMissingBean(RateLimiter.class)
+    @ConditionalOnProperty(prefix = "ds.ai.openai.rate-limit", name = "enabled", havingValue = "true")
+    public RateLimiter openAIRateLimiter(TokenEstimator tokenEstimator) {
+        log.info("Creating OpenAI rate limiter with {} requests and {} tokens per minute", properties.getRateLimit().getRequestsPerMinute(),
+                properties.getRateLimit().getTokensPerMinute());
+        return new RateLimiter(properties.getRateLimit(), tokenEstimator);
+    }
+
+    /**
+     * Creates the admission controller when {@code ds.ai.openai.admission.enabled} is set.
+     *
+     * @return the admission controller
+     * @see OpenAIConfigProperties.Admission
+     */
+    @Bean(name = "openAIAdmissionController")
+    @ConditionalOnMissingBean(AdmissionController.class)
+    @ConditionalOnProperty(prefix = "ds.ai.openai.admission", name = "enabled", havingValue = "true")
+    public AdmissionController openAIAdmissionController() {
+        log.info("Creating OpenAI admission controller with {} pools and up to {} concurrent calls per model",
+                properties.getAdmission().getPools().size(), properties.getAdmission().getMaxConcurrency());
+        return new AdmissionController(properties.getAdmission());
+    }
+
+    /**
+     * Creates the model router when {@code ds.ai.openai.model-routing.enabled} is set.
+     * <p>
+     * Applications can supply their own {@link ModelRouter} bean instead.
+     * </p>
+     *
+     * @param tokenEstimator the estimator for prompt tokens
+     * @return the model router
+     * @see OpenAIConfigProperties.ModelRouting
+     */
+    @Bean(name = "openAIModelRouter")
+    @ConditionalOnMissingBean(ModelRouter.class)
+    @ConditionalOnProperty(prefix = "ds.ai.openai.model-routing", name = "enabled", havingValue = "true")
+    public ModelRouter openAIModelRouter(TokenEstimator tokenEstimator) {
+        log.info("Creating OpenAI model router over {} models with default tier {}", properties.getModelRouting().getModels().size(),
+                properties.getModelRouting().getDefaultTier());
+        return new ModelRouter(properties.getModelRouting(), tokenEstimator);
     }
 }
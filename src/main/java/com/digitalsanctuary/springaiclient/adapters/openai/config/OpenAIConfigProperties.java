@@ -1,8 +1,16 @@
 package com.digitalsanctuary.springaiclient.adapters.openai.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import com.digitalsanctuary.springaiclient.adapters.openai.conversation.WindowStrategy;
+import com.digitalsanctuary.springaiclient.adapters.openai.embeddings.EncodingFormat;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.ModelTier;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.RoutingStrategy;
 import lombok.Data;
 
 /**
@@ -25,6 +33,91 @@ import lombok.Data;
  *       model: gpt-4o
  *       output-tokens: 4096
  *       system-prompt: "You are a helpful assistant."
+ *       http:
+ *         transport: jdk
+ *         http2: true
+ *         connect-timeout: 10s
+ *         read-timeout: 120s
+ *       codec:
+ *         include-logprobs: false
+ *       async:
+ *         virtual-threads: true
+ *         max-threads: 64
+ *       cache:
+ *         enabled: true
+ *         max-entries: 10000
+ *         max-size: 64MB
+ *         ttl: 1h
+ *         disk:
+ *           enabled: true
+ *           directory: /var/cache/myapp/openai
+ *           max-size: 1GB
+ *       coalescing:
+ *         enabled: true
+ *       rate-limit:
+ *         enabled: true
+ *         requests-per-minute: 500
+ *         tokens-per-minute: 30000
+ *         max-wait: 30s
+ *       retry:
+ *         enabled: true
+ *         max-attempts: 3
+ *         default-deadline: 60s
+ *       hedging:
+ *         enabled: true
+ *         percentile: 0.95
+ *       metrics:
+ *         max-models: 20
+ *         slos: 500ms,1s,2s,5s,10s,30s
+ *       tokenizer:
+ *         encoding: auto
+ *         clamp-output-tokens: true
+ *       routing:
+ *         enabled: true
+ *         strategy: least-outstanding
+ *         upstreams:
+ *           - name: primary
+ *             endpoint: https://api.openai.com/v1/chat/completions
+ *             api-key: ${OPENAI_API_KEY}
+ *           - name: azure-eu
+ *             endpoint: https://example-eu.openai.azure.com/openai/v1/chat/completions
+ *             api-key: ${AZURE_OPENAI_API_KEY}
+ *             weight: 2
+ *             models: gpt-4o,gpt-4o-mini
+ *             tokens-per-minute: 60000
+ *       conversation:
+ *         strategy: pinned-system
+ *         store: file
+ *         directory: /var/lib/myapp/conversations
+ *       embeddings:
+ *         enabled: true
+ *         model: text-embedding-3-small
+ *         max-batch-size: 256
+ *         max-linger: 5ms
+ *       batch:
+ *         enabled: true
+ *         completion-window: 24h
+ *         poll-interval: 30s
+ *       admission:
+ *         enabled: true
+ *         max-concurrency: 16
+ *         pools:
+ *           - name: small
+ *             models: gpt-4o-mini,gpt-4.1-nano
+ *             max-concurrency: 64
+ *       model-routing:
+ *         enabled: true
+ *         default-tier: standard
+ *         models:
+ *           - name: gpt-4o
+ *             tier: premium
+ *             input-cost-per-million: 2.50
+ *             output-cost-per-million: 10.00
+ *             fallbacks: gpt-4o-mini
+ *           - name: gpt-4o-mini
+ *             tier: standard
+ *             input-cost-per-million: 0.15
+ *             output-cost-per-million: 0.60
  * </pre>
  * <p>
  * The following properties are supported:
@@ -34,6 +127,22 @@ import lombok.Data;
  *   <li>model: Default model to use (defaults to gpt-4o or as specified)</li>
  *   <li>output-tokens: Maximum tokens in responses (defaults to 4096)</li>
  *   <li>system-prompt: Default system prompt (defaults to "You are a helpful assistant.")</li>
+ *   <li>http.*: HTTP transport, connection pool and timeout settings (see {@link Http})</li>
+ *   <li>codec.*: Streaming JSON codec for requests and responses (see {@link Codec})</li>
+ *   <li>async.*: Executor settings for the asynchronous request methods (see {@link Async})</li>
+ *   <li>cache.*: Opt-in in-memory response cache, optionally backed by a persistent disk tier (see {@link Cache})</li>
+ *   <li>coalescing.*: Opt-in sharing of identical in-flight requests (see {@link Coalescing})</li>
+ *   <li>rate-limit.*: Opt-in client-side RPM and TPM limiter (see {@link RateLimit})</li>
+ *   <li>retry.*: Retries with exponential backoff and the default request deadline (see {@link Retry})</li>
+ *   <li>hedging.*: Opt-in hedged requests for slow calls (see {@link Hedging})</li>
+ *   <li>metrics.*: Micrometer request metrics, active when a MeterRegistry is available (see {@link Metrics})</li>
+ *   <li>tokenizer.*: Local token counting and output token budgeting (see {@link Tokenizer})</li>
+ *   <li>routing.*: Opt-in load balancing over several endpoints and API keys (see {@link Routing})</li>
+ *   <li>conversation.*: Windowing and storage of multi-turn conversations (see {@link ConversationSettings})</li>
+ *   <li>embeddings.*: Opt-in embeddings service with micro-batching (see {@link Embeddings})</li>
+ *   <li>batch.*: Opt-in Batch API client for asynchronous bulk runs (see {@link Batch})</li>
+ *   <li>admission.*: Opt-in per-model bulkheads with priority queues and load shedding (see {@link Admission})</li>
+ *   <li>model-routing.*: Opt-in choice of the model by cost and latency, with fallback chains (see {@link ModelRouting})</li>
  * </ul>
  * <p>
  * For security, it's recommended to use environment variables for sensitive properties
@@ -70,4 +179,885 @@ public class OpenAIConfigProperties {
      * The system prompt to be used for generating responses.
      */
     private String systemPrompt;
+
+    /**
+     * The HTTP transport settings.
+     */
+    private Http http = new Http();
+
+    /**
+     * The JSON codec settings.
+     */
+    private Codec codec = new Codec();
+
+    /**
+     * The executor settings for the asynchronous request methods.
+     */
+    private Async async = new Async();
+
+    /**
+     * The response cache settings.
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * The request coalescing settings.
+     */
+    private Coalescing coalescing = new Coalescing();
+
+    /**
+     * The client-side rate limiter settings.
+     */
+    private RateLimit rateLimit = new RateLimit();
+
+    /**
+     * The retry and deadline settings.
+     */
+    private Retry retry = new Retry();
+
+    /**
+     * The hedged request settings.
+     */
+    private Hedging hedging = new Hedging();
+
+    /**
+     * The Micrometer metrics settings.
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * The tokenizer settings.
+     */
+    private Tokenizer tokenizer = new Tokenizer();
+
+    /**
+     * The multi-upstream routing settings.
+     */
+    private Routing routing = new Routing();
+
+    /**
+     * The conversation settings.
+     */
+    private ConversationSettings conversation = new ConversationSettings();
+
+    /**
+     * Embeddings settings.
+     */
+    private Embeddings embeddings = new Embeddings();
+
+    /**
+     * Batch API settings.
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * Admission control settings.
+     */
+    private Admission admission = new Admission();
+
+    /**
+     * Model routing settings.
+     */
+    private ModelRouting modelRouting = new ModelRouting();
+
+    /**
+     * Settings for the streaming JSON codec.
+     * <p>
+     * When enabled, requests and responses are written and read with the Jackson streaming API instead of data binding. {@code logprobs}, which
+     * is expensive to bind and rarely used, is skipped unless included here; {@code system_fingerprint} is read like with data binding.
+     * </p>
+     */
+    @Data
+    public static class Codec {
+
+        /**
+         * Whether the streaming codec is used for chat completion requests and responses.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Whether {@code logprobs} are read into {@code Choice.logprobs}, as a {@code JsonNode} tree.
+         */
+        private boolean includeLogprobs = false;
+
+        /**
+         * Whether {@code system_fingerprint} is read into {@code OpenAIResponse.systemFingerprint}.
+         */
+        private boolean includeSystemFingerprint = true;
+    }
+
+    /**
+     * Executor settings for {@code OpenAIService.sendRequestAsync}.
+     * <p>
+     * By default each asynchronous request runs on its own virtual thread when the application runs on JDK 21 or later. On older JDKs, or when
+     * virtual threads are disabled, a bounded pool of platform threads is used instead.
+     * </p>
+     */
+    @Data
+    public static class Async {
+
+        /**
+         * Whether virtual threads should be used when the JDK supports them.
+         */
+        private boolean virtualThreads = true;
+
+        /**
+         * The maximum number of platform threads used when virtual threads are not available or disabled.
+         */
+        private int maxThreads = 64;
+    }
+
+    /**
+     * The HTTP client implementations that can back the OpenAI {@code RestClient}.
+     */
+    public enum Transport {
+        /**
+         * The JDK {@code java.net.http.HttpClient}, supporting HTTP/2 multiplexing. Always available.
+         */
+        JDK,
+        /**
+         * A pooled Apache HttpClient 5 (HTTP/1.1). Requires {@code org.apache.httpcomponents.client5:httpclient5} on the classpath.
+         */
+        APACHE,
+        /**
+         * A pooled Jetty client (HTTP/1.1). Requires {@code org.eclipse.jetty:jetty-client} on the classpath.
+         */
+        JETTY
+    }
+
+    /**
+     * HTTP transport settings for the OpenAI {@code RestClient} and, when WebFlux is present, the reactive {@code WebClient}.
+     * <p>
+     * Not every setting applies to every transport:
+     * </p>
+     * <ul>
+     *   <li>JDK: {@code http2}, {@code connect-timeout} and {@code read-timeout} (time until the response headers arrive). The JDK client pools and
+     *   multiplexes connections itself; its pool is tuned through the {@code jdk.httpclient.*} system properties.</li>
+     *   <li>APACHE: all settings except {@code http2}. {@code read-timeout} is the socket inactivity timeout and {@code response-timeout} the
+     *   time until a response is received.</li>
+     *   <li>JETTY: all settings except {@code http2} and {@code keep-alive}. {@code read-timeout} is the idle timeout of an exchange,
+     *   {@code idle-eviction} the idle timeout of pooled connections and {@code response-timeout} the total request timeout. Jetty has no overall
+     *   pool limit, so {@code max-connections} also caps the connections per route.</li>
+     * </ul>
+     * <p>
+     * The reactive client additionally applies {@code read-timeout} to the whole response and to the gap between two streamed chunks.
+     * </p>
+     */
+    @Data
+    public static class Http {
+
+        /**
+         * The HTTP client implementation to use.
+         */
+        private Transport transport = Transport.JDK;
+
+        /**
+         * Whether HTTP/2 should be negotiated, allowing concurrent requests to be multiplexed over one connection (JDK transport only).
+         */
+        private boolean http2 = true;
+
+        /**
+         * The maximum time to establish a connection, including the TLS handshake.
+         */
+        private Duration connectTimeout = Duration.ofSeconds(10);
+
+        /**
+         * The maximum time to wait for data from OpenAI.
+         */
+        private Duration readTimeout = Duration.ofSeconds(120);
+
+        /**
+         * The maximum time to wait for the response, or null for no limit (pooled transports only).
+         */
+        private Duration responseTimeout;
+
+        /**
+         * The maximum number of pooled connections per route (pooled transports only).
+         */
+        private int maxConnectionsPerRoute = 50;
+
+        /**
+         * The maximum number of pooled connections in total (pooled transports only).
+         */
+        private int maxConnections = 200;
+
+        /**
+         * How long a pooled connection may stay idle before it is evicted (pooled transports only).
+         */
+        private Duration idleEviction = Duration.ofSeconds(60);
+
+        /**
+         * How long a connection is kept alive for reuse when the server does not specify it (Apache transport only).
+         */
+        private Duration keepAlive = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Settings for the opt-in in-memory response cache.
+     * <p>
+     * When enabled, identical requests (same model, messages and token limit) are answered from memory until the entry expires or is evicted.
+     * Individual requests can skip the cache through {@code RequestOptions.bypassCache}.
+     * </p>
+     */
+    @Data
+    public static class Cache {
+
+        /**
+         * Whether responses should be cached.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum number of cached responses.
+         */
+        private int maxEntries = 10000;
+
+        /**
+         * The maximum estimated heap size of all cached responses.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * How long a cached response stays valid.
+         */
+        private Duration ttl = Duration.ofHours(1);
+
+        /**
+         * The persistent tier behind the in-memory cache.
+         */
+        private Disk disk = new Disk();
+
+        /**
+         * Settings for the persistent disk tier of the response cache.
+         * <p>
+         * When enabled, responses are also appended to memory-mapped segment files in the given directory and survive restarts, so batch
+         * re-runs and evaluation suites are answered from disk instead of calling OpenAI again. Responses found on disk are copied into the
+         * in-memory cache. The directory must not be shared between application instances.
+         * </p>
+         */
+        @Data
+        public static class Disk {
+
+            /**
+             * Whether responses should also be cached on disk. Requires {@code ds.ai.openai.cache.enabled}.
+             */
+            private boolean enabled = false;
+
+            /**
+             * The directory holding the segment files.
+             */
+            private String directory;
+
+            /**
+             * The size at which the active segment file is sealed and a new one started.
+             */
+            private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+            /**
+             * The maximum size of all segment files; the oldest segment is dropped when it is exceeded.
+             */
+            private DataSize maxSize = DataSize.ofGigabytes(1);
+
+            /**
+             * How long a response cached on disk stays valid.
+             */
+            private Duration ttl = Duration.ofDays(7);
+
+            /**
+             * The share of live records below which a sealed segment is compacted.
+             */
+            private double minLiveRatio = 0.5;
+        }
+    }
+
+    /**
+     * Settings for coalescing identical in-flight requests.
+     * <p>
+     * When enabled, concurrent callers sending identical requests share a single call to OpenAI and its result. This works with or without the
+     * response cache.
+     * </p>
+     */
+    @Data
+    public static class Coalescing {
+
+        /**
+         * Whether identical in-flight requests should be coalesced.
+         */
+        private boolean enabled = false;
+    }
+
+    /**
+     * Settings for the client-side rate limiter.
+     * <p>
+     * The limits are the starting point; once enabled, the limiter adopts the limits and remaining quota reported by OpenAI in its
+     * {@code x-ratelimit-*} response headers. With {@link Routing} enabled, each upstream has a limiter of its own, starting from these limits
+     * unless the upstream sets its own, since each API key has its own quota.
+     * </p>
+     */
+    @Data
+    public static class RateLimit {
+
+        /**
+         * Whether requests should be rate limited on the client side.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The initial requests-per-minute limit.
+         */
+        private int requestsPerMinute = 500;
+
+        /**
+         * The initial tokens-per-minute limit.
+         */
+        private int tokensPerMinute = 30000;
+
+        /**
+         * The maximum time a request may wait to be admitted before it is rejected.
+         */
+        private Duration maxWait = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Settings for retrying failed requests and for the default request deadline.
+     * <p>
+     * Rate limits (honoring {@code Retry-After}), transient server errors, timeouts and connection failures are retried with exponential backoff and
+     * full jitter. A retry is only made if it can start before the request deadline. The deadline applies even when retries are disabled.
+     * </p>
+     */
+    @Data
+    public static class Retry {
+
+        /**
+         * Whether failed requests should be retried.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum number of attempts, including the first one.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * The upper bound of the delay before the first retry.
+         */
+        private Duration initialBackoff = Duration.ofMillis(500);
+
+        /**
+         * The upper bound of any delay between attempts.
+         */
+        private Duration maxBackoff = Duration.ofSeconds(30);
+
+        /**
+         * The growth factor of the delay bound per attempt.
+         */
+        private double multiplier = 2.0;
+
+        /**
+         * The overall time allowed for a request including all its attempts, or null for no deadline. Can be overridden per request.
+         */
+        private Duration defaultDeadline;
+    }
+
+    /**
+     * Settings for hedged requests.
+     * <p>
+     * When enabled, a duplicate attempt is sent for calls that are slower than the given percentile of recent latencies, and the first response
+     * wins. Hedges spend extra tokens, so their number is capped by the budget ratio.
+     * </p>
+     */
+    @Data
+    public static class Hedging {
+
+        /**
+         * Whether slow requests should be hedged.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The latency percentile after which a hedge is sent.
+         */
+        private double percentile = 0.95;
+
+        /**
+         * The minimum time to wait before sending a hedge.
+         */
+        private Duration minDelay = Duration.ofSeconds(1);
+
+        /**
+         * The maximum number of hedges per request, for example 0.05 for at most 5% extra calls.
+         */
+        private double budgetRatio = 0.05;
+
+        /**
+         * The number of latencies to observe before hedging starts.
+         */
+        private int minSamples = 20;
+    }
+
+    /**
+     * Settings for the Micrometer request metrics.
+     * <p>
+     * The metrics are recorded when Micrometer is on the classpath and a {@code MeterRegistry} bean exists, for example through Spring Boot
+     * Actuator. To keep the number of time series bounded, only the first {@code max-models} distinct model names are used as tags; requests for
+     * further models are tagged as {@code other}.
+     * </p>
+     */
+    @Data
+    public static class Metrics {
+
+        /**
+         * Whether request metrics should be recorded.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The maximum number of distinct model tag values.
+         */
+        private int maxModels = 20;
+
+        /**
+         * The client-side latency percentiles to publish.
+         */
+        private List<Double> percentiles = new ArrayList<>(List.of(0.5, 0.95, 0.99));
+
+        /**
+         * The latency service level objectives, published as histogram buckets.
+         */
+        private List<Duration> slos = new ArrayList<>(
+                List.of(Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5), Duration.ofSeconds(10),
+                        Duration.ofSeconds(30)));
+    }
+
+    /**
+     * Settings for counting tokens before a request is sent.
+     * <p>
+     * Tokens are counted with the exact byte pair encoding of the model when its vocabulary file, such as {@code ds/ai/tokenizer/o200k_base.tiktoken},
+     * is on the classpath, and estimated from the text length otherwise. The counts are used by the rate limiter and, when
+     * {@code clamp-output-tokens} is set, to lower {@code max_tokens} of requests created by {@code createRequestBuilder()} to the part of the
+     * context window the prompt leaves free.
+     * </p>
+     */
+    @Data
+    public static class Tokenizer {
+
+        /**
+         * The encoding, {@code cl100k_base}, {@code o200k_base} or {@code auto} to use the encoding of the default model.
+         */
+        private String encoding = "auto";
+
+        /**
+         * The number of word pieces whose token counts are cached.
+         */
+        private int cacheSize = 8192;
+
+        /**
+         * Whether output tokens should be clamped to the remaining context window.
+         */
+        private boolean clampOutputTokens = false;
+
+        /**
+         * The context window in tokens, or 0 to use the known window of the model.
+         */
+        private int contextWindow = 0;
+    }
+
+    /**
+     * Settings for spreading requests over several OpenAI-compatible upstreams.
+     * <p>
+     * When enabled, every request is sent to one of the {@code upstreams}, each with its own endpoint, API key, weight and optional list of
+     * models, instead of {@code api-endpoint} and {@code api-key}. Each upstream has a circuit breaker that opens after
+     * {@code failure-threshold} consecutive server errors, timeouts or connection failures, or when the upstream reports a rate limit, and lets
+     * {@code half-open-probes} requests through once {@code open-duration} has passed.
+     * </p>
+     */
+    @Data
+    public static class Routing {
+
+        /**
+         * Whether requests should be routed over the upstreams.
+         */
+        private boolean enabled = false;
+
+        /**
+         * How an upstream is chosen for each request.
+         */
+        private RoutingStrategy strategy = RoutingStrategy.LEAST_OUTSTANDING;
+
+        /**
+         * The number of consecutive failures opening the circuit breaker of an upstream.
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * How long a circuit breaker stays open before probing the upstream.
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * The number of concurrent probe requests while a circuit breaker is half-open.
+         */
+        private int halfOpenProbes = 1;
+
+        /**
+         * The time over which the latency average of an upstream forgets older samples.
+         */
+        private Duration ewmaDecay = Duration.ofSeconds(10);
+
+        /**
+         * The upstreams.
+         */
+        private List<UpstreamSettings> upstreams = new ArrayList<>();
+
+        /**
+         * Settings for a single upstream.
+         */
+        @Data
+        public static class UpstreamSettings {
+
+            /**
+             * The name used in logs.
+             */
+            private String name;
+
+            /**
+             * The chat completions URL.
+             */
+            private String endpoint;
+
+            /**
+             * The API key sent with requests to this upstream.
+             */
+            private String apiKey;
+
+            /**
+             * The relative capacity of the upstream, such as its share of the quota.
+             */
+            private double weight = 1.0;
+
+            /**
+             * The models the upstream serves, or empty for all models.
+             */
+            private List<String> models = new ArrayList<>();
+
+            /**
+             * The initial requests-per-minute limit of the upstream's API key, or 0 to use {@code rate-limit.requests-per-minute}.
+             */
+            private int requestsPerMinute = 0;
+
+            /**
+             * The initial tokens-per-minute limit of the upstream's API key, or 0 to use {@code rate-limit.tokens-per-minute}.
+             */
+            private int tokensPerMinute = 0;
+        }
+    }
+
+    /**
+     * Settings for the conversations created by {@code OpenAIService.openConversation}.
+     * <p>
+     * The token budget of a conversation defaults to the context window of the default model minus the output tokens. Conversations are kept
+     * between turns when a store is configured: {@code memory} keeps up to {@code max-conversations} in memory, {@code file} writes one JSON file
+     * per conversation to {@code directory}.
+     * </p>
+     */
+    @Data
+    public static class ConversationSettings {
+
+        /**
+         * How the history is trimmed once it exceeds the token budget.
+         */
+        private WindowStrategy strategy = WindowStrategy.PINNED_SYSTEM;
+
+        /**
+         * The token budget of the prompt, or 0 to derive it from the context window of the default model.
+         */
+        private int maxPromptTokens = 0;
+
+        /**
+         * Where conversations are stored: {@code none}, {@code memory} or {@code file}.
+         */
+        private String store = "none";
+
+        /**
+         * The maximum number of conversations kept by the {@code memory} store.
+         */
+        private int maxConversations = 10000;
+
+        /**
+         * The directory of the {@code file} store.
+         */
+        private String directory;
+    }
+
+    /**
+     * Settings for the opt-in embeddings service.
+     * <p>
+     * When enabled, an {@code OpenAIEmbeddingService} bean is created. Single texts embedded concurrently are coalesced into batched requests,
+     * which are sent once they reach the batch size or token budget, or once the first text has waited for the linger time.
+     * </p>
+     */
+    @Data
+    public static class Embeddings {
+
+        /**
+         * Whether the embeddings service should be created.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The embeddings API endpoint URL.
+         */
+        private String endpoint = "https://api.openai.com/v1/embeddings";
+
+        /**
+         * The embedding model.
+         */
+        private String model = "text-embedding-3-small";
+
+        /**
+         * The number of dimensions of the vectors, or 0 for the model default.
+         */
+        private int dimensions = 0;
+
+        /**
+         * The format in which vectors are transferred; {@code base64} is smaller and faster to decode than {@code float}.
+         */
+        private EncodingFormat encodingFormat = EncodingFormat.BASE64;
+
+        /**
+         * The maximum number of texts in a request.
+         */
+        private int maxBatchSize = 256;
+
+        /**
+         * The maximum estimated number of tokens in a request.
+         */
+        private long maxBatchTokens = 100_000;
+
+        /**
+         * How long a single text waits for others to join its batch.
+         */
+        private Duration maxLinger = Duration.ofMillis(5);
+    }
+
+    /**
+     * Settings for the opt-in Batch API client.
+     * <p>
+     * When enabled, an {@code OpenAIBatchService} bean is created. Batches are polled with an interval that starts at the poll interval and grows
+     * by the multiplier up to the maximum poll interval, until the batch finishes or the maximum wait has passed.
+     * </p>
+     */
+    @Data
+    public static class Batch {
+
+        /**
+         * Whether the batch service should be created.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The base URL of the files and batches APIs.
+         */
+        private String baseUrl = "https://api.openai.com/v1";
+
+        /**
+         * The time frame within which a batch should be processed; the API currently only accepts {@code 24h}.
+         */
+        private String completionWindow = "24h";
+
+        /**
+         * The interval between the first polls of a batch.
+         */
+        private Duration pollInterval = Duration.ofSeconds(10);
+
+        /**
+         * The longest interval between polls.
+         */
+        private Duration maxPollInterval = Duration.ofMinutes(2);
+
+        /**
+         * The factor by which the polling interval grows after each poll.
+         */
+        private double pollMultiplier = 1.5;
+
+        /**
+         * How long to wait for a batch to finish; a little over the completion window, after which OpenAI expires the batch.
+         */
+        private Duration maxWait = Duration.ofHours(25);
+    }
+
+    /**
+     * Settings for the opt-in admission control.
+     * <p>
+     * When enabled, every call is admitted by the bulkhead of its model, which bounds the concurrent calls and queues the excess by
+     * {@code RequestOptions.priority}. Models listed by a pool share its bulkhead, a pool without models takes all unlisted models, and any other
+     * model gets a bulkhead of its own with the default limits. Requests are shed with an {@code OpenAIOverloadedException} when the queue is full
+     * or when their expected wait would exceed their deadline.
+     * </p>
+     */
+    @Data
+    public static class Admission {
+
+        /**
+         * Whether calls should go through admission control.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The default maximum number of concurrent calls per bulkhead.
+         */
+        private int maxConcurrency = 16;
+
+        /**
+         * The default maximum number of queued calls per bulkhead.
+         */
+        private int maxQueueSize = 128;
+
+        /**
+         * The longest a call without a deadline may be queued.
+         */
+        private Duration maxQueueWait = Duration.ofSeconds(30);
+
+        /**
+         * The time a queued call waits to climb one priority class, keeping lower classes from starving.
+         */
+        private Duration agingInterval = Duration.ofSeconds(2);
+
+        /**
+         * The named pools of models sharing a bulkhead.
+         */
+        private List<PoolSettings> pools = new ArrayList<>();
+
+        /**
+         * Settings for a pool of models sharing a bulkhead.
+         */
+        @Data
+        public static class PoolSettings {
+
+            /**
+             * The name used in logs and exceptions.
+             */
+            private String name;
+
+            /**
+             * The models of the pool, or empty for all models not listed by another pool.
+             */
+            private List<String> models = new ArrayList<>();
+
+            /**
+             * The maximum number of concurrent calls, or 0 for the default.
+             */
+            private int maxConcurrency = 0;
+
+            /**
+             * The maximum number of queued calls, or 0 for the default.
+             */
+            private int maxQueueSize = 0;
+        }
+    }
+
+    /**
+     * Settings for the opt-in model router.
+     * <p>
+     * When enabled, requests sent with a {@code RequestOptions.tier}, or every request if a default tier is set, go to the configured model of
+     * that tier or above with the lowest expected price, and any request for a configured model falls back along its {@code fallbacks} when the
+     * model is slow, rate limited, circuit-open or failing. Prices are per million tokens, in any currency as long as it is the same for all
+     * models and {@code latency-cost-per-second}.
+     * </p>
+     */
+    @Data
+    public static class ModelRouting {
+
+        /**
+         * Whether requests should go through the model router.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The tier of requests that do not declare one, or null to keep the model they ask for.
+         */
+        private ModelTier defaultTier;
+
+        /**
+         * The prompt size, in estimated tokens, up to which a request may be served by a model one tier below the requested one.
+         */
+        private int smallPromptTokens = 1000;
+
+        /**
+         * The average latency above which a model is considered slow and its fallbacks are tried first, or 0 to ignore latency.
+         */
+        private Duration slowLatency = Duration.ofSeconds(20);
+
+        /**
+         * The average error rate above which a model is considered failing and its fallbacks are tried first.
+         */
+        private double maxErrorRate = 0.5;
+
+        /**
+         * The price of one second of average latency when comparing models, trading cost against speed.
+         */
+        private double latencyCostPerSecond = 0.001;
+
+        /**
+         * The number of consecutive failures opening the circuit breaker of a model.
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * How long a circuit breaker stays open before probing the model.
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * The number of concurrent probe requests while a circuit breaker is half-open.
+         */
+        private int halfOpenProbes = 1;
+
+        /**
+         * The time after which the latency and error rate averages of a model are stale and no longer keep it from being tried.
+         */
+        private Duration ewmaDecay = Duration.ofSeconds(30);
+
+        /**
+         * The models the router may choose or fall back to.
+         */
+        private List<ModelSettings> models = new ArrayList<>();
+
+        /**
+         * Settings for a single model.
+         */
+        @Data
+        public static class ModelSettings {
+
+            /**
+             * The model name sent to OpenAI.
+             */
+            private String name;
+
+            /**
+             * The capability tier of the model.
+             */
+            private ModelTier tier = ModelTier.STANDARD;
+
+            /**
+             * The price of one million prompt tokens.
+             */
+            private double inputCostPerMillion = 0.0;
+
+            /**
+             * The price of one million completion tokens.
+             */
+            private double outputCostPerMillion = 0.0;
+
+            /**
+             * The largest prompt, in estimated tokens, sent to the model, or 0 for its context window minus the output tokens.
+             */
+            private int maxPromptTokens = 0;
+
+            /**
+             * The configured models tried, in order, when this one cannot serve a request.
+             */
+            private List<String> fallbacks = new ArrayList<>();
+        }
+    }
 }
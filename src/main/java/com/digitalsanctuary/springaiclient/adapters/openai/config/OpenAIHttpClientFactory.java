@@ -0,0 +1,195 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.JettyClientHttpRequestFactory;
+import org.springframework.util.ClassUtils;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates the {@link ClientHttpRequestFactory} backing the OpenAI {@code RestClient} from the {@link OpenAIConfigProperties.Http} settings.
+ * <p>
+ * The Apache and Jetty clients are optional dependencies. Their classes are only referenced from dedicated nested classes, which are loaded when
+ * the corresponding transport is selected, so the library works without them on the classpath. Factories holding a client that Spring does not
+ * release itself are {@link Closeable}, so that the client is stopped with the application context.
+ * </p>
+ */
+@Slf4j
+public final class OpenAIHttpClientFactory {
+
+    private OpenAIHttpClientFactory() {}
+
+    /**
+     * Creates a request factory for the configured transport.
+     *
+     * @param http the HTTP transport settings
+     * @return the request factory
+     * @throws IllegalStateException if the selected transport is not on the classpath or cannot be started
+     */
+    public static ClientHttpRequestFactory create(OpenAIConfigProperties.Http http) {
+        log.info("Creating OpenAI HTTP transport: {}", http.getTransport());
+        switch (http.getTransport()) {
+            case APACHE:
+                requireClass("org.apache.hc.client5.http.impl.classic.HttpClients", "org.apache.httpcomponents.client5:httpclient5");
+                return ApacheTransport.create(http);
+            case JETTY:
+                requireClass("org.eclipse.jetty.client.HttpClient", "org.eclipse.jetty:jetty-client");
+                return JettyTransport.create(http);
+            case JDK:
+            default:
+                return jdk(http);
+        }
+    }
+
+    private static ClientHttpRequestFactory jdk(OpenAIConfigProperties.Http http) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(jdkClient(http));
+        if (http.getReadTimeout() != null) {
+            factory.setReadTimeout(http.getReadTimeout());
+        }
+        return factory;
+    }
+
+    /**
+     * Creates the JDK client with the configured HTTP version and connect timeout, shared by the blocking and reactive transports.
+     */
+    static HttpClient jdkClient(OpenAIConfigProperties.Http http) {
+        HttpClient.Builder builder = HttpClient.newBuilder().version(http.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (http.getConnectTimeout() != null) {
+            builder.connectTimeout(http.getConnectTimeout());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Fails with a helpful message when the optional dependency of a transport is missing.
+     */
+    static void requireClass(String className, String artifact) {
+        if (!ClassUtils.isPresent(className, OpenAIHttpClientFactory.class.getClassLoader())) {
+            throw new IllegalStateException("The selected OpenAI HTTP transport requires " + artifact + " on the classpath");
+        }
+    }
+
+    static final class ApacheTransport {
+
+        private static ClientHttpRequestFactory create(OpenAIConfigProperties.Http http) {
+            ConnectionConfig.Builder connectionConfig = ConnectionConfig.custom();
+            if (http.getConnectTimeout() != null) {
+                connectionConfig.setConnectTimeout(Timeout.of(http.getConnectTimeout()));
+            }
+            if (http.getReadTimeout() != null) {
+                connectionConfig.setSocketTimeout(Timeout.of(http.getReadTimeout()));
+            }
+            PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnPerRoute(http.getMaxConnectionsPerRoute()).setMaxConnTotal(http.getMaxConnections())
+                    .setDefaultConnectionConfig(connectionConfig.build()).build();
+
+            CloseableHttpClient client = HttpClients.custom().setConnectionManager(connectionManager).setDefaultRequestConfig(requestConfig(http))
+                    .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE).evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.of(http.getIdleEviction())).build();
+            return new HttpComponentsClientHttpRequestFactory(client);
+        }
+
+        /**
+         * Creates the request defaults. The keep-alive is the fallback of {@link DefaultConnectionKeepAliveStrategy}, used when the response has
+         * no {@code Keep-Alive} header.
+         */
+        static RequestConfig requestConfig(OpenAIConfigProperties.Http http) {
+            RequestConfig.Builder requestConfig = RequestConfig.custom().setConnectionKeepAlive(TimeValue.of(http.getKeepAlive()));
+            if (http.getResponseTimeout() != null) {
+                requestConfig.setResponseTimeout(Timeout.of(http.getResponseTimeout()));
+            }
+            return requestConfig.build();
+        }
+    }
+
+    static final class JettyTransport {
+
+        private static ClientHttpRequestFactory create(OpenAIConfigProperties.Http http) {
+            org.eclipse.jetty.client.HttpClient client = client(http);
+            JettyClientHttpRequestFactory factory = new JettyClientHttpRequestFactory(client);
+            if (http.getResponseTimeout() != null) {
+                factory.setReadTimeout(http.getResponseTimeout());
+            }
+            return new StoppingRequestFactory(factory, () -> stop(client));
+        }
+
+        /**
+         * Creates and starts the Jetty client with the configured pool and timeouts, shared by the blocking and reactive transports.
+         * <p>
+         * Jetty pools connections per destination and has no overall limit, so {@code max-connections} also caps every destination. The read
+         * timeout is applied as the idle timeout of each exchange, while {@code idle-eviction} stays the idle timeout of pooled connections.
+         * </p>
+         */
+        static org.eclipse.jetty.client.HttpClient client(OpenAIConfigProperties.Http http) {
+            org.eclipse.jetty.client.HttpClient client = new org.eclipse.jetty.client.HttpClient();
+            client.setMaxConnectionsPerDestination(Math.min(http.getMaxConnectionsPerRoute(), http.getMaxConnections()));
+            client.setIdleTimeout(http.getIdleEviction().toMillis());
+            if (http.getConnectTimeout() != null) {
+                client.setConnectTimeout(http.getConnectTimeout().toMillis());
+            }
+            if (http.getReadTimeout() != null) {
+                long readTimeout = http.getReadTimeout().toMillis();
+                client.getRequestListeners().addQueuedListener(request -> request.idleTimeout(readTimeout, TimeUnit.MILLISECONDS));
+            }
+            try {
+                client.start();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to start the Jetty HTTP client for OpenAI", e);
+            }
+            return client;
+        }
+
+        /**
+         * Stops a client created by {@link #client(OpenAIConfigProperties.Http)}.
+         */
+        static void stop(org.eclipse.jetty.client.HttpClient client) {
+            try {
+                client.stop();
+            } catch (Exception e) {
+                log.debug("Could not stop the Jetty HTTP client for OpenAI", e);
+            }
+        }
+    }
+
+    /**
+     * A request factory stopping the client it was created with when it is closed.
+     */
+    private static final class StoppingRequestFactory implements ClientHttpRequestFactory, Closeable {
+
+        private final ClientHttpRequestFactory delegate;
+        private final Runnable stop;
+
+        private StoppingRequestFactory(ClientHttpRequestFactory delegate, Runnable stop) {
+            this.delegate = delegate;
+            this.stop = stop;
+        }
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+            return delegate.createRequest(uri, httpMethod);
+        }
+
+        @Override
+        public void close() {
+            stop.run();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import com.digitalsanctuary.springaiclient.adapters.openai.metrics.MicrometerRequestObserver;
+import com.digitalsanctuary.springaiclient.adapters.openai.metrics.RequestObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuration class for the Micrometer request metrics.
+ * <p>
+ * This configuration is only active when Micrometer is on the classpath. The {@link RequestObserver} is only created when a {@link MeterRegistry}
+ * bean exists, for example when Spring Boot Actuator is used, and {@code ds.ai.openai.metrics.enabled} is not set to false.
+ * </p>
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+@ConditionalOnProperty(prefix = "ds.ai.openai.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OpenAIMetricsConfig {
+
+    /**
+     * The OpenAI configuration properties.
+     */
+    private final OpenAIConfigProperties properties;
+
+    /**
+     * Creates the observer recording OpenAI requests in the meter registry.
+     *
+     * @param meterRegistry the meter registry
+     * @return the request observer
+     * @see OpenAIConfigProperties.Metrics
+     */
+    @Bean(name = "openAIRequestObserver")
+    @ConditionalOnBean(MeterRegistry.class)
+    @ConditionalOnMissingBean(RequestObserver.class)
+    public RequestObserver openAIRequestObserver(MeterRegistry meterRegistry) {
+        log.info("Recording OpenAI request metrics in {}", meterRegistry.getClass().getSimpleName());
+        return new MicrometerRequestObserver(meterRegistry, properties.getMetrics());
+    }
+}
@@ -0,0 +1,118 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.config;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.function.Function;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.http.client.reactive.HttpComponentsClientHttpConnector;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.http.client.reactive.JettyClientHttpConnector;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Creates the {@link ClientHttpConnector} backing the OpenAI {@code WebClient} from the same {@link OpenAIConfigProperties.Http} settings as the
+ * blocking transport.
+ * <p>
+ * The connect timeout, HTTP version and connection pool are applied by the connector. The read timeout is applied by the
+ * {@link com.digitalsanctuary.springaiclient.adapters.openai.service.ReactiveOpenAIService}, to the whole response and to the gap between
+ * streamed chunks, because the reactive connectors have no common setting for it. As with {@link OpenAIHttpClientFactory}, the Apache and Jetty
+ * classes are only referenced from nested classes loaded when their transport is selected.
+ * </p>
+ */
+@Slf4j
+public final class ReactiveHttpConnectorFactory {
+
+    private ReactiveHttpConnectorFactory() {}
+
+    /**
+     * Creates a connector for the configured transport. Connectors holding a pool are {@link Closeable}.
+     *
+     * @param http the HTTP transport settings
+     * @return the connector
+     * @throws IllegalStateException if the selected transport is not on the classpath or cannot be started
+     */
+    public static ClientHttpConnector create(OpenAIConfigProperties.Http http) {
+        log.info("Creating reactive OpenAI HTTP transport: {}", http.getTransport());
+        switch (http.getTransport()) {
+            case APACHE:
+                OpenAIHttpClientFactory.requireClass("org.apache.hc.core5.reactive.ReactiveResponseConsumer",
+                        "org.apache.httpcomponents.core5:httpcore5-reactive");
+                return ApacheConnector.create(http);
+            case JETTY:
+                OpenAIHttpClientFactory.requireClass("org.eclipse.jetty.client.HttpClient", "org.eclipse.jetty:jetty-client");
+                return JettyConnector.create(http);
+            case JDK:
+            default:
+                return new JdkClientHttpConnector(OpenAIHttpClientFactory.jdkClient(http));
+        }
+    }
+
+    private static final class ApacheConnector {
+
+        private static ClientHttpConnector create(OpenAIConfigProperties.Http http) {
+            ConnectionConfig.Builder connectionConfig = ConnectionConfig.custom();
+            if (http.getConnectTimeout() != null) {
+                connectionConfig.setConnectTimeout(Timeout.of(http.getConnectTimeout()));
+            }
+            if (http.getReadTimeout() != null) {
+                connectionConfig.setSocketTimeout(Timeout.of(http.getReadTimeout()));
+            }
+            PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                    .setMaxConnPerRoute(http.getMaxConnectionsPerRoute()).setMaxConnTotal(http.getMaxConnections())
+                    .setDefaultConnectionConfig(connectionConfig.build()).build();
+
+            RequestConfig.Builder requestConfig = RequestConfig.custom().setConnectionKeepAlive(TimeValue.of(http.getKeepAlive()));
+            if (http.getResponseTimeout() != null) {
+                requestConfig.setResponseTimeout(Timeout.of(http.getResponseTimeout()));
+            }
+            CloseableHttpAsyncClient client = HttpAsyncClients.custom().setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(requestConfig.build()).evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.of(http.getIdleEviction())).build();
+            return new HttpComponentsClientHttpConnector(client);
+        }
+    }
+
+    private static final class JettyConnector {
+
+        private static ClientHttpConnector create(OpenAIConfigProperties.Http http) {
+            org.eclipse.jetty.client.HttpClient client = OpenAIHttpClientFactory.JettyTransport.client(http);
+            return new StoppingConnector(new JettyClientHttpConnector(client), () -> OpenAIHttpClientFactory.JettyTransport.stop(client));
+        }
+    }
+
+    /**
+     * A connector stopping the client it was created with when it is closed.
+     */
+    private static final class StoppingConnector implements ClientHttpConnector, Closeable {
+
+        private final ClientHttpConnector delegate;
+        private final Runnable stop;
+
+        private StoppingConnector(ClientHttpConnector delegate, Runnable stop) {
+            this.delegate = delegate;
+            this.stop = stop;
+        }
+
+        @Override
+        public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri, Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+            return delegate.connect(method, uri, requestCallback);
+        }
+
+        @Override
+        public void close() {
+            stop.run();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.ReactiveOpenAIService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuration class for setting up the reactive OpenAI beans.
+ * <p>
+ * This configuration is only active when Spring WebFlux is on the classpath. It creates a {@link WebClient} for the OpenAI API and the
+ * {@link ReactiveOpenAIService} using it.
+ * </p>
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnClass(name = "org.springframework.web.reactive.function.client.WebClient")
+public class ReactiveOpenAIConfig {
+
+    /**
+     * The Bearer token prefix for the authorization header.
+     */
+    private static final String BEARER_TOKEN_PREFIX = "Bearer ";
+
+    /**
+     * The OpenAI configuration properties.
+     */
+    private final OpenAIConfigProperties properties;
+
+    /**
+     * Creates an instance of the reactive OpenAI service.
+     *
+     * @param openAIWebClient the WebClient for the OpenAI API
+     * @return an instance of {@link ReactiveOpenAIService}
+     */
+    @Bean
+    public ReactiveOpenAIService reactiveOpenAIService(@Qualifier("openAIWebClient") WebClient openAIWebClient) {
+        return new ReactiveOpenAIService(openAIWebClient, properties);
+    }
+
+    /**
+     * Creates the connector of the OpenAI WebClient from the {@code ds.ai.openai.http} settings.
+     * <p>
+     * Define a bean named {@code openAIClientHttpConnector} to replace it. Pooled connectors are closed when the context shuts down.
+     * </p>
+     *
+     * @return the connector for the configured transport
+     * @see ReactiveHttpConnectorFactory
+     */
+    @Bean(name = "openAIClientHttpConnector")
+    @ConditionalOnMissingBean(name = "openAIClientHttpConnector")
+    public ClientHttpConnector openAIClientHttpConnector() {
+        return ReactiveHttpConnectorFactory.create(properties.getHttp());
+    }
+
+    /**
+     * Creates an instance of the OpenAI WebClient.
+     * <p>
+     * The client is configured with the connector, API endpoint, content type, and authorization header.
+     * </p>
+     *
+     * @param openAIClientHttpConnector the connector executing the HTTP exchanges
+     * @return an instance of {@link WebClient}
+     */
+    @Bean(name = "openAIWebClient")
+    public WebClient openAIWebClient(@Qualifier("openAIClientHttpConnector") ClientHttpConnector openAIClientHttpConnector) {
+        log.info("Creating OpenAI WebClient with endpoint: {}", properties.getApiEndpoint());
+        return WebClient.builder().clientConnector(openAIClientHttpConnector).baseUrl(properties.getApiEndpoint())
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, BEARER_TOKEN_PREFIX + properties.getApiKey()).build();
+    }
+}
@@ -0,0 +1,344 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.conversation;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.TokenEstimator;
+
+/**
+ * A multi-turn chat session that keeps the messages fitting a token budget.
+ * <p>
+ * Every message is counted once, when it is added, and the conversation keeps a running total of the retained window. When the prompt would
+ * exceed the {@link ConversationPolicy#getMaxPromptTokens() budget}, the oldest messages are dropped according to the
+ * {@link WindowStrategy}, so each turn only costs the messages added and dropped in it. The retained messages are kept in an append-only array,
+ * and {@link #toRequest(String, int)} wraps them in a read-only view instead of copying them, so building a request does not depend on the
+ * length of the history either. Views handed out earlier are unaffected by later turns.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * Conversation conversation = openAIService.openConversation("user-42");
+ * OpenAIResponse first = openAIService.sendConversation(conversation, "Suggest a name for a cat.");
+ * OpenAIResponse second = openAIService.sendConversation(conversation, "Something shorter?");
+ * }
+ * </pre>
+ * <p>
+ * A conversation is not thread-safe; it is meant to be used by one session at a time.
+ * </p>
+ */
+public class Conversation {
+
+    private static final String SYSTEM = "system";
+    private static final String USER = "user";
+    private static final String ASSISTANT = "assistant";
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String id;
+    private final ConversationPolicy policy;
+    private final TokenEstimator estimator;
+
+    private Message systemMessage;
+    private int systemTokens;
+    private Message summaryMessage;
+    private int summaryTokens;
+
+    private Message[] messages = new Message[INITIAL_CAPACITY];
+    private int[] messageTokens = new int[INITIAL_CAPACITY];
+    private int start;
+    private int end;
+    private long windowTokens;
+    private long totalMessages;
+
+    /**
+     * Creates an empty conversation.
+     *
+     * @param id the conversation id, used as the key in a {@link ConversationStore}
+     * @param systemPrompt the system prompt, or null for none
+     * @param policy how tokens are counted and the history is trimmed
+     */
+    public Conversation(String id, String systemPrompt, ConversationPolicy policy) {
+        this.id = id;
+        this.policy = policy;
+        this.estimator = policy.getTokenEstimator();
+        if (systemPrompt != null) {
+            if (policy.getStrategy() == WindowStrategy.SLIDING) {
+                append(message(SYSTEM, systemPrompt), -1);
+            } else {
+                this.systemMessage = message(SYSTEM, systemPrompt);
+                this.systemTokens = count(systemMessage);
+            }
+        }
+    }
+
+    /**
+     * Restores a conversation from a snapshot, without counting its messages again.
+     *
+     * @param snapshot the snapshot
+     * @param policy how tokens are counted and the history is trimmed
+     * @return the conversation
+     */
+    public static Conversation restore(ConversationSnapshot snapshot, ConversationPolicy policy) {
+        Conversation conversation = new Conversation(snapshot.getId(), snapshot.getSystemPrompt(), policy);
+        if (snapshot.getSummary() != null) {
+            conversation.setSummary(snapshot.getSummary());
+        }
+        List<Message> restored = snapshot.getMessages() == null ? List.of() : snapshot.getMessages();
+        int[] tokens = snapshot.getMessageTokens();
+        for (int i = 0; i < restored.size(); i++) {
+            conversation.append(restored.get(i), tokens != null && i < tokens.length ? tokens[i] : -1);
+        }
+        conversation.totalMessages = Math.max(conversation.totalMessages, snapshot.getTotalMessages());
+        conversation.trim();
+        return conversation;
+    }
+
+    /**
+     * Adds a user message.
+     *
+     * @param content the message content
+     * @return this conversation
+     */
+    public Conversation addUserMessage(String content) {
+        return add(message(USER, content));
+    }
+
+    /**
+     * Adds an assistant message.
+     *
+     * @param content the message content
+     * @return this conversation
+     */
+    public Conversation addAssistantMessage(String content) {
+        return add(message(ASSISTANT, content));
+    }
+
+    /**
+     * Adds the first choice of a response as an assistant message.
+     *
+     * @param response the response
+     * @return this conversation
+     */
+    public Conversation addResponse(OpenAIResponse response) {
+        return addAssistantMessage(response.getMessage());
+    }
+
+    /**
+     * Adds a message, dropping the oldest messages if the prompt no longer fits the budget. The newest message is never dropped. With the
+     * {@link WindowStrategy#SUMMARIZE_OLDEST} strategy, this calls the summarizer on the calling thread when messages are dropped.
+     *
+     * @param message the message
+     * @return this conversation
+     */
+    public Conversation add(Message message) {
+        append(message, -1);
+        trim();
+        return this;
+    }
+
+    /**
+     * Creates a request for the retained window. The messages are a read-only view, so this takes constant time.
+     *
+     * @param model the model
+     * @param maxTokens the maximum number of output tokens
+     * @return the request
+     */
+    public OpenAIRequest toRequest(String model, int maxTokens) {
+        OpenAIRequest request = new OpenAIRequest();
+        request.setMessages(getMessages());
+        request.setModel(model);
+        request.setMaxTokens(maxTokens);
+        return request;
+    }
+
+    /**
+     * Returns a read-only view of the messages that would be sent: the system prompt, the summary and the retained window.
+     *
+     * @return the messages
+     */
+    public List<Message> getMessages() {
+        return new Window(systemMessage, summaryMessage, messages, start, end);
+    }
+
+    /**
+     * Returns the estimated number of prompt tokens of the retained window, including the per-message overhead.
+     *
+     * @return the number of prompt tokens
+     */
+    public long getPromptTokens() {
+        return TokenEstimator.TOKENS_PER_REPLY + systemTokens + summaryTokens + windowTokens;
+    }
+
+    /**
+     * Returns the conversation id.
+     *
+     * @return the id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the summary of the dropped messages.
+     *
+     * @return the summary, or null if there is none
+     */
+    public String getSummary() {
+        return summaryMessage == null ? null : summaryMessage.getContent();
+    }
+
+    /**
+     * Returns the number of messages ever added, including the dropped ones.
+     *
+     * @return the number of messages
+     */
+    public long getTotalMessages() {
+        return totalMessages;
+    }
+
+    /**
+     * Returns the number of retained messages, not counting the pinned system prompt and the summary.
+     *
+     * @return the number of retained messages
+     */
+    public int getRetainedMessages() {
+        return end - start;
+    }
+
+    /**
+     * Captures the state of the conversation for a {@link ConversationStore}.
+     *
+     * @return the snapshot
+     */
+    public ConversationSnapshot toSnapshot() {
+        ConversationSnapshot snapshot = new ConversationSnapshot();
+        snapshot.setId(id);
+        snapshot.setSystemPrompt(systemMessage == null ? null : systemMessage.getContent());
+        snapshot.setSummary(getSummary());
+        snapshot.setMessages(new Window(null, null, messages, start, end));
+        snapshot.setMessageTokens(Arrays.copyOfRange(messageTokens, start, end));
+        snapshot.setTotalMessages(totalMessages);
+        return snapshot;
+    }
+
+    /**
+     * Appends a message, counting it unless the count is known. When the array is full, the retained window is moved to a new array with room
+     * to grow; the old array is left untouched for the views still using it.
+     */
+    private void append(Message message, int tokens) {
+        if (end == messages.length) {
+            int retained = end - start;
+            int capacity = Math.max(INITIAL_CAPACITY, retained * 2);
+            Message[] grown = new Message[capacity];
+            int[] grownTokens = new int[capacity];
+            System.arraycopy(messages, start, grown, 0, retained);
+            System.arraycopy(messageTokens, start, grownTokens, 0, retained);
+            messages = grown;
+            messageTokens = grownTokens;
+            start = 0;
+            end = retained;
+        }
+        int counted = tokens >= 0 ? tokens : count(message);
+        messages[end] = message;
+        messageTokens[end] = counted;
+        end++;
+        windowTokens += counted;
+        totalMessages++;
+    }
+
+    /**
+     * Drops the oldest messages until the prompt fits the budget, always keeping the newest message.
+     */
+    private void trim() {
+        long budget = policy.getMaxPromptTokens();
+        if (getPromptTokens() <= budget) {
+            return;
+        }
+        if (policy.getStrategy() != WindowStrategy.SUMMARIZE_OLDEST || policy.getSummarizer() == null) {
+            while (getPromptTokens() > budget && end - start > 1) {
+                drop();
+            }
+            return;
+        }
+        // Trim to half the budget, so that the summarizer is not called on every turn
+        List<Message> dropped = new ArrayList<>();
+        while (getPromptTokens() - summaryTokens > budget / 2 && end - start > 1) {
+            dropped.add(messages[start]);
+            drop();
+        }
+        if (!dropped.isEmpty()) {
+            setSummary(policy.getSummarizer().summarize(getSummary(), dropped));
+        }
+        while (getPromptTokens() > budget && end - start > 1) {
+            drop();
+        }
+    }
+
+    /**
+     * Drops the oldest retained message. The array slot is not cleared, as earlier views may still refer to it; it is released when the window
+     * is moved to a new array.
+     */
+    private void drop() {
+        windowTokens -= messageTokens[start];
+        start++;
+    }
+
+    private void setSummary(String summary) {
+        this.summaryMessage = summary == null ? null : message(SYSTEM, summary);
+        this.summaryTokens = summaryMessage == null ? 0 : count(summaryMessage);
+    }
+
+    private int count(Message message) {
+        return TokenEstimator.TOKENS_PER_MESSAGE + estimator.countTokens(message.getRole()) + estimator.countTokens(message.getContent());
+    }
+
+    private static Message message(String role, String content) {
+        Message message = new Message();
+        message.setRole(role);
+        message.setContent(content);
+        return message;
+    }
+
+    /**
+     * A read-only view of up to two leading system messages followed by a range of an array. The range is never written to once it is visible.
+     */
+    private static final class Window extends AbstractList<Message> implements RandomAccess {
+
+        private final Message system;
+        private final Message summary;
+        private final int head;
+        private final Message[] messages;
+        private final int start;
+        private final int size;
+
+        Window(Message system, Message summary, Message[] messages, int start, int end) {
+            this.system = system;
+            this.summary = summary;
+            this.head = (system == null ? 0 : 1) + (summary == null ? 0 : 1);
+            this.messages = messages;
+            this.start = start;
+            this.size = head + end - start;
+        }
+
+        @Override
+        public Message get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            if (index < head) {
+                return index == 0 && system != null ? system : summary;
+            }
+            return messages[start + index - head];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.conversation;
+
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.HeuristicTokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.TokenEstimator;
+
+/**
+ * How a {@link Conversation} counts its tokens and trims its history, set through chained methods.
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * ConversationPolicy policy = new ConversationPolicy()
+ *     .strategy(WindowStrategy.PINNED_SYSTEM)
+ *     .maxPromptTokens(100_000)
+ *     .tokenEstimator(openAIService.getTokenEstimator());
+ * }
+ * </pre>
+ */
+public class ConversationPolicy {
+
+    private WindowStrategy strategy = WindowStrategy.PINNED_SYSTEM;
+    private int maxPromptTokens = Integer.MAX_VALUE;
+    private TokenEstimator tokenEstimator = new HeuristicTokenEstimator();
+    private Summarizer summarizer;
+
+    /**
+     * Sets how the history is trimmed.
+     *
+     * @param strategy the window strategy (default {@link WindowStrategy#PINNED_SYSTEM})
+     * @return the current instance of {@code ConversationPolicy} for method chaining.
+     */
+    public ConversationPolicy strategy(WindowStrategy strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
+    /**
+     * Sets the token budget of the prompt, usually the context window of the model minus the output tokens.
+     *
+     * @param maxPromptTokens the maximum number of prompt tokens (default unbounded)
+     * @return the current instance of {@code ConversationPolicy} for method chaining.
+     */
+    public ConversationPolicy maxPromptTokens(int maxPromptTokens) {
+        if (maxPromptTokens <= 0) {
+            throw new IllegalArgumentException("Max prompt tokens must be positive.");
+        }
+        this.maxPromptTokens = maxPromptTokens;
+        return this;
+    }
+
+    /**
+     * Sets the estimator counting the tokens of each message as it is added.
+     *
+     * @param tokenEstimator the token estimator (default a {@link HeuristicTokenEstimator})
+     * @return the current instance of {@code ConversationPolicy} for method chaining.
+     */
+    public ConversationPolicy tokenEstimator(TokenEstimator tokenEstimator) {
+        this.tokenEstimator = tokenEstimator;
+        return this;
+    }
+
+    /**
+     * Sets the summarizer used by the {@link WindowStrategy#SUMMARIZE_OLDEST} strategy.
+     *
+     * @param summarizer the summarizer
+     * @return the current instance of {@code ConversationPolicy} for method chaining.
+     */
+    public ConversationPolicy summarizer(Summarizer summarizer) {
+        this.summarizer = summarizer;
+        return this;
+    }
+
+    /**
+     * Returns how the history is trimmed.
+     *
+     * @return the window strategy
+     */
+    public WindowStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns the token budget of the prompt.
+     *
+     * @return the maximum number of prompt tokens
+     */
+    public int getMaxPromptTokens() {
+        return maxPromptTokens;
+    }
+
+    /**
+     * Returns the estimator counting the tokens of each message.
+     *
+     * @return the token estimator
+     */
+    public TokenEstimator getTokenEstimator() {
+        return tokenEstimator;
+    }
+
+    /**
+     * Returns the summarizer used by the {@link WindowStrategy#SUMMARIZE_OLDEST} strategy.
+     *
+     * @return the summarizer, or null if none is set
+     */
+    public Summarizer getSummarizer() {
+        return summarizer;
+    }
+}
@@ -0,0 +1,50 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.conversation;
+
+import java.util.List;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * The persisted state of a {@link Conversation}: its retained window, the summary of dropped messages and the token count of every message, so
+ * a restored conversation does not count its history again.
+ */
+@Data
+public class ConversationSnapshot {
+
+    /**
+     * The conversation id.
+     */
+    @JsonProperty("id")
+    private String id;
+
+    /**
+     * The pinned system prompt, or null if there is none or it is part of the sliding history.
+     */
+    @JsonProperty("system_prompt")
+    private String systemPrompt;
+
+    /**
+     * The summary of the dropped messages, or null if there is none.
+     */
+    @JsonProperty("summary")
+    private String summary;
+
+    /**
+     * The retained messages, oldest first.
+     */
+    @JsonProperty("messages")
+    private List<Message> messages;
+
+    /**
+     * The token count of every retained message.
+     */
+    @JsonProperty("message_tokens")
+    private int[] messageTokens;
+
+    /**
+     * The number of messages ever added to the conversation, including dropped ones.
+     */
+    @JsonProperty("total_messages")
+    private long totalMessages;
+}
@@ -0,0 +1,33 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.conversation;
+
+/**
+ * Persists {@link Conversation conversations} between turns, as {@link ConversationSnapshot snapshots} keyed by conversation id.
+ * <p>
+ * Implementations must be thread-safe. A snapshot only holds the retained window of a conversation, so saving it costs the same on every turn
+ * however long the session has been running.
+ * </p>
+ */
+public interface ConversationStore {
+
+    /**
+     * Loads a conversation.
+     *
+     * @param id the conversation id
+     * @return the snapshot, or null if there is no conversation with this id
+     */
+    ConversationSnapshot load(String id);
+
+    /**
+     * Saves a conversation, replacing any earlier snapshot with the same id.
+     *
+     * @param snapshot the snapshot
+     */
+    void save(ConversationSnapshot snapshot);
+
+    /**
+     * Deletes a conversation. Deleting an unknown conversation does nothing.
+     *
+     * @param id the conversation id
+     */
+    void delete(String id);
+}
@@ -0,0 +1,84 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.conversation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+
+/**
+ * A {@link ConversationStore} keeping one JSON file per conversation in a directory.
+ * <p>
+ * File names are the URL-safe base64 encoding of the conversation id, so any id can be used. A snapshot is written to a temporary file and then
+ * moved over the previous one, so a crash never leaves a half-written conversation behind.
+ * </p>
+ */
+public class FileConversationStore implements ConversationStore {
+
+    private static final String SUFFIX = ".json";
+
+    private final Path directory;
+
+    /**
+     * Creates a store in the given directory, creating it if needed.
+     *
+     * @param directory the directory
+     * @throws UncheckedIOException if the directory cannot be created
+     */
+    public FileConversationStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create conversation directory " + directory, e);
+        }
+    }
+
+    @Override
+    public ConversationSnapshot load(String id) {
+        try {
+            return ProviderJson.mapper().readValue(Files.readAllBytes(path(id)), ConversationSnapshot.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read conversation " + id, e);
+        }
+    }
+
+    @Override
+    public void save(ConversationSnapshot snapshot) {
+        Path target = path(snapshot.getId());
+        try {
+            Path temp = Files.createTempFile(directory, "conversation", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                ProviderJson.mapper().writeValue(out, snapshot);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write conversation " + snapshot.getId(), e);
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        try {
+            Files.deleteIfExists(path(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete conversation " + id, e);
+        }
+    }
+
+    private Path path(String id) {
+        return directory.resolve(Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8)) + SUFFIX);
+    }
+}
@@ -0,0 +1,76 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.conversation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, in-memory {@link ConversationStore} that evicts the least recently used conversation once full.
+ */
+public class InMemoryConversationStore implements ConversationStore {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, ConversationSnapshot> conversations;
+
+    /**
+     * Creates a store holding up to the given number of conversations.
+     *
+     * @param maxConversations the maximum number of conversations
+     */
+    public InMemoryConversationStore(int maxConversations) {
+        if (maxConversations <= 0) {
+            throw new IllegalArgumentException("Max conversations must be positive.");
+        }
+        this.conversations = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ConversationSnapshot> eldest) {
+                return size() > maxConversations;
+            }
+        };
+    }
+
+    @Override
+    public ConversationSnapshot load(String id) {
+        lock.lock();
+        try {
+            return conversations.get(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void save(ConversationSnapshot snapshot) {
+        lock.lock();
+        try {
+            conversations.put(snapshot.getId(), snapshot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        lock.lock();
+        try {
+            conversations.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of stored conversations.
+     *
+     * @return the number of conversations
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return conversations.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.conversation;
+
+import java.util.List;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+
+/**
+ * Condenses messages dropped from a conversation into a summary, for the {@link WindowStrategy#SUMMARIZE_OLDEST} strategy.
+ */
+@FunctionalInterface
+public interface Summarizer {
+
+    /**
+     * Summarizes the dropped messages.
+     *
+     * @param previousSummary the summary of the messages dropped earlier, or null if there is none
+     * @param dropped the messages being dropped, oldest first
+     * @return the new summary, covering both the previous summary and the dropped messages
+     */
+    String summarize(String previousSummary, List<Message> dropped);
+}
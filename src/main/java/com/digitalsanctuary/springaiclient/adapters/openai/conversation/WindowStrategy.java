@@ -0,0 +1,23 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.conversation;
+
+/**
+ * How a {@link Conversation} trims its history once the prompt would exceed the token budget.
+ */
+public enum WindowStrategy {
+
+    /**
+     * Drop the oldest messages, including the system prompt, which is treated as the first message of the history.
+     */
+    SLIDING,
+
+    /**
+     * Always keep the system prompt and drop the oldest of the other messages.
+     */
+    PINNED_SYSTEM,
+
+    /**
+     * Always keep the system prompt and fold the oldest messages into a running summary, which is sent as a second system message. To summarize
+     * less often, the history is trimmed to half of the budget each time.
+     */
+    SUMMARIZE_OLDEST
+}
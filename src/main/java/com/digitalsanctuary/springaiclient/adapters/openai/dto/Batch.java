@@ -0,0 +1,90 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.dto;
+
+import java.util.Set;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a batch of the OpenAI Batch API.
+ * <p>
+ * A batch moves from {@code validating} through {@code in_progress} and {@code finalizing} to one of the terminal statuses {@code completed},
+ * {@code failed}, {@code expired} or {@code cancelled}. The results of successful requests are in the output file and those of failed requests in
+ * the error file; an expired or cancelled batch may have both with the results of the requests that were processed.
+ * </p>
+ */
+@Data
+public class Batch {
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("completed", "failed", "expired", "cancelled");
+
+    /**
+     * The batch identifier.
+     */
+    @JsonProperty("id")
+    private String id;
+
+    /**
+     * The object type, always {@code batch}.
+     */
+    @JsonProperty("object")
+    private String object;
+
+    /**
+     * The API endpoint the requests of the batch are sent to.
+     */
+    @JsonProperty("endpoint")
+    private String endpoint;
+
+    /**
+     * The current status of the batch.
+     */
+    @JsonProperty("status")
+    private String status;
+
+    /**
+     * The identifier of the input file.
+     */
+    @JsonProperty("input_file_id")
+    private String inputFileId;
+
+    /**
+     * The identifier of the file with the results of successful requests, once available.
+     */
+    @JsonProperty("output_file_id")
+    private String outputFileId;
+
+    /**
+     * The identifier of the file with the results of failed requests, once available.
+     */
+    @JsonProperty("error_file_id")
+    private String errorFileId;
+
+    /**
+     * The time frame within which the batch should be processed.
+     */
+    @JsonProperty("completion_window")
+    private String completionWindow;
+
+    /**
+     * The Unix timestamp (in seconds) when the batch was created.
+     */
+    @JsonProperty("created_at")
+    private long createdAt;
+
+    /**
+     * The request counts by status.
+     */
+    @JsonProperty("request_counts")
+    private BatchRequestCounts requestCounts;
+
+    /**
+     * Returns whether the batch has reached a status it will not leave.
+     *
+     * @return true if the batch is completed, failed, expired or cancelled
+     */
+    @JsonIgnore
+    public boolean isTerminal() {
+        return status != null && TERMINAL_STATUSES.contains(status);
+    }
+}
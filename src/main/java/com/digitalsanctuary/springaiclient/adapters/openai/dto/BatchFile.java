@@ -0,0 +1,47 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a file uploaded to the OpenAI files API, such as the input or output of a batch.
+ */
+@Data
+public class BatchFile {
+
+    /**
+     * The file identifier.
+     */
+    @JsonProperty("id")
+    private String id;
+
+    /**
+     * The object type, always {@code file}.
+     */
+    @JsonProperty("object")
+    private String object;
+
+    /**
+     * The size of the file in bytes.
+     */
+    @JsonProperty("bytes")
+    private long bytes;
+
+    /**
+     * The Unix timestamp (in seconds) when the file was created.
+     */
+    @JsonProperty("created_at")
+    private long createdAt;
+
+    /**
+     * The name of the file.
+     */
+    @JsonProperty("filename")
+    private String filename;
+
+    /**
+     * The intended purpose of the file, {@code batch} for batch input.
+     */
+    @JsonProperty("purpose")
+    private String purpose;
+}
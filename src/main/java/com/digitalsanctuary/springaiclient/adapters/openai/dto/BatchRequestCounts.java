@@ -0,0 +1,29 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents the request counts of a batch by status.
+ */
+@Data
+public class BatchRequestCounts {
+
+    /**
+     * The total number of requests in the batch.
+     */
+    @JsonProperty("total")
+    private int total;
+
+    /**
+     * The number of requests that completed successfully.
+     */
+    @JsonProperty("completed")
+    private int completed;
+
+    /**
+     * The number of requests that failed.
+     */
+    @JsonProperty("failed")
+    private int failed;
+}
@@ -0,0 +1,32 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a single embedding vector in an {@link EmbeddingResponse}.
+ * <p>
+ * The vector is held as a primitive array, which takes a quarter of the memory of a list of boxed doubles.
+ * </p>
+ */
+@Data
+public class Embedding {
+
+    /**
+     * The object type, always {@code embedding}.
+     */
+    @JsonProperty("object")
+    private String object;
+
+    /**
+     * The index of the input this embedding belongs to.
+     */
+    @JsonProperty("index")
+    private int index;
+
+    /**
+     * The embedding vector.
+     */
+    @JsonProperty("embedding")
+    private float[] embedding;
+}
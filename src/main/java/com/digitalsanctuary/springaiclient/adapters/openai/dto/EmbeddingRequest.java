@@ -0,0 +1,44 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.dto;
+
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a request to the OpenAI embeddings API.
+ * <p>
+ * A single request embeds a batch of inputs; the vectors in the {@link EmbeddingResponse} carry the index of their input.
+ * </p>
+ *
+ * @see com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIEmbeddingService
+ */
+@Data
+public class EmbeddingRequest {
+
+    /**
+     * The texts to embed.
+     */
+    @JsonProperty("input")
+    private List<String> input;
+
+    /**
+     * The embedding model, such as {@code text-embedding-3-small}.
+     */
+    @JsonProperty("model")
+    private String model;
+
+    /**
+     * The format of the returned vectors, {@code float} or {@code base64}. Omitted from the JSON when not set.
+     */
+    @JsonProperty("encoding_format")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String encodingFormat;
+
+    /**
+     * The number of dimensions of the returned vectors, for models that support shortening them. Omitted from the JSON when not set.
+     */
+    @JsonProperty("dimensions")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer dimensions;
+}
@@ -0,0 +1,39 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.dto;
+
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a response from the OpenAI embeddings API.
+ * <p>
+ * The usage only reports prompt and total tokens, as embeddings have no completion.
+ * </p>
+ */
+@Data
+public class EmbeddingResponse {
+
+    /**
+     * The object type, always {@code list}.
+     */
+    @JsonProperty("object")
+    private String object;
+
+    /**
+     * The embeddings, one per input.
+     */
+    @JsonProperty("data")
+    private List<Embedding> data;
+
+    /**
+     * The model used to compute the embeddings.
+     */
+    @JsonProperty("model")
+    private String model;
+
+    /**
+     * The token usage of the request.
+     */
+    @JsonProperty("usage")
+    private Usage usage;
+}
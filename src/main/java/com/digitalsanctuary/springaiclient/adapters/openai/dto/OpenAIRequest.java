@@ -1,6 +1,7 @@
 package com.digitalsanctuary.springaiclient.adapters.openai.dto;
 
 import java.util.List;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
@@ -56,4 +57,18 @@ public class OpenAIRequest {
      */
     @JsonProperty("model")
     private String model;
+
+    /**
+     * Whether the response should be streamed back as server-sent events. Omitted from the JSON when not set.
+     */
+    @JsonProperty("stream")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean stream;
+
+    /**
+     * The streaming options, only meaningful when {@link #stream} is {@code true}. Omitted from the JSON when not set.
+     */
+    @JsonProperty("stream_options")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private StreamOptions streamOptions;
 }
@@ -1,6 +1,7 @@
 package com.digitalsanctuary.springaiclient.adapters.openai.dto;
 
 import java.util.List;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
@@ -56,6 +57,39 @@ public class OpenAIResponse {
     @JsonProperty("system_fingerprint")
     private String systemFingerprint;
 
+    /**
+     * The model the request was sent to when the model router chose it, which may be a fallback of the requested model. Unlike {@link #model},
+     * which OpenAI may report as a dated snapshot, this is the configured model name. It is not part of the API and is not serialized.
+     */
+    @JsonIgnore
+    private String routedModel;
+
+    /**
+     * Whether the model router served the request with a fallback model instead of the model chosen for it. It is not part of the API and is
+     * not serialized.
+     */
+    @JsonIgnore
+    private boolean fallback;
+
+    /**
+     * Creates a shallow copy of this response, sharing its choices and usage.
+     *
+     * @return the copy
+     */
+    public OpenAIResponse copy() {
+        OpenAIResponse copy = new OpenAIResponse();
+        copy.setId(id);
+        copy.setObject(object);
+        copy.setCreated(created);
+        copy.setModel(model);
+        copy.setChoices(choices);
+        copy.setUsage(usage);
+        copy.setSystemFingerprint(systemFingerprint);
+        copy.setRoutedModel(routedModel);
+        copy.setFallback(fallback);
+        return copy;
+    }
+
     /**
      * Gets the content of the first choice's message.
      * <p>
@@ -0,0 +1,39 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a choice inside a streamed chat completion chunk.
+ * <p>
+ * Unlike {@link Choice}, a streamed choice carries a {@code delta} holding only the part of the message generated since the previous chunk. The
+ * role is typically sent in the first delta and the content is sent piece by piece afterwards.
+ * </p>
+ */
+@Data
+public class StreamChoice {
+
+    /**
+     * The index of the choice in the list of choices.
+     */
+    @JsonProperty("index")
+    private int index;
+
+    /**
+     * The incremental part of the message for this choice.
+     */
+    @JsonProperty("delta")
+    private Message delta;
+
+    /**
+     * The log probabilities of the tokens in the delta.
+     */
+    @JsonProperty("logprobs")
+    private Object logprobs;
+
+    /**
+     * The reason why the choice was finished, only present on the last chunk of the choice.
+     */
+    @JsonProperty("finish_reason")
+    private String finishReason;
+}
@@ -0,0 +1,58 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.dto;
+
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents a single server-sent event chunk of a streamed OpenAI chat completion.
+ * <p>
+ * Each chunk has the object type {@code chat.completion.chunk}. When usage reporting is requested, the final chunk has an empty list of choices
+ * and carries the {@link Usage} for the whole request.
+ * </p>
+ */
+@Data
+public class StreamChunk {
+
+    /**
+     * The unique identifier for the completion, shared by all chunks of the stream.
+     */
+    @JsonProperty("id")
+    private String id;
+
+    /**
+     * The type of object returned (always "chat.completion.chunk").
+     */
+    @JsonProperty("object")
+    private String object;
+
+    /**
+     * The timestamp when the completion was created.
+     */
+    @JsonProperty("created")
+    private long created;
+
+    /**
+     * The model used to generate the completion.
+     */
+    @JsonProperty("model")
+    private String model;
+
+    /**
+     * The list of streamed choices in this chunk.
+     */
+    @JsonProperty("choices")
+    private List<StreamChoice> choices;
+
+    /**
+     * The usage details of the request, only present on the final chunk.
+     */
+    @JsonProperty("usage")
+    private Usage usage;
+
+    /**
+     * The system fingerprint associated with the completion.
+     */
+    @JsonProperty("system_fingerprint")
+    private String systemFingerprint;
+}
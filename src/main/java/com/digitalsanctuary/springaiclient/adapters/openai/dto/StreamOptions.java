@@ -0,0 +1,20 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents the streaming options of an OpenAI chat completions request.
+ * <p>
+ * When {@code include_usage} is set, OpenAI sends one additional chunk at the end of the stream carrying the {@link Usage} for the whole request.
+ * </p>
+ */
+@Data
+public class StreamOptions {
+
+    /**
+     * Whether a final chunk containing the token usage should be sent before the stream ends.
+     */
+    @JsonProperty("include_usage")
+    private boolean includeUsage;
+}
@@ -0,0 +1,215 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.embeddings;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.TokenEstimator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces single-text embedding calls made concurrently into batched requests.
+ * <p>
+ * Each submitted text joins the pending batch. The batch is sent as soon as it holds {@code maxBatchSize} texts or {@code maxBatchTokens}
+ * estimated tokens, or once the first text has waited {@code maxLinger}; a text that would push the batch over the token budget starts a new
+ * batch instead. Batches are sent on the given executor, so a slow request does not hold up the next batch. The vectors come back in input order
+ * and complete the futures of their texts; a failed request fails every future of its batch.
+ * </p>
+ * <p>
+ * The batcher is thread-safe. Closing it sends the pending batch and stops the linger timer.
+ * </p>
+ */
+@Slf4j
+public class EmbeddingBatcher implements AutoCloseable {
+
+    private final Function<List<String>, List<float[]>> sender;
+    private final Executor executor;
+    private final int maxBatchSize;
+    private final long maxBatchTokens;
+    private final long maxLingerNanos;
+    private final TokenEstimator tokenEstimator;
+    private final ScheduledExecutorService timer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<String> texts = new ArrayList<>();
+    private List<CompletableFuture<float[]>> futures = new ArrayList<>();
+    private long pendingTokens;
+    private long generation;
+    private boolean closed;
+
+    /**
+     * Creates a batcher.
+     *
+     * @param sender the function embedding a batch of texts, returning one vector per text in the same order
+     * @param executor the executor sending the batches
+     * @param maxBatchSize the maximum number of texts in a batch
+     * @param maxBatchTokens the maximum estimated number of tokens in a batch
+     * @param maxLinger how long a text may wait for others to join its batch, or zero to send every text at once
+     * @param tokenEstimator the estimator for the tokens of a text
+     */
+    public EmbeddingBatcher(Function<List<String>, List<float[]>> sender, Executor executor, int maxBatchSize, long maxBatchTokens, Duration maxLinger,
+            TokenEstimator tokenEstimator) {
+        if (maxBatchSize <= 0 || maxBatchTokens <= 0) {
+            throw new IllegalArgumentException("Embedding batch bounds must be positive.");
+        }
+        this.sender = sender;
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchTokens = maxBatchTokens;
+        this.maxLingerNanos = maxLinger == null ? 0 : maxLinger.toNanos();
+        this.tokenEstimator = tokenEstimator;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "openai-embedding-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds a text to the pending batch.
+     *
+     * @param text the text to embed
+     * @return a future completed with the vector of the text
+     * @throws IllegalStateException if the batcher is closed
+     */
+    public CompletableFuture<float[]> submit(String text) {
+        long tokens = tokenEstimator.countTokens(text);
+        CompletableFuture<float[]> future = new CompletableFuture<>();
+        Batch full = null;
+        Batch overflow = null;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The embedding batcher is closed.");
+            }
+            if (!texts.isEmpty() && pendingTokens + tokens > maxBatchTokens) {
+                overflow = take();
+            }
+            texts.add(text);
+            futures.add(future);
+            pendingTokens += tokens;
+            if (texts.size() >= maxBatchSize || pendingTokens >= maxBatchTokens || maxLingerNanos <= 0) {
+                full = take();
+            } else if (texts.size() == 1) {
+                long scheduled = generation;
+                timer.schedule(() -> flush(scheduled), maxLingerNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        send(overflow);
+        send(full);
+        return future;
+    }
+
+    /**
+     * Sends the pending batch now, without waiting for it to fill up.
+     */
+    public void flush() {
+        Batch batch;
+        lock.lock();
+        try {
+            batch = texts.isEmpty() ? null : take();
+        } finally {
+            lock.unlock();
+        }
+        send(batch);
+    }
+
+    /**
+     * Sends the pending batch and stops the linger timer. Later submissions are rejected.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        flush();
+        timer.shutdownNow();
+    }
+
+    /**
+     * Sends the pending batch if it is still the one the linger timer was started for.
+     */
+    private void flush(long scheduled) {
+        Batch batch = null;
+        lock.lock();
+        try {
+            if (generation == scheduled && !texts.isEmpty()) {
+                batch = take();
+            }
+        } finally {
+            lock.unlock();
+        }
+        send(batch);
+    }
+
+    /**
+     * Detaches the pending batch. Must be called with the lock held.
+     */
+    private Batch take() {
+        Batch batch = new Batch(texts, futures);
+        texts = new ArrayList<>();
+        futures = new ArrayList<>();
+        pendingTokens = 0;
+        generation++;
+        return batch;
+    }
+
+    private void send(Batch batch) {
+        if (batch == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            batch.fail(new OpenAICommunicationException("The embedding batch could not be scheduled", e));
+        }
+    }
+
+    private void run(Batch batch) {
+        List<float[]> vectors;
+        try {
+            vectors = sender.apply(batch.texts);
+        } catch (Throwable t) {
+            batch.fail(t);
+            return;
+        }
+        if (vectors == null || vectors.size() != batch.texts.size()) {
+            batch.fail(new OpenAICommunicationException("Expected " + batch.texts.size() + " embeddings but received "
+                    + (vectors == null ? 0 : vectors.size())));
+            return;
+        }
+        log.debug("Embedded a batch of {} texts", batch.texts.size());
+        for (int i = 0; i < vectors.size(); i++) {
+            batch.futures.get(i).complete(vectors.get(i));
+        }
+    }
+
+    private static final class Batch {
+        private final List<String> texts;
+        private final List<CompletableFuture<float[]>> futures;
+
+        private Batch(List<String> texts, List<CompletableFuture<float[]>> futures) {
+            this.texts = texts;
+            this.futures = futures;
+        }
+
+        private void fail(Throwable failure) {
+            for (CompletableFuture<float[]> future : futures) {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.embeddings;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Embedding;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.EmbeddingRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.EmbeddingResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.StreamReadFeature;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.core.exc.StreamReadException;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Reads and writes the embeddings DTOs with the Jackson streaming API.
+ * <p>
+ * Vectors are read straight into {@code float[]}. A vector in the {@code base64} format is decoded from the characters held by the parser,
+ * without creating a string or an intermediate byte array; a vector in the {@code float} format is read number by number into an array sized
+ * after the previous vector of the response. The codec is stateless and thread-safe.
+ * </p>
+ */
+public class EmbeddingCodec {
+
+    private static final int[] BASE64_VALUES = new int[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private final JsonMapper mapper = JsonMapper.builder().disable(StreamReadFeature.AUTO_CLOSE_SOURCE).disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    /**
+     * Writes a request as JSON to the output stream. The stream is flushed but not closed.
+     *
+     * @param request the request
+     * @param out the output stream
+     */
+    public void writeRequest(EmbeddingRequest request, OutputStream out) {
+        try (JsonGenerator generator = mapper.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeName("input");
+            generator.writeStartArray();
+            for (String input : request.getInput()) {
+                generator.writeString(input);
+            }
+            generator.writeEndArray();
+            generator.writeName("model");
+            generator.writeString(request.getModel());
+            if (request.getEncodingFormat() != null) {
+                generator.writeName("encoding_format");
+                generator.writeString(request.getEncodingFormat());
+            }
+            if (request.getDimensions() != null) {
+                generator.writeName("dimensions");
+                generator.writeNumber(request.getDimensions());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Reads an embeddings response from the input stream. The stream is not closed.
+     *
+     * @param in the input stream
+     * @return the response
+     * @throws tools.jackson.core.JacksonException if the input is not a valid response
+     */
+    public EmbeddingResponse readResponse(InputStream in) {
+        try (JsonParser parser = mapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new StreamReadException(parser, "Expected a JSON object but found " + parser.currentToken());
+            }
+            EmbeddingResponse response = new EmbeddingResponse();
+            String name;
+            while ((name = parser.nextName()) != null) {
+                parser.nextToken();
+                switch (name) {
+                    case "object" -> response.setObject(readString(parser));
+                    case "data" -> response.setData(readEmbeddings(parser));
+                    case "model" -> response.setModel(readString(parser));
+                    case "usage" -> response.setUsage(readUsage(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            return response;
+        }
+    }
+
+    private static List<Embedding> readEmbeddings(JsonParser parser) {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<Embedding> embeddings = new ArrayList<>();
+        int sizeHint = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            Embedding embedding = new Embedding();
+            String name;
+            while ((name = parser.nextName()) != null) {
+                parser.nextToken();
+                switch (name) {
+                    case "object" -> embedding.setObject(readString(parser));
+                    case "index" -> embedding.setIndex(parser.currentToken().isNumeric() ? parser.getIntValue() : 0);
+                    case "embedding" -> embedding.setEmbedding(readVector(parser, sizeHint));
+                    default -> parser.skipChildren();
+                }
+            }
+            if (embedding.getEmbedding() != null) {
+                sizeHint = embedding.getEmbedding().length;
+            }
+            embeddings.add(embedding);
+        }
+        return embeddings;
+    }
+
+    private static float[] readVector(JsonParser parser, int sizeHint) {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            float[] vector = decodeBase64(parser.getStringCharacters(), parser.getStringOffset(), parser.getStringLength());
+            if (vector == null) {
+                throw new StreamReadException(parser, "The embedding is not a valid base64 encoding of 32-bit floats");
+            }
+            return vector;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        float[] vector = new float[sizeHint > 0 ? sizeHint : 256];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == vector.length) {
+                vector = Arrays.copyOf(vector, size * 2);
+            }
+            vector[size++] = parser.getFloatValue();
+        }
+        return size == vector.length ? vector : Arrays.copyOf(vector, size);
+    }
+
+    /**
+     * Decodes base64 characters holding little-endian 32-bit floats.
+     *
+     * @param chars the characters
+     * @param offset the index of the first character
+     * @param length the number of characters
+     * @return the floats, or null if the characters are not valid base64 or do not hold a whole number of floats
+     */
+    static float[] decodeBase64(char[] chars, int offset, int length) {
+        int end = offset + length;
+        while (end > offset && chars[end - 1] == '=') {
+            end--;
+        }
+        long byteCount = (end - offset) * 6L / 8;
+        if (byteCount % Float.BYTES != 0) {
+            return null;
+        }
+        float[] vector = new float[(int) (byteCount / Float.BYTES)];
+        int bits = 0;
+        int bitCount = 0;
+        int word = 0;
+        int byteIndex = 0;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            int value = c < BASE64_VALUES.length ? BASE64_VALUES[c] : -1;
+            if (value < 0) {
+                return null;
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                word |= ((bits >>> bitCount) & 0xFF) << (8 * (byteIndex & 3));
+                bits &= (1 << bitCount) - 1;
+                if ((++byteIndex & 3) == 0) {
+                    vector[(byteIndex >> 2) - 1] = Float.intBitsToFloat(word);
+                    word = 0;
+                }
+            }
+        }
+        return vector;
+    }
+
+    private static Usage readUsage(JsonParser parser) {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Usage usage = new Usage();
+        String name;
+        while ((name = parser.nextName()) != null) {
+            parser.nextToken();
+            switch (name) {
+                case "prompt_tokens" -> usage.setPromptTokens(parser.currentToken().isNumeric() ? parser.getIntValue() : 0);
+                case "total_tokens" -> usage.setTotalTokens(parser.currentToken().isNumeric() ? parser.getIntValue() : 0);
+                default -> parser.skipChildren();
+            }
+        }
+        return usage;
+    }
+
+    private static String readString(JsonParser parser) {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return parser.getString();
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
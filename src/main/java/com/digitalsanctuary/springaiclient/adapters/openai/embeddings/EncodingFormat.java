@@ -0,0 +1,32 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.embeddings;
+
+/**
+ * The format in which the embeddings API returns vectors.
+ */
+public enum EncodingFormat {
+
+    /**
+     * A JSON array of numbers, about 10 bytes of JSON per dimension.
+     */
+    FLOAT("float"),
+
+    /**
+     * The little-endian 32-bit floats encoded in base64, under 6 bytes of JSON per dimension and decoded without parsing numbers.
+     */
+    BASE64("base64");
+
+    private final String value;
+
+    EncodingFormat(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the value of the {@code encoding_format} request property.
+     *
+     * @return the value
+     */
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,206 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.metrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.web.client.RestClientResponseException;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIRateLimitException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIServerException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAITimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records OpenAI requests as Micrometer meters.
+ * <p>
+ * The following meters are registered:
+ * <ul>
+ *   <li>{@value #REQUESTS}: a timer of the {@code sendRequest} latency, tagged by {@code model}, {@code outcome} and {@code status}, with
+ *   client-side percentiles and service level objective buckets</li>
+ *   <li>{@value #TOKENS}: counters of the tokens reported by OpenAI, tagged by {@code model} and {@code type} (prompt, completion, total); the
+ *   model is the one that served the request when the model router chose another</li>
+ *   <li>{@value #ACTIVE}: a gauge of the requests currently in flight</li>
+ * </ul>
+ * <p>
+ * Tag cardinality is bounded: only the first {@code maxModels} distinct models are used as tag values, the outcome is one of a fixed set, and the
+ * status is an HTTP status code or {@code none}. Cached responses are timed with the {@code cache_hit} outcome and do not count towards token
+ * usage, since they did not consume any. Likewise, callers sharing the call of an identical request in flight are timed with the
+ * {@code coalesced} outcome, and the tokens of the shared call are only counted once, for the caller that made it.
+ * </p>
+ */
+public class MicrometerRequestObserver implements RequestObserver {
+
+    /**
+     * The name of the request timer.
+     */
+    public static final String REQUESTS = "ds.ai.openai.requests";
+
+    /**
+     * The name of the token counters.
+     */
+    public static final String TOKENS = "ds.ai.openai.tokens";
+
+    /**
+     * The name of the in-flight requests gauge.
+     */
+    public static final String ACTIVE = "ds.ai.openai.requests.active";
+
+    static final String OTHER_MODEL = "other";
+    static final String UNKNOWN_MODEL = "unknown";
+    private static final String NO_STATUS = "none";
+
+    private final MeterRegistry registry;
+    private final int maxModels;
+    private final double[] percentiles;
+    private final Duration[] slos;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Set<String> models = ConcurrentHashMap.newKeySet();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an observer from the metrics configuration properties.
+     *
+     * @param registry the registry to register the meters with
+     * @param metrics the metrics settings
+     */
+    public MicrometerRequestObserver(MeterRegistry registry, OpenAIConfigProperties.Metrics metrics) {
+        this(registry, metrics.getMaxModels(), metrics.getPercentiles(), metrics.getSlos());
+    }
+
+    /**
+     * Creates an observer.
+     *
+     * @param registry the registry to register the meters with
+     * @param maxModels the maximum number of distinct model tag values
+     * @param percentiles the client-side latency percentiles to publish
+     * @param slos the latency service level objectives
+     */
+    public MicrometerRequestObserver(MeterRegistry registry, int maxModels, List<Double> percentiles, List<Duration> slos) {
+        this.registry = registry;
+        this.maxModels = maxModels;
+        this.percentiles = percentiles.stream().mapToDouble(Double::doubleValue).toArray();
+        this.slos = slos.toArray(new Duration[0]);
+        Gauge.builder(ACTIVE, active, AtomicInteger::get).description("OpenAI requests in flight").register(registry);
+    }
+
+    @Override
+    public Observation start(OpenAIRequest request) {
+        active.incrementAndGet();
+        return new MicrometerObservation(modelTag(request.getModel()), System.nanoTime());
+    }
+
+    /**
+     * Returns the model tag value, collapsing models beyond the configured limit into {@value #OTHER_MODEL}.
+     */
+    String modelTag(String model) {
+        if (model == null || model.isBlank()) {
+            return UNKNOWN_MODEL;
+        }
+        if (models.contains(model)) {
+            return model;
+        }
+        synchronized (models) {
+            if (models.size() < maxModels) {
+                models.add(model);
+                return model;
+            }
+        }
+        return models.contains(model) ? model : OTHER_MODEL;
+    }
+
+    private Timer timer(String model, String outcome, String status) {
+        return timers.computeIfAbsent(model + '|' + outcome + '|' + status,
+                key -> Timer.builder(REQUESTS).description("Latency of OpenAI chat completion requests").tag("model", model).tag("outcome", outcome)
+                        .tag("status", status).publishPercentiles(percentiles).serviceLevelObjectives(slos).register(registry));
+    }
+
+    private void countTokens(String model, Usage usage) {
+        if (usage == null) {
+            return;
+        }
+        counter(model, "prompt").increment(usage.getPromptTokens());
+        counter(model, "completion").increment(usage.getCompletionTokens());
+        counter(model, "total").increment(usage.getTotalTokens());
+    }
+
+    private Counter counter(String model, String type) {
+        return counters.computeIfAbsent(model + '|' + type, key -> Counter.builder(TOKENS).description("Tokens consumed by OpenAI requests")
+                .baseUnit("tokens").tag("model", model).tag("type", type).register(registry));
+    }
+
+    /**
+     * Classifies a failure into an outcome and status tag.
+     */
+    static String[] classify(Throwable error) {
+        if (error instanceof OpenAIRateLimitException) {
+            return new String[] {"rate_limited", "429"};
+        }
+        if (error instanceof OpenAIServerException serverError) {
+            return new String[] {"server_error", String.valueOf(serverError.getStatusCode())};
+        }
+        if (error instanceof OpenAITimeoutException) {
+            return new String[] {"timeout", NO_STATUS};
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException responseError) {
+                return new String[] {"client_error", String.valueOf(responseError.getStatusCode().value())};
+            }
+        }
+        return new String[] {"error", NO_STATUS};
+    }
+
+    /**
+     * The observation of a single request, recording the timer when its outcome is reported.
+     */
+    private final class MicrometerObservation implements Observation {
+
+        private final String model;
+        private final long startNanos;
+
+        MicrometerObservation(String model, long startNanos) {
+            this.model = model;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void cacheHit(OpenAIResponse response) {
+            stop("cache_hit", NO_STATUS);
+        }
+
+        @Override
+        public void coalesced(OpenAIResponse response) {
+            stop("coalesced", NO_STATUS);
+        }
+
+        @Override
+        public void success(OpenAIResponse response) {
+            stop("success", "200");
+            if (response != null) {
+                // Tokens are billed to the model that served the request, which the model router may have changed
+                countTokens(response.getRoutedModel() != null ? modelTag(response.getRoutedModel()) : model, response.getUsage());
+            }
+        }
+
+        @Override
+        public void failure(Throwable error) {
+            String[] tags = classify(error);
+            stop(tags[0], tags[1]);
+        }
+
+        private void stop(String outcome, String status) {
+            active.decrementAndGet();
+            timer(model, outcome, status).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.metrics;
+
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+
+/**
+ * Observes the requests sent through {@code OpenAIService.sendRequest}.
+ * <p>
+ * For every call the service starts an {@link Observation} and reports exactly one outcome on it. This interface does not depend on any metrics
+ * library; {@link MicrometerRequestObserver} records the observations as Micrometer meters.
+ * </p>
+ */
+public interface RequestObserver {
+
+    /**
+     * Starts observing a request.
+     *
+     * @param request the request about to be sent
+     * @return the observation of the request
+     */
+    Observation start(OpenAIRequest request);
+
+    /**
+     * The observation of a single request.
+     */
+    interface Observation {
+
+        /**
+         * Reports that the response was served from the response cache without calling OpenAI.
+         *
+         * @param response the cached response
+         */
+        void cacheHit(OpenAIResponse response);
+
+        /**
+         * Reports that the response was shared by an identical request in flight, whose own observation reports the call to OpenAI.
+         *
+         * @param response the shared response
+         */
+        void coalesced(OpenAIResponse response);
+
+        /**
+         * Reports that OpenAI returned a response.
+         *
+         * @param response the response
+         */
+        void success(OpenAIResponse response);
+
+        /**
+         * Reports that the request failed.
+         *
+         * @param error the failure
+         */
+        void failure(Throwable error);
+    }
+}
@@ -0,0 +1,98 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+
+/**
+ * Decides when a hedged (duplicate) attempt is sent for a slow call to OpenAI.
+ * <p>
+ * A hedge is sent when the first attempt has not completed within the configured percentile of recent successful latencies, so only the slowest
+ * calls are duplicated. Because every hedge spends tokens, hedges are limited by a budget: each call earns a fraction of a hedge (the budget
+ * ratio), and a hedge can only be sent when a whole one has been earned. No hedges are sent until enough latencies have been observed.
+ * </p>
+ */
+public class HedgingPolicy {
+
+    private static final double MAX_CREDITS = 10;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double budgetRatio;
+    private final int minSamples;
+    private final LatencyTracker latencies;
+    private final LongAdder hedges = new LongAdder();
+    private double credits;
+
+    /**
+     * Creates a hedging policy from the hedging configuration properties.
+     *
+     * @param settings the hedging settings
+     */
+    public HedgingPolicy(OpenAIConfigProperties.Hedging settings) {
+        this(settings.getPercentile(), settings.getMinDelay(), settings.getBudgetRatio(), settings.getMinSamples());
+    }
+
+    /**
+     * Creates a hedging policy.
+     *
+     * @param percentile the latency percentile after which a hedge is sent, for example 0.95
+     * @param minDelay the minimum time before a hedge is sent
+     * @param budgetRatio the maximum number of hedges per call, for example 0.05 for at most 5% extra calls
+     * @param minSamples the number of latencies to observe before hedging starts
+     */
+    public HedgingPolicy(double percentile, Duration minDelay, double budgetRatio, int minSamples) {
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.budgetRatio = budgetRatio;
+        this.minSamples = minSamples;
+        this.latencies = new LatencyTracker(Math.max(128, minSamples));
+    }
+
+    /**
+     * Returns how long to wait for the first attempt before sending a hedge, and earns the hedge budget for this call.
+     *
+     * @return the delay in nanoseconds, or -1 if no hedge should be sent for this call
+     */
+    public long hedgeDelayNanos() {
+        synchronized (this) {
+            credits = Math.min(MAX_CREDITS, credits + budgetRatio);
+        }
+        if (latencies.size() < minSamples) {
+            return -1;
+        }
+        return Math.max(minDelayNanos, latencies.percentile(percentile));
+    }
+
+    /**
+     * Takes one hedge from the budget.
+     *
+     * @return true if a hedge may be sent
+     */
+    public synchronized boolean tryAcquireHedge() {
+        if (credits < 1) {
+            return false;
+        }
+        credits -= 1;
+        hedges.increment();
+        return true;
+    }
+
+    /**
+     * Records the latency of a successful attempt.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void recordLatency(long nanos) {
+        latencies.record(nanos);
+    }
+
+    /**
+     * Returns the number of hedges sent.
+     *
+     * @return the number of hedged attempts
+     */
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+}
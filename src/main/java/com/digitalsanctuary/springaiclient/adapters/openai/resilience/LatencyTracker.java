@@ -0,0 +1,67 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent latencies in a fixed-size ring buffer and answers percentile queries over them.
+ * <p>
+ * The buffer holds primitive longs, so recording allocates nothing. Percentiles are computed on a sorted copy, which is cheap compared with the
+ * duration of a call to OpenAI.
+ * </p>
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    /**
+     * Creates a tracker keeping the given number of recent samples.
+     *
+     * @param size the number of samples to keep
+     */
+    public LatencyTracker(int size) {
+        this.samples = new long[Math.max(1, size)];
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * Returns the number of samples currently held.
+     *
+     * @return the number of samples
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Returns the given percentile of the recorded latencies.
+     *
+     * @param percentile the percentile between 0 and 1, for example 0.95
+     * @return the latency in nanoseconds, or -1 if nothing has been recorded
+     */
+    public long percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
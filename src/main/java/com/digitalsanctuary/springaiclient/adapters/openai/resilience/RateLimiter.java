@@ -0,0 +1,292 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.springframework.http.HttpHeaders;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIThrottledException;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.TokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.support.RateLimitHeaders;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client-side rate limiter keeping requests under OpenAI's requests-per-minute (RPM) and tokens-per-minute (TPM) quotas.
+ * <p>
+ * Each request reserves one request token and its estimated token cost (prompt estimate plus {@code max_tokens}) from two token buckets. When the
+ * buckets are short, the caller waits for the refill; callers are admitted in the order they arrived. If the wait would exceed the configured
+ * maximum, the request is rejected with an {@link OpenAIThrottledException} without consuming quota.
+ * </p>
+ * <p>
+ * After each call, the reservation is corrected with the actual {@link Usage}, and the buckets are aligned with the {@code x-ratelimit-*} headers
+ * returned by OpenAI, so the limiter adapts to the account's real limits and to traffic from other clients sharing the same key. A limiter must
+ * therefore only see the responses of a single API key; with several upstreams, each has its own. Every permit is
+ * settled exactly once, by {@link #complete(Permit, Usage, HttpHeaders)}, {@link #rateLimited(Permit, HttpHeaders)},
+ * {@link #failed(Permit, HttpHeaders)} or {@link #release(Permit)}; later calls for the same permit are ignored, so callers can settle it
+ * unconditionally in a {@code finally} block.
+ * </p>
+ */
+@Slf4j
+public class RateLimiter {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TokenBucket requests;
+    private final TokenBucket tokens;
+    private final long maxWaitNanos;
+    private final TokenEstimator tokenEstimator;
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates a rate limiter from the rate limit configuration properties.
+     *
+     * @param settings the rate limit settings
+     * @param tokenEstimator the estimator for prompt tokens
+     */
+    public RateLimiter(OpenAIConfigProperties.RateLimit settings, TokenEstimator tokenEstimator) {
+        this(settings.getRequestsPerMinute(), settings.getTokensPerMinute(), settings.getMaxWait(), tokenEstimator, System::nanoTime);
+    }
+
+    /**
+     * Creates a rate limiter with explicit limits, such as those of one of several API keys.
+     *
+     * @param requestsPerMinute the initial requests-per-minute limit
+     * @param tokensPerMinute the initial tokens-per-minute limit
+     * @param maxWait the maximum time a caller may wait to be admitted
+     * @param tokenEstimator the estimator for prompt tokens
+     */
+    public RateLimiter(int requestsPerMinute, int tokensPerMinute, Duration maxWait, TokenEstimator tokenEstimator) {
+        this(requestsPerMinute, tokensPerMinute, maxWait, tokenEstimator, System::nanoTime);
+    }
+
+    /**
+     * Creates a rate limiter with explicit limits and clock.
+     *
+     * @param requestsPerMinute the initial requests-per-minute limit
+     * @param tokensPerMinute the initial tokens-per-minute limit
+     * @param maxWait the maximum time a caller may wait to be admitted
+     * @param tokenEstimator the estimator for prompt tokens
+     * @param nanoClock the source of the current time in nanoseconds
+     */
+    RateLimiter(int requestsPerMinute, int tokensPerMinute, Duration maxWait, TokenEstimator tokenEstimator, LongSupplier nanoClock) {
+        if (requestsPerMinute <= 0 || tokensPerMinute <= 0) {
+            throw new IllegalArgumentException("Rate limits must be positive.");
+        }
+        long now = nanoClock.getAsLong();
+        this.requests = new TokenBucket(requestsPerMinute, now);
+        this.tokens = new TokenBucket(tokensPerMinute, now);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.tokenEstimator = tokenEstimator;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Waits until the request can be sent within the rate limits and reserves its quota.
+     *
+     * @param request the request about to be sent
+     * @return the permit to pass to {@link #complete(Permit, Usage, HttpHeaders)} once the call has finished
+     * @throws OpenAIThrottledException if the request cannot be admitted within the maximum wait time
+     * @throws OpenAICommunicationException if the thread is interrupted while waiting
+     */
+    public Permit acquire(OpenAIRequest request) {
+        int estimatedTokens = tokenEstimator.estimatePromptTokens(request) + Math.max(0, request.getMaxTokens());
+        long waitNanos = reserve(estimatedTokens);
+        Permit permit = new Permit(estimatedTokens);
+        if (waitNanos > 0) {
+            log.debug("Rate limiter delaying OpenAI request by {} ms", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                release(permit);
+                Thread.currentThread().interrupt();
+                throw new OpenAICommunicationException("Interrupted while waiting for the OpenAI rate limiter", e);
+            }
+        }
+        return permit;
+    }
+
+    /**
+     * Corrects the reservation of a completed call with the actual usage and the rate limit headers returned by OpenAI.
+     *
+     * @param permit the permit returned by {@link #acquire(OpenAIRequest)}
+     * @param usage the usage reported by OpenAI, or null if unknown
+     * @param headers the response headers, or null if unavailable
+     */
+    public void complete(Permit permit, Usage usage, HttpHeaders headers) {
+        lock.lock();
+        try {
+            if (!permit.settle()) {
+                return;
+            }
+            if (usage != null && usage.getTotalTokens() > 0) {
+                tokens.give(permit.reservedTokens - usage.getTotalTokens());
+            }
+            requests.sync(RateLimitHeaders.number(headers, RateLimitHeaders.LIMIT_REQUESTS),
+                    RateLimitHeaders.number(headers, RateLimitHeaders.REMAINING_REQUESTS));
+            tokens.sync(RateLimitHeaders.number(headers, RateLimitHeaders.LIMIT_TOKENS),
+                    RateLimitHeaders.number(headers, RateLimitHeaders.REMAINING_TOKENS));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a 429 response, draining the buckets until the reset time reported by OpenAI.
+     *
+     * @param permit the permit returned by {@link #acquire(OpenAIRequest)}
+     * @param headers the headers of the 429 response, or null if unavailable
+     */
+    public void rateLimited(Permit permit, HttpHeaders headers) {
+        Duration retryAfter = RateLimitHeaders.retryAfter(headers);
+        Duration resetRequests = RateLimitHeaders.duration(headers, RateLimitHeaders.RESET_REQUESTS);
+        Duration resetTokens = RateLimitHeaders.duration(headers, RateLimitHeaders.RESET_TOKENS);
+        lock.lock();
+        try {
+            if (!permit.settle()) {
+                return;
+            }
+            requests.sync(RateLimitHeaders.number(headers, RateLimitHeaders.LIMIT_REQUESTS), -1);
+            tokens.sync(RateLimitHeaders.number(headers, RateLimitHeaders.LIMIT_TOKENS), -1);
+            if (RateLimitHeaders.number(headers, RateLimitHeaders.REMAINING_REQUESTS) == 0 && resetRequests != null) {
+                requests.drain(resetRequests.toNanos());
+            }
+            if (RateLimitHeaders.number(headers, RateLimitHeaders.REMAINING_TOKENS) == 0 && resetTokens != null) {
+                tokens.drain(resetTokens.toNanos());
+            }
+            if (retryAfter != null) {
+                requests.drain(retryAfter.toNanos());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Settles a call that may have reached OpenAI but did not complete, such as a server error, a timeout or a broken stream.
+     * <p>
+     * OpenAI counts a request against the quotas when it receives it, so the reservation stands. If a response arrived, the buckets are aligned
+     * with its rate limit headers.
+     * </p>
+     *
+     * @param permit the permit returned by {@link #acquire(OpenAIRequest)}
+     * @param headers the headers of the error response, or null if no response arrived
+     */
+    public void failed(Permit permit, HttpHeaders headers) {
+        lock.lock();
+        try {
+            if (!permit.settle()) {
+                return;
+            }
+            requests.sync(RateLimitHeaders.number(headers, RateLimitHeaders.LIMIT_REQUESTS),
+                    RateLimitHeaders.number(headers, RateLimitHeaders.REMAINING_REQUESTS));
+            tokens.sync(RateLimitHeaders.number(headers, RateLimitHeaders.LIMIT_TOKENS),
+                    RateLimitHeaders.number(headers, RateLimitHeaders.REMAINING_TOKENS));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the reserved quota of a call that was never sent, such as a call abandoned while waiting or one whose connection failed.
+     *
+     * @param permit the permit returned by {@link #acquire(OpenAIRequest)}
+     */
+    public void release(Permit permit) {
+        lock.lock();
+        try {
+            if (!permit.settle()) {
+                return;
+            }
+            requests.give(1);
+            tokens.give(permit.reservedTokens);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests that could be admitted right now.
+     *
+     * @return the available request quota, negative when callers are queued
+     */
+    public double getAvailableRequests() {
+        lock.lock();
+        try {
+            requests.refill(nanoClock.getAsLong());
+            return requests.available();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of tokens that could be admitted right now.
+     *
+     * @return the available token quota, negative when callers are queued
+     */
+    public double getAvailableTokens() {
+        lock.lock();
+        try {
+            tokens.refill(nanoClock.getAsLong());
+            return tokens.available();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long reserve(int estimatedTokens) {
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            requests.refill(now);
+            tokens.refill(now);
+            long waitNanos = Math.max(requests.waitNanos(1), tokens.waitNanos(estimatedTokens));
+            if (waitNanos > maxWaitNanos) {
+                throw new OpenAIThrottledException("OpenAI client-side rate limit exceeded; request would wait "
+                        + TimeUnit.NANOSECONDS.toMillis(waitNanos) + " ms", Duration.ofNanos(waitNanos));
+            }
+            requests.take(1);
+            tokens.take(estimatedTokens);
+            return waitNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The quota reserved for a single call.
+     */
+    public static final class Permit {
+        private final int reservedTokens;
+        private boolean settled;
+
+        private Permit(int reservedTokens) {
+            this.reservedTokens = reservedTokens;
+        }
+
+        /**
+         * Returns the number of tokens reserved for the call.
+         *
+         * @return the reserved tokens
+         */
+        public int getReservedTokens() {
+            return reservedTokens;
+        }
+
+        /**
+         * Marks the permit as settled. Must be called with the lock of the limiter held.
+         *
+         * @return true if the permit was not settled yet
+         */
+        private boolean settle() {
+            if (settled) {
+                return false;
+            }
+            settled = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.resilience;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.AsyncExecutors;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAITimeoutException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs calls to OpenAI with retries, an overall deadline and optional hedging.
+ * <p>
+ * Failed attempts are retried according to the {@link RetryPolicy}, as long as the next attempt can start before the deadline. When neither a
+ * deadline nor hedging applies, attempts run on the calling thread. Otherwise they run on the attempt executor while the caller waits: if the
+ * deadline passes, or another attempt wins, the outstanding attempts are abandoned. Their {@linkplain #onAbort(Runnable) abort actions} are run,
+ * which lets the caller close the HTTP exchange, and their threads are interrupted.
+ * </p>
+ * <p>
+ * The attempt executor must not be shared with tasks that wait for attempts, such as the asynchronous or bulk request methods: a bounded pool
+ * filled with waiting callers would leave no thread for their attempts. By default, each resilient executor owns an executor that never queues
+ * attempts, shut down by {@link #close()}.
+ * </p>
+ * <p>
+ * With a {@link HedgingPolicy}, a second attempt is sent when the first one is slower than the configured latency percentile, and the first
+ * successful attempt wins. For non-streaming chat completions OpenAI only sends the response headers once the completion is generated, so the
+ * completion time of an attempt is used as its time to headers.
+ * </p>
+ */
+@Slf4j
+public class ResilientExecutor implements Closeable {
+
+    private static final ThreadLocal<Attempt> CURRENT_ATTEMPT = new ThreadLocal<>();
+
+    private final RetryPolicy retryPolicy;
+    private final HedgingPolicy hedgingPolicy;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * Creates a resilient executor running its attempts on a dedicated executor, shut down by {@link #close()}.
+     *
+     * @param retryPolicy the retry policy
+     * @param hedgingPolicy the hedging policy, or null to disable hedging
+     */
+    public ResilientExecutor(RetryPolicy retryPolicy, HedgingPolicy hedgingPolicy) {
+        this(retryPolicy, hedgingPolicy, AsyncExecutors.unbounded("openai-attempt-"), true);
+    }
+
+    /**
+     * Creates a resilient executor running its attempts on the given executor, which must not run tasks waiting for attempts.
+     *
+     * @param retryPolicy the retry policy
+     * @param hedgingPolicy the hedging policy, or null to disable hedging
+     * @param executor the executor running attempts when a deadline or hedging applies
+     */
+    public ResilientExecutor(RetryPolicy retryPolicy, HedgingPolicy hedgingPolicy, Executor executor) {
+        this(retryPolicy, hedgingPolicy, executor, false);
+    }
+
+    private ResilientExecutor(RetryPolicy retryPolicy, HedgingPolicy hedgingPolicy, Executor executor, boolean ownsExecutor) {
+        this.retryPolicy = retryPolicy;
+        this.hedgingPolicy = hedgingPolicy;
+        this.executor = executor;
+        this.ownedExecutor = ownsExecutor ? (ExecutorService) executor : null;
+    }
+
+    /**
+     * Registers an action aborting the I/O of the attempt running on the current thread, such as closing its response stream.
+     * <p>
+     * The action is run from another thread if the attempt is abandoned at the deadline or loses to a hedged attempt, and immediately if it was
+     * abandoned already. It is discarded when the attempt ends, and ignored outside an attempt run on the attempt executor.
+     * </p>
+     *
+     * @param action the abort action
+     */
+    public static void onAbort(Runnable action) {
+        Attempt attempt = CURRENT_ATTEMPT.get();
+        if (attempt != null) {
+            attempt.onAbort(action);
+        }
+    }
+
+    /**
+     * Runs the call with retries, hedging and the given deadline.
+     *
+     * @param <T> the result type
+     * @param call a single attempt of the call
+     * @param timeout the overall time allowed for all attempts, or null for no deadline
+     * @return the result of the first successful attempt
+     * @throws OpenAITimeoutException if the deadline passes before an attempt succeeds
+     * @throws RuntimeException the failure of the last attempt if it is not retryable or no attempts are left
+     */
+    public <T> T execute(Supplier<T> call, Duration timeout) {
+        long deadline = timeout == null ? Long.MAX_VALUE : System.nanoTime() + timeout.toNanos();
+        int attempt = 1;
+        while (true) {
+            try {
+                return runAttempt(call, deadline);
+            } catch (RuntimeException e) {
+                if (!retryPolicy.shouldRetry(e, attempt)) {
+                    throw e;
+                }
+                long delay = retryPolicy.delayNanos(attempt, e);
+                if (deadline != Long.MAX_VALUE && System.nanoTime() + delay >= deadline) {
+                    log.debug("Not retrying OpenAI request, the next attempt would start after the deadline");
+                    throw e;
+                }
+                log.warn("OpenAI request attempt {} failed ({}), retrying in {} ms", attempt, e.getMessage(), TimeUnit.NANOSECONDS.toMillis(delay));
+                retries.increment();
+                sleep(delay);
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of retries performed.
+     *
+     * @return the number of retried attempts
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Returns the hedging policy.
+     *
+     * @return the hedging policy, or null if hedging is disabled
+     */
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    private <T> T runAttempt(Supplier<T> call, long deadline) {
+        // Calls still made once the owned executor is shut down, such as queued asynchronous requests, complete on the calling thread
+        if (hedgingPolicy == null && deadline == Long.MAX_VALUE || ownedExecutor != null && ownedExecutor.isShutdown()) {
+            return call.get();
+        }
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger();
+        List<Attempt> attempts = new ArrayList<>(2);
+        attempts.add(launch(call, winner, pending));
+        try {
+            long hedgeDelay = hedgingPolicy == null ? -1 : hedgingPolicy.hedgeDelayNanos();
+            if (hedgeDelay >= 0 && hedgeDelay < remaining(deadline)) {
+                try {
+                    return winner.get(hedgeDelay, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    if (hedgingPolicy.tryAcquireHedge()) {
+                        log.debug("OpenAI request slower than {} ms, sending a hedged attempt", TimeUnit.NANOSECONDS.toMillis(hedgeDelay));
+                        attempts.add(launch(call, winner, pending));
+                    }
+                }
+            }
+            return deadline == Long.MAX_VALUE ? winner.get() : winner.get(remaining(deadline), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new OpenAITimeoutException("OpenAI request exceeded its deadline", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new OpenAICommunicationException("Failed to communicate with OpenAI", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenAICommunicationException("Interrupted while waiting for OpenAI", e);
+        } finally {
+            for (Attempt attempt : attempts) {
+                attempt.abort();
+            }
+        }
+    }
+
+    /**
+     * Starts an attempt on the executor. The winner is completed by the first success, or by the last failure once every attempt has failed.
+     */
+    private <T> Attempt launch(Supplier<T> call, CompletableFuture<T> winner, AtomicInteger pending) {
+        pending.incrementAndGet();
+        Attempt attempt = new Attempt();
+        attempt.task = new FutureTask<>(() -> {
+            CURRENT_ATTEMPT.set(attempt);
+            long start = System.nanoTime();
+            try {
+                T result = call.get();
+                // Finished before the caller is released, so that the winner is not aborted with the other attempts
+                attempt.finish();
+                if (hedgingPolicy != null) {
+                    hedgingPolicy.recordLatency(System.nanoTime() - start);
+                }
+                winner.complete(result);
+            } catch (Throwable t) {
+                attempt.finish();
+                if (pending.decrementAndGet() == 0) {
+                    winner.completeExceptionally(t);
+                }
+            } finally {
+                CURRENT_ATTEMPT.remove();
+            }
+        }, null);
+        executor.execute(attempt.task);
+        return attempt;
+    }
+
+    /**
+     * Shuts down the attempt executor if this resilient executor created it. Attempts already running are completed, and later calls run their
+     * attempts on the calling thread, without the deadline or hedging.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private static long remaining(long deadline) {
+        return deadline == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, deadline - System.nanoTime());
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenAICommunicationException("Interrupted while waiting to retry the OpenAI request", e);
+        }
+    }
+
+    /**
+     * An attempt running on the attempt executor, with the actions aborting its I/O.
+     */
+    private static final class Attempt {
+        private final List<Runnable> abortActions = new ArrayList<>(1);
+        private FutureTask<Void> task;
+        private boolean aborted;
+        private boolean finished;
+
+        private void onAbort(Runnable action) {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                if (!aborted) {
+                    abortActions.add(action);
+                    return;
+                }
+            }
+            runQuietly(action);
+        }
+
+        /**
+         * Abandons the attempt unless it has finished: its abort actions are run and its thread is interrupted.
+         */
+        private void abort() {
+            List<Runnable> actions;
+            synchronized (this) {
+                if (finished || aborted) {
+                    return;
+                }
+                aborted = true;
+                actions = new ArrayList<>(abortActions);
+                abortActions.clear();
+            }
+            task.cancel(true);
+            actions.forEach(Attempt::runQuietly);
+        }
+
+        private synchronized void finish() {
+            finished = true;
+            abortActions.clear();
+        }
+
+        private static void runQuietly(Runnable action) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                log.debug("Failed to abort an OpenAI request attempt: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.resilience;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIRateLimitException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIServerException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAITimeoutException;
+
+/**
+ * Decides whether a failed call to OpenAI is retried and how long to wait before the next attempt.
+ * <p>
+ * Rate limits (429), transient server errors (500, 502, 503, 504), timeouts and I/O failures such as connection resets are retried. The delay
+ * grows exponentially from the initial backoff with full jitter, and is never shorter than the {@code Retry-After} time given by OpenAI.
+ * </p>
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double multiplier;
+
+    /**
+     * Creates a retry policy from the retry configuration properties.
+     *
+     * @param settings the retry settings
+     */
+    public RetryPolicy(OpenAIConfigProperties.Retry settings) {
+        this(settings.isEnabled() ? settings.getMaxAttempts() : 1, settings.getInitialBackoff(), settings.getMaxBackoff(), settings.getMultiplier());
+    }
+
+    /**
+     * Creates a retry policy.
+     *
+     * @param maxAttempts the maximum number of attempts, including the first one
+     * @param initialBackoff the upper bound of the delay before the first retry
+     * @param maxBackoff the upper bound of any delay
+     * @param multiplier the growth factor of the delay bound per attempt
+     */
+    public RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double multiplier) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Returns whether another attempt should be made after the given failure.
+     *
+     * @param failure the failure of the last attempt
+     * @param attempt the number of the attempt that failed, starting at 1
+     * @return true if the call should be retried
+     */
+    public boolean shouldRetry(Throwable failure, int attempt) {
+        return attempt < maxAttempts && isRetryable(failure);
+    }
+
+    /**
+     * Computes the delay before the next attempt.
+     *
+     * @param attempt the number of the attempt that failed, starting at 1
+     * @param failure the failure of the last attempt, consulted for a {@code Retry-After} time
+     * @return the delay in nanoseconds
+     */
+    public long delayNanos(int attempt, Throwable failure) {
+        double bound = Math.min(maxBackoffNanos, initialBackoffNanos * Math.pow(multiplier, attempt - 1));
+        long delay = bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong((long) bound + 1);
+        if (failure instanceof OpenAIRateLimitException && ((OpenAIRateLimitException) failure).getRetryAfter() != null) {
+            delay = Math.max(delay, ((OpenAIRateLimitException) failure).getRetryAfter().toNanos());
+        }
+        return delay;
+    }
+
+    /**
+     * Returns the maximum number of attempts, including the first one.
+     *
+     * @return the maximum number of attempts
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns whether a failure is transient.
+     *
+     * @param failure the failure to classify
+     * @return true for rate limits, transient server errors, timeouts and I/O failures
+     */
+    public static boolean isRetryable(Throwable failure) {
+        if (failure instanceof OpenAIRateLimitException || failure instanceof OpenAITimeoutException) {
+            return true;
+        }
+        if (failure instanceof OpenAIServerException) {
+            int status = ((OpenAIServerException) failure).getStatusCode();
+            return status == 500 || status == 502 || status == 503 || status == 504;
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,109 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.resilience;
+
+/**
+ * A token bucket refilled continuously over one minute, allowing reservations to overdraw it.
+ * <p>
+ * A reservation always succeeds and may leave the bucket negative; the caller then waits until the refill covers the deficit. Because each
+ * reservation starts from the balance left by the previous ones, callers are admitted in the order they reserved. This class is not thread-safe;
+ * {@link RateLimiter} guards all buckets with a single lock.
+ * </p>
+ */
+class TokenBucket {
+
+    private static final double NANOS_PER_MINUTE = 60_000_000_000d;
+
+    private double capacity;
+    private double refillPerNano;
+    private double available;
+    private long lastRefillNanos;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param perMinute the capacity of the bucket, refilled over one minute
+     * @param nowNanos the current time in nanoseconds
+     */
+    TokenBucket(double perMinute, long nowNanos) {
+        this.capacity = perMinute;
+        this.refillPerNano = perMinute / NANOS_PER_MINUTE;
+        this.available = perMinute;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Adds the tokens accrued since the last refill, up to the capacity.
+     *
+     * @param nowNanos the current time in nanoseconds
+     */
+    void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            available = Math.min(capacity, available + elapsed * refillPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+
+    /**
+     * Returns how long a reservation of the given amount would have to wait. The amount is capped at the capacity so that oversized requests are
+     * not starved.
+     *
+     * @param amount the amount to reserve
+     * @return the wait in nanoseconds, 0 if the amount is available now
+     */
+    long waitNanos(double amount) {
+        double deficit = Math.min(amount, capacity) - available;
+        return deficit <= 0 ? 0 : (long) Math.ceil(deficit / refillPerNano);
+    }
+
+    /**
+     * Reserves the given amount, possibly leaving the bucket negative.
+     *
+     * @param amount the amount to reserve
+     */
+    void take(double amount) {
+        available -= Math.min(amount, capacity);
+    }
+
+    /**
+     * Returns tokens to the bucket, or takes more when the amount is negative.
+     *
+     * @param amount the amount to return
+     */
+    void give(double amount) {
+        available = Math.min(capacity, available + amount);
+    }
+
+    /**
+     * Aligns the bucket with the limit and remaining quota reported by the server.
+     *
+     * @param limit the per-minute limit reported by the server, or a negative value if unknown
+     * @param remaining the remaining quota reported by the server, or a negative value if unknown
+     */
+    void sync(double limit, double remaining) {
+        if (limit > 0 && limit != capacity) {
+            capacity = limit;
+            refillPerNano = limit / NANOS_PER_MINUTE;
+            available = Math.min(available, capacity);
+        }
+        if (remaining >= 0) {
+            available = Math.min(available, remaining);
+        }
+    }
+
+    /**
+     * Drains the bucket so that nothing is admitted until the given time has passed.
+     *
+     * @param resetNanos the time until the quota is available again
+     */
+    void drain(long resetNanos) {
+        available = Math.min(available, -resetNanos * refillPerNano);
+    }
+
+    double available() {
+        return available;
+    }
+
+    double capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,226 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.routing;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIOverloadedException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIRateLimitException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIThrottledException;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.ContextWindows;
+import com.digitalsanctuary.springaiclient.adapters.support.CircuitBreaker;
+
+/**
+ * A model the {@link ModelRouter} can send requests to, with its tier, price, fallback chain and live health.
+ * <p>
+ * A route tracks moving averages of the latency and error rate of the calls sent to its model, and a {@link CircuitBreaker}. Each call weighs at
+ * least a fixed share in the averages, and more after a quiet period, so they follow an incident within a few calls and forget it once the model
+ * has recovered. Averages older than the decay time are considered stale: a model that looked slow or failing is trusted again after that time,
+ * which lets a single request probe it.
+ * </p>
+ */
+public class ModelRoute {
+
+    /**
+     * The minimum weight of the latest call in the moving averages.
+     */
+    private static final double MIN_SAMPLE_WEIGHT = 0.2;
+
+    private final String model;
+    private final ModelTier tier;
+    private final double inputCostPerToken;
+    private final double outputCostPerToken;
+    private final int maxPromptTokens;
+    private final List<String> fallbacks;
+    private final CircuitBreaker circuitBreaker;
+    private final double decayNanos;
+    private final LongSupplier nanoClock;
+
+    private double latencyNanos;
+    private double errorRate;
+    private long lastObserved;
+    private boolean observed;
+
+    /**
+     * Creates a route.
+     *
+     * @param model the model name sent to OpenAI
+     * @param tier the capability tier of the model
+     * @param inputCostPerMillion the price of one million prompt tokens
+     * @param outputCostPerMillion the price of one million completion tokens
+     * @param maxPromptTokens the largest prompt sent to the model, or 0 for its context window minus the output tokens
+     * @param fallbacks the models tried, in order, when this one is slow, rate limited or failing
+     * @param circuitBreaker the circuit breaker
+     * @param ewmaDecay the time after which the moving averages are stale
+     * @param nanoClock the clock, usually {@code System::nanoTime}
+     */
+    public ModelRoute(String model, ModelTier tier, double inputCostPerMillion, double outputCostPerMillion, int maxPromptTokens,
+            List<String> fallbacks, CircuitBreaker circuitBreaker, Duration ewmaDecay, LongSupplier nanoClock) {
+        this.model = model;
+        this.tier = tier;
+        this.inputCostPerToken = inputCostPerMillion / 1_000_000;
+        this.outputCostPerToken = outputCostPerMillion / 1_000_000;
+        this.maxPromptTokens = maxPromptTokens;
+        this.fallbacks = List.copyOf(fallbacks);
+        this.circuitBreaker = circuitBreaker;
+        this.decayNanos = Math.max(1, ewmaDecay.toNanos());
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns whether a prompt fits the model.
+     *
+     * @param promptTokens the estimated prompt tokens
+     * @param outputTokens the requested output tokens
+     * @return whether the prompt is within the configured maximum, or within the context window if the model is known
+     */
+    public boolean fits(int promptTokens, int outputTokens) {
+        if (maxPromptTokens > 0) {
+            return promptTokens <= maxPromptTokens;
+        }
+        int window = ContextWindows.forModel(model);
+        return window == 0 || promptTokens + outputTokens <= window;
+    }
+
+    /**
+     * Estimates the price of a request, counting the output tokens as if they were all generated.
+     *
+     * @param promptTokens the estimated prompt tokens
+     * @param outputTokens the requested output tokens
+     * @return the estimated cost, in the currency of the configured prices
+     */
+    public double estimateCost(int promptTokens, int outputTokens) {
+        return promptTokens * inputCostPerToken + outputTokens * outputCostPerToken;
+    }
+
+    /**
+     * Returns whether the model currently looks healthy: its circuit breaker lets requests through and, unless they are stale, its moving averages
+     * are within the limits.
+     *
+     * @param slowLatencyNanos the latency above which the model is slow, or 0 to ignore latency
+     * @param maxErrorRate the error rate above which the model is failing
+     * @return whether requests should be sent to the model rather than to its fallbacks
+     */
+    public boolean isHealthy(long slowLatencyNanos, double maxErrorRate) {
+        if (!circuitBreaker.isAvailable()) {
+            return false;
+        }
+        synchronized (this) {
+            if (!observed || nanoClock.getAsLong() - lastObserved >= decayNanos) {
+                return true;
+            }
+            return (slowLatencyNanos <= 0 || latencyNanos <= slowLatencyNanos) && errorRate <= maxErrorRate;
+        }
+    }
+
+    /**
+     * Records the outcome of a call sent to the model. Every successful {@link #tryAcquire()} must be followed by exactly one call to this method.
+     * <p>
+     * Rate limits open the circuit breaker for the requested delay, and leave the averages unchanged so the model is tried again once the delay
+     * has passed. Server errors, timeouts and connection failures count as failures. Requests shed by admission control or the client-side rate
+     * limiter, or cancelled by interrupting their thread, tell nothing about the model and are not counted.
+     * </p>
+     *
+     * @param latencyNanos the time the call took, including its retries
+     * @param failure the failure, or null if the call succeeded
+     */
+    public void complete(long latencyNanos, Throwable failure) {
+        if (Thread.currentThread().isInterrupted() || failure instanceof OpenAIOverloadedException || failure instanceof OpenAIThrottledException) {
+            circuitBreaker.onIgnored();
+            return;
+        }
+        if (failure instanceof OpenAIRateLimitException rateLimit) {
+            circuitBreaker.onRateLimited(rateLimit.getRetryAfter());
+            return;
+        }
+        boolean upstreamFailure = failure != null && UpstreamRouter.isUpstreamFailure(failure);
+        observe(latencyNanos, upstreamFailure ? 1 : 0);
+        if (upstreamFailure) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    /**
+     * Asks the circuit breaker to let a call to the model through.
+     */
+    boolean tryAcquire() {
+        return circuitBreaker.tryAcquire();
+    }
+
+    /**
+     * Folds a call into the moving averages.
+     */
+    private synchronized void observe(long latency, double error) {
+        long now = nanoClock.getAsLong();
+        if (!observed) {
+            latencyNanos = latency;
+            errorRate = error;
+            observed = true;
+        } else {
+            double weight = Math.max(MIN_SAMPLE_WEIGHT, 1 - Math.exp(-Math.max(0, now - lastObserved) / decayNanos));
+            latencyNanos += weight * (latency - latencyNanos);
+            errorRate += weight * (error - errorRate);
+        }
+        lastObserved = now;
+    }
+
+    /**
+     * Returns the model name.
+     *
+     * @return the model
+     */
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the capability tier of the model.
+     *
+     * @return the tier
+     */
+    public ModelTier getTier() {
+        return tier;
+    }
+
+    /**
+     * Returns the models tried, in order, when this one cannot serve a request.
+     *
+     * @return the fallback chain
+     */
+    public List<String> getFallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * Returns the moving average latency of the calls to the model.
+     *
+     * @return the latency, or zero before the first call completes
+     */
+    public synchronized Duration getLatencyEwma() {
+        return Duration.ofNanos((long) latencyNanos);
+    }
+
+    /**
+     * Returns the moving average error rate of the calls to the model.
+     *
+     * @return the error rate between 0 and 1
+     */
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Returns the circuit breaker of the model.
+     *
+     * @return the circuit breaker
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public String toString() {
+        return model;
+    }
+}
@@ -0,0 +1,277 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.routing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.PreEncodedRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIOverloadedException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIRateLimitException;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.TokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.support.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chooses the model of each request by cost and latency, and falls back to other models when it is slow, rate limited or failing.
+ * <p>
+ * When a request declares a {@link ModelTier}, or a default tier is configured, the router picks among the configured models of that tier or
+ * above, one tier lower for prompts of at most {@code small-prompt-tokens}, whose limits fit the estimated prompt. Healthy models are preferred,
+ * and among them the one with the lowest expected price: the estimated cost of the request, increased by the model's error rate, plus its
+ * moving average latency valued at {@code latency-cost-per-second}. Requests without a tier keep the model they ask for.
+ * </p>
+ * <p>
+ * The chosen model is then followed by its configured fallback chain. Models that are unhealthy, being circuit-open, slower than
+ * {@code slow-latency} or failing more than {@code max-error-rate}, are moved to the end of the chain, so a request goes straight to a healthy
+ * fallback during an incident. A call that is rate limited, shed, timed out or failing with a server or connection error moves on to the next
+ * model as long as the deadline allows. The model that served the response is recorded in {@link OpenAIResponse#getRoutedModel()}, and
+ * whether it was a fallback in {@link OpenAIResponse#isFallback()}. The router is thread-safe.
+ * </p>
+ */
+@Slf4j
+public class ModelRouter {
+
+    private final Map<String, ModelRoute> routes;
+    private final TokenEstimator tokenEstimator;
+    private final ModelTier defaultTier;
+    private final int smallPromptTokens;
+    private final long slowLatencyNanos;
+    private final double maxErrorRate;
+    private final double latencyCostPerSecond;
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates a router from the model routing configuration properties.
+     *
+     * @param settings the model routing settings
+     * @param tokenEstimator the estimator of the prompt size
+     * @throws IllegalArgumentException if a model is configured twice or a fallback is not a configured model
+     */
+    public ModelRouter(OpenAIConfigProperties.ModelRouting settings, TokenEstimator tokenEstimator) {
+        this(settings, tokenEstimator, System::nanoTime);
+    }
+
+    /**
+     * Creates a router with an explicit clock.
+     */
+    ModelRouter(OpenAIConfigProperties.ModelRouting settings, TokenEstimator tokenEstimator, LongSupplier nanoClock) {
+        this.tokenEstimator = tokenEstimator;
+        this.defaultTier = settings.getDefaultTier();
+        this.smallPromptTokens = settings.getSmallPromptTokens();
+        this.slowLatencyNanos = settings.getSlowLatency() == null ? 0 : settings.getSlowLatency().toNanos();
+        this.maxErrorRate = settings.getMaxErrorRate();
+        this.latencyCostPerSecond = settings.getLatencyCostPerSecond();
+        this.nanoClock = nanoClock;
+        Map<String, ModelRoute> configured = new LinkedHashMap<>();
+        for (OpenAIConfigProperties.ModelRouting.ModelSettings model : settings.getModels()) {
+            CircuitBreaker breaker = new CircuitBreaker(settings.getFailureThreshold(), settings.getOpenDuration(), settings.getHalfOpenProbes(),
+                    nanoClock);
+            ModelRoute route = new ModelRoute(model.getName(), model.getTier(), model.getInputCostPerMillion(), model.getOutputCostPerMillion(),
+                    model.getMaxPromptTokens(), model.getFallbacks(), breaker, settings.getEwmaDecay(), nanoClock);
+            if (configured.put(model.getName(), route) != null) {
+                throw new IllegalArgumentException("Model " + model.getName() + " is configured more than once.");
+            }
+        }
+        for (ModelRoute route : configured.values()) {
+            for (String fallback : route.getFallbacks()) {
+                if (!configured.containsKey(fallback)) {
+                    throw new IllegalArgumentException("Fallback " + fallback + " of model " + route.getModel() + " is not a configured model.");
+                }
+            }
+        }
+        this.routes = configured;
+    }
+
+    /**
+     * Sends a request through the models planned for it, until one serves it.
+     *
+     * @param request the request
+     * @param tier the tier declared by the caller, or null for the default tier
+     * @param deadline the overall time allowed for the request, or null for no limit
+     * @param call performs the request on one model within the remaining time, with its admission, retries and hedging
+     * @return the response, with the model that served it recorded
+     * @throws OpenAICommunicationException the failure of the last model tried, or a transient failure if every model of the chain is circuit-open
+     */
+    public OpenAIResponse execute(OpenAIRequest request, ModelTier tier, Duration deadline,
+            BiFunction<OpenAIRequest, Duration, OpenAIResponse> call) {
+        int promptTokens = tokenEstimator.estimatePromptTokens(request);
+        String primary = primary(request, tier, promptTokens);
+        List<String> plan = plan(primary, promptTokens, request.getMaxTokens());
+        long started = nanoClock.getAsLong();
+        RuntimeException lastFailure = null;
+        for (int i = 0; i < plan.size(); i++) {
+            String model = plan.get(i);
+            Duration remaining = deadline == null ? null : deadline.minusNanos(nanoClock.getAsLong() - started);
+            if (lastFailure != null && remaining != null && (remaining.isNegative() || remaining.isZero())) {
+                break;
+            }
+            ModelRoute route = routes.get(model);
+            if (route != null && !route.tryAcquire()) {
+                continue;
+            }
+            long callStarted = nanoClock.getAsLong();
+            RuntimeException failure = null;
+            try {
+                OpenAIResponse response = call.apply(withModel(request, model), remaining);
+                if (response != null) {
+                    // The call may return a shared response, such as a cached one, which is left untouched
+                    response = response.copy();
+                    response.setRoutedModel(model);
+                    response.setFallback(!Objects.equals(model, primary));
+                }
+                if (!Objects.equals(model, primary)) {
+                    log.info("Request for model {} served by fallback model {}", primary, model);
+                }
+                return response;
+            } catch (RuntimeException e) {
+                failure = e;
+                if (!shouldFallBack(e) || i == plan.size() - 1) {
+                    throw e;
+                }
+                log.warn("Model {} failed with {}, falling back", model, e.getMessage());
+                lastFailure = e;
+            } finally {
+                if (route != null) {
+                    route.complete(nanoClock.getAsLong() - callStarted, failure);
+                }
+            }
+        }
+        if (lastFailure != null) {
+            throw lastFailure;
+        }
+        throw new OpenAICommunicationException("All models of the fallback chain " + plan + " are unavailable", true);
+    }
+
+    /**
+     * Plans the models tried for a request: the chosen model followed by its fallback chain, healthy models first.
+     *
+     * @param request the request
+     * @param tier the tier declared by the caller, or null for the default tier
+     * @return the models, in the order they are tried
+     */
+    public List<String> plan(OpenAIRequest request, ModelTier tier) {
+        int promptTokens = tokenEstimator.estimatePromptTokens(request);
+        return plan(primary(request, tier, promptTokens), promptTokens, request.getMaxTokens());
+    }
+
+    /**
+     * Returns the model chosen for a request, before falling back: the best model of the tier, or the requested model without a tier.
+     */
+    private String primary(OpenAIRequest request, ModelTier tier, int promptTokens) {
+        ModelTier effectiveTier = tier != null ? tier : defaultTier;
+        String primary = request.getModel();
+        if (effectiveTier != null) {
+            ModelRoute chosen = choose(effectiveTier, promptTokens, request.getMaxTokens());
+            if (chosen != null) {
+                primary = chosen.getModel();
+            } else {
+                log.debug("No configured model of tier {} fits a prompt of {} tokens, keeping {}", effectiveTier, promptTokens, primary);
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * Plans the chosen model followed by its fallback chain, healthy models first.
+     */
+    private List<String> plan(String primary, int promptTokens, int outputTokens) {
+        List<String> healthy = new ArrayList<>();
+        List<String> unhealthy = new ArrayList<>();
+        healthy.add(primary);
+        ModelRoute primaryRoute = routes.get(primary);
+        if (primaryRoute != null) {
+            if (!primaryRoute.isHealthy(slowLatencyNanos, maxErrorRate)) {
+                healthy.remove(primary);
+                unhealthy.add(primary);
+            }
+            for (String fallback : primaryRoute.getFallbacks()) {
+                ModelRoute route = routes.get(fallback);
+                if (Objects.equals(fallback, primary) || healthy.contains(fallback) || unhealthy.contains(fallback)
+                        || !route.fits(promptTokens, outputTokens)) {
+                    continue;
+                }
+                (route.isHealthy(slowLatencyNanos, maxErrorRate) ? healthy : unhealthy).add(fallback);
+            }
+        }
+        healthy.addAll(unhealthy);
+        return healthy;
+    }
+
+    /**
+     * Returns the configured model with the lowest expected price for the tier, preferring healthy models.
+     */
+    private ModelRoute choose(ModelTier tier, int promptTokens, int outputTokens) {
+        ModelTier floor = promptTokens <= smallPromptTokens && tier.ordinal() > 0 ? ModelTier.values()[tier.ordinal() - 1] : tier;
+        ModelRoute best = null;
+        boolean bestHealthy = false;
+        double bestScore = Double.MAX_VALUE;
+        for (ModelRoute route : routes.values()) {
+            if (route.getTier().compareTo(floor) < 0 || !route.fits(promptTokens, outputTokens)) {
+                continue;
+            }
+            boolean healthy = route.isHealthy(slowLatencyNanos, maxErrorRate);
+            double score = route.estimateCost(promptTokens, outputTokens) * (1 + route.getErrorRate())
+                    + latencyCostPerSecond * route.getLatencyEwma().toNanos() / 1e9;
+            if (best == null || (healthy && !bestHealthy) || (healthy == bestHealthy && score < bestScore)) {
+                best = route;
+                bestHealthy = healthy;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns whether a failure should move the request on to the next model: a rate limit, a shed request, or a failure of the upstream.
+     *
+     * @param failure the failure
+     * @return whether another model may serve the request
+     */
+    static boolean shouldFallBack(Throwable failure) {
+        return failure instanceof OpenAIRateLimitException || failure instanceof OpenAIOverloadedException
+                || UpstreamRouter.isUpstreamFailure(failure);
+    }
+
+    /**
+     * Returns the request itself if it already asks for the model, or a copy asking for the model. A templated request keeps its pre-encoded
+     * fragments, which are only written as-is while the model is unchanged.
+     */
+    static OpenAIRequest withModel(OpenAIRequest request, String model) {
+        if (Objects.equals(model, request.getModel())) {
+            return request;
+        }
+        OpenAIRequest copy = request instanceof PreEncodedRequest preEncoded ? preEncoded.copy() : new OpenAIRequest();
+        copy.setMessages(request.getMessages());
+        copy.setMaxTokens(request.getMaxTokens());
+        copy.setStream(request.getStream());
+        copy.setStreamOptions(request.getStreamOptions());
+        copy.setModel(model);
+        return copy;
+    }
+
+    /**
+     * Returns the route of a configured model.
+     *
+     * @param model the model
+     * @return the route, or null if the model is not configured
+     */
+    public ModelRoute getRoute(String model) {
+        return routes.get(model);
+    }
+
+    /**
+     * Returns the routes of the configured models, in configuration order.
+     *
+     * @return the routes
+     */
+    public List<ModelRoute> getRoutes() {
+        return List.copyOf(routes.values());
+    }
+}
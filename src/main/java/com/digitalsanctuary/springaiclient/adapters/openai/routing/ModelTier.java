@@ -0,0 +1,25 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.routing;
+
+/**
+ * The capability tier of a model, as declared in the model routing configuration and requested through {@code RequestOptions.tier}.
+ * <p>
+ * A request of a given tier may be served by any model of that tier or above. Tiers are declared in increasing order of capability.
+ * </p>
+ */
+public enum ModelTier {
+
+    /**
+     * The smallest, cheapest and fastest models, such as {@code gpt-4.1-nano}.
+     */
+    ECONOMY,
+
+    /**
+     * General purpose models, such as {@code gpt-4o-mini}.
+     */
+    STANDARD,
+
+    /**
+     * The most capable models, such as {@code gpt-4o}, for requests where quality matters more than cost and latency.
+     */
+    PREMIUM
+}
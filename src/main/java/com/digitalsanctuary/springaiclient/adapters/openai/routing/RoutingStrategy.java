@@ -0,0 +1,18 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.routing;
+
+/**
+ * How the {@link UpstreamRouter} chooses between the available upstreams.
+ */
+public enum RoutingStrategy {
+
+    /**
+     * Send each request to the upstream with the fewest requests in flight relative to its weight. Ties are broken in rotation.
+     */
+    LEAST_OUTSTANDING,
+
+    /**
+     * Send each request to the upstream with the lowest expected wait, its moving average latency multiplied by the requests in flight and
+     * divided by its weight.
+     */
+    EWMA
+}
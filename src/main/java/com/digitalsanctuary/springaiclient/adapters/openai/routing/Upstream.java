@@ -0,0 +1,234 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.routing;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.RateLimiter;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIRateLimitException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIThrottledException;
+import com.digitalsanctuary.springaiclient.adapters.support.CircuitBreaker;
+
+/**
+ * An OpenAI-compatible endpoint with its own API key, as chosen by the {@link UpstreamRouter}.
+ * <p>
+ * Besides its configuration, an upstream tracks the number of requests in flight, an exponentially weighted moving average of its latency and a
+ * {@link CircuitBreaker}. The moving average decays with time rather than per sample, so an upstream that has recovered is trusted again after
+ * a few decay periods even at a low request rate. An upstream may also have its own client-side {@link RateLimiter}, tracking the quota of its
+ * API key.
+ * </p>
+ */
+public class Upstream {
+
+    private final String name;
+    private final String endpoint;
+    private final String apiKey;
+    private final double weight;
+    private final Set<String> models;
+    private final CircuitBreaker circuitBreaker;
+    private final RateLimiter rateLimiter;
+    private final double decayNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private double ewmaNanos;
+    private long lastObserved;
+
+    /**
+     * Creates an upstream.
+     *
+     * @param name the name used in logs
+     * @param endpoint the chat completions URL
+     * @param apiKey the API key sent with requests to this upstream
+     * @param weight the relative capacity of the upstream, such as its share of the quota
+     * @param models the models the upstream serves, or an empty set for all models
+     * @param circuitBreaker the circuit breaker
+     * @param ewmaDecay the time over which the latency average forgets older samples
+     * @param nanoClock the clock, usually {@code System::nanoTime}
+     */
+    public Upstream(String name, String endpoint, String apiKey, double weight, Set<String> models, CircuitBreaker circuitBreaker,
+            Duration ewmaDecay, LongSupplier nanoClock) {
+        this(name, endpoint, apiKey, weight, models, circuitBreaker, null, ewmaDecay, nanoClock);
+    }
+
+    /**
+     * Creates an upstream with a client-side rate limiter.
+     *
+     * @param name the name used in logs
+     * @param endpoint the chat completions URL
+     * @param apiKey the API key sent with requests to this upstream
+     * @param weight the relative capacity of the upstream, such as its share of the quota
+     * @param models the models the upstream serves, or an empty set for all models
+     * @param circuitBreaker the circuit breaker
+     * @param rateLimiter the rate limiter for the quota of the API key, or null for none
+     * @param ewmaDecay the time over which the latency average forgets older samples
+     * @param nanoClock the clock, usually {@code System::nanoTime}
+     */
+    public Upstream(String name, String endpoint, String apiKey, double weight, Set<String> models, CircuitBreaker circuitBreaker,
+            RateLimiter rateLimiter, Duration ewmaDecay, LongSupplier nanoClock) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Upstream weight must be positive.");
+        }
+        this.name = name;
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+        this.weight = weight;
+        this.models = Set.copyOf(models);
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+        this.decayNanos = Math.max(1, ewmaDecay.toNanos());
+        this.nanoClock = nanoClock;
+        this.lastObserved = nanoClock.getAsLong();
+    }
+
+    /**
+     * Returns whether the upstream serves a model.
+     *
+     * @param model the model, may be null
+     * @return whether requests for the model may be sent to this upstream
+     */
+    public boolean serves(String model) {
+        return models.isEmpty() || (model != null && models.contains(model));
+    }
+
+    /**
+     * Records the outcome of a request sent to this upstream and releases its slot.
+     * <p>
+     * Rate limits open the circuit breaker for the requested delay. Server errors, timeouts and connection failures count as failures. Other
+     * errors, such as invalid requests, show the upstream is working and count as successes. Requests cancelled by interrupting their thread, such
+     * as losing hedges, and requests rejected by the client-side rate limiter, which never reached the network, are not counted.
+     * </p>
+     *
+     * @param latencyNanos the time the request took
+     * @param failure the failure, or null if the request succeeded
+     */
+    public void complete(long latencyNanos, Throwable failure) {
+        outstanding.decrementAndGet();
+        if (Thread.currentThread().isInterrupted() || failure instanceof OpenAIThrottledException) {
+            circuitBreaker.onIgnored();
+            return;
+        }
+        if (failure instanceof OpenAIRateLimitException rateLimit) {
+            circuitBreaker.onRateLimited(rateLimit.getRetryAfter());
+            return;
+        }
+        observe(latencyNanos);
+        if (failure != null && UpstreamRouter.isUpstreamFailure(failure)) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    /**
+     * Takes a slot on this upstream if its circuit breaker lets the request through.
+     */
+    boolean tryAcquire() {
+        if (!circuitBreaker.tryAcquire()) {
+            return false;
+        }
+        outstanding.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Returns the routing score for the strategy; lower is better.
+     */
+    double score(RoutingStrategy strategy) {
+        double load = (outstanding.get() + 1) / weight;
+        return strategy == RoutingStrategy.EWMA ? load * (getLatencyEwma().toNanos() + 1) : load;
+    }
+
+    private synchronized void observe(long latencyNanos) {
+        long now = nanoClock.getAsLong();
+        double retained = Math.exp(-Math.max(0, now - lastObserved) / decayNanos);
+        ewmaNanos = ewmaNanos == 0 ? latencyNanos : ewmaNanos * retained + latencyNanos * (1 - retained);
+        lastObserved = now;
+    }
+
+    /**
+     * Returns the name of the upstream.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the chat completions URL of the upstream.
+     *
+     * @return the endpoint
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns the API key sent with requests to this upstream.
+     *
+     * @return the API key
+     */
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    /**
+     * Returns the relative capacity of the upstream.
+     *
+     * @return the weight
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the models the upstream serves.
+     *
+     * @return the models, or an empty set for all models
+     */
+    public Set<String> getModels() {
+        return models;
+    }
+
+    /**
+     * Returns the number of requests in flight.
+     *
+     * @return the outstanding requests
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * Returns the moving average latency.
+     *
+     * @return the latency, or zero before the first request completes
+     */
+    public synchronized Duration getLatencyEwma() {
+        return Duration.ofNanos((long) ewmaNanos);
+    }
+
+    /**
+     * Returns the circuit breaker of the upstream.
+     *
+     * @return the circuit breaker
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Returns the rate limiter for the quota of the upstream's API key.
+     *
+     * @return the rate limiter, or null if the upstream is not rate limited
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,250 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.routing;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.springframework.web.client.ResourceAccessException;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.RateLimiter;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIServerException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIThrottledException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAITimeoutException;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.TokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.support.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spreads requests over several OpenAI-compatible upstreams, such as multiple API keys or Azure OpenAI deployments in different regions.
+ * <p>
+ * For each request the router considers the upstreams serving the requested model whose circuit breaker lets the request through, and picks
+ * the one with the lowest score for the configured {@link RoutingStrategy}. Ties are broken in rotation so that idle upstreams share the load.
+ * The caller must report the outcome through {@link Upstream#complete(long, Throwable)}. The router is thread-safe.
+ * </p>
+ * <p>
+ * When upstreams have their own {@link RateLimiter}, {@link #reserve(OpenAIRequest, boolean)} waits for the limiter of the chosen upstream
+ * before taking a slot on it, so requests are spread over the quotas of all API keys.
+ * </p>
+ */
+@Slf4j
+public class UpstreamRouter {
+
+    private final List<Upstream> upstreams;
+    private final RoutingStrategy strategy;
+    private final AtomicInteger rotation = new AtomicInteger();
+
+    /**
+     * Creates a router from the routing configuration properties.
+     *
+     * @param settings the routing settings
+     * @throws IllegalArgumentException if no upstream is configured
+     */
+    public UpstreamRouter(OpenAIConfigProperties.Routing settings) {
+        this(settings, null, null);
+    }
+
+    /**
+     * Creates a router from the routing configuration properties, with a rate limiter per upstream if rate limiting is enabled.
+     *
+     * @param settings the routing settings
+     * @param rateLimit the rate limit settings, providing the limits of upstreams that do not set their own, or null for no rate limiting
+     * @param tokenEstimator the estimator for prompt tokens, required if rate limiting is enabled
+     * @throws IllegalArgumentException if no upstream is configured
+     */
+    public UpstreamRouter(OpenAIConfigProperties.Routing settings, OpenAIConfigProperties.RateLimit rateLimit, TokenEstimator tokenEstimator) {
+        this(createUpstreams(settings, rateLimit != null && rateLimit.isEnabled() ? rateLimit : null, tokenEstimator, System::nanoTime),
+                settings.getStrategy());
+    }
+
+    /**
+     * Creates a router over the given upstreams.
+     *
+     * @param upstreams the upstreams
+     * @param strategy the routing strategy
+     * @throws IllegalArgumentException if there are no upstreams
+     */
+    public UpstreamRouter(List<Upstream> upstreams, RoutingStrategy strategy) {
+        if (upstreams.isEmpty()) {
+            throw new IllegalArgumentException("At least one upstream must be configured.");
+        }
+        this.upstreams = List.copyOf(upstreams);
+        this.strategy = strategy;
+    }
+
+    /**
+     * Chooses an upstream for a request and takes a slot on it.
+     *
+     * @param model the requested model
+     * @return the upstream, on which {@link Upstream#complete(long, Throwable)} must be called once the request completes
+     * @throws OpenAICommunicationException if no upstream serving the model is available, transient if they are all circuit-open
+     */
+    public Upstream select(String model) {
+        return choose(model, null).getUpstream();
+    }
+
+    /**
+     * Chooses an upstream for a request, waits for the upstream's rate limiter and takes a slot on the upstream.
+     * <p>
+     * The rate limiter is waited for before the slot is taken, so a request it queues or rejects neither counts as load on the upstream nor
+     * reaches its latency average or circuit breaker. If the rate limiter rejects the request, or the circuit breaker has opened during the wait,
+     * another upstream is chosen.
+     * </p>
+     *
+     * @param request the request
+     * @param rateLimited whether the request draws on the quota of the upstream's API key, rather than on a key of its own
+     * @return the upstream, on which {@link Upstream#complete(long, Throwable)} must be called once the request completes, and the rate limiter
+     *         permit to settle, if any
+     * @throws OpenAIThrottledException if the rate limiters of the upstreams serving the model cannot admit the request within their maximum wait
+     *         time
+     * @throws OpenAICommunicationException if no upstream serving the model is available, transient if they are all circuit-open
+     */
+    public Reservation reserve(OpenAIRequest request, boolean rateLimited) {
+        return choose(request.getModel(), rateLimited ? request : null);
+    }
+
+    private Reservation choose(String model, OpenAIRequest rateLimited) {
+        int size = upstreams.size();
+        boolean[] rejected = new boolean[size];
+        int offset = Math.floorMod(rotation.getAndIncrement(), size);
+        boolean servable = false;
+        OpenAIThrottledException throttled = null;
+        for (int attempt = 0; attempt < size; attempt++) {
+            int best = -1;
+            double bestScore = Double.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                int index = (offset + i) % size;
+                Upstream upstream = upstreams.get(index);
+                if (rejected[index] || !upstream.serves(model)) {
+                    continue;
+                }
+                servable = true;
+                if (!upstream.getCircuitBreaker().isAvailable()) {
+                    continue;
+                }
+                double score = upstream.score(strategy);
+                if (score < bestScore) {
+                    best = index;
+                    bestScore = score;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            Upstream upstream = upstreams.get(best);
+            RateLimiter limiter = rateLimited == null ? null : upstream.getRateLimiter();
+            RateLimiter.Permit permit = null;
+            if (limiter != null) {
+                try {
+                    permit = limiter.acquire(rateLimited);
+                } catch (OpenAIThrottledException e) {
+                    throttled = e;
+                    rejected[best] = true;
+                    continue;
+                }
+            }
+            // The breaker may have let another request through in the meantime
+            if (upstream.tryAcquire()) {
+                return new Reservation(upstream, permit);
+            }
+            if (permit != null) {
+                limiter.release(permit);
+            }
+            rejected[best] = true;
+        }
+        if (throttled != null) {
+            throw throttled;
+        }
+        if (servable) {
+            // The circuit breakers will let requests through again, and another provider may serve the request meanwhile
+            throw new OpenAICommunicationException("All upstreams serving model " + model + " are unavailable", true);
+        }
+        throw new OpenAICommunicationException("No upstream is configured for model " + model);
+    }
+
+    /**
+     * Returns the upstreams, in configuration order.
+     *
+     * @return the upstreams
+     */
+    public List<Upstream> getUpstreams() {
+        return upstreams;
+    }
+
+    /**
+     * Returns the routing strategy.
+     *
+     * @return the strategy
+     */
+    public RoutingStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns whether a failure says the upstream is unhealthy: a server error, a timeout or a connection failure.
+     *
+     * @param failure the failure
+     * @return whether the failure counts against the upstream's circuit breaker
+     */
+    static boolean isUpstreamFailure(Throwable failure) {
+        return failure instanceof OpenAIServerException || failure instanceof OpenAITimeoutException
+                || (failure instanceof OpenAICommunicationException && failure.getCause() instanceof ResourceAccessException);
+    }
+
+    private static List<Upstream> createUpstreams(OpenAIConfigProperties.Routing settings, OpenAIConfigProperties.RateLimit rateLimit,
+            TokenEstimator tokenEstimator, LongSupplier nanoClock) {
+        List<Upstream> upstreams = new ArrayList<>();
+        int index = 0;
+        for (OpenAIConfigProperties.Routing.UpstreamSettings upstream : settings.getUpstreams()) {
+            String name = upstream.getName() != null ? upstream.getName() : "upstream-" + index;
+            CircuitBreaker breaker = new CircuitBreaker(settings.getFailureThreshold(), settings.getOpenDuration(), settings.getHalfOpenProbes(),
+                    nanoClock);
+            RateLimiter limiter = null;
+            if (rateLimit != null) {
+                // Each API key has its own quota, tracked from the rate limit headers of its own responses
+                int requestsPerMinute = upstream.getRequestsPerMinute() > 0 ? upstream.getRequestsPerMinute() : rateLimit.getRequestsPerMinute();
+                int tokensPerMinute = upstream.getTokensPerMinute() > 0 ? upstream.getTokensPerMinute() : rateLimit.getTokensPerMinute();
+                limiter = new RateLimiter(requestsPerMinute, tokensPerMinute, rateLimit.getMaxWait(), tokenEstimator);
+                log.info("Rate limiting upstream {} to {} requests and {} tokens per minute", name, requestsPerMinute, tokensPerMinute);
+            }
+            upstreams.add(new Upstream(name, upstream.getEndpoint(), upstream.getApiKey(), upstream.getWeight(), new HashSet<>(upstream.getModels()),
+                    breaker, limiter, settings.getEwmaDecay(), nanoClock));
+            log.info("Routing OpenAI requests to upstream {} at {} with weight {}", name, upstream.getEndpoint(), upstream.getWeight());
+            index++;
+        }
+        return upstreams;
+    }
+
+    /**
+     * An upstream chosen for a request, with the rate limiter permit the request must settle.
+     */
+    public static final class Reservation {
+        private final Upstream upstream;
+        private final RateLimiter.Permit permit;
+
+        private Reservation(Upstream upstream, RateLimiter.Permit permit) {
+            this.upstream = upstream;
+            this.permit = permit;
+        }
+
+        /**
+         * Returns the chosen upstream, on which a slot has been taken.
+         *
+         * @return the upstream
+         */
+        public Upstream getUpstream() {
+            return upstream;
+        }
+
+        /**
+         * Returns the permit of the upstream's rate limiter, to settle once the call has finished.
+         *
+         * @return the permit, or null if the request is not rate limited
+         */
+        public RateLimiter.Permit getPermit() {
+            return permit;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Factory for the executor backing the asynchronous OpenAI request methods.
+ * <p>
+ * The library is compiled for JDK 17, so virtual threads are looked up reflectively. When the application runs on JDK 21 or later, every task gets
+ * its own virtual thread, which costs a few kilobytes while it waits on the network. Otherwise a bounded pool of daemon platform threads is
+ * created.
+ * </p>
+ */
+@Slf4j
+public final class AsyncExecutors {
+
+    private AsyncExecutors() {}
+
+    /**
+     * Creates the executor described by the given settings.
+     *
+     * @param settings the asynchronous executor settings
+     * @return a virtual-thread-per-task executor when enabled and supported, otherwise a bounded platform thread pool
+     */
+    public static ExecutorService create(OpenAIConfigProperties.Async settings) {
+        if (settings.isVirtualThreads()) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                log.debug("Using virtual threads for asynchronous OpenAI requests");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.debug("Virtual threads are not available on JDK {}, falling back to platform threads", System.getProperty("java.version"));
+            }
+        }
+        int maxThreads = Math.max(1, settings.getMaxThreads());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new DaemonThreadFactory("openai-async-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates an executor that never queues tasks: a virtual-thread-per-task executor when supported, otherwise a cached pool of daemon platform
+     * threads. Suited to tasks whose callers wait for them, which must never wait behind each other.
+     *
+     * @param threadPrefix the name prefix of the platform threads
+     * @return the executor
+     */
+    public static ExecutorService unbounded(String threadPrefix) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(new DaemonThreadFactory(threadPrefix));
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
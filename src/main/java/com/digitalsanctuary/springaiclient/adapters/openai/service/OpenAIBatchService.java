@@ -0,0 +1,424 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.springaiclient.adapters.openai.batch.BatchItem;
+import com.digitalsanctuary.springaiclient.adapters.openai.batch.BatchJsonlCodec;
+import com.digitalsanctuary.springaiclient.adapters.openai.batch.BatchResult;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.OpenAICodec;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Batch;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.BatchFile;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.ResilientExecutor;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.RetryPolicy;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import com.digitalsanctuary.springaiclient.adapters.support.RateLimitHeaders;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service for running chat completion requests through the OpenAI Batch API.
+ * <p>
+ * A batch is submitted by uploading its requests as a JSONL file and creating a batch for that file; OpenAI processes it asynchronously within
+ * the completion window, at a lower price than synchronous requests. The input is streamed from a {@code Stream} of {@link BatchItem}s straight
+ * into the multipart upload body, or into a local file with {@link #writeInput(Stream, Path)}, so it is never held in memory. Once the batch has
+ * finished, which {@link #awaitCompletion(String)} polls for with a growing interval, its output and error files are streamed back line by line
+ * as {@link BatchResult}s matched to the requests by their custom ids.
+ * </p>
+ * <p>
+ * Requests are retried as configured under {@code ds.ai.openai.retry}, but without the default deadline, which is sized for chat requests
+ * rather than file transfers. An upload streamed from a {@code Stream} cannot be replayed and is not retried, and neither is reading a result
+ * file once results have been passed on. Creating a batch is not idempotent, so it is only retried when OpenAI cannot have received the
+ * request: after a rate limit or a failure to connect.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * RequestTemplate template = openAIService.createRequestBuilder().systemPrompt("Classify the sentiment.").template();
+ * Stream<BatchItem> items = rows.stream().map(row -> new BatchItem(row.getId(), template.render(row.getText())));
+ * Batch batch = batchService.run(items, result -> store.save(result.getCustomId(), result.getResponse()));
+ * }
+ * </pre>
+ *
+ * @see OpenAIConfigProperties.Batch
+ */
+@Slf4j
+public class OpenAIBatchService {
+
+    private static final String BEARER_TOKEN_PREFIX = "Bearer ";
+    private static final String CRLF = "\r\n";
+
+    private final RestClient restClient;
+    private final OpenAIConfigProperties properties;
+    private final OpenAIConfigProperties.Batch settings;
+    private final BatchJsonlCodec codec;
+    private final ResilientExecutor resilientExecutor;
+    private final ResilientExecutor createExecutor;
+
+    /**
+     * Reads a successful response body.
+     */
+    private interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    /**
+     * Writes the content of the file part of an upload.
+     */
+    private interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Creates a batch service.
+     *
+     * @param restClient the REST client, as created for the {@link OpenAIService}
+     * @param properties the configuration properties for OpenAI, including the batch settings
+     */
+    public OpenAIBatchService(RestClient restClient, OpenAIConfigProperties properties) {
+        this.restClient = restClient;
+        this.properties = properties;
+        this.settings = properties.getBatch();
+        this.codec = new BatchJsonlCodec(new OpenAICodec(properties.getCodec()));
+        this.resilientExecutor = new ResilientExecutor(new RetryPolicy(properties.getRetry()), null, null);
+        this.createExecutor = new ResilientExecutor(new UnsentRetryPolicy(properties.getRetry()), null, null);
+    }
+
+    /**
+     * Writes the items to a JSONL batch input file, replacing the file once it is complete.
+     *
+     * @param items the items to write
+     * @param file the input file
+     * @return the number of items written
+     * @throws IllegalArgumentException if an item has no custom id or a duplicate one
+     * @throws UncheckedIOException if writing fails
+     */
+    public int writeInput(Stream<BatchItem> items, Path file) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            int count;
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                count = codec.write(items.iterator(), out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the batch input file " + file, e);
+        } finally {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException e) {
+                log.debug("Could not delete the temporary batch input file {}", temporary, e);
+            }
+        }
+    }
+
+    /**
+     * Uploads the items as a batch input file, encoding them into the upload body as they are pulled from the stream. The upload is not retried.
+     *
+     * @param items the items to upload
+     * @return the uploaded file
+     * @throws IllegalArgumentException if an item has no custom id or a duplicate one
+     * @throws OpenAICommunicationException if the upload fails
+     */
+    public BatchFile upload(Stream<BatchItem> items) {
+        Iterator<BatchItem> iterator = items.iterator();
+        AtomicLong count = new AtomicLong();
+        BatchFile file = upload("batch.jsonl", out -> count.set(codec.write(iterator, out)));
+        log.info("Uploaded batch input file {} with {} requests", file.getId(), count.get());
+        return file;
+    }
+
+    /**
+     * Uploads a JSONL batch input file, as written by {@link #writeInput(Stream, Path)}, with retries.
+     *
+     * @param file the input file
+     * @return the uploaded file
+     * @throws OpenAICommunicationException if the upload fails
+     */
+    public BatchFile upload(Path file) {
+        return resilientExecutor.execute(() -> upload(file.getFileName().toString(), out -> Files.copy(file, out)), null);
+    }
+
+    /**
+     * Creates a batch of chat completion requests from an uploaded input file. The request is retried only if it cannot have created a batch;
+     * after a timeout or a server error the batch may already exist, and creating it again would run and bill its requests twice.
+     *
+     * @param inputFileId the identifier of the input file
+     * @return the created batch
+     * @throws OpenAICommunicationException if the request fails
+     */
+    public Batch create(String inputFileId) {
+        Map<String, String> request = new LinkedHashMap<>();
+        request.put("input_file_id", inputFileId);
+        request.put("endpoint", BatchJsonlCodec.CHAT_COMPLETIONS_URL);
+        request.put("completion_window", settings.getCompletionWindow());
+        byte[] json = ProviderJson.mapper().writeValueAsBytes(request);
+        Batch batch = createExecutor.execute(() -> exchange("creating a batch", restClient.post().uri(url("/batches"))
+                .contentType(MediaType.APPLICATION_JSON).body(out -> out.write(json)), body -> ProviderJson.mapper().readValue(body, Batch.class)),
+                null);
+        log.info("Created batch {} for input file {}", batch.getId(), inputFileId);
+        return batch;
+    }
+
+    /**
+     * Uploads the items and creates a batch for them.
+     *
+     * @param items the items to submit
+     * @return the created batch
+     * @throws IllegalArgumentException if an item has no custom id or a duplicate one
+     * @throws OpenAICommunicationException if a request fails
+     */
+    public Batch submit(Stream<BatchItem> items) {
+        return create(upload(items).getId());
+    }
+
+    /**
+     * Uploads the requests and creates a batch for them. Each request gets its position in the stream, starting at 0, as custom id.
+     *
+     * @param requests the requests to submit
+     * @return the created batch
+     * @throws OpenAICommunicationException if a request fails
+     */
+    public Batch submitRequests(Stream<? extends OpenAIRequest> requests) {
+        AtomicLong index = new AtomicLong();
+        return submit(requests.map(request -> new BatchItem(String.valueOf(index.getAndIncrement()), request)));
+    }
+
+    /**
+     * Retrieves the current state of a batch.
+     *
+     * @param batchId the batch identifier
+     * @return the batch
+     * @throws OpenAICommunicationException if the request fails
+     */
+    public Batch get(String batchId) {
+        return resilientExecutor.execute(
+                () -> exchange("retrieving batch " + batchId, restClient.get().uri(url("/batches/" + batchId)),
+                        body -> ProviderJson.mapper().readValue(body, Batch.class)), null);
+    }
+
+    /**
+     * Cancels a batch. The batch moves to {@code cancelling} and then to {@code cancelled}, keeping the results of the requests already processed.
+     *
+     * @param batchId the batch identifier
+     * @return the batch
+     * @throws OpenAICommunicationException if the request fails
+     */
+    public Batch cancel(String batchId) {
+        return resilientExecutor.execute(() -> exchange("cancelling batch " + batchId, restClient.post().uri(url("/batches/" + batchId + "/cancel")),
+                body -> ProviderJson.mapper().readValue(body, Batch.class)), null);
+    }
+
+    /**
+     * Polls a batch until it reaches a terminal status. The polling interval starts at the configured interval and grows by the multiplier after
+     * each poll, up to the maximum interval.
+     *
+     * @param batchId the batch identifier
+     * @return the batch in its terminal status
+     * @throws OpenAITimeoutException if the batch has not finished within the configured maximum wait
+     * @throws OpenAICommunicationException if a request fails or the thread is interrupted
+     */
+    public Batch awaitCompletion(String batchId) {
+        long deadline = System.nanoTime() + settings.getMaxWait().toNanos();
+        long interval = settings.getPollInterval().toNanos();
+        long maxInterval = Math.max(interval, settings.getMaxPollInterval().toNanos());
+        while (true) {
+            Batch batch = get(batchId);
+            if (batch.isTerminal()) {
+                log.info("Batch {} finished with status {}", batchId, batch.getStatus());
+                return batch;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new OpenAITimeoutException("Batch " + batchId + " did not finish within " + settings.getMaxWait() + ", status: "
+                        + batch.getStatus(), null);
+            }
+            log.debug("Batch {} is {}, polling again in {} ms", batchId, batch.getStatus(), TimeUnit.NANOSECONDS.toMillis(interval));
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(interval, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OpenAICommunicationException("Interrupted while waiting for batch " + batchId, e);
+            }
+            interval = Math.min(maxInterval, (long) (interval * settings.getPollMultiplier()));
+        }
+    }
+
+    /**
+     * Streams the results of a finished batch, from its output file and then its error file, to the consumer. Results arrive in the order of the
+     * files, not of the input; match them to the requests by {@link BatchResult#getCustomId()}.
+     *
+     * @param batch the finished batch
+     * @param consumer the consumer of the results
+     * @return the number of results read
+     * @throws OpenAICommunicationException if a request fails
+     */
+    public int readResults(Batch batch, Consumer<BatchResult> consumer) {
+        int count = 0;
+        if (batch.getOutputFileId() != null) {
+            count += readFile(batch.getOutputFileId(), consumer);
+        }
+        if (batch.getErrorFileId() != null) {
+            count += readFile(batch.getErrorFileId(), consumer);
+        }
+        return count;
+    }
+
+    /**
+     * Submits the items, waits for the batch to finish and streams its results to the consumer.
+     *
+     * @param items the items to submit
+     * @param consumer the consumer of the results
+     * @return the batch in its terminal status
+     * @throws IllegalArgumentException if an item has no custom id or a duplicate one
+     * @throws OpenAITimeoutException if the batch has not finished within the configured maximum wait
+     * @throws OpenAICommunicationException if a request fails
+     */
+    public Batch run(Stream<BatchItem> items, Consumer<BatchResult> consumer) {
+        Batch batch = awaitCompletion(submit(items).getId());
+        readResults(batch, consumer);
+        return batch;
+    }
+
+    /**
+     * Streams the results of one output or error file to the consumer. Once the first result has been passed on, a failure is not retried, since
+     * the consumer would see results twice.
+     */
+    private int readFile(String fileId, Consumer<BatchResult> consumer) {
+        AtomicLong delivered = new AtomicLong();
+        Consumer<BatchResult> counting = result -> {
+            delivered.incrementAndGet();
+            consumer.accept(result);
+        };
+        return resilientExecutor.execute(() -> {
+            try {
+                return exchange("reading batch file " + fileId, restClient.get().uri(url("/files/" + fileId + "/content")).accept(MediaType.ALL),
+                        body -> codec.read(body, counting));
+            } catch (OpenAICommunicationException e) {
+                if (delivered.get() > 0) {
+                    // Without the cause, the failure is not classified as retryable
+                    throw new OpenAICommunicationException("Failed reading batch file " + fileId + " after " + delivered.get() + " results: "
+                            + e.getMessage());
+                }
+                throw e;
+            }
+        }, null);
+    }
+
+    /**
+     * Uploads a batch input file as {@code multipart/form-data}, writing the file content into the body with the given writer.
+     */
+    private BatchFile upload(String filename, ContentWriter content) {
+        String boundary = "batch-" + UUID.randomUUID();
+        byte[] head = ("--" + boundary + CRLF + "Content-Disposition: form-data; name=\"purpose\"" + CRLF + CRLF + "batch" + CRLF + "--" + boundary
+                + CRLF + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"" + CRLF + "Content-Type: application/jsonl"
+                + CRLF + CRLF).getBytes(StandardCharsets.UTF_8);
+        byte[] tail = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.UTF_8);
+        return exchange("uploading a batch input file", restClient.post().uri(url("/files"))
+                .contentType(new MediaType(MediaType.MULTIPART_FORM_DATA, Map.of("boundary", boundary))).body(out -> {
+                    out.write(head);
+                    content.write(out);
+                    out.write(tail);
+                    out.flush();
+                }), body -> ProviderJson.mapper().readValue(body, BatchFile.class));
+    }
+
+    /**
+     * Performs an HTTP exchange, translating failures into the {@link OpenAICommunicationException} subtypes.
+     */
+    private <T> T exchange(String action, RestClient.RequestHeadersSpec<?> spec, BodyReader<T> reader) {
+        log.debug("Batch API: {}", action);
+        try {
+            return spec.headers(this::authorize).exchange((clientRequest, clientResponse) -> {
+                int status = clientResponse.getStatusCode().value();
+                if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                    throw new OpenAIRateLimitException("OpenAI rate limit exceeded", RateLimitHeaders.retryAfter(clientResponse.getHeaders()));
+                }
+                if (clientResponse.getStatusCode().is5xxServerError()) {
+                    throw new OpenAIServerException("OpenAI returned HTTP status " + status, status, null);
+                }
+                if (clientResponse.getStatusCode().isError()) {
+                    throw new OpenAICommunicationException("OpenAI returned HTTP status " + status + " " + action);
+                }
+                try (InputStream body = clientResponse.getBody()) {
+                    return reader.read(body);
+                }
+            });
+        } catch (OpenAICommunicationException e) {
+            log.error("Error occurred {}: {}", action, e.getMessage());
+            throw e;
+        } catch (ResourceAccessException e) {
+            rethrowInvalidItem(e);
+            if (e.getCause() instanceof HttpTimeoutException || e.getCause() instanceof InterruptedIOException) {
+                log.error("Timed out {}: {}", action, e.getMessage());
+                throw new OpenAITimeoutException("Timed out communicating with OpenAI", e);
+            }
+            log.error("Error occurred {}: {}", action, e.getMessage(), e);
+            throw new OpenAICommunicationException("Failed to communicate with OpenAI", e);
+        } catch (Exception e) {
+            rethrowInvalidItem(e);
+            log.error("Error occurred {}: {}", action, e.getMessage(), e);
+            throw new OpenAICommunicationException("Failed to communicate with OpenAI", e);
+        }
+    }
+
+    /**
+     * Rethrows an invalid batch item found while the upload body was written, however the HTTP client wrapped it.
+     */
+    private static void rethrowInvalidItem(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IllegalArgumentException invalid) {
+                throw invalid;
+            }
+        }
+    }
+
+    /**
+     * Retry policy for requests that are not idempotent: retries only rate limits and failures to connect, which OpenAI never acted on.
+     */
+    private static final class UnsentRetryPolicy extends RetryPolicy {
+
+        UnsentRetryPolicy(OpenAIConfigProperties.Retry settings) {
+            super(settings);
+        }
+
+        @Override
+        public boolean shouldRetry(Throwable failure, int attempt) {
+            return super.shouldRetry(failure, attempt) && (failure instanceof OpenAIRateLimitException || OpenAIService.isNeverSent(failure));
+        }
+    }
+
+    private void authorize(HttpHeaders headers) {
+        if (properties.getApiKey() != null && !properties.getApiKey().isEmpty()) {
+            headers.set(HttpHeaders.AUTHORIZATION, BEARER_TOKEN_PREFIX + properties.getApiKey());
+        }
+    }
+
+    private String url(String path) {
+        String baseUrl = settings.getBaseUrl();
+        return (baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl) + path;
+    }
+}
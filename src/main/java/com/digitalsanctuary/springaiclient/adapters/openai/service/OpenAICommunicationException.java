@@ -1,12 +1,36 @@
 package com.digitalsanctuary.springaiclient.adapters.openai.service;
 
+import org.springframework.web.client.ResourceAccessException;
+import com.digitalsanctuary.springaiclient.adapters.AIServiceException;
+
 /**
  * Exception thrown when there is a communication error with the OpenAI API.
  * <p>
- * This exception is used to indicate issues such as network errors, API timeouts, or other communication-related problems.
+ * This exception is used to indicate issues such as network errors, API timeouts, or other communication-related problems. Connection failures are
+ * {@linkplain #isTransient() transient}, as are the failures reported by the subclasses for rate limits, overload, server errors and timeouts, and
+ * the failures constructed as transient, such as every upstream or model of a request being circuit-open.
  * </p>
  */
-public class OpenAICommunicationException extends RuntimeException {
+public class OpenAICommunicationException extends AIServiceException {
+
+    /**
+     * Constructs a new OpenAICommunicationException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public OpenAICommunicationException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new OpenAICommunicationException with the specified detail message, for a failure that may be transient.
+     *
+     * @param message the detail message
+     * @param transientFailure whether the request may succeed later or with another provider
+     */
+    public OpenAICommunicationException(String message, boolean transientFailure) {
+        super(message, transientFailure, null, null);
+    }
 
     /**
      * Constructs a new OpenAICommunicationException with the specified detail message and cause.
@@ -17,4 +41,14 @@ public class OpenAICommunicationException extends RuntimeException {
     public OpenAICommunicationException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    /**
+     * Returns whether the request failed to reach OpenAI or to read its response, so it may succeed later or with another provider.
+     *
+     * @return true for connection failures and failures constructed as transient
+     */
+    @Override
+    public boolean isTransient() {
+        return super.isTransient() || getCause() instanceof ResourceAccessException;
+    }
 }
@@ -0,0 +1,257 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Embedding;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.EmbeddingRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.EmbeddingResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.embeddings.EmbeddingBatcher;
+import com.digitalsanctuary.springaiclient.adapters.openai.embeddings.EmbeddingCodec;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.ResilientExecutor;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.RetryPolicy;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.TokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.support.RateLimitHeaders;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service for computing embeddings with the OpenAI embeddings API.
+ * <p>
+ * Single texts passed to {@link #embed(String)} or {@link #embedAsync(String)} by concurrent callers are coalesced by an
+ * {@link EmbeddingBatcher} into one request per batch, which cuts the number of round trips when many texts are embedded at once. Lists of texts
+ * passed to {@link #embedAll(List)} are split into batches directly. Vectors are returned as {@code float[]}, decoded from the {@code base64}
+ * encoding by default. Requests are retried as configured under {@code ds.ai.openai.retry}.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * float[] vector = embeddingService.embed("The quick brown fox");
+ * List<float[]> vectors = embeddingService.embedAll(List.of("first document", "second document"));
+ * }
+ * </pre>
+ *
+ * @see OpenAIConfigProperties.Embeddings
+ */
+@Slf4j
+public class OpenAIEmbeddingService implements Closeable {
+
+    private static final String BEARER_TOKEN_PREFIX = "Bearer ";
+
+    private final RestClient restClient;
+    private final OpenAIConfigProperties properties;
+    private final OpenAIConfigProperties.Embeddings settings;
+    private final TokenEstimator tokenEstimator;
+    private final EmbeddingCodec codec = new EmbeddingCodec();
+    private final ResilientExecutor resilientExecutor;
+    private final EmbeddingBatcher batcher;
+
+    /**
+     * Creates an embedding service.
+     *
+     * @param restClient the REST client, as created for the {@link OpenAIService}
+     * @param properties the configuration properties for OpenAI, including the embeddings settings
+     * @param executor the executor sending the batches of coalesced texts; requests are sent on a dedicated executor, so the batches never wait
+     *        for a thread of their own executor
+     * @param tokenEstimator the estimator for the tokens of a text, used to bound the batches
+     */
+    public OpenAIEmbeddingService(RestClient restClient, OpenAIConfigProperties properties, Executor executor, TokenEstimator tokenEstimator) {
+        this.restClient = restClient;
+        this.properties = properties;
+        this.settings = properties.getEmbeddings();
+        this.tokenEstimator = tokenEstimator;
+        this.resilientExecutor = new ResilientExecutor(new RetryPolicy(properties.getRetry()), null);
+        this.batcher = new EmbeddingBatcher(this::embedBatch, executor, settings.getMaxBatchSize(), settings.getMaxBatchTokens(),
+                settings.getMaxLinger(), tokenEstimator);
+    }
+
+    /**
+     * Computes the embedding of a text, batched with the texts submitted concurrently by other callers.
+     * <p>
+     * The caller waits no longer than {@code ds.ai.openai.retry.default-deadline}, plus the time the batch may linger before it is sent.
+     * </p>
+     *
+     * @param text the text to embed
+     * @return the embedding vector
+     * @throws IllegalArgumentException if the text is null or empty
+     * @throws OpenAITimeoutException if the embedding is not computed in time
+     * @throws OpenAICommunicationException if the request fails
+     */
+    public float[] embed(String text) {
+        CompletableFuture<float[]> future = embedAsync(text);
+        Duration deadline = properties.getRetry().getDefaultDeadline();
+        try {
+            if (deadline == null) {
+                return future.get();
+            }
+            Duration linger = settings.getMaxLinger() == null ? Duration.ZERO : settings.getMaxLinger();
+            return future.get(deadline.plus(linger).toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new OpenAITimeoutException("Timed out waiting for the embedding", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new OpenAICommunicationException("Interrupted while waiting for the embedding", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new OpenAICommunicationException("Failed to compute the embedding", e.getCause());
+        }
+    }
+
+    /**
+     * Asynchronously computes the embedding of a text, batched with the texts submitted concurrently by other callers.
+     *
+     * @param text the text to embed
+     * @return a future completed with the embedding vector
+     * @throws IllegalArgumentException if the text is null or empty
+     */
+    public CompletableFuture<float[]> embedAsync(String text) {
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("Text to embed cannot be null or empty.");
+        }
+        return batcher.submit(text);
+    }
+
+    /**
+     * Computes the embeddings of a list of texts, split into batches within the configured size and token bounds. The batches are sent one after
+     * the other on the calling thread.
+     *
+     * @param texts the texts to embed
+     * @return the embedding vectors, in the order of the texts
+     * @throws OpenAICommunicationException if a request fails
+     */
+    public List<float[]> embedAll(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        int start = 0;
+        while (start < texts.size()) {
+            int end = start;
+            long tokens = 0;
+            while (end < texts.size() && end - start < settings.getMaxBatchSize()) {
+                tokens += tokenEstimator.countTokens(texts.get(end));
+                if (end > start && tokens > settings.getMaxBatchTokens()) {
+                    break;
+                }
+                end++;
+            }
+            vectors.addAll(embedBatch(texts.subList(start, end)));
+            start = end;
+        }
+        return vectors;
+    }
+
+    /**
+     * Creates a request for the given texts from the configured model, dimensions and encoding format.
+     *
+     * @param texts the texts to embed
+     * @return the request
+     */
+    public EmbeddingRequest createRequest(List<String> texts) {
+        EmbeddingRequest request = new EmbeddingRequest();
+        request.setInput(texts);
+        request.setModel(settings.getModel());
+        request.setEncodingFormat(settings.getEncodingFormat().getValue());
+        request.setDimensions(settings.getDimensions() > 0 ? settings.getDimensions() : null);
+        return request;
+    }
+
+    /**
+     * Sends a single embeddings request, with retries.
+     *
+     * @param request the request
+     * @return the response
+     * @throws OpenAICommunicationException if the request fails
+     */
+    public EmbeddingResponse createEmbeddings(EmbeddingRequest request) {
+        return resilientExecutor.execute(() -> exchange(request), properties.getRetry().getDefaultDeadline());
+    }
+
+    /**
+     * Sends the pending batch of coalesced texts, stops the batcher and shuts down the executor of the requests.
+     */
+    @Override
+    public void close() {
+        batcher.close();
+        resilientExecutor.close();
+    }
+
+    /**
+     * Embeds one batch of texts, returning the vectors in the order of the texts.
+     */
+    private List<float[]> embedBatch(List<String> texts) {
+        EmbeddingResponse response = createEmbeddings(createRequest(texts));
+        float[][] vectors = new float[texts.size()][];
+        if (response.getData() != null) {
+            for (Embedding embedding : response.getData()) {
+                if (embedding.getIndex() >= 0 && embedding.getIndex() < vectors.length) {
+                    vectors[embedding.getIndex()] = embedding.getEmbedding();
+                }
+            }
+        }
+        for (float[] vector : vectors) {
+            if (vector == null) {
+                throw new OpenAICommunicationException("OpenAI returned " + (response.getData() == null ? 0 : response.getData().size())
+                        + " embeddings for " + texts.size() + " texts");
+            }
+        }
+        return List.of(vectors);
+    }
+
+    /**
+     * Performs the HTTP exchange for a single request, translating failures into the {@link OpenAICommunicationException} subtypes.
+     */
+    private EmbeddingResponse exchange(EmbeddingRequest request) {
+        log.debug("Sending embeddings request for {} texts with model: {}", request.getInput().size(), request.getModel());
+        try {
+            RestClient.RequestBodySpec spec = restClient.post().uri(settings.getEndpoint()).contentType(MediaType.APPLICATION_JSON);
+            if (properties.getApiKey() != null && !properties.getApiKey().isEmpty()) {
+                spec = spec.header(HttpHeaders.AUTHORIZATION, BEARER_TOKEN_PREFIX + properties.getApiKey());
+            }
+            return spec.body(out -> codec.writeRequest(request, out)).exchange((clientRequest, clientResponse) -> {
+                int status = clientResponse.getStatusCode().value();
+                if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                    throw new OpenAIRateLimitException("OpenAI rate limit exceeded", RateLimitHeaders.retryAfter(clientResponse.getHeaders()));
+                }
+                if (clientResponse.getStatusCode().is5xxServerError()) {
+                    throw new OpenAIServerException("OpenAI returned HTTP status " + status, status, null);
+                }
+                if (clientResponse.getStatusCode().isError()) {
+                    throw new OpenAICommunicationException("OpenAI returned HTTP status " + status);
+                }
+                try (InputStream body = clientResponse.getBody()) {
+                    return codec.readResponse(body);
+                }
+            });
+        } catch (OpenAICommunicationException e) {
+            log.error("Error occurred while computing embeddings: {}", e.getMessage());
+            throw e;
+        } catch (ResourceAccessException e) {
+            if (e.getCause() instanceof HttpTimeoutException || e.getCause() instanceof InterruptedIOException) {
+                log.error("Timed out computing embeddings: {}", e.getMessage());
+                throw new OpenAITimeoutException("Timed out communicating with OpenAI", e);
+            }
+            log.error("Error occurred while computing embeddings: {}", e.getMessage(), e);
+            throw new OpenAICommunicationException("Failed to communicate with OpenAI", e);
+        } catch (Exception e) {
+            log.error("Error occurred while computing embeddings: {}", e.getMessage(), e);
+            throw new OpenAICommunicationException("Failed to communicate with OpenAI", e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a request is shed by the admission controller before it is sent.
+ * <p>
+ * This is thrown when the bulkhead of the request's model is full, when the expected queueing delay would exceed the request's deadline, and
+ * when the deadline passes while the request is queued. The request never reached OpenAI and is not retried; callers can degrade gracefully, for
+ * example by serving a cached or simplified answer.
+ * </p>
+ */
+public class OpenAIOverloadedException extends OpenAICommunicationException {
+
+    private final String pool;
+    private final Duration expectedWait;
+
+    /**
+     * Constructs a new OpenAIOverloadedException with the specified detail message, pool and expected wait.
+     *
+     * @param message the detail message
+     * @param pool the name of the bulkhead that shed the request
+     * @param expectedWait the expected queueing delay at the time the request was shed, or null if unknown
+     */
+    public OpenAIOverloadedException(String message, String pool, Duration expectedWait) {
+        super(message);
+        this.pool = pool;
+        this.expectedWait = expectedWait;
+    }
+
+    /**
+     * Returns the name of the bulkhead that shed the request.
+     *
+     * @return the pool name
+     */
+    public String getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the expected queueing delay at the time the request was shed.
+     *
+     * @return the expected wait, or null if unknown
+     */
+    public Duration getExpectedWait() {
+        return expectedWait;
+    }
+
+    /**
+     * Returns the expected queueing delay, after which the bulkhead may have room for the request.
+     *
+     * @return the expected wait, or null if unknown
+     */
+    @Override
+    public Duration getRetryAfter() {
+        return expectedWait;
+    }
+
+    /**
+     * Returns true: the request may succeed once the bulkhead has room, or with another provider.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isTransient() {
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a request is rejected because of a rate limit.
+ * <p>
+ * This is thrown when OpenAI answers with HTTP 429, and, as an {@link OpenAIThrottledException}, when the client-side rate limiter cannot admit a
+ * request within its maximum wait time.
+ * When known, the time after which the request may succeed is available through {@link #getRetryAfter()}.
+ * </p>
+ */
+public class OpenAIRateLimitException extends OpenAICommunicationException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new OpenAIRateLimitException with the specified detail message and retry delay.
+     *
+     * @param message the detail message
+     * @param retryAfter the time after which the request may succeed, or null if unknown
+     */
+    public OpenAIRateLimitException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Constructs a new OpenAIRateLimitException with the specified detail message, retry delay and cause.
+     *
+     * @param message the detail message
+     * @param retryAfter the time after which the request may succeed, or null if unknown
+     * @param cause the cause of the exception
+     */
+    public OpenAIRateLimitException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the time after which the request may succeed.
+     *
+     * @return the retry delay, or null if unknown
+     */
+    @Override
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Returns true: the request may succeed once the rate limit has reset, or with another provider.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isTransient() {
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+/**
+ * Exception thrown when OpenAI answers with a server error (HTTP 5xx).
+ * <p>
+ * Server errors such as 500, 502, 503 and 504 are usually transient, so requests failing with this exception are candidates for a retry.
+ * </p>
+ */
+public class OpenAIServerException extends OpenAICommunicationException {
+
+    private final int statusCode;
+
+    /**
+     * Constructs a new OpenAIServerException with the specified detail message, status code and cause.
+     *
+     * @param message the detail message
+     * @param statusCode the HTTP status code returned by OpenAI
+     * @param cause the cause of the exception
+     */
+    public OpenAIServerException(String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Returns the HTTP status code returned by OpenAI.
+     *
+     * @return the HTTP status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Returns true: the request may succeed once OpenAI has recovered, or with another provider.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isTransient() {
+        return true;
+    }
+}
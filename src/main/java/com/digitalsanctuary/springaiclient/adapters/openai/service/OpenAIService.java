@@ -1,12 +1,87 @@
 package com.digitalsanctuary.springaiclient.adapters.openai.service;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 import com.digitalsanctuary.springaiclient.adapters.AbstractAIService;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatMessage;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatRequest;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatResponse;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatStreamListener;
+import com.digitalsanctuary.springaiclient.adapters.openai.admission.AdmissionController;
+import com.digitalsanctuary.springaiclient.adapters.openai.admission.Bulkhead;
+import com.digitalsanctuary.springaiclient.adapters.openai.admission.Priority;
+import com.digitalsanctuary.springaiclient.adapters.openai.bulk.BulkExecutor;
+import com.digitalsanctuary.springaiclient.adapters.openai.bulk.BulkItemResult;
+import com.digitalsanctuary.springaiclient.adapters.openai.bulk.BulkOptions;
+import com.digitalsanctuary.springaiclient.adapters.openai.bulk.BulkProgress;
+import com.digitalsanctuary.springaiclient.adapters.openai.bulk.DurableJobQueue;
+import com.digitalsanctuary.springaiclient.adapters.openai.cache.RequestCoalescer;
+import com.digitalsanctuary.springaiclient.adapters.openai.cache.RequestFingerprint;
+import com.digitalsanctuary.springaiclient.adapters.openai.cache.ResponseCache;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.OpenAICodec;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.PreEncodedRequest;
 import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.conversation.Conversation;
+import com.digitalsanctuary.springaiclient.adapters.openai.conversation.ConversationPolicy;
+import com.digitalsanctuary.springaiclient.adapters.openai.conversation.ConversationSnapshot;
+import com.digitalsanctuary.springaiclient.adapters.openai.conversation.ConversationStore;
+import com.digitalsanctuary.springaiclient.adapters.openai.conversation.WindowStrategy;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
 import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
 import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChoice;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChunk;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamOptions;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.metrics.RequestObserver;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.HedgingPolicy;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.RateLimiter;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.ResilientExecutor;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.RetryPolicy;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.ModelRouter;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.ModelTier;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.Upstream;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.UpstreamRouter;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.ContextWindows;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.TokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import com.digitalsanctuary.springaiclient.adapters.support.RateLimitHeaders;
+import com.digitalsanctuary.springaiclient.adapters.support.SseEventReader;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -36,30 +111,324 @@ import lombok.extern.slf4j.Slf4j;
  *     .systemPrompt("You are a helpful assistant specializing in humor")
  *     .build();
  * OpenAIResponse response = openAIService.sendRequest(request);
+ *
+ * // Streaming request, printing tokens as they arrive
+ * OpenAIResponse streamed = openAIService.streamRequest(request, (index, delta) -> System.out.print(delta.getContent()));
  * }
  * </pre>
+ * <p>
+ * As an {@link AbstractAIService}, the service also serves provider-neutral {@link ChatRequest}s, sent through
+ * {@link #sendRequest(OpenAIRequest)} and {@link #streamRequest(OpenAIRequest, StreamListener)} with the configured defaults. Pointing
+ * {@code ds.ai.openai.api-endpoint} at an OpenAI-compatible server, such as vLLM, Ollama or LM Studio, makes it an adapter for that server.
+ * </p>
  */
 @Slf4j
 @Service
-public class OpenAIService extends AbstractAIService {
+public class OpenAIService extends AbstractAIService implements Closeable {
+
+    /**
+     * The provider name of this service, as returned by {@link #getProviderName()}.
+     */
+    public static final String PROVIDER_NAME = "openai";
+
+    /**
+     * The Bearer token prefix for the authorization header.
+     */
+    private static final String BEARER_TOKEN_PREFIX = "Bearer ";
+
+    /**
+     * Translates error responses into the same exceptions as {@code RestClient.retrieve()}.
+     */
+    private static final DefaultResponseErrorHandler ERROR_HANDLER = new DefaultResponseErrorHandler();
 
     private final RestClient openAiRestClient;
     private final OpenAIConfigProperties properties;
+    private final Executor asyncExecutor;
+    private final ExecutorService ownedExecutor;
+    private final OpenAICodec codec;
+    private final ResilientExecutor ownedResilientExecutor;
+    private ResponseCache responseCache;
+    private RequestCoalescer requestCoalescer;
+    private RateLimiter rateLimiter;
+    private ResilientExecutor resilientExecutor;
+    private RequestObserver requestObserver;
+    private TokenEstimator tokenEstimator;
+    private ConversationStore conversationStore;
+    private UpstreamRouter upstreamRouter;
+    private AdmissionController admissionController;
+    private ModelRouter modelRouter;
+
+    /**
+     * A single call on an upstream, with the rate limiter permit it must settle.
+     */
+    private interface UpstreamCall<T> {
+        T call(Upstream upstream, RateLimiter limiter, RateLimiter.Permit permit);
+    }
 
     /**
      * Constructor for OpenAIService.
      * <p>
      * The service is typically instantiated by Spring's dependency injection system.
      * It requires a properly configured RestClient for communicating with the OpenAI API
-     * and a configuration properties object.
+     * and a configuration properties object. The executor for asynchronous requests is
+     * created from the {@code async} configuration properties, and shut down by {@link #close()}.
      * </p>
      *
      * @param openAiRestClient the RestClient for making HTTP requests to the OpenAI API
      * @param properties the configuration properties for OpenAI containing API keys, endpoints, etc.
      */
     public OpenAIService(@Qualifier("openAIRestClient") RestClient openAiRestClient, OpenAIConfigProperties properties) {
+        this(openAiRestClient, properties, AsyncExecutors.create(properties.getAsync()), true);
+    }
+
+    /**
+     * Constructor for OpenAIService with an explicit executor for asynchronous requests. The executor is owned by the caller and is not shut
+     * down by {@link #close()}.
+     *
+     * @param openAiRestClient the RestClient for making HTTP requests to the OpenAI API
+     * @param properties the configuration properties for OpenAI containing API keys, endpoints, etc.
+     * @param asyncExecutor the executor running the asynchronous request methods
+     */
+    public OpenAIService(@Qualifier("openAIRestClient") RestClient openAiRestClient, OpenAIConfigProperties properties,
+            @Qualifier("openAIAsyncExecutor") Executor asyncExecutor) {
+        this(openAiRestClient, properties, asyncExecutor, false);
+    }
+
+    private OpenAIService(RestClient openAiRestClient, OpenAIConfigProperties properties, Executor asyncExecutor, boolean ownsExecutor) {
         this.openAiRestClient = openAiRestClient;
         this.properties = properties;
+        this.asyncExecutor = asyncExecutor;
+        this.ownedExecutor = ownsExecutor ? (ExecutorService) asyncExecutor : null;
+        this.codec = properties.getCodec().isEnabled() ? new OpenAICodec(properties.getCodec()) : null;
+        // Attempts get their own executor: the asynchronous executor runs callers waiting for them
+        this.ownedResilientExecutor = new ResilientExecutor(new RetryPolicy(properties.getRetry()),
+                properties.getHedging().isEnabled() ? new HedgingPolicy(properties.getHedging()) : null);
+        this.resilientExecutor = ownedResilientExecutor;
+    }
+
+    /**
+     * Sets the response cache consulted by {@link #sendRequest(OpenAIRequest, RequestOptions)}.
+     * <p>
+     * This is called by the auto-configuration when {@code ds.ai.openai.cache.enabled} is set or a {@link ResponseCache} bean is defined.
+     * </p>
+     *
+     * @param responseCache the response cache, or null to disable caching
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Returns the response cache consulted by this service.
+     *
+     * @return the response cache, or null if caching is disabled
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Sets the coalescer sharing identical in-flight requests.
+     * <p>
+     * This is called by the auto-configuration when {@code ds.ai.openai.coalescing.enabled} is set.
+     * </p>
+     *
+     * @param requestCoalescer the request coalescer, or null to disable coalescing
+     */
+    public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * Returns the coalescer sharing identical in-flight requests.
+     *
+     * @return the request coalescer, or null if coalescing is disabled
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * Sets the client-side rate limiter applied to the calls sent to the configured endpoint with the configured API key.
+     * <p>
+     * This is called by the auto-configuration when {@code ds.ai.openai.rate-limit.enabled} is set. With an {@link UpstreamRouter}, the rate
+     * limiters of the upstreams apply instead, one per API key. Requests with their own API key are not rate limited.
+     * </p>
+     *
+     * @param rateLimiter the rate limiter, or null to disable client-side rate limiting
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Returns the client-side rate limiter applied to the calls sent to the configured endpoint with the configured API key.
+     *
+     * @return the rate limiter, or null if client-side rate limiting is disabled
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Sets the executor applying retries, deadlines and hedging to every request.
+     * <p>
+     * By default it is created from the {@code retry} and {@code hedging} configuration properties. Attempts run on the calling thread unless a
+     * deadline or hedging applies; then they run on an attempt executor owned by the resilient executor, never on the asynchronous or bulk
+     * executor, whose threads wait for the attempts.
+     * </p>
+     *
+     * @param resilientExecutor the resilient executor
+     */
+    public void setResilientExecutor(ResilientExecutor resilientExecutor) {
+        this.resilientExecutor = resilientExecutor;
+    }
+
+    /**
+     * Returns the executor applying retries, deadlines and hedging to every request.
+     *
+     * @return the resilient executor
+     */
+    public ResilientExecutor getResilientExecutor() {
+        return resilientExecutor;
+    }
+
+    /**
+     * Sets the observer notified of every call to {@link #sendRequest(OpenAIRequest, RequestOptions)}.
+     * <p>
+     * This is called by the auto-configuration when Micrometer is available and a {@code MeterRegistry} bean exists.
+     * </p>
+     *
+     * @param requestObserver the request observer, or null to disable observation
+     */
+    public void setRequestObserver(RequestObserver requestObserver) {
+        this.requestObserver = requestObserver;
+    }
+
+    /**
+     * Returns the observer notified of every request.
+     *
+     * @return the request observer, or null if observation is disabled
+     */
+    public RequestObserver getRequestObserver() {
+        return requestObserver;
+    }
+
+    /**
+     * Sets the estimator used to clamp the output tokens of requests created by {@link #createRequestBuilder()}.
+     * <p>
+     * The estimator is only used when {@code ds.ai.openai.tokenizer.clamp-output-tokens} is set.
+     * </p>
+     *
+     * @param tokenEstimator the token estimator, or null to disable clamping
+     */
+    public void setTokenEstimator(TokenEstimator tokenEstimator) {
+        this.tokenEstimator = tokenEstimator;
+    }
+
+    /**
+     * Returns the estimator used to clamp output tokens.
+     *
+     * @return the token estimator, or null if none is set
+     */
+    public TokenEstimator getTokenEstimator() {
+        return tokenEstimator;
+    }
+
+    /**
+     * Sets the store that keeps conversations between turns.
+     * <p>
+     * This is called by the auto-configuration when {@code ds.ai.openai.conversation.store} is set.
+     * </p>
+     *
+     * @param conversationStore the conversation store, or null to not keep conversations
+     */
+    public void setConversationStore(ConversationStore conversationStore) {
+        this.conversationStore = conversationStore;
+    }
+
+    /**
+     * Returns the store that keeps conversations between turns.
+     *
+     * @return the conversation store, or null if conversations are not kept
+     */
+    public ConversationStore getConversationStore() {
+        return conversationStore;
+    }
+
+    /**
+     * Sets the router spreading requests over several upstreams.
+     * <p>
+     * This is called by the auto-configuration when {@code ds.ai.openai.routing.enabled} is set. Without a router, requests are sent to
+     * {@code ds.ai.openai.api-endpoint}.
+     * </p>
+     *
+     * @param upstreamRouter the upstream router, or null to disable routing
+     */
+    public void setUpstreamRouter(UpstreamRouter upstreamRouter) {
+        this.upstreamRouter = upstreamRouter;
+    }
+
+    /**
+     * Returns the router spreading requests over several upstreams.
+     *
+     * @return the upstream router, or null if routing is disabled
+     */
+    public UpstreamRouter getUpstreamRouter() {
+        return upstreamRouter;
+    }
+
+    /**
+     * Sets the admission controller bounding the concurrent calls per model.
+     * <p>
+     * This is called by the auto-configuration when {@code ds.ai.openai.admission.enabled} is set. Calls are admitted by the bulkhead of their
+     * model in the order of their {@link RequestOptions#priority(Priority)}, and shed with an {@link OpenAIOverloadedException} under overload.
+     * Every attempt of a call is admitted on its own, so that a permit is only held while a request to OpenAI is in flight. Cache hits and callers
+     * sharing a coalesced call are not subject to admission.
+     * </p>
+     *
+     * @param admissionController the admission controller, or null to disable admission control
+     */
+    public void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    /**
+     * Returns the admission controller bounding the concurrent calls per model.
+     *
+     * @return the admission controller, or null if admission control is disabled
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * Sets the router choosing the model of each request and falling back to other models.
+     * <p>
+     * This is called by the auto-configuration when {@code ds.ai.openai.model-routing.enabled} is set. Requests with a
+     * {@link RequestOptions#tier(com.digitalsanctuary.springaiclient.adapters.openai.routing.ModelTier)} are sent to the model chosen by the
+     * router, and requests for a configured model fall back along its chain. The model that served a response is recorded in
+     * {@link OpenAIResponse#getRoutedModel()}.
+     * </p>
+     *
+     * @param modelRouter the model router, or null to send every request to the model it asks for
+     */
+    public void setModelRouter(ModelRouter modelRouter) {
+        this.modelRouter = modelRouter;
+    }
+
+    /**
+     * Returns the router choosing the model of each request.
+     *
+     * @return the model router, or null if model routing is disabled
+     */
+    public ModelRouter getModelRouter() {
+        return modelRouter;
+    }
+
+    @Override
+    public String getProviderName() {
+        return PROVIDER_NAME;
     }
 
     /**
@@ -86,8 +455,12 @@ public class OpenAIService extends AbstractAIService {
      * @see OpenAIRequest
      */
     public RequestBuilder createRequestBuilder() {
-        return new RequestBuilder().model(properties.getModel()).outputTokens(properties.getOutputTokens())
+        RequestBuilder builder = new RequestBuilder().model(properties.getModel()).outputTokens(properties.getOutputTokens())
                 .systemPrompt(properties.getSystemPrompt());
+        if (properties.getTokenizer().isClampOutputTokens() && tokenEstimator != null) {
+            builder.clampOutputTokens(tokenEstimator, properties.getTokenizer().getContextWindow());
+        }
+        return builder;
     }
 
     /**
@@ -114,11 +487,8 @@ public class OpenAIService extends AbstractAIService {
      * @see #createRequestBuilder()
      */
     public OpenAIResponse sendRequest(String text) {
-        if (text == null || text.trim().isEmpty()) {
-            throw new IllegalArgumentException("User message cannot be null or empty.");
-        }
         // Use default model and output tokens from the properties
-        return sendRequest(createRequestBuilder().userMessage(text).build());
+        return sendRequest(buildTextRequest(text));
     }
 
     /**
@@ -137,10 +507,218 @@ public class OpenAIService extends AbstractAIService {
      * @see OpenAIResponse
      */
     public OpenAIResponse sendRequest(OpenAIRequest request) {
-        log.debug("Sending request to OpenAI with model: {}", request.getModel());
+        return sendRequest(request, new RequestOptions());
+    }
+
+    /**
+     * Sends a request to OpenAI with the given request object and per-request options.
+     * <p>
+     * When a {@link ResponseCache} is configured and the options do not bypass it, the request is first looked up by its
+     * {@link RequestFingerprint}, and a successful response is stored after the call. When a {@link RequestCoalescer} is configured, concurrent
+     * identical requests with equal options share a single call and its outcome, each waiting no longer than its own deadline. Cached and shared
+     * responses must be treated as read-only. Requests sent with their own {@link RequestOptions#apiKey(String) API key} skip both.
+     * </p>
+     * <p>
+     * The call itself is retried on transient failures and bounded by the request deadline, as configured through the {@code retry} and
+     * {@code hedging} properties and {@link RequestOptions#deadline(Duration)}. Failures are reported as {@link OpenAIRateLimitException},
+     * {@link OpenAIServerException}, {@link OpenAITimeoutException} or, for other errors, {@link OpenAICommunicationException}. When admission
+     * control is enabled, each attempt first waits for the bulkhead of its model, and is shed with an {@link OpenAIOverloadedException} under
+     * overload. When model routing is enabled, the model is chosen by the {@link ModelRouter} and failures move the request on to the fallback
+     * models while the deadline allows.
+     * </p>
+     *
+     * @param request the OpenAI request object containing messages, model, and other parameters
+     * @param options the per-request options
+     * @return the response from OpenAI containing the generated message and usage information
+     * @throws OpenAICommunicationException if there is an error communicating with the OpenAI API
+     * @see RequestOptions
+     */
+    public OpenAIResponse sendRequest(OpenAIRequest request, RequestOptions options) {
+        RequestObserver observer = requestObserver;
+        RequestObserver.Observation observation = observer == null ? null : observer.start(request);
         try {
-            // Send the request and retrieve the response as OpenAIResponse
-            OpenAIResponse response = openAiRestClient.post().body(request).retrieve().body(OpenAIResponse.class);
+            // A request sent with its own API key is billed and authorized separately, so it neither reuses nor shares the calls of other keys
+            boolean ownKey = options.getApiKey() != null;
+            ResponseCache cache = options.isBypassCache() || ownKey ? null : responseCache;
+            RequestCoalescer coalescer = ownKey ? null : requestCoalescer;
+            RequestFingerprint fingerprint = cache == null && coalescer == null ? null : fingerprint(request, options);
+            if (cache != null) {
+                OpenAIResponse cached = cache.get(fingerprint);
+                if (cached != null) {
+                    log.debug("Returning cached OpenAI response for request {}", fingerprint);
+                    if (observation != null) {
+                        observation.cacheHit(cached);
+                    }
+                    return cached;
+                }
+            }
+            Duration deadline = options.getDeadline() != null ? options.getDeadline() : properties.getRetry().getDefaultDeadline();
+            OpenAIResponse response;
+            AtomicBoolean called = new AtomicBoolean(coalescer == null);
+            if (fingerprint == null) {
+                response = executeRouted(request, deadline, options);
+            } else if (coalescer == null) {
+                response = executeAndCache(request, fingerprint, cache, deadline, options);
+            } else {
+                // A caller taking over from an interrupted leader only has what is left of its own deadline
+                long start = System.nanoTime();
+                response = coalescer.execute(fingerprint, coalescingOptions(options), deadline, () -> {
+                    called.set(true);
+                    return executeAndCache(request, fingerprint, cache, deadline == null ? null : deadline.minusNanos(System.nanoTime() - start),
+                            options);
+                });
+            }
+            if (observation != null) {
+                // Only the caller that made a coalesced call reports its usage, the callers joining it consumed no tokens of their own
+                if (called.get()) {
+                    observation.success(response);
+                } else {
+                    observation.coalesced(response);
+                }
+            }
+            return response;
+        } catch (RuntimeException e) {
+            if (observation != null) {
+                observation.failure(e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the fingerprint a request is cached and coalesced under. With model routing, the tier of the request decides the model serving it,
+     * so it is part of the fingerprint.
+     */
+    private RequestFingerprint fingerprint(OpenAIRequest request, RequestOptions options) {
+        ModelTier tier = modelRouter == null ? null : options.getTier();
+        return RequestFingerprint.of(request, tier == null ? null : tier.name());
+    }
+
+    /**
+     * Returns the options a coalesced call is shared under: callers only share a call made with the same deadline, priority, tier and cache use.
+     */
+    private static List<Object> coalescingOptions(RequestOptions options) {
+        return Arrays.asList(options.isBypassCache(), options.getDeadline(), options.getPriority(), options.getTier());
+    }
+
+    /**
+     * Performs the request and stores the response in the cache, if any, before coalesced callers are released. A response served by a fallback
+     * model is not cached, so that the request is answered by its own model again once that model has recovered.
+     */
+    private OpenAIResponse executeAndCache(OpenAIRequest request, RequestFingerprint fingerprint, ResponseCache cache, Duration deadline,
+            RequestOptions options) {
+        OpenAIResponse response = executeRouted(request, deadline, options);
+        if (cache != null && response != null && !response.isFallback()) {
+            cache.put(fingerprint, response);
+        }
+        return response;
+    }
+
+    /**
+     * Performs the request on the models planned by the router if model routing is enabled, each model with its own admission and retries within
+     * what is left of the deadline.
+     */
+    private OpenAIResponse executeRouted(OpenAIRequest request, Duration deadline, RequestOptions options) {
+        ModelRouter router = modelRouter;
+        if (router == null) {
+            return executeResiliently(request, deadline, options);
+        }
+        return router.execute(request, options.getTier(), deadline, (routed, remaining) -> executeResiliently(routed, remaining, options));
+    }
+
+    /**
+     * Performs the request with retries, hedging and the given deadline. If admission control is enabled, every attempt, hedged ones included,
+     * is admitted by the bulkhead of its model and holds its permit for as long as its exchange runs: not during the backoff before a retry, but
+     * until an attempt abandoned at the deadline has actually been aborted. The time spent queued counts against the deadline.
+     */
+    private OpenAIResponse executeResiliently(OpenAIRequest request, Duration deadline, RequestOptions options) {
+        AdmissionController admission = admissionController;
+        Supplier<OpenAIResponse> attempt;
+        if (admission == null) {
+            attempt = () -> execute(request, options.getApiKey());
+        } else {
+            long deadlineAt = deadline == null ? 0 : System.nanoTime() + deadline.toNanos();
+            attempt = () -> {
+                Duration remaining = deadline == null ? null : Duration.ofNanos(Math.max(0, deadlineAt - System.nanoTime()));
+                try (Bulkhead.Permit permit = admission.acquire(request.getModel(), options.getPriority(), remaining)) {
+                    return execute(request, options.getApiKey());
+                }
+            };
+        }
+        ResilientExecutor executor = resilientExecutor;
+        return executor == null ? attempt.get() : executor.execute(attempt, deadline);
+    }
+
+    /**
+     * Performs a single attempt of the request, on the upstream chosen by the router if routing is enabled.
+     */
+    private OpenAIResponse execute(OpenAIRequest request, String apiKey) {
+        return routed(request, apiKey, (upstream, limiter, permit) -> exchange(request, upstream, apiKey, limiter, permit));
+    }
+
+    /**
+     * Runs a call on the upstream chosen for the model of the request, reporting its latency and outcome to the router. Without a router, the call
+     * is run with a null upstream, meaning the configured endpoint, and limited by the configured rate limiter; with a router, by the rate limiter
+     * of the upstream, which is waited for before a slot is taken on it. A request with its own API key draws on the quota of that key, which
+     * neither limiter tracks, and is not rate limited.
+     */
+    private <T> T routed(OpenAIRequest request, String apiKey, UpstreamCall<T> call) {
+        UpstreamRouter router = upstreamRouter;
+        if (router == null) {
+            RateLimiter limiter = apiKey == null ? rateLimiter : null;
+            return call.call(null, limiter, limiter == null ? null : limiter.acquire(request));
+        }
+        UpstreamRouter.Reservation reservation = router.reserve(request, apiKey == null);
+        Upstream upstream = reservation.getUpstream();
+        RateLimiter.Permit permit = reservation.getPermit();
+        RateLimiter limiter = permit == null ? null : upstream.getRateLimiter();
+        long started = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return call.call(upstream, limiter, permit);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            upstream.complete(System.nanoTime() - started, failure);
+        }
+    }
+
+    /**
+     * Starts a POST to the upstream, or to the configured endpoint, with the API key of the request, the upstream or the configuration, in that
+     * order.
+     */
+    private RestClient.RequestBodySpec post(Upstream upstream, String apiKey) {
+        RestClient.RequestBodySpec spec = upstream == null ? openAiRestClient.post() : openAiRestClient.post().uri(upstream.getEndpoint());
+        String key = apiKey != null ? apiKey : upstream != null ? upstream.getApiKey() : properties.getApiKey();
+        if (key != null && !key.isEmpty()) {
+            spec = spec.header(HttpHeaders.AUTHORIZATION, BEARER_TOKEN_PREFIX + key);
+        }
+        return spec;
+    }
+
+    /**
+     * Performs the HTTP exchange with OpenAI for a single request, translating failures into the {@link OpenAICommunicationException} subtypes.
+     */
+    private OpenAIResponse exchange(OpenAIRequest request, Upstream upstream, String apiKey, RateLimiter limiter, RateLimiter.Permit permit) {
+        log.debug("Sending request to {} with model: {}", upstream == null ? "OpenAI" : upstream, request.getModel());
+        // Every exit settles the permit: the branches below with what they know of the outcome, the finally block with what is left
+        try {
+            // Send the request and read the response as OpenAIResponse, keeping the headers for the rate limiter. If the attempt is abandoned,
+            // its response stream is closed, which makes the JDK and Jetty transports drop the connection instead of reading on
+            ResponseEntity<OpenAIResponse> entity = post(upstream, apiKey).body(request).exchange((clientRequest, clientResponse) -> {
+                InputStream body = clientResponse.getBody();
+                ResilientExecutor.onAbort(() -> closeQuietly(body));
+                if (ERROR_HANDLER.hasError(clientResponse)) {
+                    ERROR_HANDLER.handleError(clientRequest.getURI(), clientRequest.getMethod(), clientResponse);
+                }
+                return ResponseEntity.status(clientResponse.getStatusCode()).headers(clientResponse.getHeaders())
+                        .body(clientResponse.bodyTo(OpenAIResponse.class));
+            });
+            OpenAIResponse response = entity.getBody();
+            if (permit != null) {
+                limiter.complete(permit, response == null ? null : response.getUsage(), entity.getHeaders());
+            }
 
             if (response != null && !response.getChoices().isEmpty()) {
                 log.debug("Received response from OpenAI: {}", response.getChoices().get(0).getMessage().getContent());
@@ -148,10 +726,528 @@ public class OpenAIService extends AbstractAIService {
                 log.error("Received an empty or null response from OpenAI.");
             }
             return response;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            if (permit != null) {
+                limiter.rateLimited(permit, e.getResponseHeaders());
+            }
+            log.error("OpenAI rate limit exceeded: {}", e.getMessage());
+            throw new OpenAIRateLimitException("OpenAI rate limit exceeded", RateLimitHeaders.retryAfter(e.getResponseHeaders()), e);
+        } catch (HttpServerErrorException e) {
+            if (permit != null) {
+                limiter.failed(permit, e.getResponseHeaders());
+            }
+            log.error("OpenAI returned a server error: {}", e.getMessage());
+            throw new OpenAIServerException("OpenAI returned HTTP status " + e.getStatusCode().value(), e.getStatusCode().value(), e);
+        } catch (ResourceAccessException e) {
+            if (permit != null && isNeverSent(e)) {
+                limiter.release(permit);
+            }
+            if (e.getCause() instanceof HttpTimeoutException || e.getCause() instanceof InterruptedIOException) {
+                log.error("Timed out communicating with OpenAI: {}", e.getMessage());
+                throw new OpenAITimeoutException("Timed out communicating with OpenAI", e);
+            }
+            log.error("Error occurred while communicating with OpenAI: {}", e.getMessage(), e);
+            throw new OpenAICommunicationException("Failed to communicate with OpenAI", e);
         } catch (Exception e) {
             log.error("Error occurred while communicating with OpenAI: {}", e.getMessage(), e);
             throw new OpenAICommunicationException("Failed to communicate with OpenAI", e);
+        } finally {
+            if (permit != null) {
+                limiter.failed(permit, null);
+            }
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to close an abandoned OpenAI response: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether a transport failure happened before the request could reach OpenAI, so that its rate limiter reservation can be returned
+     * and a request that is not idempotent can be retried.
+     */
+    static boolean isNeverSent(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException || cause instanceof UnknownHostException
+                    || cause instanceof NoRouteToHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Asynchronously sends a request to OpenAI with the given text message, using the default configuration.
+     * <p>
+     * The text is validated before this method returns, the request itself runs on the asynchronous executor.
+     * </p>
+     *
+     * @param text the user message to send to the AI
+     * @return a future completed with the response from OpenAI, or exceptionally with an {@link OpenAICommunicationException}
+     * @throws IllegalArgumentException if the text is null or empty
+     * @see #sendRequestAsync(OpenAIRequest)
+     */
+    public CompletableFuture<OpenAIResponse> sendRequestAsync(String text) {
+        return sendRequestAsync(buildTextRequest(text));
+    }
+
+    /**
+     * Asynchronously sends a request to OpenAI with the given request object.
+     * <p>
+     * The request runs on the executor configured through the {@code async} properties, which by default uses one virtual thread per request on
+     * JDK 21 and later, so the calling thread is released immediately. Cancelling the returned future interrupts the thread performing the request:
+     * a request still waiting for admission, the rate limiter, a coalesced call or a retry stops waiting and is not sent. An HTTP exchange already
+     * in flight is abandoned, but whether the transport aborts it on interrupt depends on the transport, so it may still complete on the server
+     * and count against the quota.
+     * </p>
+     * <p>
+     * Example usage:
+     * <pre>
+     * {@code
+     * openAIService.sendRequestAsync(request)
+     *     .thenAccept(response -> log.info(response.getMessage()));
+     * }
+     * </pre>
+     *
+     * @param request the OpenAI request object containing messages, model, and other parameters
+     * @return a future completed with the response from OpenAI, or exceptionally with an {@link OpenAICommunicationException}
+     * @see #sendRequest(OpenAIRequest)
+     */
+    public CompletableFuture<OpenAIResponse> sendRequestAsync(OpenAIRequest request) {
+        return sendRequestAsync(request, new RequestOptions());
+    }
+
+    /**
+     * Asynchronously sends a request to OpenAI with the given request object and per-request options.
+     *
+     * @param request the OpenAI request object containing messages, model, and other parameters
+     * @param options the per-request options
+     * @return a future completed with the response from OpenAI, or exceptionally with an {@link OpenAICommunicationException}
+     * @see #sendRequest(OpenAIRequest, RequestOptions)
+     */
+    public CompletableFuture<OpenAIResponse> sendRequestAsync(OpenAIRequest request, RequestOptions options) {
+        return supplyAsync(() -> sendRequest(request, options));
+    }
+
+    /**
+     * Runs the supplier on the asynchronous executor, propagating cancellation of the returned future to the running task as an interrupt.
+     */
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                result.complete(supplier.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, null);
+        result.whenComplete((response, failure) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        asyncExecutor.execute(task);
+        return result;
+    }
+
+    /**
+     * Sends all requests of the list with the default bulk options and returns the results in input order.
+     * <p>
+     * Failed requests do not abort the run, their failure is captured in the corresponding {@link BulkItemResult}.
+     * </p>
+     *
+     * @param requests the requests to send
+     * @return the results, in the order of the requests
+     * @see #sendAll(Iterator, BulkOptions, Consumer)
+     */
+    public List<BulkItemResult> sendAll(List<? extends OpenAIRequest> requests) {
+        List<BulkItemResult> results = new ArrayList<>(requests.size());
+        sendAll(requests.iterator(), new BulkOptions(), results::add);
+        return results;
+    }
+
+    /**
+     * Sends all requests of the stream, handing each result to the consumer.
+     *
+     * @param requests the requests to send, consumed lazily
+     * @param options the options of the run
+     * @param resultConsumer the consumer receiving each result
+     * @return the summary of the run
+     * @see #sendAll(Iterator, BulkOptions, Consumer)
+     */
+    public BulkProgress sendAll(Stream<? extends OpenAIRequest> requests, BulkOptions options, Consumer<BulkItemResult> resultConsumer) {
+        return sendAll(requests.iterator(), options, resultConsumer);
+    }
+
+    /**
+     * Sends all requests of the iterator on the asynchronous executor with bounded concurrency, handing each result to the consumer.
+     * <p>
+     * Requests are pulled from the iterator only as permits become available, so arbitrarily large inputs can be processed without being
+     * materialized. Each request goes through {@link #sendRequest(OpenAIRequest, RequestOptions)}, so caching, rate limiting and retries apply
+     * to every item. This method blocks until every request has completed.
+     * </p>
+     * <p>
+     * Example usage:
+     * <pre>
+     * {@code
+     * BulkProgress summary = openAIService.sendAll(prompts.stream().map(this::toRequest),
+     *     new BulkOptions().maxConcurrency(32), result -> writer.write(result));
+     * log.info("{} requests at {} req/s, {} tokens", summary.getCompleted(), summary.getRequestsPerSecond(), summary.getUsage().getTotalTokens());
+     * }
+     * </pre>
+     *
+     * @param requests the requests to send, consumed lazily
+     * @param options the options of the run
+     * @param resultConsumer the consumer receiving each result, called by one thread at a time
+     * @return the summary of the run, including the aggregate token usage
+     */
+    public BulkProgress sendAll(Iterator<? extends OpenAIRequest> requests, BulkOptions options, Consumer<BulkItemResult> resultConsumer) {
+        return new BulkExecutor(this::sendRequest, asyncExecutor).run(requests, options, resultConsumer);
+    }
+
+    /**
+     * Sends the pending items of a durable job queue on the asynchronous executor, streaming the responses to the output file of the queue.
+     * <p>
+     * Like {@link #sendAll(Iterator, BulkOptions, Consumer)}, each request goes through {@link #sendRequest(OpenAIRequest, RequestOptions)}.
+     * Progress is journaled, so after a restart the same call resumes with the items that were not committed.
+     * </p>
+     *
+     * @param queue the job queue
+     * @param options the options of the run
+     * @return the summary of the run
+     * @see DurableJobQueue
+     */
+    public BulkProgress runJob(DurableJobQueue queue, BulkOptions options) {
+        return queue.run(new BulkExecutor(this::sendRequest, asyncExecutor), options);
+    }
+
+    private OpenAIRequest buildTextRequest(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            throw new IllegalArgumentException("User message cannot be null or empty.");
+        }
+        return createRequestBuilder().userMessage(text).build();
+    }
+
+    /**
+     * Opens a conversation, restoring it from the {@link ConversationStore} if one is configured and knows the id.
+     * <p>
+     * New conversations start with the default system prompt. The history is trimmed with the configured {@link WindowStrategy} to a token
+     * budget that defaults to the context window of the default model minus the output tokens.
+     * </p>
+     *
+     * @param id the conversation id
+     * @return the conversation
+     * @see OpenAIConfigProperties.ConversationSettings
+     */
+    public Conversation openConversation(String id) {
+        ConversationPolicy policy = conversationPolicy();
+        ConversationSnapshot snapshot = conversationStore == null ? null : conversationStore.load(id);
+        return snapshot != null ? Conversation.restore(snapshot, policy) : new Conversation(id, properties.getSystemPrompt(), policy);
+    }
+
+    /**
+     * Adds a user message to a conversation and sends it, using the default model and output tokens.
+     * <p>
+     * The reply is added to the conversation, which is then saved to the {@link ConversationStore} if one is configured. If the request fails,
+     * the user message stays in the conversation, and the turn can be retried with {@link #sendConversation(Conversation)}.
+     * </p>
+     *
+     * @param conversation the conversation
+     * @param userMessage the user message
+     * @return the response from OpenAI
+     * @throws IllegalArgumentException if the user message is null or empty
+     * @throws OpenAICommunicationException if there is an error communicating with the OpenAI API
+     */
+    public OpenAIResponse sendConversation(Conversation conversation, String userMessage) {
+        if (userMessage == null || userMessage.trim().isEmpty()) {
+            throw new IllegalArgumentException("User message cannot be null or empty.");
+        }
+        conversation.addUserMessage(userMessage);
+        return sendConversation(conversation);
+    }
+
+    /**
+     * Sends the retained window of a conversation as it is, adds the reply and saves the conversation if a store is configured.
+     *
+     * @param conversation the conversation, usually ending with a user message
+     * @return the response from OpenAI
+     * @throws OpenAICommunicationException if there is an error communicating with the OpenAI API
+     */
+    public OpenAIResponse sendConversation(Conversation conversation) {
+        OpenAIResponse response = sendRequest(conversation.toRequest(properties.getModel(), properties.getOutputTokens()));
+        conversation.addResponse(response);
+        if (conversationStore != null) {
+            conversationStore.save(conversation.toSnapshot());
+        }
+        return response;
+    }
+
+    /**
+     * Creates the policy of new conversations from the configuration properties.
+     */
+    private ConversationPolicy conversationPolicy() {
+        OpenAIConfigProperties.ConversationSettings settings = properties.getConversation();
+        ConversationPolicy policy = new ConversationPolicy().strategy(settings.getStrategy()).summarizer(this::summarizeConversation);
+        if (tokenEstimator != null) {
+            policy.tokenEstimator(tokenEstimator);
+        }
+        int budget = settings.getMaxPromptTokens();
+        if (budget <= 0) {
+            int window = properties.getTokenizer().getContextWindow() > 0 ? properties.getTokenizer().getContextWindow()
+                    : ContextWindows.forModel(properties.getModel());
+            budget = window - properties.getOutputTokens();
+        }
+        return budget > 0 ? policy.maxPromptTokens(budget) : policy;
+    }
+
+    /**
+     * Summarizes the messages dropped from a conversation with the default model.
+     */
+    private String summarizeConversation(String previousSummary, List<Message> dropped) {
+        StringBuilder transcript = new StringBuilder();
+        if (previousSummary != null) {
+            transcript.append("Summary so far: ").append(previousSummary).append("\n\n");
+        }
+        for (Message message : dropped) {
+            transcript.append(message.getRole()).append(": ").append(message.getContent()).append('\n');
+        }
+        OpenAIRequest request = createRequestBuilder()
+                .systemPrompt("Summarize the following conversation in a few sentences, keeping names, facts and decisions. Reply with the summary only.")
+                .userMessage(transcript.toString()).build();
+        return "Summary of the earlier conversation: " + sendRequest(request).getMessage();
+    }
+
+    /**
+     * Sends a streaming request to OpenAI, passing each delta to the given listener as it arrives.
+     * <p>
+     * The request is sent with {@code stream: true} and usage reporting enabled; the given request object is not modified. The server-sent events
+     * are parsed one at a time, so the first tokens are delivered as soon as OpenAI produces them. Once the stream has ended, the deltas are returned
+     * folded into a single response, including the {@link com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage} reported by OpenAI.
+     * </p>
+     *
+     * @param request the OpenAI request object containing messages, model, and other parameters
+     * @param listener the callback receiving every {@code choices[].delta}
+     * @return the aggregated response, with the full content of every choice
+     * @throws OpenAICommunicationException if there is an error communicating with the OpenAI API
+     * @see StreamListener
+     */
+    public OpenAIResponse streamRequest(OpenAIRequest request, StreamListener listener) {
+        return streamRequest(request, listener, new RequestOptions());
+    }
+
+    /**
+     * Sends a streaming request to OpenAI with per-request options, passing each delta to the given listener as it arrives.
+     * <p>
+     * Streams are not cached, coalesced or retried. The options set the API key of the request and, when admission control is enabled, its
+     * priority and the deadline bounding its wait for the bulkhead of its model.
+     * </p>
+     *
+     * @param request the OpenAI request object containing messages, model, and other parameters
+     * @param listener the callback receiving every {@code choices[].delta}
+     * @param options the per-request options
+     * @return the aggregated response, with the full content of every choice
+     * @throws OpenAICommunicationException if there is an error communicating with the OpenAI API
+     * @see #streamRequest(OpenAIRequest, StreamListener)
+     */
+    public OpenAIResponse streamRequest(OpenAIRequest request, StreamListener listener, RequestOptions options) {
+        return stream(request, listener, true, options);
+    }
+
+    /**
+     * Sends a streaming request to OpenAI, writing the content of the first choice to the given writer as it arrives.
+     * <p>
+     * The writer is flushed after every delta. The content is not kept in memory, so the returned response carries the metadata, finish reason and
+     * usage, but the message content is null. The writer is not closed.
+     * </p>
+     *
+     * @param request the OpenAI request object containing messages, model, and other parameters
+     * @param sink the writer receiving the generated content
+     * @return the aggregated response, without message content
+     * @throws OpenAICommunicationException if there is an error communicating with the OpenAI API or writing to the sink
+     */
+    public OpenAIResponse streamRequest(OpenAIRequest request, Writer sink) {
+        return stream(request, (index, delta) -> {
+            if (index == 0 && delta.getContent() != null) {
+                sink.write(delta.getContent());
+                sink.flush();
+            }
+        }, false, new RequestOptions());
+    }
+
+    /**
+     * Sends a streaming request to OpenAI, writing the UTF-8 encoded content of the first choice to the given stream as it arrives.
+     * <p>
+     * The stream is flushed after every delta. The content is not kept in memory, so the returned response carries the metadata, finish reason and
+     * usage, but the message content is null. The stream is not closed.
+     * </p>
+     *
+     * @param request the OpenAI request object containing messages, model, and other parameters
+     * @param sink the output stream receiving the generated content
+     * @return the aggregated response, without message content
+     * @throws OpenAICommunicationException if there is an error communicating with the OpenAI API or writing to the sink
+     */
+    public OpenAIResponse streamRequest(OpenAIRequest request, OutputStream sink) {
+        return stream(request, (index, delta) -> {
+            if (index == 0 && delta.getContent() != null) {
+                sink.write(delta.getContent().getBytes(StandardCharsets.UTF_8));
+                sink.flush();
+            }
+        }, false, new RequestOptions());
+    }
+
+    private OpenAIResponse stream(OpenAIRequest request, StreamListener listener, boolean accumulateContent, RequestOptions options) {
+        AdmissionController admission = admissionController;
+        String apiKey = options.getApiKey();
+        if (admission == null) {
+            return routed(request, apiKey,
+                    (upstream, limiter, permit) -> stream(request, upstream, apiKey, limiter, permit, listener, accumulateContent));
+        }
+        Duration deadline = options.getDeadline() != null ? options.getDeadline() : properties.getRetry().getDefaultDeadline();
+        try (Bulkhead.Permit admitted = admission.acquire(request.getModel(), options.getPriority(), deadline)) {
+            return routed(request, apiKey,
+                    (upstream, limiter, permit) -> stream(request, upstream, apiKey, limiter, permit, listener, accumulateContent));
+        }
+    }
+
+    private OpenAIResponse stream(OpenAIRequest request, Upstream upstream, String apiKey, RateLimiter limiter, RateLimiter.Permit permit,
+            StreamListener listener, boolean accumulateContent) {
+        log.debug("Sending streaming request to OpenAI with model: {}", request.getModel());
+        try {
+            OpenAIResponse response = post(upstream, apiKey).accept(MediaType.TEXT_EVENT_STREAM).body(toStreamingRequest(request))
+                    .exchange((clientRequest, clientResponse) -> {
+                        if (clientResponse.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                            if (permit != null) {
+                                limiter.rateLimited(permit, clientResponse.getHeaders());
+                            }
+                            throw new OpenAIRateLimitException("OpenAI rate limit exceeded", RateLimitHeaders.retryAfter(clientResponse.getHeaders()));
+                        }
+                        if (clientResponse.getStatusCode().isError() && permit != null) {
+                            limiter.failed(permit, clientResponse.getHeaders());
+                        }
+                        if (clientResponse.getStatusCode().is5xxServerError()) {
+                            throw new OpenAIServerException("OpenAI returned HTTP status " + clientResponse.getStatusCode().value(),
+                                    clientResponse.getStatusCode().value(), null);
+                        }
+                        if (clientResponse.getStatusCode().isError()) {
+                            throw new OpenAICommunicationException("OpenAI returned HTTP status " + clientResponse.getStatusCode().value());
+                        }
+                        StreamAggregator aggregator = new StreamAggregator(accumulateContent);
+                        SseEventReader events = new SseEventReader(clientResponse.getBody());
+                        String data;
+                        while ((data = events.next()) != null) {
+                            StreamChunk chunk = codec != null ? codec.readStreamChunk(data)
+                                    : ProviderJson.mapper().readValue(data, StreamChunk.class);
+                            aggregator.accept(chunk);
+                            if (chunk.getChoices() != null) {
+                                for (StreamChoice choice : chunk.getChoices()) {
+                                    if (choice.getDelta() != null) {
+                                        listener.onDelta(choice.getIndex(), choice.getDelta());
+                                    }
+                                }
+                            }
+                        }
+                        OpenAIResponse aggregated = aggregator.toResponse();
+                        if (permit != null) {
+                            limiter.complete(permit, aggregated.getUsage(), clientResponse.getHeaders());
+                        }
+                        return aggregated;
+                    });
+            log.debug("Completed streaming response from OpenAI with usage: {}", response.getUsage());
+            return response;
+        } catch (OpenAICommunicationException e) {
+            log.error("Error occurred while streaming from OpenAI: {}", e.getMessage(), e);
+            throw e;
+        } catch (Exception e) {
+            if (permit != null && isNeverSent(e)) {
+                limiter.release(permit);
+            }
+            log.error("Error occurred while streaming from OpenAI: {}", e.getMessage(), e);
+            throw new OpenAICommunicationException("Failed to communicate with OpenAI", e);
+        } finally {
+            // A stream broken after the response started still counted against the quotas
+            if (permit != null) {
+                limiter.failed(permit, null);
+            }
         }
     }
 
+    @Override
+    protected ChatResponse doChat(ChatRequest request) {
+        return toChatResponse(sendRequest(toOpenAIRequest(request)));
+    }
+
+    @Override
+    protected ChatResponse doStreamChat(ChatRequest request, ChatStreamListener listener) {
+        return toChatResponse(stream(toOpenAIRequest(request), (index, delta) -> {
+            if (index == 0 && delta.getContent() != null && !delta.getContent().isEmpty()) {
+                listener.onDelta(delta.getContent());
+            }
+        }, true, new RequestOptions()));
+    }
+
+    /**
+     * Translates a provider-neutral request, filling in the configured model, output tokens and, without a system message, system prompt.
+     */
+    private OpenAIRequest toOpenAIRequest(ChatRequest chatRequest) {
+        List<Message> messages = new ArrayList<>();
+        if (!chatRequest.hasSystemMessage() && properties.getSystemPrompt() != null) {
+            messages.add(message("system", properties.getSystemPrompt()));
+        }
+        for (ChatMessage chatMessage : chatRequest.getMessages()) {
+            messages.add(message(chatMessage.getRole().name().toLowerCase(Locale.ROOT), chatMessage.getContent()));
+        }
+        OpenAIRequest request = new OpenAIRequest();
+        request.setMessages(messages);
+        request.setModel(chatRequest.getModel() != null ? chatRequest.getModel() : properties.getModel());
+        request.setMaxTokens(chatRequest.getMaxTokens() > 0 ? chatRequest.getMaxTokens() : properties.getOutputTokens());
+        return request;
+    }
+
+    private static Message message(String role, String content) {
+        Message message = new Message();
+        message.setRole(role);
+        message.setContent(content);
+        return message;
+    }
+
+    private ChatResponse toChatResponse(OpenAIResponse response) {
+        if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
+            throw new OpenAICommunicationException("Received an empty response from OpenAI");
+        }
+        Usage usage = response.getUsage();
+        return new ChatResponse(PROVIDER_NAME, response.getModel(), response.getMessage(), response.getChoices().get(0).getFinishReason(),
+                usage == null ? 0 : usage.getPromptTokens(), usage == null ? 0 : usage.getCompletionTokens());
+    }
+
+    /**
+     * Shuts down the executor of the resilient attempts created by this service, and the asynchronous executor if this service created it.
+     * Requests already running are completed; an executor passed to the constructor is left to its owner.
+     */
+    @Override
+    public void close() {
+        ownedResilientExecutor.close();
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Creates a streaming copy of the given request, leaving the caller's request untouched.
+     */
+    static OpenAIRequest toStreamingRequest(OpenAIRequest request) {
+        StreamOptions streamOptions = new StreamOptions();
+        streamOptions.setIncludeUsage(true);
+        // A templated request keeps its pre-encoded fragments
+        OpenAIRequest streamingRequest = request instanceof PreEncodedRequest preEncoded ? preEncoded.copy() : new OpenAIRequest();
+        streamingRequest.setMessages(request.getMessages());
+        streamingRequest.setModel(request.getModel());
+        streamingRequest.setMaxTokens(request.getMaxTokens());
+        streamingRequest.setStream(Boolean.TRUE);
+        streamingRequest.setStreamOptions(streamOptions);
+        return streamingRequest;
+    }
 }
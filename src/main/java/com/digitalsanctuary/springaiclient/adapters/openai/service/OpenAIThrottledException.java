@@ -0,0 +1,23 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when the client-side rate limiter rejects a request because it cannot be admitted within the maximum wait time.
+ * <p>
+ * The request never reached OpenAI, so unlike a 429 answered by OpenAI it says nothing about the health of an upstream or a model: routers do
+ * not open their circuit breakers for it. It is still a rate limit, retried after {@link #getRetryAfter()} like one.
+ * </p>
+ */
+public class OpenAIThrottledException extends OpenAIRateLimitException {
+
+    /**
+     * Constructs a new OpenAIThrottledException with the specified detail message and retry delay.
+     *
+     * @param message the detail message
+     * @param retryAfter the time after which the rate limiter may admit the request
+     */
+    public OpenAIThrottledException(String message, Duration retryAfter) {
+        super(message, retryAfter);
+    }
+}
@@ -0,0 +1,30 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+/**
+ * Exception thrown when a request to OpenAI times out.
+ * <p>
+ * This covers both transport timeouts, such as a connect or read timeout, and a request exceeding its overall deadline.
+ * </p>
+ */
+public class OpenAITimeoutException extends OpenAICommunicationException {
+
+    /**
+     * Constructs a new OpenAITimeoutException with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause the cause of the exception
+     */
+    public OpenAITimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Returns true: the request may succeed once OpenAI responds faster, or with another provider.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isTransient() {
+        return true;
+    }
+}
@@ -0,0 +1,146 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChunk;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import com.digitalsanctuary.springaiclient.adapters.support.RateLimitHeaders;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link OpenAIService} for reactive applications.
+ * <p>
+ * This service is backed by Spring's {@link WebClient}, so requests are executed on the event loop of the underlying connector (the transport
+ * selected by {@code ds.ai.openai.http}) and no thread is blocked while waiting for OpenAI. It is only available when Spring WebFlux is on the
+ * classpath. Unlike {@link OpenAIService}, it is not a {@link com.digitalsanctuary.springaiclient.adapters.AbstractAIService}, whose chat calls
+ * block the caller.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * // Single response
+ * Mono<OpenAIResponse> response = reactiveOpenAIService.sendRequest("Tell me a joke");
+ *
+ * // Streamed chunks
+ * Flux<String> tokens = reactiveOpenAIService.streamRequest(request)
+ *     .flatMapIterable(StreamChunk::getChoices)
+ *     .mapNotNull(choice -> choice.getDelta().getContent());
+ * }
+ * </pre>
+ *
+ * @see OpenAIService
+ */
+@Slf4j
+public class ReactiveOpenAIService {
+
+    private static final String DONE = "[DONE]";
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE = new ParameterizedTypeReference<>() {};
+
+    private final WebClient openAiWebClient;
+    private final OpenAIConfigProperties properties;
+
+    /**
+     * Constructor for ReactiveOpenAIService.
+     *
+     * @param openAiWebClient the WebClient for making HTTP requests to the OpenAI API
+     * @param properties the configuration properties for OpenAI containing API keys, endpoints, etc.
+     */
+    public ReactiveOpenAIService(@Qualifier("openAIWebClient") WebClient openAiWebClient, OpenAIConfigProperties properties) {
+        this.openAiWebClient = openAiWebClient;
+        this.properties = properties;
+    }
+
+    /**
+     * Creates a new RequestBuilder object with default values from the configuration properties.
+     *
+     * @return a new RequestBuilder object with default configuration values
+     * @see OpenAIService#createRequestBuilder()
+     */
+    public RequestBuilder createRequestBuilder() {
+        return new RequestBuilder().model(properties.getModel()).outputTokens(properties.getOutputTokens())
+                .systemPrompt(properties.getSystemPrompt());
+    }
+
+    /**
+     * Sends a request to OpenAI with the given text message, using the default configuration.
+     *
+     * @param text the user message to send to the AI
+     * @return a mono emitting the response from OpenAI, or an {@link OpenAICommunicationException} on failure
+     * @throws IllegalArgumentException if the text is null or empty
+     */
+    public Mono<OpenAIResponse> sendRequest(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            throw new IllegalArgumentException("User message cannot be null or empty.");
+        }
+        return sendRequest(createRequestBuilder().userMessage(text).build());
+    }
+
+    /**
+     * Sends a request to OpenAI with the given request object.
+     * <p>
+     * Nothing is sent until the returned mono is subscribed to. Cancelling the subscription cancels the HTTP exchange.
+     * </p>
+     *
+     * @param request the OpenAI request object containing messages, model, and other parameters
+     * @return a mono emitting the response from OpenAI, or an {@link OpenAICommunicationException} on failure, classified like the errors of
+     *         {@link OpenAIService}
+     */
+    public Mono<OpenAIResponse> sendRequest(OpenAIRequest request) {
+        Mono<OpenAIResponse> response = openAiWebClient.post().bodyValue(request).retrieve().bodyToMono(OpenAIResponse.class);
+        Duration readTimeout = properties.getHttp().getReadTimeout();
+        return (readTimeout == null ? response : response.timeout(readTimeout))
+                .doOnSubscribe(subscription -> log.debug("Sending reactive request to OpenAI with model: {}", request.getModel()))
+                .onErrorMap(e -> !(e instanceof OpenAICommunicationException), this::toCommunicationException);
+    }
+
+    /**
+     * Sends a streaming request to OpenAI and emits every chunk as soon as it is received.
+     * <p>
+     * The request is sent with {@code stream: true} and usage reporting enabled; the given request object is not modified. The last chunk carries
+     * the {@link com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage} of the request and has no choices.
+     * </p>
+     *
+     * @param request the OpenAI request object containing messages, model, and other parameters
+     * @return a flux of the streamed chunks, or an {@link OpenAICommunicationException} on failure, classified like the errors of
+     *         {@link OpenAIService}
+     */
+    public Flux<StreamChunk> streamRequest(OpenAIRequest request) {
+        Flux<ServerSentEvent<String>> events = openAiWebClient.post().accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(OpenAIService.toStreamingRequest(request)).retrieve().bodyToFlux(SSE_TYPE);
+        Duration readTimeout = properties.getHttp().getReadTimeout();
+        return (readTimeout == null ? events : events.timeout(readTimeout))
+                .doOnSubscribe(subscription -> log.debug("Sending reactive streaming request to OpenAI with model: {}", request.getModel()))
+                .mapNotNull(ServerSentEvent::data).takeWhile(data -> !DONE.equals(data))
+                .map(data -> ProviderJson.mapper().readValue(data, StreamChunk.class))
+                .onErrorMap(e -> !(e instanceof OpenAICommunicationException), this::toCommunicationException);
+    }
+
+    private OpenAICommunicationException toCommunicationException(Throwable e) {
+        if (e instanceof WebClientResponseException.TooManyRequests tooManyRequests) {
+            log.error("OpenAI rate limit exceeded: {}", e.getMessage());
+            return new OpenAIRateLimitException("OpenAI rate limit exceeded", RateLimitHeaders.retryAfter(tooManyRequests.getHeaders()), e);
+        }
+        if (e instanceof WebClientResponseException response && response.getStatusCode().is5xxServerError()) {
+            log.error("OpenAI returned a server error: {}", e.getMessage());
+            return new OpenAIServerException("OpenAI returned HTTP status " + response.getStatusCode().value(), response.getStatusCode().value(), e);
+        }
+        if (e instanceof TimeoutException) {
+            log.error("Timed out communicating with OpenAI: {}", e.getMessage());
+            return new OpenAITimeoutException("Timed out communicating with OpenAI", e);
+        }
+        log.error("Error occurred while communicating with OpenAI: {}", e.getMessage(), e);
+        return new OpenAICommunicationException("Failed to communicate with OpenAI", e);
+    }
+}
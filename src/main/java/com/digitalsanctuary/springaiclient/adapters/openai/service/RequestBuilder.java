@@ -2,6 +2,8 @@ package com.digitalsanctuary.springaiclient.adapters.openai.service;
 
 import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
 import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.ContextWindows;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.TokenEstimator;
 
 import java.util.Arrays;
 
@@ -16,6 +18,8 @@ public class RequestBuilder {
     private int outputTokens;
     private String systemPrompt;
     private String userMessage;
+    private TokenEstimator budgetEstimator;
+    private int contextWindow;
 
     /**
      * Sets the model to be used in the OpenAI request.
@@ -61,11 +65,43 @@ public class RequestBuilder {
         return this;
     }
 
+    /**
+     * Clamps the output tokens to the part of the model's context window the prompt leaves free.
+     * <p>
+     * When the request is built, its prompt tokens are counted with the given estimator, and {@code max_tokens} is lowered to what remains of the
+     * context window if necessary. A prompt that does not fit at all is rejected before it is sent. Clamping is not applied to templates, whose
+     * user message is only known per call.
+     * </p>
+     *
+     * @param estimator the estimator counting the prompt tokens, or null to disable clamping
+     * @param contextWindow the context window in tokens, or 0 to use the known window of the model (see {@link ContextWindows})
+     * @return the current instance of {@code RequestBuilder} for method chaining.
+     */
+    public RequestBuilder clampOutputTokens(TokenEstimator estimator, int contextWindow) {
+        this.budgetEstimator = estimator;
+        this.contextWindow = contextWindow;
+        return this;
+    }
+
+    /**
+     * Creates a reusable template from the current settings.
+     * <p>
+     * The model, output tokens and system prompt are fixed, and their JSON encoding is cached by the template. If a user message has been set,
+     * it is used as a pattern whose {@code {name}} placeholders are filled in by {@link RequestTemplate#render(java.util.Map)}.
+     * </p>
+     *
+     * @return the request template
+     */
+    public RequestTemplate template() {
+        return new RequestTemplate(model, outputTokens, systemPrompt, userMessage);
+    }
+
     /**
      * Builds the {@code OpenAIRequest} object with the provided values. The {@code OpenAIRequest} consists of a system message and a user message,
      * along with the specified model and token limit.
      *
      * @return a fully constructed {@code OpenAIRequest} object.
+     * @throws IllegalArgumentException if output tokens are clamped and the prompt does not fit the context window
      */
     public OpenAIRequest build() {
         // Create the system message
@@ -84,6 +120,23 @@ public class RequestBuilder {
         request.setModel(model); // Set the model to use
         request.setMaxTokens(outputTokens); // Set the max number of tokens
 
+        if (budgetEstimator != null) {
+            clamp(request);
+        }
         return request;
     }
+
+    private void clamp(OpenAIRequest request) {
+        int window = contextWindow > 0 ? contextWindow : ContextWindows.forModel(model);
+        if (window <= 0) {
+            return;
+        }
+        int promptTokens = budgetEstimator.estimatePromptTokens(request);
+        int remaining = window - promptTokens;
+        if (remaining <= 0) {
+            throw new IllegalArgumentException(
+                    "The prompt of " + promptTokens + " tokens does not fit the " + window + " token context window of model " + model + ".");
+        }
+        request.setMaxTokens(outputTokens > 0 ? Math.min(outputTokens, remaining) : remaining);
+    }
 }
@@ -0,0 +1,127 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import java.time.Duration;
+import com.digitalsanctuary.springaiclient.adapters.openai.admission.Priority;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.ModelTier;
+
+/**
+ * Per-request options for {@link OpenAIService}, controlling how a single request is handled by the client rather than what is sent to OpenAI.
+ * <p>
+ * Options are set through chained methods, for example:
+ * <pre>
+ * {@code
+ * OpenAIResponse response = openAIService.sendRequest(request, new RequestOptions().bypassCache(true));
+ * }
+ * </pre>
+ */
+public class RequestOptions {
+
+    private boolean bypassCache;
+    private Duration deadline;
+    private String apiKey;
+    private Priority priority = Priority.STANDARD;
+    private ModelTier tier;
+
+    /**
+     * Sets whether the response cache should be skipped for this request, both for the lookup and for storing the response.
+     *
+     * @param bypassCache true to skip the response cache
+     * @return the current instance of {@code RequestOptions} for method chaining.
+     */
+    public RequestOptions bypassCache(boolean bypassCache) {
+        this.bypassCache = bypassCache;
+        return this;
+    }
+
+    /**
+     * Returns whether the response cache is skipped for this request.
+     *
+     * @return true if the response cache is skipped
+     */
+    public boolean isBypassCache() {
+        return bypassCache;
+    }
+
+    /**
+     * Sets the overall time allowed for this request, including retries. Overrides {@code ds.ai.openai.retry.default-deadline}.
+     *
+     * @param deadline the time allowed for the request, or null to use the default
+     * @return the current instance of {@code RequestOptions} for method chaining.
+     */
+    public RequestOptions deadline(Duration deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Returns the overall time allowed for this request.
+     *
+     * @return the deadline, or null to use the default
+     */
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Sets the API key sent with this request, overriding {@code ds.ai.openai.api-key} and the key of the upstream it is routed to. This allows,
+     * for example, billing requests to the key of the tenant making them. Such requests skip the response cache, are not coalesced with other
+     * requests and are not held by the client-side rate limiter, which tracks the quota of the configured keys.
+     *
+     * @param apiKey the API key, or null to use the configured key
+     * @return the current instance of {@code RequestOptions} for method chaining.
+     */
+    public RequestOptions apiKey(String apiKey) {
+        this.apiKey = apiKey;
+        return this;
+    }
+
+    /**
+     * Returns the API key sent with this request.
+     *
+     * @return the API key, or null to use the configured key
+     */
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    /**
+     * Sets the priority class of this request, deciding its place in the queue when admission control is enabled.
+     *
+     * @param priority the priority class
+     * @return the current instance of {@code RequestOptions} for method chaining.
+     */
+    public RequestOptions priority(Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Returns the priority class of this request.
+     *
+     * @return the priority class, {@link Priority#STANDARD} by default
+     */
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the model tier of this request. When model routing is enabled, the router picks the model of at least this tier with the lowest
+     * expected price, in place of the model of the request.
+     *
+     * @param tier the model tier, or null to use {@code ds.ai.openai.model-routing.default-tier}
+     * @return the current instance of {@code RequestOptions} for method chaining.
+     */
+    public RequestOptions tier(ModelTier tier) {
+        this.tier = tier;
+        return this;
+    }
+
+    /**
+     * Returns the model tier of this request.
+     *
+     * @return the model tier, or null to use the default tier
+     */
+    public ModelTier getTier() {
+        return tier;
+    }
+}
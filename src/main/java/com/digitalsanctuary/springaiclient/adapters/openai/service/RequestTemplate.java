@@ -0,0 +1,172 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.PreEncodedRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.RequestFragments;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+
+/**
+ * A reusable, thread-safe template for requests sharing a model, output token limit and system prompt.
+ * <p>
+ * The fixed part of the request is encoded to JSON once, when the template is created. Requests rendered from the template are written by
+ * copying those bytes and encoding only the user message, which avoids re-encoding long system prompts on every call. The user message can
+ * be given per call, or as a pattern with {@code {name}} placeholders set on the builder.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * RequestTemplate template = openAIService.createRequestBuilder()
+ *     .systemPrompt(longSystemPrompt)
+ *     .userMessage("Translate {text} into {language}.")
+ *     .template();
+ *
+ * OpenAIResponse response = openAIService.sendRequest(template.render(Map.of("text", "Good morning", "language", "French")));
+ * OpenAIResponse other = openAIService.sendRequest(template.render("Translate Goodbye into German."));
+ * }
+ * </pre>
+ */
+public final class RequestTemplate {
+
+    private final RequestFragments fragments;
+    private final String userMessagePattern;
+    private final String[] literals;
+    private final String[] placeholders;
+
+    /**
+     * Creates a template, encoding its fixed part.
+     *
+     * @param model the model
+     * @param outputTokens the maximum number of output tokens
+     * @param systemPrompt the system prompt
+     * @param userMessagePattern the user message with {@code {name}} placeholders, or null if the user message is given per call
+     */
+    RequestTemplate(String model, int outputTokens, String systemPrompt, String userMessagePattern) {
+        this.fragments = new RequestFragments(model, outputTokens, systemPrompt);
+        this.userMessagePattern = userMessagePattern;
+        List<String> literalList = new ArrayList<>();
+        List<String> placeholderList = new ArrayList<>();
+        if (userMessagePattern != null) {
+            parse(userMessagePattern, literalList, placeholderList);
+        }
+        this.literals = literalList.toArray(new String[0]);
+        this.placeholders = placeholderList.toArray(new String[0]);
+    }
+
+    /**
+     * Creates a request with the given user message.
+     *
+     * @param userMessage the user message
+     * @return the request
+     * @throws IllegalArgumentException if the user message is null or empty
+     */
+    public OpenAIRequest render(String userMessage) {
+        if (userMessage == null || userMessage.trim().isEmpty()) {
+            throw new IllegalArgumentException("User message cannot be null or empty.");
+        }
+        return new PreEncodedRequest(fragments, userMessage);
+    }
+
+    /**
+     * Creates a request from the user message pattern, replacing each {@code {name}} placeholder with the value of the same name.
+     *
+     * @param values the placeholder values
+     * @return the request
+     * @throws IllegalStateException if the template has no user message pattern
+     * @throws IllegalArgumentException if a placeholder has no value
+     */
+    public OpenAIRequest render(Map<String, ?> values) {
+        if (userMessagePattern == null) {
+            throw new IllegalStateException("The template has no user message pattern.");
+        }
+        if (placeholders.length == 0) {
+            return new PreEncodedRequest(fragments, userMessagePattern);
+        }
+        int length = userMessagePattern.length();
+        Object[] resolved = new Object[placeholders.length];
+        for (int i = 0; i < placeholders.length; i++) {
+            Object value = values.get(placeholders[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("No value for placeholder {" + placeholders[i] + "}.");
+            }
+            resolved[i] = value;
+            length += value instanceof CharSequence text ? text.length() : 16;
+        }
+        StringBuilder userMessage = new StringBuilder(length);
+        for (int i = 0; i < placeholders.length; i++) {
+            userMessage.append(literals[i]).append(resolved[i]);
+        }
+        userMessage.append(literals[placeholders.length]);
+        return new PreEncodedRequest(fragments, userMessage.toString());
+    }
+
+    /**
+     * Returns the model of the rendered requests.
+     *
+     * @return the model
+     */
+    public String getModel() {
+        return fragments.getModel();
+    }
+
+    /**
+     * Returns the maximum number of output tokens of the rendered requests.
+     *
+     * @return the maximum number of output tokens
+     */
+    public int getOutputTokens() {
+        return fragments.getMaxTokens();
+    }
+
+    /**
+     * Returns the system prompt of the rendered requests.
+     *
+     * @return the system prompt
+     */
+    public String getSystemPrompt() {
+        return fragments.getSystemPrompt();
+    }
+
+    /**
+     * Returns the names of the placeholders of the user message pattern, in order of appearance.
+     *
+     * @return the placeholder names
+     */
+    public List<String> getPlaceholders() {
+        return List.of(placeholders);
+    }
+
+    /**
+     * Splits the pattern into literal text and placeholder names. Braces that do not enclose a name, such as those of JSON examples in a prompt,
+     * are kept as literal text.
+     */
+    private static void parse(String pattern, List<String> literals, List<String> placeholders) {
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '{') {
+                int end = i + 1;
+                while (end < pattern.length() && isNameChar(pattern.charAt(end))) {
+                    end++;
+                }
+                if (end > i + 1 && end < pattern.length() && pattern.charAt(end) == '}') {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    placeholders.add(pattern.substring(i + 1, end));
+                    i = end + 1;
+                    continue;
+                }
+            }
+            literal.append(c);
+            i++;
+        }
+        literals.add(literal.toString());
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.';
+    }
+}
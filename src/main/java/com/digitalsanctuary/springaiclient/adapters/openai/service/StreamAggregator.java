@@ -0,0 +1,103 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Choice;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChoice;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChunk;
+
+/**
+ * Folds the chunks of a streamed chat completion back into a single {@link OpenAIResponse}.
+ * <p>
+ * The aggregator always keeps the response metadata, the role and finish reason of every choice, and the {@link com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage}
+ * sent in the final chunk. The generated content is only accumulated when requested, so that callers forwarding deltas to a sink do not keep the
+ * whole completion in memory.
+ * </p>
+ */
+class StreamAggregator {
+
+    private final boolean accumulateContent;
+    private final TreeMap<Integer, ChoiceState> choices = new TreeMap<>();
+    private final OpenAIResponse response = new OpenAIResponse();
+
+    /**
+     * Creates a new aggregator.
+     *
+     * @param accumulateContent whether the content of the deltas should be concatenated into the aggregated response
+     */
+    StreamAggregator(boolean accumulateContent) {
+        this.accumulateContent = accumulateContent;
+        response.setObject("chat.completion");
+    }
+
+    /**
+     * Folds a chunk into the aggregated response.
+     *
+     * @param chunk the chunk received from the stream
+     */
+    void accept(StreamChunk chunk) {
+        if (chunk.getId() != null) {
+            response.setId(chunk.getId());
+        }
+        if (chunk.getModel() != null) {
+            response.setModel(chunk.getModel());
+        }
+        if (chunk.getCreated() != 0) {
+            response.setCreated(chunk.getCreated());
+        }
+        if (chunk.getSystemFingerprint() != null) {
+            response.setSystemFingerprint(chunk.getSystemFingerprint());
+        }
+        if (chunk.getUsage() != null) {
+            response.setUsage(chunk.getUsage());
+        }
+        if (chunk.getChoices() == null) {
+            return;
+        }
+        for (StreamChoice streamChoice : chunk.getChoices()) {
+            ChoiceState state = choices.computeIfAbsent(streamChoice.getIndex(), i -> new ChoiceState());
+            Message delta = streamChoice.getDelta();
+            if (delta != null) {
+                if (delta.getRole() != null) {
+                    state.role = delta.getRole();
+                }
+                if (accumulateContent && delta.getContent() != null) {
+                    state.content.append(delta.getContent());
+                }
+            }
+            if (streamChoice.getFinishReason() != null) {
+                state.finishReason = streamChoice.getFinishReason();
+            }
+        }
+    }
+
+    /**
+     * Builds the aggregated response from the chunks received so far.
+     *
+     * @return the aggregated response; message content is null unless content accumulation was enabled
+     */
+    OpenAIResponse toResponse() {
+        List<Choice> result = new ArrayList<>(choices.size());
+        choices.forEach((index, state) -> {
+            Message message = new Message();
+            message.setRole(state.role);
+            message.setContent(accumulateContent ? state.content.toString() : null);
+            Choice choice = new Choice();
+            choice.setIndex(index);
+            choice.setMessage(message);
+            choice.setFinishReason(state.finishReason);
+            result.add(choice);
+        });
+        response.setChoices(result);
+        return response;
+    }
+
+    private static final class ChoiceState {
+        private String role;
+        private String finishReason;
+        private final StringBuilder content = new StringBuilder();
+    }
+}
@@ -0,0 +1,26 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import java.io.IOException;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+
+/**
+ * Callback receiving the incremental deltas of a streamed chat completion.
+ * <p>
+ * The listener is invoked on the thread performing the request, once per {@code choices[].delta} in the order the chunks arrive. Implementations
+ * should return quickly, as the next chunk is not read until the callback returns.
+ * </p>
+ *
+ * @see OpenAIService#streamRequest(com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest, StreamListener)
+ */
+@FunctionalInterface
+public interface StreamListener {
+
+    /**
+     * Called for every delta received from OpenAI.
+     *
+     * @param index the index of the choice the delta belongs to
+     * @param delta the incremental message, where the role and content may each be null
+     * @throws IOException if the listener fails to forward the delta
+     */
+    void onDelta(int index, Message delta) throws IOException;
+}
@@ -0,0 +1,103 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.tokenizer;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The byte pair encodings used by OpenAI chat models.
+ * <p>
+ * Each encoding consists of a pre-tokenization pattern, which splits text into word pieces, and a vocabulary of ranked byte sequences, which is
+ * loaded by {@link BpeTokenizer}. The vocabulary files use the {@code .tiktoken} format published by OpenAI.
+ * </p>
+ */
+public enum BpeEncoding {
+
+    /**
+     * The encoding of GPT-4, GPT-3.5 Turbo and the {@code text-embedding-3} models.
+     */
+    CL100K_BASE("cl100k_base",
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+"),
+
+    /**
+     * The encoding of GPT-4o, GPT-4.1, GPT-5 and the o-series models.
+     */
+    O200K_BASE("o200k_base", String.join("|",
+            "[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]*[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]+(?i:'s|'t|'re|'ve|'m|'ll|'d)?",
+            "[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]+[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]*(?i:'s|'t|'re|'ve|'m|'ll|'d)?",
+            "\\p{N}{1,3}", " ?[^\\s\\p{L}\\p{N}]+[\\r\\n/]*", "\\s*[\\r\\n]+", "\\s+(?!\\S)", "\\s+"));
+
+    private final String encodingName;
+    private final Pattern pattern;
+
+    BpeEncoding(String encodingName, String regex) {
+        this.encodingName = encodingName;
+        this.pattern = Pattern.compile(regex, Pattern.UNICODE_CHARACTER_CLASS);
+    }
+
+    /**
+     * Returns the name OpenAI uses for the encoding, such as {@code cl100k_base}.
+     *
+     * @return the encoding name
+     */
+    public String getEncodingName() {
+        return encodingName;
+    }
+
+    /**
+     * Returns the pattern splitting text into word pieces.
+     *
+     * @return the pre-tokenization pattern
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the classpath location of the vocabulary file, {@code ds/ai/tokenizer/<name>.tiktoken}.
+     *
+     * @return the classpath resource name
+     */
+    public String getResourceName() {
+        return "ds/ai/tokenizer/" + encodingName + ".tiktoken";
+    }
+
+    /**
+     * Returns the encoding with the given name, ignoring case.
+     *
+     * @param name the encoding name, such as {@code o200k_base}
+     * @return the encoding
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static BpeEncoding fromName(String name) {
+        for (BpeEncoding encoding : values()) {
+            if (encoding.encodingName.equalsIgnoreCase(name) || encoding.name().equalsIgnoreCase(name)) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unknown encoding: " + name);
+    }
+
+    /**
+     * Returns the encoding used by a model. Models that are not recognized are assumed to use {@link #O200K_BASE}, the encoding of all current
+     * chat models.
+     *
+     * @param model the model name, may be null
+     * @return the encoding
+     */
+    public static BpeEncoding forModel(String model) {
+        if (model == null) {
+            return O200K_BASE;
+        }
+        String name = model.toLowerCase(Locale.ROOT);
+        if (name.startsWith("ft:")) {
+            name = name.substring(3);
+        }
+        if (name.startsWith("gpt-4o") || name.startsWith("gpt-4.1") || name.startsWith("gpt-4.5")) {
+            return O200K_BASE;
+        }
+        if (name.startsWith("gpt-4") || name.startsWith("gpt-3.5") || name.startsWith("text-embedding-")) {
+            return CL100K_BASE;
+        }
+        return O200K_BASE;
+    }
+}
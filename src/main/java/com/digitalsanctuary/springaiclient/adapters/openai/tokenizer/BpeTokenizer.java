@@ -0,0 +1,372 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.tokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An offline byte pair encoding tokenizer for the OpenAI {@link BpeEncoding encodings}, counting tokens exactly as the API does.
+ * <p>
+ * Text is split into word pieces by the encoding's pattern, each piece is encoded to UTF-8 and the piece's bytes are merged pairwise, lowest rank
+ * first, until no adjacent pair forms a token. The vocabulary is turned into two primitive-keyed tables when it is loaded: one mapping a pair of
+ * token ranks to the rank of their concatenation, which drives the merges, and one mapping the hash of a whole token to its rank, which
+ * short-circuits pieces that are a single token. Counts of recent multi-token pieces are kept in a small LRU cache.
+ * </p>
+ * <p>
+ * Counting works directly on a {@link CharSequence} and reuses per-thread buffers, so it does not allocate apart from filling the cache. The
+ * tokenizer is thread-safe.
+ * </p>
+ * <p>
+ * Vocabularies use the {@code .tiktoken} format, one base64-encoded token and its rank per line. The files are not shipped with this library,
+ * as they are several megabytes each; put them on the classpath under {@link BpeEncoding#getResourceName()} or load them from any stream.
+ * Special tokens such as {@code <|endoftext|>} are not part of the files and are counted as ordinary text.
+ * </p>
+ */
+@Slf4j
+public class BpeTokenizer implements TokenEstimator {
+
+    /**
+     * The default number of word pieces whose counts are cached.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 8192;
+
+    private static final int MISSING = -1;
+
+    private final BpeEncoding encoding;
+    private final int[] byteRanks;
+    private final byte[][] tokens;
+    private final LongIntMap merges;
+    private final LongIntMap wholeTokens;
+    private final PieceCache cache;
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * Loads the vocabulary of an encoding from the classpath, using the default cache size.
+     *
+     * @param encoding the encoding
+     * @return the tokenizer
+     * @throws IllegalStateException if the vocabulary resource is not on the classpath
+     */
+    public static BpeTokenizer load(BpeEncoding encoding) {
+        return load(encoding, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Loads the vocabulary of an encoding from the classpath.
+     *
+     * @param encoding the encoding
+     * @param cacheSize the number of word pieces whose counts are cached, or 0 to disable the cache
+     * @return the tokenizer
+     * @throws IllegalStateException if the vocabulary resource is not on the classpath
+     */
+    public static BpeTokenizer load(BpeEncoding encoding, int cacheSize) {
+        ClassLoader classLoader = BpeTokenizer.class.getClassLoader();
+        try (InputStream in = classLoader.getResourceAsStream(encoding.getResourceName())) {
+            if (in == null) {
+                throw new IllegalStateException("Vocabulary not found on the classpath: " + encoding.getResourceName());
+            }
+            return new BpeTokenizer(encoding, in, cacheSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read vocabulary " + encoding.getResourceName(), e);
+        }
+    }
+
+    /**
+     * Returns whether the vocabulary of an encoding is on the classpath.
+     *
+     * @param encoding the encoding
+     * @return whether {@link #load(BpeEncoding)} will find the vocabulary
+     */
+    public static boolean isAvailable(BpeEncoding encoding) {
+        return BpeTokenizer.class.getClassLoader().getResource(encoding.getResourceName()) != null;
+    }
+
+    /**
+     * Creates a tokenizer from a vocabulary in the {@code .tiktoken} format. The stream is read fully but not closed.
+     *
+     * @param encoding the encoding, which provides the pre-tokenization pattern
+     * @param vocabulary the vocabulary
+     * @param cacheSize the number of word pieces whose counts are cached, or 0 to disable the cache
+     * @throws UncheckedIOException if the vocabulary cannot be read
+     * @throws IllegalArgumentException if the vocabulary is malformed or does not contain every single byte
+     */
+    public BpeTokenizer(BpeEncoding encoding, InputStream vocabulary, int cacheSize) {
+        this.encoding = encoding;
+        this.tokens = readTokens(vocabulary);
+        this.byteRanks = new int[256];
+        Arrays.fill(byteRanks, MISSING);
+        Map<ByteBuffer, Integer> ranks = new HashMap<>(tokens.length * 2);
+        int tokenCount = 0;
+        for (int rank = 0; rank < tokens.length; rank++) {
+            byte[] token = tokens[rank];
+            if (token != null) {
+                ranks.put(ByteBuffer.wrap(token), rank);
+                tokenCount++;
+                if (token.length == 1) {
+                    byteRanks[token[0] & 0xff] = rank;
+                }
+            }
+        }
+        for (int b = 0; b < 256; b++) {
+            if (byteRanks[b] == MISSING) {
+                throw new IllegalArgumentException("Vocabulary has no token for byte " + b);
+            }
+        }
+        this.wholeTokens = new LongIntMap(tokenCount);
+        for (int rank = 0; rank < tokens.length; rank++) {
+            if (tokens[rank] != null) {
+                wholeTokens.putIfAbsent(hash(tokens[rank], tokens[rank].length), rank);
+            }
+        }
+        int pairCount = addMerges(tokens, ranks, null);
+        this.merges = new LongIntMap(pairCount);
+        addMerges(tokens, ranks, merges);
+        this.cache = cacheSize > 0 ? new PieceCache(cacheSize) : null;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(encoding));
+        log.debug("Loaded {} vocabulary with {} tokens and {} merges", encoding.getEncodingName(), tokenCount, pairCount);
+    }
+
+    /**
+     * Returns the encoding of this tokenizer.
+     *
+     * @return the encoding
+     */
+    public BpeEncoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Counts the tokens of a piece of text.
+     *
+     * @param text the text, may be null
+     * @return the number of tokens
+     */
+    @Override
+    public int countTokens(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        Scratch local = scratch.get();
+        Matcher matcher = local.matcher.reset(text);
+        int count = 0;
+        try {
+            while (matcher.find()) {
+                count += countPiece(local, text, matcher.start(), matcher.end());
+            }
+        } finally {
+            matcher.reset("");
+            local.probe.clear();
+        }
+        return count;
+    }
+
+    private int countPiece(Scratch local, CharSequence text, int start, int end) {
+        if (end - start == 1 && text.charAt(start) < 0x80) {
+            return 1;
+        }
+        int length = local.encode(text, start, end);
+        byte[] bytes = local.bytes;
+        if (isWholeToken(bytes, length)) {
+            return 1;
+        }
+        PieceCache.Probe probe = null;
+        if (cache != null) {
+            probe = local.probe.set(text, start, end);
+            int cached = cache.get(probe);
+            if (cached != MISSING) {
+                return cached;
+            }
+        }
+        int count = merge(local, bytes, length);
+        if (probe != null) {
+            cache.put(probe, count);
+        }
+        return count;
+    }
+
+    private boolean isWholeToken(byte[] bytes, int length) {
+        int rank = wholeTokens.get(hash(bytes, length));
+        return rank != MISSING && Arrays.equals(tokens[rank], 0, tokens[rank].length, bytes, 0, length);
+    }
+
+    /**
+     * Applies the merges to a piece and returns the number of resulting tokens. Pair ranks are kept alongside the parts, so each merge only
+     * looks up the two pairs next to it.
+     */
+    private int merge(Scratch local, byte[] bytes, int length) {
+        int[] parts = local.parts(length);
+        int[] pairRanks = local.pairRanks;
+        for (int i = 0; i < length; i++) {
+            parts[i] = byteRanks[bytes[i] & 0xff];
+        }
+        for (int i = 0; i < length - 1; i++) {
+            pairRanks[i] = merges.get(pairKey(parts[i], parts[i + 1]));
+        }
+        int count = length;
+        while (count > 1) {
+            int best = Integer.MAX_VALUE;
+            int at = MISSING;
+            for (int i = 0; i < count - 1; i++) {
+                int rank = pairRanks[i];
+                if (rank != MISSING && rank < best) {
+                    best = rank;
+                    at = i;
+                }
+            }
+            if (at == MISSING) {
+                break;
+            }
+            parts[at] = best;
+            System.arraycopy(parts, at + 2, parts, at + 1, count - at - 2);
+            System.arraycopy(pairRanks, at + 1, pairRanks, at, count - at - 2);
+            count--;
+            if (at > 0) {
+                pairRanks[at - 1] = merges.get(pairKey(parts[at - 1], parts[at]));
+            }
+            if (at < count - 1) {
+                pairRanks[at] = merges.get(pairKey(parts[at], parts[at + 1]));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds an entry to the merge table for every split of a token into two tokens, or only counts the entries if the table is null.
+     *
+     * @return the number of entries
+     */
+    private static int addMerges(byte[][] tokens, Map<ByteBuffer, Integer> ranks, LongIntMap merges) {
+        int count = 0;
+        for (int rank = 0; rank < tokens.length; rank++) {
+            byte[] token = tokens[rank];
+            for (int split = 1; token != null && split < token.length; split++) {
+                Integer left = ranks.get(ByteBuffer.wrap(token, 0, split));
+                Integer right = left == null ? null : ranks.get(ByteBuffer.wrap(token, split, token.length - split));
+                if (right != null) {
+                    count++;
+                    if (merges != null) {
+                        merges.putIfAbsent(pairKey(left, right), rank);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long pairKey(int left, int right) {
+        return ((long) left << 32) | (right & 0xffffffffL);
+    }
+
+    /**
+     * Hashes bytes with 64-bit FNV-1a.
+     */
+    private static long hash(byte[] bytes, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Reads a {@code .tiktoken} vocabulary into an array indexed by rank.
+     */
+    private static byte[][] readTokens(InputStream vocabulary) {
+        List<byte[]> byRank = new ArrayList<>(1 << 17);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(vocabulary, StandardCharsets.US_ASCII));
+        Base64.Decoder decoder = Base64.getDecoder();
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int space = line.indexOf(' ');
+                if (space <= 0) {
+                    throw new IllegalArgumentException("Malformed vocabulary line: " + line);
+                }
+                int rank = Integer.parseInt(line, space + 1, line.length(), 10);
+                while (byRank.size() <= rank) {
+                    byRank.add(null);
+                }
+                byRank.set(rank, decoder.decode(line.substring(0, space)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read vocabulary", e);
+        }
+        return byRank.toArray(new byte[0][]);
+    }
+
+    /**
+     * Per-thread buffers and matcher, so counting does not allocate.
+     */
+    private static final class Scratch {
+
+        private final Matcher matcher;
+        private final PieceCache.Probe probe = new PieceCache.Probe();
+        private byte[] bytes = new byte[256];
+        private int[] parts = new int[256];
+        private int[] pairRanks = new int[256];
+
+        Scratch(BpeEncoding encoding) {
+            this.matcher = encoding.getPattern().matcher("");
+        }
+
+        int[] parts(int length) {
+            if (parts.length < length) {
+                parts = new int[length];
+                pairRanks = new int[length];
+            }
+            return parts;
+        }
+
+        /**
+         * Encodes {@code text[start, end)} to UTF-8 into {@link #bytes}, replacing unpaired surrogates with {@code ?} like
+         * {@link String#getBytes}.
+         *
+         * @return the number of bytes
+         */
+        int encode(CharSequence text, int start, int end) {
+            int required = (end - start) * 3;
+            if (bytes.length < required) {
+                bytes = new byte[required];
+            }
+            byte[] out = bytes;
+            int n = 0;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    out[n++] = (byte) c;
+                } else if (c < 0x800) {
+                    out[n++] = (byte) (0xc0 | (c >> 6));
+                    out[n++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    out[n++] = (byte) (0xf0 | (codePoint >> 18));
+                    out[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    out[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    out[n++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    out[n++] = '?';
+                } else {
+                    out[n++] = (byte) (0xe0 | (c >> 12));
+                    out[n++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    out[n++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.tokenizer;
+
+import java.util.Locale;
+
+/**
+ * The context window sizes of OpenAI chat models, in tokens, used to budget output tokens before a request is sent.
+ */
+public final class ContextWindows {
+
+    /**
+     * Model name prefixes, most specific first.
+     */
+    private static final String[] PREFIXES = {"gpt-5", "gpt-4.1", "gpt-4o", "gpt-4-turbo", "gpt-4-1106", "gpt-4-0125", "gpt-4-32k", "gpt-4",
+            "gpt-3.5-turbo-instruct", "gpt-3.5-turbo", "o1-mini", "o1", "o3", "o4"};
+
+    /**
+     * The context windows of the models in {@link #PREFIXES}.
+     */
+    private static final int[] WINDOWS = {400_000, 1_047_576, 128_000, 128_000, 128_000, 128_000, 32_768, 8_192, 4_096, 16_385, 128_000, 200_000,
+            200_000, 200_000};
+
+    private ContextWindows() {}
+
+    /**
+     * Returns the context window of a model, matching on the model name prefix so that dated snapshots such as {@code gpt-4o-2024-08-06} are
+     * recognized.
+     *
+     * @param model the model name, may be null
+     * @return the context window in tokens, or 0 if the model is not known
+     */
+    public static int forModel(String model) {
+        if (model == null) {
+            return 0;
+        }
+        String name = model.toLowerCase(Locale.ROOT);
+        if (name.startsWith("ft:")) {
+            name = name.substring(3);
+        }
+        for (int i = 0; i < PREFIXES.length; i++) {
+            if (name.startsWith(PREFIXES[i])) {
+                return WINDOWS[i];
+            }
+        }
+        return 0;
+    }
+}
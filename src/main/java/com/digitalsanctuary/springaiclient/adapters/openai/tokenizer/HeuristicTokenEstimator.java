@@ -0,0 +1,20 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.tokenizer;
+
+/**
+ * A {@link TokenEstimator} using OpenAI's rule of thumb of about four characters of English text per token.
+ * <p>
+ * This estimator allocates nothing and needs no vocabulary, at the cost of being inexact for code and non-English text.
+ * </p>
+ */
+public class HeuristicTokenEstimator implements TokenEstimator {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    @Override
+    public int countTokens(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+}
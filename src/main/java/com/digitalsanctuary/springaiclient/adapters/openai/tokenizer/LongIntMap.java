@@ -0,0 +1,75 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * An insert-only open addressing hash map from {@code long} keys to non-negative {@code int} values, used for the tokenizer's lookup tables.
+ * <p>
+ * Keys and values are kept in two primitive arrays, so lookups neither box nor allocate. The map is filled once while loading a vocabulary and is
+ * safe to read from many threads once it has been published.
+ * </p>
+ */
+final class LongIntMap {
+
+    private static final int MISSING = -1;
+
+    private final long[] keys;
+    private final int[] values;
+    private final int mask;
+
+    /**
+     * Creates a map for the given number of entries, at a load factor of at most one half.
+     *
+     * @param expectedSize the number of entries
+     */
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(values, MISSING);
+    }
+
+    /**
+     * Adds an entry unless the key is already present.
+     *
+     * @param key the key
+     * @param value the value, not negative
+     * @return whether the entry was added
+     */
+    boolean putIfAbsent(long key, int value) {
+        int slot = slot(key);
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        return true;
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key
+     * @return the value, or -1 if the key is not present
+     */
+    int get(long key) {
+        int slot = slot(key);
+        int value;
+        while ((value = values[slot]) != MISSING) {
+            if (keys[slot] == key) {
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,163 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.tokenizer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded least-recently-used cache of token counts for word pieces.
+ * <p>
+ * The cache is split into segments by hash, each an access-ordered {@link LinkedHashMap} guarded by its own lock, so concurrent callers rarely
+ * contend. Lookups use a reusable {@link Probe} over a region of the caller's text, so a hit does not allocate; only inserting a new piece copies
+ * its characters.
+ * </p>
+ */
+final class PieceCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+
+    /**
+     * Creates a cache holding up to the given number of pieces.
+     *
+     * @param maxEntries the maximum number of pieces, at least 1
+     */
+    PieceCache(int maxEntries) {
+        int perSegment = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Returns the cached token count of the piece the probe points at.
+     *
+     * @param probe the probe, positioned with {@link Probe#set}
+     * @return the token count, or -1 if the piece is not cached
+     */
+    int get(Probe probe) {
+        Segment segment = segments[probe.hash & (SEGMENTS - 1)];
+        synchronized (segment) {
+            Integer count = segment.get(probe);
+            return count == null ? -1 : count;
+        }
+    }
+
+    /**
+     * Caches the token count of the piece the probe points at.
+     *
+     * @param probe the probe, positioned with {@link Probe#set}
+     * @param count the token count
+     */
+    void put(Probe probe, int count) {
+        Key key = new Key(probe.text.subSequence(probe.start, probe.end).toString(), probe.hash);
+        Segment segment = segments[probe.hash & (SEGMENTS - 1)];
+        synchronized (segment) {
+            segment.put(key, count);
+        }
+    }
+
+    /**
+     * An access-ordered map evicting its least recently used entry once full.
+     */
+    @SuppressWarnings("serial")
+    private static final class Segment extends LinkedHashMap<Object, Integer> {
+
+        private final int maxEntries;
+
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Integer> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    /**
+     * A cached piece.
+     */
+    private static final class Key {
+
+        private final String piece;
+        private final int hash;
+
+        Key(String piece, int hash) {
+            this.piece = piece;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.piece.equals(piece);
+        }
+    }
+
+    /**
+     * A mutable view of a piece of text used to look up cached counts. A probe is owned by a single thread.
+     * <p>
+     * {@link LinkedHashMap} compares the looked-up key against stored keys by calling {@code probe.equals(key)}, so the probe only needs to know
+     * how to compare itself with a {@link Key}.
+     * </p>
+     */
+    static final class Probe {
+
+        private CharSequence text;
+        private int start;
+        private int end;
+        private int hash;
+
+        /**
+         * Points the probe at {@code text[start, end)}.
+         *
+         * @param text the text
+         * @param start the start index, inclusive
+         * @param end the end index, exclusive
+         * @return this probe
+         */
+        Probe set(CharSequence text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + text.charAt(i);
+            }
+            this.hash = h ^ (h >>> 16);
+            return this;
+        }
+
+        /**
+         * Drops the reference to the caller's text.
+         */
+        void clear() {
+            this.text = null;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key key) || key.hash != hash || key.piece.length() != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (key.piece.charAt(i - start) != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.tokenizer;
+
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+
+/**
+ * Estimates the number of prompt tokens of a request before it is sent.
+ * <p>
+ * Estimates are used for client-side budgeting, such as the tokens-per-minute rate limiter, and only need to be close to what OpenAI reports in
+ * {@link com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage}.
+ * </p>
+ */
+public interface TokenEstimator {
+
+    /**
+     * The number of tokens OpenAI adds around every message of a chat completion request.
+     */
+    int TOKENS_PER_MESSAGE = 3;
+
+    /**
+     * The number of tokens OpenAI adds to prime the assistant reply.
+     */
+    int TOKENS_PER_REPLY = 3;
+
+    /**
+     * Counts or estimates the number of tokens in a piece of text.
+     *
+     * @param text the text, may be null
+     * @return the number of tokens
+     */
+    int countTokens(CharSequence text);
+
+    /**
+     * Estimates the number of prompt tokens of a chat completion request, including the per-message overhead.
+     *
+     * @param request the request
+     * @return the estimated number of prompt tokens
+     */
+    default int estimatePromptTokens(OpenAIRequest request) {
+        int tokens = TOKENS_PER_REPLY;
+        if (request.getMessages() != null) {
+            for (Message message : request.getMessages()) {
+                tokens += TOKENS_PER_MESSAGE + countTokens(message.getRole()) + countTokens(message.getContent());
+            }
+        }
+        return tokens;
+    }
+}
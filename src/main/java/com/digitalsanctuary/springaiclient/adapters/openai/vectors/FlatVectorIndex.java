@@ -0,0 +1,132 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link VectorIndex} answering searches exactly, by scoring the query against every vector.
+ * <p>
+ * The vectors are scanned block by block, each block a contiguous {@code float[]}, and the scores feed a bounded heap of the best {@code k}. This
+ * is the right choice up to some hundred thousand vectors, and a reference to measure the recall of an {@link HnswVectorIndex} against.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * FlatVectorIndex index = new FlatVectorIndex(1536, Similarity.COSINE);
+ * index.add("doc-1", embeddingService.embed("first document"));
+ * List<VectorMatch> matches = index.search(embeddingService.embed("a question"), 5);
+ * }
+ * </pre>
+ */
+public class FlatVectorIndex implements VectorIndex {
+
+    private final Similarity similarity;
+    private final VectorBlocks vectors;
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile int size;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param dimensions the number of dimensions of the vectors
+     * @param similarity the similarity to compare vectors with
+     */
+    public FlatVectorIndex(int dimensions, Similarity similarity) {
+        this(new VectorBlocks(checkDimensions(dimensions)), similarity, 0);
+    }
+
+    private FlatVectorIndex(VectorBlocks vectors, Similarity similarity, int size) {
+        this.vectors = vectors;
+        this.similarity = similarity;
+        this.size = size;
+        for (int position = 0; position < size; position++) {
+            positions.put(vectors.id(position), position);
+        }
+    }
+
+    /**
+     * Loads an index saved by {@link #save(Path)}.
+     *
+     * @param path the file to read
+     * @return the index
+     * @throws java.io.UncheckedIOException if the file cannot be read or is not a flat vector index
+     */
+    public static FlatVectorIndex load(Path path) {
+        return VectorIndexFile.load(path, VectorIndexFile.KIND_FLAT,
+                (in, header) -> new FlatVectorIndex(VectorBlocks.readFrom(in, header.dimensions, header.size), header.similarity, header.size));
+    }
+
+    @Override
+    public void add(String id, float[] vector) {
+        float[] prepared = vectors.prepare(vector, similarity);
+        writeLock.lock();
+        try {
+            if (positions.putIfAbsent(id, size) != null) {
+                throw new IllegalArgumentException("The index already holds a vector with id " + id);
+            }
+            vectors.append(id, prepared);
+            size++;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<VectorMatch> search(float[] query, int k) {
+        float[] prepared = vectors.prepare(query, similarity);
+        int count = size;
+        if (k <= 0 || count == 0) {
+            return List.of();
+        }
+        float[][] blocks = vectors.blocks();
+        ScoreHeap top = new ScoreHeap(Math.min(k, count), true);
+        float[] scores = new float[VectorBlocks.BLOCK_SIZE];
+        for (int start = 0; start < count; start += VectorBlocks.BLOCK_SIZE) {
+            int blockCount = Math.min(VectorBlocks.BLOCK_SIZE, count - start);
+            VectorMath.dotAll(prepared, blocks[start >>> VectorBlocks.BLOCK_SHIFT], blockCount, vectors.dimensions(), scores);
+            for (int i = 0; i < blockCount; i++) {
+                top.offer(start + i, scores[i], k);
+            }
+        }
+        return vectors.matches(top);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int dimensions() {
+        return vectors.dimensions();
+    }
+
+    @Override
+    public Similarity similarity() {
+        return similarity;
+    }
+
+    @Override
+    public void save(Path path) {
+        writeLock.lock();
+        try {
+            int count = size;
+            VectorIndexFile.save(path, VectorIndexFile.KIND_FLAT, new VectorIndexFile.Header(similarity, vectors.dimensions(), count),
+                    out -> vectors.writeTo(out, count));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    static int checkDimensions(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("The number of dimensions must be positive.");
+        }
+        return dimensions;
+    }
+}
@@ -0,0 +1,452 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link VectorIndex} answering searches approximately with a Hierarchical Navigable Small World graph.
+ * <p>
+ * Each vector is a node on layer 0 and, with geometrically decreasing probability, on the layers above, linked to up to {@code m} neighbors per
+ * layer ({@code 2 * m} on layer 0) chosen with the diversity heuristic of the HNSW paper. A search descends greedily from the entry point
+ * through the upper layers, then explores layer 0 with a beam of {@code efSearch} candidates. Searches visit a few thousand vectors instead of
+ * all of them, at the cost of occasionally missing a true neighbor; raise {@code efSearch} to trade speed for recall.
+ * </p>
+ * <p>
+ * Additions are serialized. Searches take no lock: neighbor lists are immutable arrays swapped in with volatile writes, and a new node is only
+ * linked from existing nodes once its vector and its own neighbor lists are in place, so a concurrent search always sees a consistent graph.
+ * </p>
+ */
+public class HnswVectorIndex implements VectorIndex {
+
+    /**
+     * The default number of neighbors per node and layer.
+     */
+    public static final int DEFAULT_M = 16;
+
+    /**
+     * The default beam width when adding vectors.
+     */
+    public static final int DEFAULT_EF_CONSTRUCTION = 200;
+
+    /**
+     * The default beam width when searching.
+     */
+    public static final int DEFAULT_EF_SEARCH = 64;
+
+    private static final int[] NO_LINKS = new int[0];
+    private static final ThreadLocal<Visited> VISITED = ThreadLocal.withInitial(Visited::new);
+
+    private final Similarity similarity;
+    private final VectorBlocks vectors;
+    private final int m;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final SplittableRandom random;
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile int efSearch;
+    private volatile Node[][] nodes = new Node[0][];
+    private volatile EntryPoint entryPoint;
+    private volatile int size;
+
+    /**
+     * Creates an empty index with the default parameters.
+     *
+     * @param dimensions the number of dimensions of the vectors
+     * @param similarity the similarity to compare vectors with
+     */
+    public HnswVectorIndex(int dimensions, Similarity similarity) {
+        this(dimensions, similarity, DEFAULT_M, DEFAULT_EF_CONSTRUCTION, DEFAULT_EF_SEARCH);
+    }
+
+    /**
+     * Creates an empty index.
+     *
+     * @param dimensions the number of dimensions of the vectors
+     * @param similarity the similarity to compare vectors with
+     * @param m the number of neighbors per node and layer, typically 8 to 48
+     * @param efConstruction the beam width when adding vectors: higher builds a better graph, more slowly
+     * @param efSearch the beam width when searching, raised to {@code k} for larger searches
+     */
+    public HnswVectorIndex(int dimensions, Similarity similarity, int m, int efConstruction, int efSearch) {
+        this(new VectorBlocks(FlatVectorIndex.checkDimensions(dimensions)), similarity, m, efConstruction, efSearch);
+    }
+
+    private HnswVectorIndex(VectorBlocks vectors, Similarity similarity, int m, int efConstruction, int efSearch) {
+        if (m < 2 || efConstruction <= 0 || efSearch <= 0) {
+            throw new IllegalArgumentException("m must be at least 2 and the beam widths positive.");
+        }
+        this.vectors = vectors;
+        this.similarity = similarity;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelFactor = 1 / Math.log(m);
+        this.random = new SplittableRandom(42);
+    }
+
+    /**
+     * Loads an index saved by {@link #save(Path)}.
+     *
+     * @param path the file to read
+     * @return the index
+     * @throws java.io.UncheckedIOException if the file cannot be read or is not an HNSW vector index
+     */
+    public static HnswVectorIndex load(Path path) {
+        return VectorIndexFile.load(path, VectorIndexFile.KIND_HNSW, HnswVectorIndex::read);
+    }
+
+    /**
+     * Sets the beam width of later searches.
+     *
+     * @param efSearch the beam width
+     */
+    public void setEfSearch(int efSearch) {
+        if (efSearch <= 0) {
+            throw new IllegalArgumentException("The beam width must be positive.");
+        }
+        this.efSearch = efSearch;
+    }
+
+    @Override
+    public void add(String id, float[] vector) {
+        float[] prepared = vectors.prepare(vector, similarity);
+        writeLock.lock();
+        try {
+            if (positions.putIfAbsent(id, size) != null) {
+                throw new IllegalArgumentException("The index already holds a vector with id " + id);
+            }
+            int node = vectors.append(id, prepared);
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+            Node created = new Node(level);
+            store(node, created);
+            EntryPoint entry = entryPoint;
+            if (entry == null) {
+                size = node + 1;
+                entryPoint = new EntryPoint(node, level);
+                return;
+            }
+
+            int current = greedyDescent(prepared, entry, level);
+            int[] entryPoints = { current };
+            int[][] links = new int[Math.min(level, entry.level) + 1][];
+            Visited visited = VISITED.get();
+            for (int layer = links.length - 1; layer >= 0; layer--) {
+                ScoreHeap found = searchLayer(prepared, entryPoints, efConstruction, layer, visited);
+                entryPoints = new int[found.size()];
+                for (int i = 0; i < entryPoints.length; i++) {
+                    entryPoints[i] = found.node(i);
+                }
+                links[layer] = selectNeighbors(toMaxHeap(found), m);
+                created.links.set(layer, links[layer]);
+            }
+            for (int layer = 0; layer < links.length; layer++) {
+                for (int neighbor : links[layer]) {
+                    link(neighbor, node, layer);
+                }
+            }
+            size = node + 1;
+            if (level > entry.level) {
+                entryPoint = new EntryPoint(node, level);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<VectorMatch> search(float[] query, int k) {
+        return search(query, k, efSearch);
+    }
+
+    /**
+     * Finds the vectors most similar to a query with a given beam width.
+     *
+     * @param query the query vector, with {@link #dimensions()} components
+     * @param k the maximum number of matches to return
+     * @param ef the beam width, raised to {@code k} if lower
+     * @return up to {@code k} matches, most similar first
+     */
+    public List<VectorMatch> search(float[] query, int k, int ef) {
+        float[] prepared = vectors.prepare(query, similarity);
+        EntryPoint entry = entryPoint;
+        if (k <= 0 || entry == null) {
+            return List.of();
+        }
+        int current = greedyDescent(prepared, entry, 0);
+        ScoreHeap found = searchLayer(prepared, new int[] { current }, Math.max(ef, k), 0, VISITED.get());
+        while (found.size() > k) {
+            found.pop();
+        }
+        return vectors.matches(found);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int dimensions() {
+        return vectors.dimensions();
+    }
+
+    @Override
+    public Similarity similarity() {
+        return similarity;
+    }
+
+    @Override
+    public void save(Path path) {
+        writeLock.lock();
+        try {
+            int count = size;
+            EntryPoint entry = entryPoint;
+            VectorIndexFile.save(path, VectorIndexFile.KIND_HNSW, new VectorIndexFile.Header(similarity, vectors.dimensions(), count), out -> {
+                out.writeInt(m);
+                out.writeInt(efConstruction);
+                out.writeInt(efSearch);
+                out.writeInt(entry == null ? -1 : entry.node);
+                out.writeInt(entry == null ? -1 : entry.level);
+                vectors.writeTo(out, count);
+                for (int node = 0; node < count; node++) {
+                    AtomicReferenceArray<int[]> links = node(node).links;
+                    out.writeInt(links.length() - 1);
+                    for (int layer = 0; layer < links.length(); layer++) {
+                        int[] neighbors = links.get(layer);
+                        out.writeInt(neighbors.length);
+                        out.writeInts(neighbors, 0, neighbors.length);
+                    }
+                }
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static HnswVectorIndex read(MappedInput in, VectorIndexFile.Header header) throws IOException {
+        int m = in.readInt();
+        int efConstruction = in.readInt();
+        int efSearch = in.readInt();
+        int entryNode = in.readInt();
+        int entryLevel = in.readInt();
+        HnswVectorIndex index = new HnswVectorIndex(VectorBlocks.readFrom(in, header.dimensions, header.size), header.similarity, m, efConstruction,
+                efSearch);
+        for (int node = 0; node < header.size; node++) {
+            int level = in.readInt();
+            if (level < 0 || level > 64) {
+                throw new IOException("Invalid level " + level + " for node " + node);
+            }
+            Node stored = new Node(level);
+            for (int layer = 0; layer <= level; layer++) {
+                int count = in.readInt();
+                if (count < 0 || count > 2 * m) {
+                    throw new IOException("Invalid neighbor count " + count + " for node " + node);
+                }
+                int[] neighbors = new int[count];
+                in.readInts(neighbors, 0, count);
+                for (int neighbor : neighbors) {
+                    if (neighbor < 0 || neighbor >= header.size) {
+                        throw new IOException("Invalid neighbor " + neighbor + " for node " + node);
+                    }
+                }
+                stored.links.set(layer, neighbors);
+            }
+            index.store(node, stored);
+            index.positions.put(index.vectors.id(node), node);
+        }
+        if (header.size > 0) {
+            if (entryNode < 0 || entryNode >= header.size || entryLevel != index.node(entryNode).links.length() - 1) {
+                throw new IOException("Invalid entry point " + entryNode);
+            }
+            index.entryPoint = new EntryPoint(entryNode, entryLevel);
+        }
+        index.size = header.size;
+        return index;
+    }
+
+    /**
+     * Walks greedily from the entry point down to the layer above {@code level}, returning the closest node found.
+     */
+    private int greedyDescent(float[] query, EntryPoint entry, int level) {
+        int current = entry.node;
+        float currentScore = vectors.score(query, current);
+        for (int layer = entry.level; layer > level; layer--) {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int neighbor : node(current).links.get(layer)) {
+                    float score = vectors.score(query, neighbor);
+                    if (score > currentScore) {
+                        currentScore = score;
+                        current = neighbor;
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Explores a layer from the entry points with a beam of {@code ef} candidates, returning the best {@code ef} nodes found as a min-heap.
+     */
+    private ScoreHeap searchLayer(float[] query, int[] entryPoints, int ef, int layer, Visited visited) {
+        visited.reset();
+        ScoreHeap candidates = new ScoreHeap(ef, false);
+        ScoreHeap found = new ScoreHeap(ef + 1, true);
+        for (int entry : entryPoints) {
+            if (visited.mark(entry)) {
+                float score = vectors.score(query, entry);
+                candidates.push(entry, score);
+                found.offer(entry, score, ef);
+            }
+        }
+        while (!candidates.isEmpty()) {
+            float score = candidates.peekScore();
+            int candidate = candidates.pop();
+            if (found.size() >= ef && score < found.peekScore()) {
+                break;
+            }
+            for (int neighbor : node(candidate).links.get(layer)) {
+                if (visited.mark(neighbor)) {
+                    float neighborScore = vectors.score(query, neighbor);
+                    if (found.size() < ef || neighborScore > found.peekScore()) {
+                        candidates.push(neighbor, neighborScore);
+                        found.offer(neighbor, neighborScore, ef);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Picks up to {@code max} neighbors from candidates ordered best first, skipping a candidate closer to an already selected neighbor than to
+     * the base node so that the links spread in all directions, then filling up with the skipped candidates.
+     */
+    private int[] selectNeighbors(ScoreHeap candidates, int max) {
+        int[] selected = new int[max];
+        int count = 0;
+        int[] skipped = new int[candidates.size()];
+        int skippedCount = 0;
+        while (!candidates.isEmpty() && count < max) {
+            float score = candidates.peekScore();
+            int candidate = candidates.pop();
+            boolean diverse = true;
+            for (int i = 0; i < count && diverse; i++) {
+                diverse = vectors.score(candidate, selected[i]) <= score;
+            }
+            if (diverse) {
+                selected[count++] = candidate;
+            } else {
+                skipped[skippedCount++] = candidate;
+            }
+        }
+        for (int i = 0; i < skippedCount && count < max; i++) {
+            selected[count++] = skipped[i];
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * Adds a link from a node to the new node on a layer, re-selecting the node's neighbors when it already has the maximum number.
+     */
+    private void link(int from, int to, int layer) {
+        Node node = node(from);
+        int[] current = node.links.get(layer);
+        int max = layer == 0 ? 2 * m : m;
+        if (current.length < max) {
+            int[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = to;
+            node.links.set(layer, grown);
+            return;
+        }
+        ScoreHeap candidates = new ScoreHeap(current.length + 1, false);
+        for (int neighbor : current) {
+            candidates.push(neighbor, vectors.score(from, neighbor));
+        }
+        candidates.push(to, vectors.score(from, to));
+        node.links.set(layer, selectNeighbors(candidates, max));
+    }
+
+    private static ScoreHeap toMaxHeap(ScoreHeap heap) {
+        ScoreHeap max = new ScoreHeap(heap.size(), false);
+        for (int i = 0; i < heap.size(); i++) {
+            max.push(heap.node(i), heap.score(i));
+        }
+        return max;
+    }
+
+    private Node node(int position) {
+        return nodes[position >>> VectorBlocks.BLOCK_SHIFT][position & (VectorBlocks.BLOCK_SIZE - 1)];
+    }
+
+    /**
+     * Stores a node before it is linked into the graph. Must only be called by the writer.
+     */
+    private void store(int position, Node node) {
+        int block = position >>> VectorBlocks.BLOCK_SHIFT;
+        Node[][] current = nodes;
+        if (block == current.length) {
+            current = Arrays.copyOf(current, block + 1);
+            current[block] = new Node[VectorBlocks.BLOCK_SIZE];
+        }
+        current[block][position & (VectorBlocks.BLOCK_SIZE - 1)] = node;
+        nodes = current;
+    }
+
+    private static final class Node {
+        private final AtomicReferenceArray<int[]> links;
+
+        private Node(int level) {
+            links = new AtomicReferenceArray<>(level + 1);
+            for (int layer = 0; layer <= level; layer++) {
+                links.set(layer, NO_LINKS);
+            }
+        }
+    }
+
+    private static final class EntryPoint {
+        private final int node;
+        private final int level;
+
+        private EntryPoint(int node, int level) {
+            this.node = node;
+            this.level = level;
+        }
+    }
+
+    /**
+     * The per-thread set of nodes visited by a search, cleared in constant time by moving to a new epoch.
+     */
+    private static final class Visited {
+        private int[] marks = new int[1024];
+        private int epoch;
+
+        private void reset() {
+            if (++epoch == 0) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        private boolean mark(int node) {
+            if (node >= marks.length) {
+                marks = Arrays.copyOf(marks, Math.max(node + 1, marks.length * 2));
+            }
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads the little-endian primitives written by {@link MappedOutput} through read-only memory-mapped windows, copying arrays of floats out of
+ * the page cache in bulk.
+ */
+final class MappedInput {
+
+    private static final long WINDOW_BYTES = 64L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer buffer;
+    private long base;
+
+    MappedInput(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        map();
+    }
+
+    int readInt() throws IOException {
+        ensure(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    void readBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int n = Math.min(bytes.length - offset, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    void readInts(int[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(Integer.BYTES);
+            int n = Math.min(length, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().get(values, offset, n);
+            buffer.position(buffer.position() + n * Integer.BYTES);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    void readFloats(float[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(Float.BYTES);
+            int n = Math.min(length, buffer.remaining() / Float.BYTES);
+            buffer.asFloatBuffer().get(values, offset, n);
+            buffer.position(buffer.position() + n * Float.BYTES);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            base += buffer.position();
+            map();
+            if (buffer.remaining() < bytes) {
+                throw new EOFException("The vector index file is truncated");
+            }
+        }
+    }
+
+    private void map() throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW_BYTES, size - base));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,85 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes little-endian primitives to a file through memory-mapped windows, so arrays of floats are copied into the page cache in bulk and
+ * files larger than a single mapping can be written. The file is truncated to the bytes written when the output is closed; the channel is
+ * left open.
+ */
+final class MappedOutput implements AutoCloseable {
+
+    private static final long WINDOW_BYTES = 64L << 20;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long base;
+
+    MappedOutput(FileChannel channel) throws IOException {
+        this.channel = channel;
+        map();
+    }
+
+    void writeInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void writeBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int n = Math.min(bytes.length - offset, buffer.remaining());
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    void writeInts(int[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(Integer.BYTES);
+            int n = Math.min(length, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * Integer.BYTES);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    void writeFloats(float[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(Float.BYTES);
+            int n = Math.min(length, buffer.remaining() / Float.BYTES);
+            buffer.asFloatBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * Float.BYTES);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Flushes the written bytes to the file and truncates it to them.
+     */
+    @Override
+    public void close() throws IOException {
+        long size = base + buffer.position();
+        buffer.force();
+        channel.truncate(size);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            base += buffer.position();
+            buffer.force();
+            map();
+        }
+    }
+
+    private void map() throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, base, WINDOW_BYTES);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,122 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+import java.util.Arrays;
+
+/**
+ * A binary heap of vector positions keyed on their scores, held in primitive arrays.
+ * <p>
+ * A min-heap keeps the lowest score at the root and serves as the bounded top-k of a search; a max-heap keeps the highest score at the root and
+ * serves as the queue of candidates to expand. The heap grows as needed. It is not thread-safe.
+ * </p>
+ */
+final class ScoreHeap {
+
+    private final boolean min;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    /**
+     * Creates a heap.
+     *
+     * @param capacity the initial capacity
+     * @param min true for a min-heap, false for a max-heap
+     */
+    ScoreHeap(int capacity, boolean min) {
+        this.min = min;
+        this.nodes = new int[Math.max(capacity, 4)];
+        this.scores = new float[nodes.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the position at the root: the lowest score of a min-heap, the highest of a max-heap.
+     */
+    int peekNode() {
+        return nodes[0];
+    }
+
+    float peekScore() {
+        return scores[0];
+    }
+
+    /**
+     * Returns the position at an index of the heap array, in no particular order.
+     */
+    int node(int index) {
+        return nodes[index];
+    }
+
+    float score(int index) {
+        return scores[index];
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(score, scores[parent])) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+
+    /**
+     * Adds a position if the heap holds fewer than {@code k} or the score beats the lowest one held, keeping at most {@code k}. Only meaningful
+     * for a min-heap.
+     */
+    void offer(int node, float score, int k) {
+        if (size < k) {
+            push(node, score);
+        } else if (score > scores[0]) {
+            pop();
+            push(node, score);
+        }
+    }
+
+    /**
+     * Removes the root and returns its position.
+     */
+    int pop() {
+        int root = nodes[0];
+        int lastNode = nodes[--size];
+        float lastScore = scores[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && before(scores[child + 1], scores[child])) {
+                child++;
+            }
+            if (!before(scores[child], lastScore)) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        nodes[i] = lastNode;
+        scores[i] = lastScore;
+        return root;
+    }
+
+    private boolean before(float a, float b) {
+        return min ? a < b : a > b;
+    }
+}
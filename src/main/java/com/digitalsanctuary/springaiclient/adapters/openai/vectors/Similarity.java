@@ -0,0 +1,36 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+/**
+ * The similarity a {@link VectorIndex} compares vectors with. Both are computed as a dot product, so searches share the same scan loop.
+ */
+public enum Similarity {
+
+    /**
+     * The cosine of the angle between the vectors. Vectors and queries are normalized to unit length, so the score is their dot product.
+     */
+    COSINE,
+
+    /**
+     * The plain dot product, for vectors that are already normalized, such as OpenAI embeddings, or whose length carries meaning.
+     */
+    DOT_PRODUCT;
+
+    /**
+     * Returns the vector to store or query with: a normalized copy for {@link #COSINE}, a plain copy otherwise.
+     *
+     * @param vector the vector given by the caller
+     * @return the prepared copy
+     */
+    float[] prepare(float[] vector) {
+        float[] copy = vector.clone();
+        if (this == COSINE) {
+            float norm = (float) Math.sqrt(VectorMath.dot(copy, 0, copy, 0, copy.length));
+            if (norm > 0) {
+                for (int i = 0; i < copy.length; i++) {
+                    copy[i] /= norm;
+                }
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,153 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The vectors and ids of an index, stored in fixed-size blocks of {@value #BLOCK_SIZE} vectors laid out back to back in a {@code float[]}.
+ * <p>
+ * Blocks keep each scan over contiguous memory without ever copying the vectors already stored: growing the index only adds a block. A single
+ * writer appends; the owning index publishes each appended vector to readers through a volatile write, after which readers may access it
+ * without locking.
+ * </p>
+ */
+final class VectorBlocks {
+
+    static final int BLOCK_SHIFT = 10;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final int dimensions;
+    private volatile float[][] blocks = new float[0][];
+    private volatile String[][] ids = new String[0][];
+    private int count;
+
+    VectorBlocks(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Checks the number of dimensions of a vector given by the caller and returns the copy to store or query with.
+     *
+     * @throws IllegalArgumentException if the vector has the wrong number of dimensions
+     */
+    float[] prepare(float[] vector, Similarity similarity) {
+        if (vector == null || vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected a vector of " + dimensions + " dimensions but got "
+                    + (vector == null ? "null" : String.valueOf(vector.length)));
+        }
+        return similarity.prepare(vector);
+    }
+
+    /**
+     * Appends a prepared vector. Must only be called by the writer.
+     *
+     * @return the position of the vector
+     */
+    int append(String id, float[] vector) {
+        int position = count;
+        int block = position >>> BLOCK_SHIFT;
+        if (block == blocks.length) {
+            float[][] grownBlocks = Arrays.copyOf(blocks, block + 1);
+            grownBlocks[block] = new float[BLOCK_SIZE * dimensions];
+            String[][] grownIds = Arrays.copyOf(ids, block + 1);
+            grownIds[block] = new String[BLOCK_SIZE];
+            blocks = grownBlocks;
+            ids = grownIds;
+        }
+        System.arraycopy(vector, 0, blocks[block], offset(position), dimensions);
+        ids[block][position & BLOCK_MASK] = id;
+        count++;
+        return position;
+    }
+
+    float[][] blocks() {
+        return blocks;
+    }
+
+    float[] block(int position) {
+        return blocks[position >>> BLOCK_SHIFT];
+    }
+
+    int offset(int position) {
+        return (position & BLOCK_MASK) * dimensions;
+    }
+
+    String id(int position) {
+        return ids[position >>> BLOCK_SHIFT][position & BLOCK_MASK];
+    }
+
+    /**
+     * Scores a prepared query against the vector at a position.
+     */
+    float score(float[] query, int position) {
+        return VectorMath.dot(query, 0, block(position), offset(position), dimensions);
+    }
+
+    /**
+     * Scores the vectors at two positions against each other.
+     */
+    float score(int a, int b) {
+        return VectorMath.dot(block(a), offset(a), block(b), offset(b), dimensions);
+    }
+
+    /**
+     * Empties a top-k min-heap into matches, most similar first.
+     */
+    List<VectorMatch> matches(ScoreHeap top) {
+        VectorMatch[] matches = new VectorMatch[top.size()];
+        for (int i = matches.length - 1; i >= 0; i--) {
+            float score = top.peekScore();
+            matches[i] = new VectorMatch(id(top.pop()), score);
+        }
+        return List.of(matches);
+    }
+
+    /**
+     * Writes the first {@code size} vectors, then their ids.
+     */
+    void writeTo(MappedOutput out, int size) throws IOException {
+        for (int start = 0; start < size; start += BLOCK_SIZE) {
+            out.writeFloats(block(start), 0, Math.min(BLOCK_SIZE, size - start) * dimensions);
+        }
+        for (int position = 0; position < size; position++) {
+            byte[] id = id(position).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(id.length);
+            out.writeBytes(id);
+        }
+    }
+
+    /**
+     * Reads the vectors and ids written by {@link #writeTo(MappedOutput, int)}.
+     */
+    static VectorBlocks readFrom(MappedInput in, int dimensions, int size) throws IOException {
+        VectorBlocks vectors = new VectorBlocks(dimensions);
+        int blockCount = (size + BLOCK_MASK) >>> BLOCK_SHIFT;
+        float[][] blocks = new float[blockCount][];
+        String[][] ids = new String[blockCount][];
+        for (int block = 0; block < blockCount; block++) {
+            blocks[block] = new float[BLOCK_SIZE * dimensions];
+            ids[block] = new String[BLOCK_SIZE];
+            in.readFloats(blocks[block], 0, Math.min(BLOCK_SIZE, size - (block << BLOCK_SHIFT)) * dimensions);
+        }
+        for (int position = 0; position < size; position++) {
+            int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Invalid id length " + length);
+            }
+            byte[] id = new byte[length];
+            in.readBytes(id);
+            ids[position >>> BLOCK_SHIFT][position & BLOCK_MASK] = new String(id, StandardCharsets.UTF_8);
+        }
+        vectors.blocks = blocks;
+        vectors.ids = ids;
+        vectors.count = size;
+        return vectors;
+    }
+}
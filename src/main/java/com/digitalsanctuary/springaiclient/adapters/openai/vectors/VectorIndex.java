@@ -0,0 +1,66 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * An in-process index of embedding vectors, searched for the vectors most similar to a query.
+ * <p>
+ * Vectors are added under a unique id and cannot be removed. Implementations are thread-safe: additions are serialized, while searches run
+ * concurrently with them without locking and see every vector whose addition completed before the search started.
+ * </p>
+ *
+ * @see FlatVectorIndex
+ * @see HnswVectorIndex
+ */
+public interface VectorIndex {
+
+    /**
+     * Adds a vector. The vector is copied, so the caller may reuse the array.
+     *
+     * @param id the id of the vector, returned with the matches
+     * @param vector the vector, with {@link #dimensions()} components
+     * @throws IllegalArgumentException if the id is already present or the vector has the wrong number of dimensions
+     */
+    void add(String id, float[] vector);
+
+    /**
+     * Finds the vectors most similar to a query.
+     *
+     * @param query the query vector, with {@link #dimensions()} components
+     * @param k the maximum number of matches to return
+     * @return up to {@code k} matches, most similar first
+     * @throws IllegalArgumentException if the query has the wrong number of dimensions
+     */
+    List<VectorMatch> search(float[] query, int k);
+
+    /**
+     * Returns the number of vectors in the index.
+     *
+     * @return the number of vectors
+     */
+    int size();
+
+    /**
+     * Returns the number of dimensions of the vectors.
+     *
+     * @return the number of dimensions
+     */
+    int dimensions();
+
+    /**
+     * Returns the similarity the vectors are compared with.
+     *
+     * @return the similarity
+     */
+    Similarity similarity();
+
+    /**
+     * Writes the index to a file through a memory mapping, replacing the file atomically. Additions wait while the index is saved; searches do
+     * not.
+     *
+     * @param path the file to write
+     * @throws java.io.UncheckedIOException if the file cannot be written
+     */
+    void save(Path path);
+}
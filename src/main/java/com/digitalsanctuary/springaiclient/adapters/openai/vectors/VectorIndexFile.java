@@ -0,0 +1,101 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The file format shared by the vector indexes.
+ * <p>
+ * A file starts with a header holding a magic number, the format version, the kind of index, the similarity, the number of dimensions and the
+ * number of vectors, all little-endian. The index then writes its own parameters, the vectors back to back as 32-bit floats, the ids as
+ * length-prefixed UTF-8 and, for a graph index, the neighbor lists. Files are written to a temporary sibling and moved into place, so a crash
+ * leaves either the old or the new file.
+ * </p>
+ */
+final class VectorIndexFile {
+
+    static final int KIND_FLAT = 0;
+    static final int KIND_HNSW = 1;
+
+    private static final int MAGIC = 0x58444956;
+    private static final int VERSION = 1;
+
+    private VectorIndexFile() {}
+
+    /**
+     * Writes the body of an index file.
+     */
+    interface Writer {
+        void write(MappedOutput out) throws IOException;
+    }
+
+    /**
+     * Reads the body of an index file, after its header.
+     */
+    interface Reader<T> {
+        T read(MappedInput in, Header header) throws IOException;
+    }
+
+    /**
+     * The header of an index file.
+     */
+    static final class Header {
+        final Similarity similarity;
+        final int dimensions;
+        final int size;
+
+        Header(Similarity similarity, int dimensions, int size) {
+            this.similarity = similarity;
+            this.dimensions = dimensions;
+            this.size = size;
+        }
+    }
+
+    static void save(Path path, int kind, Header header, Writer body) {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                try (MappedOutput out = new MappedOutput(channel)) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(kind);
+                    out.writeInt(header.similarity.ordinal());
+                    out.writeInt(header.dimensions);
+                    out.writeInt(header.size);
+                    body.write(out);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save the vector index to " + path, e);
+        }
+    }
+
+    static <T> T load(Path path, int kind, Reader<T> body) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedInput in = new MappedInput(channel);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a vector index file");
+            }
+            if (in.readInt() != kind) {
+                throw new IOException("The file holds a different kind of vector index");
+            }
+            int similarity = in.readInt();
+            int dimensions = in.readInt();
+            int size = in.readInt();
+            if (similarity < 0 || similarity >= Similarity.values().length || dimensions <= 0 || size < 0) {
+                throw new IOException("Invalid vector index header");
+            }
+            return body.read(in, new Header(Similarity.values()[similarity], dimensions, size));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load the vector index from " + path, e);
+        }
+    }
+}
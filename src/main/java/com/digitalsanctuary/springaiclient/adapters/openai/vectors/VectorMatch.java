@@ -0,0 +1,20 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+import lombok.Value;
+
+/**
+ * A vector returned by a {@link VectorIndex} search.
+ */
+@Value
+public class VectorMatch {
+
+    /**
+     * The id the vector was added under.
+     */
+    String id;
+
+    /**
+     * The similarity of the vector to the query: higher is more similar.
+     */
+    float score;
+}
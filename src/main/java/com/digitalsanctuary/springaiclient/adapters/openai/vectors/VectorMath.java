@@ -0,0 +1,57 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+/**
+ * The dot product kernels of the vector indexes.
+ * <p>
+ * The loops are plain counted loops over {@code float[]} with four independent accumulators, so the JIT can unroll them and keep several
+ * multiply-adds in flight instead of waiting on a single running sum, and can use SIMD registers for the multiplications. The arrays are
+ * addressed by offset, so the vectors of a block are scanned in place.
+ * </p>
+ */
+final class VectorMath {
+
+    private VectorMath() {}
+
+    /**
+     * Computes the dot product of two vectors stored at offsets of their arrays.
+     *
+     * @param a the first array
+     * @param aOffset the offset of the first vector
+     * @param b the second array
+     * @param bOffset the offset of the second vector
+     * @param length the number of components
+     * @return the dot product
+     */
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        for (int bound = length & ~3; i < bound; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Computes the dot products of a query with consecutive vectors of a block.
+     *
+     * @param query the query, at offset 0
+     * @param block the block holding the vectors back to back
+     * @param count the number of vectors to score, from the start of the block
+     * @param dimensions the number of components of each vector
+     * @param scores the array receiving the dot products, at least {@code count} long
+     */
+    static void dotAll(float[] query, float[] block, int count, int dimensions, float[] scores) {
+        for (int v = 0, offset = 0; v < count; v++, offset += dimensions) {
+            scores[v] = dot(query, 0, block, offset, dimensions);
+        }
+    }
+}
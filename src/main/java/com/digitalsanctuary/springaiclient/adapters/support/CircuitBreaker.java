@@ -0,0 +1,158 @@
+package com.digitalsanctuary.springaiclient.adapters.support;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * A circuit breaker guarding a single upstream or provider.
+ * <p>
+ * The breaker opens after a number of consecutive failures, or as soon as the upstream reports a rate limit, and rejects requests while open.
+ * Once the open period has passed it lets a limited number of probe requests through: a successful probe closes the breaker, a failed one opens
+ * it again. All methods are thread-safe.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    /**
+     * The state of a circuit breaker.
+     */
+    public enum State {
+
+        /**
+         * Requests pass through.
+         */
+        CLOSED,
+
+        /**
+         * Requests are rejected until the open period ends.
+         */
+        OPEN,
+
+        /**
+         * A limited number of probe requests pass through.
+         */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private int probesInFlight;
+
+    /**
+     * Creates a circuit breaker.
+     *
+     * @param failureThreshold the number of consecutive failures opening the breaker
+     * @param openDuration how long the breaker stays open before probing
+     * @param halfOpenProbes the number of concurrent probe requests while half-open
+     * @param nanoClock the clock, usually {@code System::nanoTime}
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration, int halfOpenProbes, LongSupplier nanoClock) {
+        if (failureThreshold <= 0 || halfOpenProbes <= 0) {
+            throw new IllegalArgumentException("Failure threshold and half-open probes must be positive.");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns whether a request would currently be let through, without taking a probe slot.
+     *
+     * @return whether {@link #tryAcquire()} is likely to succeed
+     */
+    public synchronized boolean isAvailable() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> nanoClock.getAsLong() - openUntil >= 0;
+            case HALF_OPEN -> probesInFlight < halfOpenProbes;
+        };
+    }
+
+    /**
+     * Asks to let a request through. Every successful call must be followed by one of the {@code on*} methods once the request completes.
+     *
+     * @return whether the request may be sent
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openUntil < 0) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * Records a request the upstream handled, closing the breaker if it was probing.
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            probesInFlight = 0;
+        }
+    }
+
+    /**
+     * Records a failed request, opening the breaker after too many consecutive failures or a failed probe.
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            open(openNanos);
+        }
+    }
+
+    /**
+     * Records a rate limit, opening the breaker for the time the upstream asked for, or the open duration if it did not say.
+     *
+     * @param retryAfter the delay requested by the upstream, or null
+     */
+    public synchronized void onRateLimited(Duration retryAfter) {
+        consecutiveFailures++;
+        open(retryAfter != null && !retryAfter.isNegative() ? retryAfter.toNanos() : openNanos);
+    }
+
+    /**
+     * Records a request that completed without telling anything about the upstream, such as a cancelled one, releasing its probe slot.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    /**
+     * Returns the current state. An open breaker whose open period has ended is reported as open until the next request probes it.
+     *
+     * @return the state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open(long nanos) {
+        long until = nanoClock.getAsLong() + nanos;
+        // A rate limit never shortens an open period already in force
+        if (state != State.OPEN || until - openUntil > 0) {
+            openUntil = until;
+        }
+        state = State.OPEN;
+        probesInFlight = 0;
+    }
+}
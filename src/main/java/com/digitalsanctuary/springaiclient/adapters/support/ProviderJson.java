@@ -0,0 +1,27 @@
+package com.digitalsanctuary.springaiclient.adapters.support;
+
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Holder for the shared {@link JsonMapper} used where the adapters read or write provider JSON outside of Spring's HTTP message converters.
+ * <p>
+ * The mapper ignores unknown properties, matching the behavior of the Spring message converters, so that new fields added by a provider do not
+ * break deserialization. {@link JsonMapper} instances are thread-safe once built, so a single instance is shared.
+ * </p>
+ */
+public final class ProviderJson {
+
+    private static final JsonMapper MAPPER = JsonMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+
+    private ProviderJson() {}
+
+    /**
+     * Returns the shared mapper.
+     *
+     * @return the shared, thread-safe {@link JsonMapper}
+     */
+    public static JsonMapper mapper() {
+        return MAPPER;
+    }
+}
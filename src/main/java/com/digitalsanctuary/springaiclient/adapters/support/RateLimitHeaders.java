@@ -0,0 +1,133 @@
+package com.digitalsanctuary.springaiclient.adapters.support;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Parses the rate limit headers returned by the providers.
+ * <p>
+ * OpenAI reports its limits in the {@code x-ratelimit-limit-*}, {@code x-ratelimit-remaining-*} and {@code x-ratelimit-reset-*} headers, for both
+ * {@code requests} and {@code tokens}. Reset times use a Go-style duration format such as {@code 1s}, {@code 6m0s} or {@code 20ms}. A 429 response
+ * may also carry a standard {@code Retry-After} header in seconds, which Anthropic sends as well.
+ * </p>
+ */
+public final class RateLimitHeaders {
+
+    /**
+     * The header holding the request-per-minute limit.
+     */
+    public static final String LIMIT_REQUESTS = "x-ratelimit-limit-requests";
+
+    /**
+     * The header holding the token-per-minute limit.
+     */
+    public static final String LIMIT_TOKENS = "x-ratelimit-limit-tokens";
+
+    /**
+     * The header holding the number of requests remaining in the current window.
+     */
+    public static final String REMAINING_REQUESTS = "x-ratelimit-remaining-requests";
+
+    /**
+     * The header holding the number of tokens remaining in the current window.
+     */
+    public static final String REMAINING_TOKENS = "x-ratelimit-remaining-tokens";
+
+    /**
+     * The header holding the time until the request quota is fully restored.
+     */
+    public static final String RESET_REQUESTS = "x-ratelimit-reset-requests";
+
+    /**
+     * The header holding the time until the token quota is fully restored.
+     */
+    public static final String RESET_TOKENS = "x-ratelimit-reset-tokens";
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private RateLimitHeaders() {}
+
+    /**
+     * Reads a numeric header.
+     *
+     * @param headers the response headers
+     * @param name the header name
+     * @return the value, or -1 if the header is missing or not a number
+     */
+    public static long number(HttpHeaders headers, String name) {
+        String value = headers == null ? null : headers.getFirst(name);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads a reset duration header such as {@code 6m0s}.
+     *
+     * @param headers the response headers
+     * @param name the header name
+     * @return the duration, or null if the header is missing or malformed
+     */
+    public static Duration duration(HttpHeaders headers, String name) {
+        String value = headers == null ? null : headers.getFirst(name);
+        return value == null ? null : parseDuration(value);
+    }
+
+    /**
+     * Reads the {@code Retry-After} header, given in seconds.
+     *
+     * @param headers the response headers
+     * @return the retry delay, or null if the header is missing or not a number of seconds
+     */
+    public static Duration retryAfter(HttpHeaders headers) {
+        String value = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofMillis((long) (Double.parseDouble(value.trim()) * 1000));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a Go-style duration such as {@code 1h2m3.5s} or {@code 250ms}.
+     *
+     * @param value the duration text
+     * @return the duration, or null if the text is malformed
+     */
+    static Duration parseDuration(String value) {
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        double millis = 0;
+        int end = 0;
+        while (matcher.find()) {
+            if (matcher.start() != end) {
+                return null;
+            }
+            double amount = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "h":
+                    millis += amount * 3_600_000;
+                    break;
+                case "m":
+                    millis += amount * 60_000;
+                    break;
+                case "s":
+                    millis += amount * 1_000;
+                    break;
+                default:
+                    millis += amount;
+            }
+            end = matcher.end();
+        }
+        return end == 0 || end != value.trim().length() ? null : Duration.ofMillis((long) millis);
+    }
+}
@@ -0,0 +1,73 @@
+package com.digitalsanctuary.springaiclient.adapters.support;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal reader for the server-sent events format used by OpenAI and Anthropic streaming responses.
+ * <p>
+ * The reader consumes the response body line by line and returns the {@code data} payload of one event at a time, so only a single event is held in
+ * memory. Comment lines and other fields are ignored, and multi-line data fields are joined with a newline as per the SSE specification. The
+ * {@code [DONE]} sentinel sent by OpenAI ends the stream. Providers that name their events in the {@code event} field, like Anthropic, repeat the
+ * name in the data payload, so the field is not needed.
+ * </p>
+ */
+public class SseEventReader {
+
+    private static final String DATA_FIELD = "data:";
+    private static final String DONE = "[DONE]";
+
+    private final BufferedReader reader;
+    private boolean done;
+
+    /**
+     * Creates a reader over the given response body.
+     *
+     * @param body the raw event stream, decoded as UTF-8
+     */
+    public SseEventReader(InputStream body) {
+        this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the next event from the stream.
+     *
+     * @return the data payload of the next event, or null when the stream has ended
+     * @throws IOException if the stream cannot be read
+     */
+    public String next() throws IOException {
+        if (done) {
+            return null;
+        }
+        StringBuilder data = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (data != null) {
+                    break;
+                }
+                continue;
+            }
+            if (line.startsWith(DATA_FIELD)) {
+                int start = DATA_FIELD.length();
+                if (line.length() > start && line.charAt(start) == ' ') {
+                    start++;
+                }
+                if (data == null) {
+                    data = new StringBuilder(line.length() - start);
+                } else {
+                    data.append('\n');
+                }
+                data.append(line, start, line.length());
+            }
+        }
+        if (data == null || DONE.contentEquals(data)) {
+            done = true;
+            return null;
+        }
+        return data.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package com.digitalsanctuary.springaiclient.adapters.anthropic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.AIServiceException;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatRequest;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.OpenAIStubServer;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.RecordedRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.StubOutcome;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Tests {@link AnthropicService} end to end against the Messages endpoint of the {@link OpenAIStubServer}.
+ */
+class AnthropicServiceStubTest {
+
+    private final OpenAIStubServer server = OpenAIStubServer.start().content("Paris is the capital of France.");
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void testSendsMessagesRequestAndParsesResponse() {
+        AnthropicService service = server.createAnthropicService(server.anthropicProperties());
+
+        ChatResponse response = service.chat(new ChatRequest().system("Answer briefly.").user("What is the capital of France?").maxTokens(100));
+
+        assertEquals("anthropic", response.getProvider());
+        assertEquals("claude-sonnet-4-5", response.getModel());
+        assertEquals("Paris is the capital of France.", response.getContent());
+        assertEquals(ChatResponse.FINISH_STOP, response.getFinishReason());
+        assertEquals(6, response.getCompletionTokens());
+        RecordedRequest recorded = server.getRequests().get(0);
+        assertEquals("stub-anthropic-key", recorded.getHeader("x-api-key"));
+        assertEquals("2023-06-01", recorded.getHeader("anthropic-version"));
+        JsonNode body = ProviderJson.mapper().readTree(recorded.getBody());
+        // The system message becomes the top-level system prompt
+        assertEquals("Answer briefly.", body.path("system").asString());
+        assertEquals(1, body.path("messages").size());
+        assertEquals("user", body.path("messages").get(0).path("role").asString());
+        assertEquals(100, body.path("max_tokens").asInt());
+        assertFalse(body.has("stream"));
+    }
+
+    @Test
+    void testStreamsTextDeltas() {
+        AnthropicService service = server.createAnthropicService(server.anthropicProperties());
+        StringBuilder streamed = new StringBuilder();
+
+        ChatResponse response = service.streamChat(new ChatRequest().user("What is the capital of France?"), streamed::append);
+
+        assertEquals("Paris is the capital of France.", streamed.toString());
+        assertEquals("Paris is the capital of France.", response.getContent());
+        assertEquals(ChatResponse.FINISH_STOP, response.getFinishReason());
+        assertTrue(response.getPromptTokens() > 0);
+        assertEquals(6, response.getCompletionTokens());
+        JsonNode body = ProviderJson.mapper().readTree(server.getRequests().get(0).getBody());
+        assertEquals("You are a helpful assistant.", body.path("system").asString());
+        assertTrue(body.path("stream").asBoolean());
+    }
+
+    @Test
+    void testReportsRateLimitsAndOverloadAsTransient() {
+        AnthropicService service = server.createAnthropicService(server.anthropicProperties());
+        server.enqueue(StubOutcome.rateLimited(Duration.ofSeconds(2)), StubOutcome.serverError(529));
+
+        AIServiceException rateLimited = assertThrows(AIServiceException.class, () -> service.chat(new ChatRequest().user("Hi")));
+        AIServiceException overloaded = assertThrows(AIServiceException.class, () -> service.streamChat(new ChatRequest().user("Hi"), content -> {}));
+
+        assertTrue(rateLimited.isTransient());
+        assertEquals(Duration.ofSeconds(2), rateLimited.getRetryAfter());
+        assertTrue(overloaded.isTransient());
+        assertNull(overloaded.getRetryAfter());
+        assertEquals("Anthropic returned HTTP status 529", overloaded.getMessage());
+    }
+}
@@ -0,0 +1,248 @@
+package com.digitalsanctuary.springaiclient.adapters.failover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.AIServiceException;
+import com.digitalsanctuary.springaiclient.adapters.AbstractAIService;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.service.AnthropicService;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatRequest;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatResponse;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatStreamListener;
+import com.digitalsanctuary.springaiclient.adapters.failover.config.FailoverConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.ModelRouter;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.ModelTier;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.RoutingStrategy;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.Upstream;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.UpstreamRouter;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIRateLimitException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIServerException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIService;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.OpenAIStubServer;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.RecordedRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.StubOutcome;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.HeuristicTokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.support.CircuitBreaker;
+
+class FailoverAIServiceTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> calls = new ArrayList<>();
+    private final FakeProvider openai = new FakeProvider("openai");
+    private final FakeProvider anthropic = new FakeProvider("anthropic");
+
+    private FailoverAIService failover(FailoverConfigProperties properties) {
+        return new FailoverAIService(List.of(openai, anthropic), properties, clock::get);
+    }
+
+    @Test
+    void testFailsOverOnTransientFailuresAndReportsProvider() {
+        FailoverAIService service = failover(new FailoverConfigProperties());
+        openai.outcomes.add(new AIServiceException("OpenAI returned HTTP status 503", true, null, null));
+
+        ChatResponse response = service.chat(new ChatRequest().user("Hi"));
+
+        assertEquals("anthropic", response.getProvider());
+        assertEquals(List.of("openai", "anthropic"), calls);
+        // The failure weighs fully in the first sample, so openai is tried last until its average is stale
+        assertEquals(1.0, service.getRoute("openai").getErrorRate(), 1e-9);
+        assertEquals(List.of("anthropic", "openai"), names(service.plan()));
+    }
+
+    @Test
+    void testDoesNotFailOverOnClientErrors() {
+        FailoverAIService service = failover(new FailoverConfigProperties());
+        openai.outcomes.add(new AIServiceException("OpenAI returned HTTP status 400"));
+
+        assertThrows(AIServiceException.class, () -> service.chat(new ChatRequest().user("Hi")));
+        assertEquals(List.of("openai"), calls);
+        assertEquals(0.0, service.getRoute("openai").getErrorRate(), 1e-9);
+    }
+
+    @Test
+    void testPrefersFasterProviderUntilItsLatencyIsStale() {
+        FailoverConfigProperties properties = new FailoverConfigProperties();
+        FailoverAIService service = failover(properties);
+        openai.latency = Duration.ofSeconds(10);
+        anthropic.latency = Duration.ofSeconds(1);
+
+        // Each provider is probed once while it has no latency average
+        service.chat(new ChatRequest().user("Hi"));
+        service.chat(new ChatRequest().user("Hi"));
+        service.chat(new ChatRequest().user("Hi"));
+
+        assertEquals(List.of("openai", "anthropic", "anthropic"), calls);
+        assertEquals(List.of("anthropic", "openai"), names(service.plan()));
+        clock.addAndGet(properties.getEwmaDecay().toNanos());
+        assertEquals(List.of("openai", "anthropic"), names(service.plan()));
+    }
+
+    @Test
+    void testRateLimitOpensCircuitBreakerForRetryDelay() {
+        FailoverAIService service = failover(new FailoverConfigProperties());
+        anthropic.latency = Duration.ofSeconds(1);
+        openai.outcomes.add(new AIServiceException("OpenAI rate limit exceeded", true, Duration.ofSeconds(20), null));
+
+        assertEquals("anthropic", service.chat(new ChatRequest().user("Hi")).getProvider());
+
+        assertSame(CircuitBreaker.State.OPEN, service.getRoute("openai").getCircuitBreaker().getState());
+        assertEquals(List.of("anthropic", "openai"), names(service.plan()));
+        clock.addAndGet(Duration.ofSeconds(20).toNanos());
+        assertEquals(List.of("openai", "anthropic"), names(service.plan()));
+    }
+
+    @Test
+    void testFailsOverStreamsOnlyBeforeFirstDelta() {
+        FailoverAIService service = failover(new FailoverConfigProperties());
+        StringBuilder streamed = new StringBuilder();
+        openai.outcomes.add(new AIServiceException("Failed to communicate with OpenAI", true, null, null));
+
+        ChatResponse response = service.streamChat(new ChatRequest().user("Hi"), streamed::append);
+
+        assertEquals("anthropic", response.getProvider());
+        assertEquals("Hello from anthropic", streamed.toString());
+
+        calls.clear();
+        anthropic.partialStream = true;
+        anthropic.outcomes.add(new AIServiceException("Failed to communicate with Anthropic", true, null, null));
+        assertThrows(AIServiceException.class, () -> service.streamChat(new ChatRequest().user("Hi"), content -> {}));
+        // Openai is unhealthy after its failure, and must not repeat the text already streamed anyway
+        assertEquals(List.of("anthropic"), calls);
+    }
+
+    @Test
+    void testFailsOverWhenAllUpstreamsAreCircuitOpen() {
+        FailoverAIService service = failover(new FailoverConfigProperties());
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(30), 1, clock::get);
+        Upstream upstream = new Upstream("primary", "http://primary", "key", 1, Set.of(), breaker, Duration.ofSeconds(10), clock::get);
+        UpstreamRouter router = new UpstreamRouter(List.of(upstream), RoutingStrategy.LEAST_OUTSTANDING);
+        router.select("gpt-4o").complete(1_000, new OpenAIServerException("Bad gateway", 502, null));
+        OpenAICommunicationException unavailable = assertThrows(OpenAICommunicationException.class, () -> router.select("gpt-4o"));
+        openai.outcomes.add(unavailable);
+
+        assertTrue(unavailable.isTransient());
+        assertEquals("anthropic", service.chat(new ChatRequest().user("Hi")).getProvider());
+        assertEquals(List.of("openai", "anthropic"), calls);
+    }
+
+    @Test
+    void testFailsOverWhenAllModelsOfTheFallbackChainAreCircuitOpen() {
+        FailoverAIService service = failover(new FailoverConfigProperties());
+        OpenAIConfigProperties.ModelRouting settings = new OpenAIConfigProperties.ModelRouting();
+        OpenAIConfigProperties.ModelRouting.ModelSettings model = new OpenAIConfigProperties.ModelRouting.ModelSettings();
+        model.setName("gpt-4o");
+        model.setTier(ModelTier.PREMIUM);
+        settings.setModels(List.of(model));
+        ModelRouter router = new ModelRouter(settings, new HeuristicTokenEstimator());
+        assertThrows(OpenAIRateLimitException.class, () -> router.execute(request("gpt-4o"), null, null, (request, remaining) -> {
+            throw new OpenAIRateLimitException("OpenAI rate limit exceeded", Duration.ofSeconds(20));
+        }));
+        OpenAICommunicationException unavailable = assertThrows(OpenAICommunicationException.class,
+                () -> router.execute(request("gpt-4o"), null, null, (request, remaining) -> null));
+        openai.outcomes.add(unavailable);
+
+        assertTrue(unavailable.isTransient());
+        assertEquals("anthropic", service.chat(new ChatRequest().user("Hi")).getProvider());
+        assertEquals(List.of("openai", "anthropic"), calls);
+    }
+
+    @Test
+    void testRejectsUnavailableProvider() {
+        FailoverConfigProperties properties = new FailoverConfigProperties();
+        properties.setProviders(List.of("openai", "mistral"));
+
+        assertThrows(IllegalArgumentException.class, () -> failover(properties));
+    }
+
+    @Test
+    void testFailsOverFromOpenAIToAnthropicOverHttp() {
+        try (OpenAIStubServer server = OpenAIStubServer.start().content("Paris is the capital of France.")) {
+            OpenAIService openAIService = server.createService(server.properties());
+            AnthropicService anthropicService = server.createAnthropicService(server.anthropicProperties());
+            FailoverAIService service = new FailoverAIService(List.of(openAIService, anthropicService), new FailoverConfigProperties());
+            server.enqueue(StubOutcome.serverError(503));
+
+            ChatResponse response = service.chat(new ChatRequest().user("What is the capital of France?"));
+
+            assertEquals("anthropic", response.getProvider());
+            assertEquals("Paris is the capital of France.", response.getContent());
+            assertEquals(List.of(OpenAIStubServer.CHAT_COMPLETIONS_PATH, OpenAIStubServer.MESSAGES_PATH),
+                    server.getRequests().stream().map(RecordedRequest::getPath).toList());
+        }
+    }
+
+    private static OpenAIRequest request(String model) {
+        Message user = new Message();
+        user.setRole("user");
+        user.setContent("Hi");
+        OpenAIRequest request = new OpenAIRequest();
+        request.setModel(model);
+        request.setMaxTokens(500);
+        request.setMessages(List.of(user));
+        return request;
+    }
+
+    private static List<String> names(List<ProviderRoute> plan) {
+        return plan.stream().map(ProviderRoute::getName).toList();
+    }
+
+    /**
+     * A provider answering after a fixed latency on the test clock, or with the queued failures.
+     */
+    private final class FakeProvider extends AbstractAIService {
+
+        private final String name;
+        private final Queue<RuntimeException> outcomes = new ArrayDeque<>();
+        private Duration latency = Duration.ZERO;
+        private boolean partialStream;
+
+        FakeProvider(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getProviderName() {
+            return name;
+        }
+
+        @Override
+        protected ChatResponse doChat(ChatRequest request) {
+            calls.add(name);
+            clock.addAndGet(latency.toNanos());
+            RuntimeException failure = outcomes.poll();
+            if (failure != null) {
+                throw failure;
+            }
+            return new ChatResponse(name, name + "-model", "Hello from " + name, ChatResponse.FINISH_STOP, 3, 3);
+        }
+
+        @Override
+        protected ChatResponse doStreamChat(ChatRequest request, ChatStreamListener listener) {
+            try {
+                if (partialStream) {
+                    listener.onDelta("Hello");
+                }
+                ChatResponse response = doChat(request);
+                listener.onDelta(response.getContent());
+                return response;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
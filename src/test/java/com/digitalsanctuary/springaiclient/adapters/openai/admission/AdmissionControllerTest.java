@@ -0,0 +1,156 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIOverloadedException;
+
+class AdmissionControllerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicLong clock = new AtomicLong();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testLimitsConcurrencyAndHandsOverPermits() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("gpt-4o", 2, 10, Duration.ofSeconds(10), Duration.ofSeconds(1));
+        Bulkhead.Permit first = bulkhead.acquire(Priority.STANDARD, null);
+        Bulkhead.Permit second = bulkhead.acquire(Priority.STANDARD, null);
+
+        Future<Bulkhead.Permit> third = executor.submit(() -> bulkhead.acquire(Priority.STANDARD, null));
+        awaitQueued(bulkhead, 1);
+        assertEquals(2, bulkhead.getActive());
+        first.close();
+        first.close();
+
+        third.get(5, TimeUnit.SECONDS).close();
+        assertEquals(1, bulkhead.getActive());
+        second.close();
+        assertEquals(0, bulkhead.getActive());
+        assertEquals(0, bulkhead.getQueued());
+    }
+
+    @Test
+    void testAdmitsByPriorityWithAging() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("gpt-4o", 1, 10, Duration.ofSeconds(10), Duration.ofNanos(100), clock::get);
+        Bulkhead.Permit running = bulkhead.acquire(Priority.INTERACTIVE, null);
+        List<String> admitted = new CopyOnWriteArrayList<>();
+        List<Future<?>> waiters = new CopyOnWriteArrayList<>();
+
+        waiters.add(enqueue(bulkhead, Priority.BACKGROUND, "background", admitted));
+        awaitQueued(bulkhead, 1);
+        clock.set(50);
+        waiters.add(enqueue(bulkhead, Priority.STANDARD, "standard", admitted));
+        awaitQueued(bulkhead, 2);
+        clock.set(60);
+        waiters.add(enqueue(bulkhead, Priority.INTERACTIVE, "interactive", admitted));
+        awaitQueued(bulkhead, 3);
+        clock.set(500);
+        waiters.add(enqueue(bulkhead, Priority.INTERACTIVE, "late interactive", admitted));
+        awaitQueued(bulkhead, 4);
+        running.close();
+        for (Future<?> waiter : waiters) {
+            waiter.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of("interactive", "standard", "background", "late interactive"), admitted);
+        assertEquals(0, bulkhead.getActive());
+    }
+
+    @Test
+    void testShedsWhenQueueIsFullOrWaitExceedsDeadline() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("gpt-4o", 1, 1, Duration.ofSeconds(10), Duration.ofSeconds(1), clock::get);
+        Bulkhead.Permit warmup = bulkhead.acquire(Priority.STANDARD, null);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        warmup.close();
+        Bulkhead.Permit running = bulkhead.acquire(Priority.STANDARD, null);
+
+        OpenAIOverloadedException tooSlow = assertThrows(OpenAIOverloadedException.class,
+                () -> bulkhead.acquire(Priority.INTERACTIVE, Duration.ofMillis(1500)));
+        assertEquals("gpt-4o", tooSlow.getPool());
+        assertEquals(Duration.ofSeconds(1), tooSlow.getExpectedWait());
+
+        Future<Bulkhead.Permit> queued = executor.submit(() -> bulkhead.acquire(Priority.BACKGROUND, Duration.ofSeconds(5)));
+        awaitQueued(bulkhead, 1);
+        assertThrows(OpenAIOverloadedException.class, () -> bulkhead.acquire(Priority.INTERACTIVE, null));
+        running.close();
+        queued.get(5, TimeUnit.SECONDS).close();
+
+        assertEquals(2, bulkhead.getShedCount());
+        assertEquals(0, bulkhead.getActive());
+    }
+
+    @Test
+    void testShedsQueuedRequestWhenDeadlinePasses() {
+        Bulkhead bulkhead = new Bulkhead("gpt-4o", 1, 10, Duration.ofSeconds(10), Duration.ofSeconds(1));
+        try (Bulkhead.Permit running = bulkhead.acquire(Priority.STANDARD, null)) {
+            long started = System.nanoTime();
+            assertThrows(OpenAIOverloadedException.class, () -> bulkhead.acquire(Priority.INTERACTIVE, Duration.ofMillis(50)));
+            assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(50));
+            assertEquals(0, bulkhead.getQueued());
+        }
+        assertEquals(0, bulkhead.getActive());
+    }
+
+    @Test
+    void testAssignsModelsToPools() {
+        OpenAIConfigProperties.Admission settings = new OpenAIConfigProperties.Admission();
+        OpenAIConfigProperties.Admission.PoolSettings small = new OpenAIConfigProperties.Admission.PoolSettings();
+        small.setName("small");
+        small.setModels(List.of("gpt-4o-mini", "gpt-4.1-nano"));
+        small.setMaxConcurrency(1);
+        settings.getPools().add(small);
+        AdmissionController controller = new AdmissionController(settings);
+
+        assertSame(controller.bulkhead("gpt-4o-mini"), controller.bulkhead("gpt-4.1-nano"));
+        assertEquals("small", controller.bulkhead("gpt-4o-mini").getName());
+        assertNotSame(controller.bulkhead("gpt-4o"), controller.bulkhead("o3"));
+        assertSame(controller.bulkhead("gpt-4o"), controller.bulkhead("gpt-4o"));
+        assertEquals("default", controller.bulkhead(null).getName());
+        assertEquals(4, controller.getBulkheads().size());
+        try (Bulkhead.Permit permit = controller.acquire("gpt-4o-mini", Priority.STANDARD, null)) {
+            assertThrows(OpenAIOverloadedException.class, () -> controller.acquire("gpt-4.1-nano", Priority.INTERACTIVE, Duration.ofMillis(10)));
+            controller.acquire("gpt-4o", Priority.STANDARD, null).close();
+        }
+
+        OpenAIConfigProperties.Admission.PoolSettings rest = new OpenAIConfigProperties.Admission.PoolSettings();
+        rest.setName("rest");
+        settings.getPools().add(rest);
+        assertEquals("rest", new AdmissionController(settings).bulkhead("gpt-4o").getName());
+        small.setModels(List.of("gpt-4o-mini", "gpt-4o-mini"));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionController(settings));
+    }
+
+    private Future<?> enqueue(Bulkhead bulkhead, Priority priority, String label, List<String> admitted) {
+        return executor.submit(() -> {
+            try (Bulkhead.Permit permit = bulkhead.acquire(priority, null)) {
+                admitted.add(label);
+            }
+        });
+    }
+
+    private static void awaitQueued(Bulkhead bulkhead, int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getQueued() < queued) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for " + queued + " queued requests");
+            Thread.sleep(1);
+        }
+    }
+}
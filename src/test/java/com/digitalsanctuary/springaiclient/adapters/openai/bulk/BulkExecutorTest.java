@@ -0,0 +1,102 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIServerException;
+
+class BulkExecutorTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testDeliversInInputOrderWithBoundedConcurrency() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        BulkExecutor bulk = new BulkExecutor((request, options) -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                // Later requests finish first, forcing results to be reordered.
+                Thread.sleep(Math.max(0, 20 - request.getMaxTokens()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return response(10);
+        }, executor);
+        List<Long> indexes = new ArrayList<>();
+
+        BulkProgress summary = bulk.run(requests(50).iterator(), new BulkOptions().maxConcurrency(4), result -> indexes.add(result.getIndex()));
+
+        assertEquals(LongStream.range(0, 50).boxed().toList(), indexes);
+        assertTrue(maxInFlight.get() <= 4);
+        assertEquals(50, summary.getSucceeded());
+        assertEquals(500, summary.getUsage().getTotalTokens());
+    }
+
+    @Test
+    void testCapturesFailuresWithoutAbortingTheRun() {
+        BulkExecutor bulk = new BulkExecutor((request, options) -> {
+            if (request.getMaxTokens() % 2 == 0) {
+                throw new OpenAIServerException("unavailable", 503, null);
+            }
+            return response(1);
+        }, executor);
+        List<BulkItemResult> results = new ArrayList<>();
+
+        BulkProgress summary = bulk.run(requests(10).iterator(), new BulkOptions().order(BulkOrder.COMPLETION), results::add);
+
+        assertEquals(10, results.size());
+        assertEquals(5, summary.getFailed());
+        assertEquals(5, summary.getSucceeded());
+        results.forEach(result -> assertEquals(result.getIndex() % 2 != 0, result.isSuccess()));
+        assertFalse(results.stream().anyMatch(result -> !result.isSuccess() && result.getError() == null));
+    }
+
+    @Test
+    void testReportsProgress() {
+        BulkExecutor bulk = new BulkExecutor((request, options) -> response(1), executor);
+        List<Long> reports = new ArrayList<>();
+
+        bulk.run(requests(30).iterator(), new BulkOptions().progressInterval(10).progressListener(progress -> reports.add(progress.getCompleted())),
+                result -> {
+                });
+
+        assertEquals(List.of(10L, 20L, 30L, 30L), reports);
+    }
+
+    private static List<OpenAIRequest> requests(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            OpenAIRequest request = new OpenAIRequest();
+            request.setMaxTokens(i);
+            return request;
+        }).toList();
+    }
+
+    private static OpenAIResponse response(int tokens) {
+        Usage usage = new Usage();
+        usage.setTotalTokens(tokens);
+        OpenAIResponse response = new OpenAIResponse();
+        response.setUsage(usage);
+        return response;
+    }
+}
@@ -0,0 +1,165 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIServerException;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import tools.jackson.databind.JsonNode;
+
+class DurableJobQueueTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSendsEachItemOnceAcrossRestarts() throws IOException {
+        Map<Integer, AtomicInteger> sent = new ConcurrentHashMap<>();
+        AtomicInteger failing = new AtomicInteger(1);
+        BulkExecutor bulk = new BulkExecutor((request, options) -> {
+            sent.computeIfAbsent(request.getMaxTokens(), i -> new AtomicInteger()).incrementAndGet();
+            if (request.getMaxTokens() % 5 == 0 && failing.get() > 0) {
+                throw new OpenAIServerException("unavailable", 503, null);
+            }
+            return response(request.getMaxTokens());
+        }, executor);
+
+        try (DurableJobQueue queue = DurableJobQueue.open(directory, new JobQueueOptions().groupCommitSize(8))) {
+            assertEquals(50, queue.enqueue(items(50)));
+            BulkProgress first = queue.run(bulk, new BulkOptions().maxConcurrency(4));
+            assertEquals(40, first.getSucceeded());
+            assertEquals(10, first.getFailed());
+            assertEquals(10, queue.getPendingCount());
+        }
+
+        failing.set(0);
+        try (DurableJobQueue queue = DurableJobQueue.open(directory, new JobQueueOptions().groupCommitSize(8))) {
+            assertEquals(0, queue.enqueue(items(50)));
+            assertEquals(10, queue.getPendingCount());
+            BulkProgress second = queue.run(bulk, new BulkOptions().maxConcurrency(4));
+            assertEquals(10, second.getSucceeded());
+            assertEquals(0, queue.getPendingCount());
+            assertEquals(0, queue.run(bulk, new BulkOptions()).getSubmitted());
+        }
+
+        Map<String, JsonNode> output = output();
+        assertEquals(50, output.size());
+        assertEquals(17, output.get("row-17").path("response").path("usage").path("total_tokens").asInt());
+        sent.forEach((i, count) -> assertEquals(i % 5 == 0 ? 2 : 1, count.get()));
+    }
+
+    @Test
+    void testDiscardsUncommittedOutputAndTornJournal() throws IOException {
+        BulkExecutor bulk = new BulkExecutor((request, options) -> response(request.getMaxTokens()), executor);
+        try (DurableJobQueue queue = DurableJobQueue.open(directory, new JobQueueOptions())) {
+            queue.enqueue(items(5));
+            queue.run(bulk, new BulkOptions());
+        }
+        Files.writeString(directory.resolve(DurableJobQueue.OUTPUT_FILE), "{\"id\":\"row-9\",\"resp", StandardOpenOption.APPEND);
+        Files.writeString(lastSegment(), "{\"op\":\"out\",\"id\":\"row-", StandardOpenOption.APPEND);
+
+        try (DurableJobQueue queue = DurableJobQueue.open(directory, new JobQueueOptions())) {
+            assertEquals(5, queue.getCompletedCount());
+            assertEquals(1, queue.enqueue(items(6)));
+            assertEquals(1, queue.run(bulk, new BulkOptions()).getSucceeded());
+        }
+
+        Map<String, JsonNode> output = output();
+        assertEquals(6, output.size());
+        assertTrue(output.containsKey("row-5"));
+    }
+
+    @Test
+    void testWritesErrorOnceAttemptsAreExhausted() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+        BulkExecutor bulk = new BulkExecutor((request, options) -> {
+            if (request.getMaxTokens() == 2) {
+                attempts.incrementAndGet();
+                throw new OpenAIServerException("unavailable", 503, null);
+            }
+            return response(request.getMaxTokens());
+        }, executor);
+        JobQueueOptions options = new JobQueueOptions().maxAttempts(2).segmentSize(512).groupCommitSize(1);
+
+        try (DurableJobQueue queue = DurableJobQueue.open(directory, options)) {
+            queue.enqueue(items(20));
+            queue.run(bulk, new BulkOptions());
+            assertEquals(1, queue.getPendingCount());
+        }
+        try (DurableJobQueue queue = DurableJobQueue.open(directory, options)) {
+            queue.run(bulk, new BulkOptions());
+            assertEquals(0, queue.getPendingCount());
+            assertEquals(0, queue.run(bulk, new BulkOptions()).getSubmitted());
+        }
+
+        assertEquals(2, attempts.get());
+        Map<String, JsonNode> output = output();
+        assertEquals(20, output.size());
+        assertEquals("unavailable", output.get("row-2").path("error").asString());
+        try (Stream<Path> segments = Files.list(directory.resolve("journal"))) {
+            assertTrue(segments.count() > 1);
+        }
+    }
+
+    private Map<String, JsonNode> output() throws IOException {
+        Map<String, JsonNode> lines = new HashMap<>();
+        for (String line : Files.readAllLines(directory.resolve(DurableJobQueue.OUTPUT_FILE), StandardCharsets.UTF_8)) {
+            JsonNode node = ProviderJson.mapper().readTree(line);
+            assertNull(lines.put(node.path("id").asString(), node), "duplicate output line");
+        }
+        return lines;
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> segments = Files.list(directory.resolve("journal"))) {
+            return segments.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+    }
+
+    private static Iterator<JobItem> items(int count) {
+        List<JobItem> items = IntStream.range(0, count).mapToObj(i -> {
+            OpenAIRequest request = new OpenAIRequest();
+            request.setModel("gpt-4o");
+            request.setMaxTokens(i);
+            return new JobItem("row-" + i, request);
+        }).toList();
+        return items.iterator();
+    }
+
+    private static OpenAIResponse response(int tokens) {
+        Usage usage = new Usage();
+        usage.setTotalTokens(tokens);
+        OpenAIResponse response = new OpenAIResponse();
+        response.setModel("gpt-4o");
+        response.setUsage(usage);
+        return response;
+    }
+}
@@ -0,0 +1,199 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Choice;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.RequestBuilder;
+
+class DiskResponseCacheTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void testServesResponsesAfterReopen() {
+        RequestFingerprint a = RequestFingerprint.of(request("a"));
+        RequestFingerprint b = RequestFingerprint.of(request("b"));
+        try (DiskResponseCache cache = open(1024 * 1024, 4 * 1024 * 1024)) {
+            cache.put(a, response("Paris is the capital of France."));
+            cache.put(b, response("Berlin"));
+            cache.put(b, response("Berlin is the capital of Germany."));
+        }
+
+        try (DiskResponseCache cache = open(1024 * 1024, 4 * 1024 * 1024)) {
+            OpenAIResponse cached = cache.get(a);
+            assertEquals("Paris is the capital of France.", cached.getMessage());
+            assertEquals("gpt-4o", cached.getModel());
+            assertEquals(42, cached.getUsage().getTotalTokens());
+            assertEquals("Berlin is the capital of Germany.", cache.get(b).getMessage());
+            assertNull(cache.get(RequestFingerprint.of(request("c"))));
+            assertEquals(2, cache.stats().getEntries());
+            assertEquals(2, cache.stats().getHits());
+            assertEquals(1, cache.stats().getMisses());
+        }
+    }
+
+    @Test
+    void testDiscardsTornRecordOnRecovery() throws IOException {
+        RequestFingerprint a = RequestFingerprint.of(request("a"));
+        RequestFingerprint b = RequestFingerprint.of(request("b"));
+        RequestFingerprint c = RequestFingerprint.of(request("c"));
+        try (DiskResponseCache cache = open(1024 * 1024, 4 * 1024 * 1024)) {
+            cache.put(a, response("first"));
+            cache.put(b, response("torn"));
+        }
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        int torn = indexOf(bytes, "torn".getBytes(StandardCharsets.UTF_8));
+        bytes[torn] = 'x';
+        Files.write(segment, bytes);
+
+        try (DiskResponseCache cache = open(1024 * 1024, 4 * 1024 * 1024)) {
+            assertEquals("first", cache.get(a).getMessage());
+            assertNull(cache.get(b));
+            cache.put(c, response("short"));
+        }
+        try (DiskResponseCache cache = open(1024 * 1024, 4 * 1024 * 1024)) {
+            assertEquals("first", cache.get(a).getMessage());
+            assertEquals("short", cache.get(c).getMessage());
+            assertEquals(2, cache.stats().getEntries());
+        }
+    }
+
+    @Test
+    void testCompactsOverwrittenSegments() throws IOException {
+        RequestFingerprint key = RequestFingerprint.of(request("a"));
+        try (DiskResponseCache cache = open(1024, 64 * 1024)) {
+            for (int i = 0; i < 50; i++) {
+                cache.put(key, response("answer " + i));
+            }
+
+            assertEquals("answer 49", cache.get(key).getMessage());
+            assertEquals(1, cache.stats().getEntries());
+            assertTrue(cache.stats().getBytes() <= 2 * 1024);
+            assertTrue(segments().size() <= 2);
+        }
+    }
+
+    @Test
+    void testDropsOldestSegmentsAndExpiresEntries() {
+        try (DiskResponseCache cache = open(1024, 2 * 1024)) {
+            for (int i = 0; i < 40; i++) {
+                cache.put(RequestFingerprint.of(request("prompt " + i)), response("answer " + i));
+            }
+
+            assertNull(cache.get(RequestFingerprint.of(request("prompt 0"))));
+            assertEquals("answer 39", cache.get(RequestFingerprint.of(request("prompt 39"))).getMessage());
+            assertTrue(cache.stats().getBytes() <= 2 * 1024);
+            assertEquals(40, cache.stats().getEntries() + cache.stats().getEvictions());
+
+            clock.instant = NOW.plus(Duration.ofMinutes(5));
+            assertNull(cache.get(RequestFingerprint.of(request("prompt 39"))));
+        }
+    }
+
+    @Test
+    void testIndexKeepsProbeChainsOnRemoval() {
+        OffHeapIndex index = new OffHeapIndex(16);
+        for (long key = 1; key <= 5000; key++) {
+            assertEquals(-1, index.put(key, key * 10));
+        }
+        for (long key = 1; key <= 5000; key += 2) {
+            assertEquals(key * 10, index.remove(key));
+        }
+
+        assertEquals(2500, index.size());
+        for (long key = 1; key <= 5000; key++) {
+            assertEquals(key % 2 == 0 ? key * 10 : -1, index.get(key));
+        }
+        assertEquals(20, index.put(2, 21));
+        assertEquals(21, index.get(2));
+    }
+
+    private DiskResponseCache open(long segmentSize, long maxBytes) {
+        return new DiskResponseCache(directory, segmentSize, maxBytes, Duration.ofMinutes(5), 0.5, clock);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target) {
+        for (int i = 0; i <= bytes.length - target.length; i++) {
+            int j = 0;
+            while (j < target.length && bytes[i + j] == target[j]) {
+                j++;
+            }
+            if (j == target.length) {
+                return i;
+            }
+        }
+        throw new AssertionError("Bytes not found");
+    }
+
+    private static OpenAIRequest request(String userMessage) {
+        return new RequestBuilder().model("gpt-4o").outputTokens(100).systemPrompt("You are a helpful assistant.").userMessage(userMessage).build();
+    }
+
+    private static OpenAIResponse response(String content) {
+        Message message = new Message();
+        message.setRole("assistant");
+        message.setContent(content);
+        Choice choice = new Choice();
+        choice.setMessage(message);
+        choice.setFinishReason("stop");
+        Usage usage = new Usage();
+        usage.setPromptTokens(30);
+        usage.setCompletionTokens(12);
+        usage.setTotalTokens(42);
+        OpenAIResponse response = new OpenAIResponse();
+        response.setId("chatcmpl-1");
+        response.setModel("gpt-4o");
+        response.setChoices(List.of(choice));
+        response.setUsage(usage);
+        return response;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant = NOW;
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
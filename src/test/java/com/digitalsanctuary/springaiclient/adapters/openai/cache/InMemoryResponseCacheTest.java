@@ -0,0 +1,156 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Choice;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.RequestBuilder;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+
+class InMemoryResponseCacheTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void testFingerprintIsStableForEqualRequests() {
+        OpenAIRequest first = request("What is the capital of France?");
+        OpenAIRequest second = request("What is the capital of France?");
+
+        assertEquals(RequestFingerprint.of(first), RequestFingerprint.of(second));
+        assertEquals(RequestFingerprint.of(first).toHex(), RequestFingerprint.fromBytes(RequestFingerprint.of(second).toBytes()).toHex());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedEntry() {
+        InMemoryResponseCache cache = new InMemoryResponseCache(2, 1_000_000, Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+        RequestFingerprint a = RequestFingerprint.of(request("a"));
+        RequestFingerprint b = RequestFingerprint.of(request("b"));
+        RequestFingerprint c = RequestFingerprint.of(request("c"));
+        OpenAIResponse responseA = response("A");
+
+        cache.put(a, responseA);
+        cache.put(b, response("B"));
+        assertSame(responseA, cache.get(a));
+        cache.put(c, response("C"));
+
+        assertNotNull(cache.get(a));
+        assertNull(cache.get(b));
+        assertNotNull(cache.get(c));
+        assertEquals(1, cache.stats().getEvictions());
+        assertEquals(3, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    @Test
+    void testStaysWithinByteBound() {
+        long maxBytes = InMemoryResponseCache.estimateBytes(response("x".repeat(1000))) * 2;
+        InMemoryResponseCache cache = new InMemoryResponseCache(100, maxBytes, null, Clock.systemUTC());
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(RequestFingerprint.of(request("prompt " + i)), response("x".repeat(1000)));
+        }
+
+        assertEquals(2, cache.stats().getEntries());
+        assertEquals(8, cache.stats().getEvictions());
+        cache.put(RequestFingerprint.of(request("huge")), response("x".repeat(100_000)));
+        assertEquals(2, cache.stats().getEntries());
+    }
+
+    @Test
+    void testCountsLogprobsAndUsageAgainstByteBound() {
+        OpenAIResponse plain = response("x".repeat(1000));
+        OpenAIResponse withLogprobs = withLogprobs(response("x".repeat(1000)), 1000);
+        long logprobBytes = InMemoryResponseCache.estimateBytes(withLogprobs);
+        assertTrue(logprobBytes > 20 * InMemoryResponseCache.estimateBytes(plain));
+        OpenAIResponse bound = response("x".repeat(1000));
+        bound.getChoices().get(0).setLogprobs(ProviderJson.mapper().convertValue(withLogprobs.getChoices().get(0).getLogprobs(), Object.class));
+        assertTrue(InMemoryResponseCache.estimateBytes(bound) > 20 * InMemoryResponseCache.estimateBytes(plain));
+
+        InMemoryResponseCache cache = new InMemoryResponseCache(100, logprobBytes * 3, null, Clock.systemUTC());
+        for (int i = 0; i < 10; i++) {
+            cache.put(RequestFingerprint.of(request("prompt " + i)), withLogprobs(response("x".repeat(1000)), 1000));
+        }
+
+        assertEquals(3, cache.stats().getEntries());
+        assertEquals(7, cache.stats().getEvictions());
+        assertTrue(cache.stats().getBytes() <= logprobBytes * 3);
+    }
+
+    @Test
+    void testExpiresEntriesAfterTtl() {
+        MutableClock clock = new MutableClock();
+        InMemoryResponseCache cache = new InMemoryResponseCache(10, 1_000_000, Duration.ofMinutes(5), clock);
+        RequestFingerprint key = RequestFingerprint.of(request("a"));
+
+        cache.put(key, response("A"));
+        clock.instant = NOW.plus(Duration.ofMinutes(4));
+        assertNotNull(cache.get(key));
+        clock.instant = NOW.plus(Duration.ofMinutes(5));
+        assertNull(cache.get(key));
+        assertEquals(1, cache.stats().getExpirations());
+        assertEquals(0, cache.stats().getEntries());
+    }
+
+    private static OpenAIRequest request(String userMessage) {
+        return new RequestBuilder().model("gpt-4o").outputTokens(100).systemPrompt("You are a helpful assistant.").userMessage(userMessage).build();
+    }
+
+    private static OpenAIResponse response(String content) {
+        Message message = new Message();
+        message.setRole("assistant");
+        message.setContent(content);
+        Choice choice = new Choice();
+        choice.setMessage(message);
+        OpenAIResponse response = new OpenAIResponse();
+        response.setChoices(List.of(choice));
+        return response;
+    }
+
+    /**
+     * Adds usage and the logprobs of the given number of tokens, as read by the codec, to a response.
+     */
+    private static OpenAIResponse withLogprobs(OpenAIResponse response, int tokens) {
+        StringBuilder json = new StringBuilder("{\"content\":[");
+        for (int i = 0; i < tokens; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"token\":\"x\",\"logprob\":-0.01,\"bytes\":[120],\"top_logprobs\":[")
+                    .append("{\"token\":\"x\",\"logprob\":-0.01,\"bytes\":[120]},{\"token\":\"y\",\"logprob\":-4.6,\"bytes\":[121]}]}");
+        }
+        response.getChoices().get(0).setLogprobs(ProviderJson.mapper().readTree(json.append("]}").toString()));
+        Usage usage = new Usage();
+        usage.setCompletionTokens(tokens);
+        response.setUsage(usage);
+        return response;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant = NOW;
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIServerException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAITimeoutException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.RequestBuilder;
+
+class RequestCoalescerTest {
+
+    private static final RequestFingerprint FINGERPRINT = RequestFingerprint.of(request());
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testFollowersShareTheLeadersResponse() throws Exception {
+        OpenAIResponse response = new OpenAIResponse();
+        CountDownLatch release = new CountDownLatch(1);
+        Future<OpenAIResponse> leader = lead(() -> {
+            await(release);
+            return response;
+        });
+        Future<OpenAIResponse> follower = follow(Duration.ofSeconds(10), OpenAIResponse::new);
+        awaitFollowers(1);
+
+        release.countDown();
+
+        assertSame(response, leader.get(5, TimeUnit.SECONDS));
+        assertSame(response, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, coalescer.getLeaderCount());
+        assertEquals(0, coalescer.getInFlight());
+    }
+
+    @Test
+    void testFollowersShareTheLeadersFailure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<OpenAIResponse> leader = lead(() -> {
+            await(release);
+            throw new OpenAIServerException("OpenAI returned HTTP status 503", 503, null);
+        });
+        List<Future<OpenAIResponse>> followers = List.of(follow(Duration.ofSeconds(10), OpenAIResponse::new),
+                follow(Duration.ofSeconds(10), OpenAIResponse::new));
+        awaitFollowers(2);
+
+        release.countDown();
+
+        assertInstanceOf(OpenAIServerException.class, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        for (Future<OpenAIResponse> follower : followers) {
+            assertInstanceOf(OpenAIServerException.class, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+        }
+        assertEquals(1, coalescer.getLeaderCount());
+    }
+
+    @Test
+    void testCancelledLeaderHandsOverToFollower() throws Exception {
+        Future<OpenAIResponse> leader = lead(() -> {
+            try {
+                Thread.sleep(30_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OpenAICommunicationException("Interrupted while waiting for OpenAI", e);
+            }
+            return new OpenAIResponse();
+        });
+        OpenAIResponse response = new OpenAIResponse();
+        Future<OpenAIResponse> follower = follow(Duration.ofSeconds(10), () -> response);
+        awaitFollowers(1);
+
+        leader.cancel(true);
+
+        assertThrows(CancellationException.class, leader::get);
+        assertSame(response, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(2, coalescer.getLeaderCount());
+    }
+
+    @Test
+    void testFollowerWaitIsBoundedByItsOwnTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OpenAIResponse response = new OpenAIResponse();
+        Future<OpenAIResponse> leader = lead(() -> {
+            await(release);
+            return response;
+        });
+        long start = System.nanoTime();
+        Future<OpenAIResponse> follower = follow(Duration.ofMillis(100), OpenAIResponse::new);
+
+        assertInstanceOf(OpenAITimeoutException.class, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+
+        release.countDown();
+        assertSame(response, leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCallsWithDifferentOptionsAreNotShared() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<OpenAIResponse> leader = lead(() -> {
+            await(release);
+            return new OpenAIResponse();
+        });
+        OpenAIResponse response = new OpenAIResponse();
+
+        assertSame(response, coalescer.execute(FINGERPRINT, List.of("other"), null, () -> response));
+
+        release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+        assertEquals(2, coalescer.getLeaderCount());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    /**
+     * Starts a call leading the coalesced calls and waits until it is in flight.
+     */
+    private Future<OpenAIResponse> lead(Supplier<OpenAIResponse> call) throws InterruptedException {
+        Future<OpenAIResponse> leader = executor.submit(() -> coalescer.execute(FINGERPRINT, List.of("options"), null, call));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.getLeaderCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return leader;
+    }
+
+    private Future<OpenAIResponse> follow(Duration timeout, Supplier<OpenAIResponse> call) {
+        return executor.submit(() -> coalescer.execute(FINGERPRINT, List.of("options"), timeout, call));
+    }
+
+    private void awaitFollowers(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.getCoalescedCount() < followers && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        // The count is taken just before a follower starts waiting
+        Thread.sleep(50);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static OpenAIRequest request() {
+        return new RequestBuilder().model("gpt-4o").outputTokens(100).userMessage("What is the capital of France?").build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChunk;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamOptions;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.RequestBuilder;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+
+class OpenAICodecTest {
+
+    private static final String RESPONSE = """
+            {
+              "id": "chatcmpl-1",
+              "object": "chat.completion",
+              "created": 1700000000,
+              "model": "gpt-4o-2024-08-06",
+              "choices": [{
+                "index": 0,
+                "message": {"role": "assistant", "content": "Paris \\"city\\"", "refusal": null, "annotations": []},
+                "logprobs": {"content": [{"token": "Paris", "logprob": -0.01, "bytes": [80, 97], "top_logprobs": []}]},
+                "finish_reason": "stop"
+              }],
+              "usage": {"prompt_tokens": 12, "completion_tokens": 3, "total_tokens": 15, "prompt_tokens_details": {"cached_tokens": 0}},
+              "service_tier": "default",
+              "system_fingerprint": "fp_1"
+            }
+            """;
+
+    @Test
+    void testWritesRequestLikeDataBinding() {
+        OpenAIRequest request = new RequestBuilder().model("gpt-4o").outputTokens(100).systemPrompt("Be brief.").userMessage("Say \"hi\" é").build();
+        request.setStream(true);
+        StreamOptions streamOptions = new StreamOptions();
+        streamOptions.setIncludeUsage(true);
+        request.setStreamOptions(streamOptions);
+
+        byte[] json = new OpenAICodec(false, false).writeRequest(request);
+
+        assertEquals(ProviderJson.mapper().readTree(ProviderJson.mapper().writeValueAsBytes(request)), ProviderJson.mapper().readTree(json));
+        assertEquals(request, ProviderJson.mapper().readValue(json, OpenAIRequest.class));
+    }
+
+    @Test
+    void testReadsResponseSkippingOptionalProperties() {
+        OpenAIResponse response = new OpenAICodec(false, false).readResponse(RESPONSE.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("chatcmpl-1", response.getId());
+        assertEquals(1700000000L, response.getCreated());
+        assertEquals("Paris \"city\"", response.getMessage());
+        assertEquals("stop", response.getChoices().get(0).getFinishReason());
+        assertEquals(15, response.getUsage().getTotalTokens());
+        assertNull(response.getChoices().get(0).getLogprobs());
+        assertNull(response.getSystemFingerprint());
+    }
+
+    @Test
+    void testReadsOptionalPropertiesWhenIncluded() {
+        OpenAIResponse response = new OpenAICodec(true, true).readResponse(RESPONSE.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("fp_1", response.getSystemFingerprint());
+        JsonNode logprobs = (JsonNode) response.getChoices().get(0).getLogprobs();
+        assertEquals("Paris", logprobs.path("content").path(0).path("token").asString());
+    }
+
+    @Test
+    void testReadsSystemFingerprintByDefault() {
+        OpenAIResponse response = new OpenAICodec(new OpenAIConfigProperties.Codec()).readResponse(RESPONSE.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("fp_1", response.getSystemFingerprint());
+        assertNull(response.getChoices().get(0).getLogprobs());
+    }
+
+    @Test
+    void testReadsStreamChunks() {
+        StreamChunk chunk = new OpenAICodec(false, false).readStreamChunk(
+                "{\"id\":\"c\",\"choices\":[{\"index\":1,\"delta\":{\"content\":\"Hel\"},\"finish_reason\":null}],\"usage\":null}");
+
+        assertEquals(1, chunk.getChoices().get(0).getIndex());
+        assertEquals("Hel", chunk.getChoices().get(0).getDelta().getContent());
+        assertNull(chunk.getUsage());
+        assertTrue(new OpenAICodec(false, false).readStreamChunk("{\"choices\":[],\"usage\":{\"total_tokens\":7}}").getChoices().isEmpty());
+    }
+
+    @Test
+    void testRejectsMalformedInput() {
+        assertThrows(JacksonException.class, () -> new OpenAICodec(false, false).readResponse("[1]".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(JacksonException.class, () -> new OpenAICodec(false, false).readResponse("{\"id\": ".getBytes(StandardCharsets.UTF_8)));
+    }
+}
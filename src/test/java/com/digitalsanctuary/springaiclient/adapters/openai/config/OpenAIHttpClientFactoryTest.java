@@ -0,0 +1,102 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.Closeable;
+import java.time.Duration;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIService;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.OpenAIStubServer;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.StubLatency;
+
+/**
+ * Tests the transports created by {@link OpenAIHttpClientFactory} against the {@link OpenAIStubServer}.
+ */
+class OpenAIHttpClientFactoryTest {
+
+    private final OpenAIStubServer server = OpenAIStubServer.start().content("Paris is the capital of France.");
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @ParameterizedTest
+    @EnumSource(OpenAIConfigProperties.Transport.class)
+    void testSendsRequestOverEveryTransport(OpenAIConfigProperties.Transport transport) {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getHttp().setTransport(transport);
+
+        OpenAIService service = server.createService(properties);
+
+        assertEquals("Paris is the capital of France.", service.sendRequest("What is the capital of France?").getMessage());
+        assertEquals("Paris is the capital of France.", service.sendRequest("What is the capital of France?").getMessage());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @ParameterizedTest
+    @EnumSource(OpenAIConfigProperties.Transport.class)
+    void testAppliesReadTimeoutOnEveryTransport(OpenAIConfigProperties.Transport transport) {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getHttp().setTransport(transport);
+        properties.getHttp().setReadTimeout(Duration.ofMillis(200));
+        OpenAIService service = server.createService(properties);
+        server.latency(StubLatency.fixed(Duration.ofSeconds(5)));
+
+        long start = System.nanoTime();
+        assertThrows(OpenAICommunicationException.class, () -> service.sendRequest("What is the capital of France?"));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(3)) < 0);
+    }
+
+    @Test
+    void testCreatesTheConfiguredFactory() {
+        OpenAIConfigProperties.Http http = new OpenAIConfigProperties.Http();
+        assertInstanceOf(JdkClientHttpRequestFactory.class, OpenAIHttpClientFactory.create(http));
+
+        http.setTransport(OpenAIConfigProperties.Transport.APACHE);
+        assertInstanceOf(HttpComponentsClientHttpRequestFactory.class, OpenAIHttpClientFactory.create(http));
+    }
+
+    @Test
+    void testApacheKeepAliveHonorsServerHeader() {
+        OpenAIConfigProperties.Http http = new OpenAIConfigProperties.Http();
+        http.setKeepAlive(Duration.ofSeconds(30));
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(OpenAIHttpClientFactory.ApacheTransport.requestConfig(http));
+
+        BasicHttpResponse withHeader = new BasicHttpResponse(200);
+        withHeader.addHeader("Keep-Alive", "timeout=5");
+        assertEquals(TimeValue.ofSeconds(5), DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(withHeader, context));
+        assertEquals(TimeValue.ofSeconds(30), DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(new BasicHttpResponse(200), context));
+    }
+
+    @Test
+    void testJettyClientIsLimitedAndStopped() throws Exception {
+        OpenAIConfigProperties.Http http = new OpenAIConfigProperties.Http();
+        http.setMaxConnectionsPerRoute(50);
+        http.setMaxConnections(10);
+
+        org.eclipse.jetty.client.HttpClient client = OpenAIHttpClientFactory.JettyTransport.client(http);
+        assertEquals(10, client.getMaxConnectionsPerDestination());
+        OpenAIHttpClientFactory.JettyTransport.stop(client);
+        assertTrue(client.isStopped());
+
+        http.setTransport(OpenAIConfigProperties.Transport.JETTY);
+        ClientHttpRequestFactory factory = OpenAIHttpClientFactory.create(http);
+        assertInstanceOf(Closeable.class, factory).close();
+    }
+}
@@ -0,0 +1,116 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.conversation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+
+class ConversationTest {
+
+    // With the heuristic estimator, the system prompt costs 7 tokens and every user message 6
+    private static final String SYSTEM_PROMPT = "Be brief";
+    private static final int BUDGET = 40;
+
+    private static Conversation conversation(WindowStrategy strategy) {
+        return new Conversation("c1", SYSTEM_PROMPT, new ConversationPolicy().strategy(strategy).maxPromptTokens(BUDGET));
+    }
+
+    private static void addMessages(Conversation conversation, int count) {
+        for (int i = 0; i < count; i++) {
+            conversation.addUserMessage(String.format("msg-%04d", i));
+        }
+    }
+
+    @Test
+    void testPinnedSystemKeepsSystemPrompt() {
+        Conversation conversation = conversation(WindowStrategy.PINNED_SYSTEM);
+        addMessages(conversation, 10);
+
+        List<Message> messages = conversation.getMessages();
+        assertEquals(6, messages.size());
+        assertEquals(SYSTEM_PROMPT, messages.get(0).getContent());
+        assertEquals("msg-0005", messages.get(1).getContent());
+        assertEquals("msg-0009", messages.get(5).getContent());
+        assertEquals(40, conversation.getPromptTokens());
+        assertEquals(10, conversation.getTotalMessages());
+    }
+
+    @Test
+    void testSlidingDropsSystemPrompt() {
+        Conversation conversation = conversation(WindowStrategy.SLIDING);
+        addMessages(conversation, 10);
+
+        List<Message> messages = conversation.getMessages();
+        assertEquals("user", messages.get(0).getRole());
+        assertEquals("msg-0009", messages.get(messages.size() - 1).getContent());
+        assertTrue(conversation.getPromptTokens() <= BUDGET);
+    }
+
+    @Test
+    void testSummarizesDroppedMessages() {
+        List<Message> summarized = new ArrayList<>();
+        Conversation conversation = new Conversation("c1", SYSTEM_PROMPT,
+                new ConversationPolicy().strategy(WindowStrategy.SUMMARIZE_OLDEST).maxPromptTokens(BUDGET).summarizer((previous, dropped) -> {
+                    summarized.addAll(dropped);
+                    return "S";
+                }));
+        addMessages(conversation, 10);
+
+        List<Message> messages = conversation.getMessages();
+        assertEquals("S", conversation.getSummary());
+        assertEquals("S", messages.get(1).getContent());
+        assertEquals("msg-0000", summarized.get(0).getContent());
+        assertEquals(10, summarized.size() + messages.size() - 2);
+        assertTrue(conversation.getPromptTokens() <= BUDGET);
+    }
+
+    @Test
+    void testEarlierRequestsAreUnaffectedByLaterTurns() {
+        Conversation conversation = conversation(WindowStrategy.PINNED_SYSTEM);
+        addMessages(conversation, 3);
+        OpenAIRequest request = conversation.toRequest("gpt-4o", 100);
+        List<Message> before = List.copyOf(request.getMessages());
+
+        addMessages(conversation, 100);
+
+        assertEquals(before, request.getMessages());
+        assertEquals("msg-0099", conversation.getMessages().get(5).getContent());
+    }
+
+    @Test
+    void testFileStoreRestoresConversation(@TempDir Path directory) {
+        FileConversationStore store = new FileConversationStore(directory);
+        Conversation conversation = new Conversation("user/42", SYSTEM_PROMPT, new ConversationPolicy().maxPromptTokens(BUDGET));
+        addMessages(conversation, 4);
+        conversation.addAssistantMessage("Sure.");
+        store.save(conversation.toSnapshot());
+
+        Conversation restored = Conversation.restore(store.load("user/42"), new ConversationPolicy().maxPromptTokens(BUDGET));
+
+        assertEquals(conversation.getMessages(), restored.getMessages());
+        assertEquals(conversation.getPromptTokens(), restored.getPromptTokens());
+        assertEquals(conversation.getTotalMessages(), restored.getTotalMessages());
+        store.delete("user/42");
+        assertNull(store.load("user/42"));
+    }
+
+    @Test
+    void testInMemoryStoreEvictsLeastRecentlyUsed() {
+        InMemoryConversationStore store = new InMemoryConversationStore(2);
+        store.save(conversation(WindowStrategy.PINNED_SYSTEM).toSnapshot());
+        ConversationSnapshot second = new Conversation("c2", null, new ConversationPolicy()).toSnapshot();
+        ConversationSnapshot third = new Conversation("c3", null, new ConversationPolicy()).toSnapshot();
+        store.save(second);
+        store.load("c1");
+        store.save(third);
+
+        assertEquals(2, store.size());
+        assertNull(store.load("c2"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIRateLimitException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIServerException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MicrometerRequestObserverTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MicrometerRequestObserver observer =
+            new MicrometerRequestObserver(registry, 2, List.of(0.5, 0.99), List.of(Duration.ofMillis(500), Duration.ofSeconds(2)));
+
+    @Test
+    void testRecordsLatencyAndTokensPerModel() {
+        RequestObserver.Observation observation = observer.start(request("gpt-4o"));
+        assertEquals(1.0, registry.get(MicrometerRequestObserver.ACTIVE).gauge().value());
+
+        observation.success(response(12, 30));
+
+        assertEquals(0.0, registry.get(MicrometerRequestObserver.ACTIVE).gauge().value());
+        assertEquals(1, registry.get(MicrometerRequestObserver.REQUESTS).tags("model", "gpt-4o", "outcome", "success", "status", "200").timer().count());
+        assertEquals(12.0, registry.get(MicrometerRequestObserver.TOKENS).tags("model", "gpt-4o", "type", "prompt").counter().count());
+        assertEquals(30.0, registry.get(MicrometerRequestObserver.TOKENS).tags("model", "gpt-4o", "type", "completion").counter().count());
+        assertEquals(42.0, registry.get(MicrometerRequestObserver.TOKENS).tags("model", "gpt-4o", "type", "total").counter().count());
+    }
+
+    @Test
+    void testClassifiesFailures() {
+        observer.start(request("gpt-4o")).failure(new OpenAIRateLimitException("slow down", null));
+        observer.start(request("gpt-4o")).failure(new OpenAIServerException("unavailable", 503, null));
+        observer.start(request("gpt-4o")).cacheHit(response(1, 1));
+        observer.start(request("gpt-4o")).coalesced(response(1, 1));
+
+        assertEquals(1, registry.get(MicrometerRequestObserver.REQUESTS).tags("outcome", "rate_limited", "status", "429").timer().count());
+        assertEquals(1, registry.get(MicrometerRequestObserver.REQUESTS).tags("outcome", "server_error", "status", "503").timer().count());
+        assertEquals(1, registry.get(MicrometerRequestObserver.REQUESTS).tags("outcome", "cache_hit").timer().count());
+        assertEquals(1, registry.get(MicrometerRequestObserver.REQUESTS).tags("outcome", "coalesced").timer().count());
+        assertEquals(0, registry.find(MicrometerRequestObserver.TOKENS).counters().size());
+    }
+
+    @Test
+    void testBoundsModelTagCardinality() {
+        assertEquals("gpt-4o", observer.modelTag("gpt-4o"));
+        assertEquals("gpt-4o-mini", observer.modelTag("gpt-4o-mini"));
+        assertEquals(MicrometerRequestObserver.OTHER_MODEL, observer.modelTag("o3"));
+        assertEquals("gpt-4o", observer.modelTag("gpt-4o"));
+        assertEquals(MicrometerRequestObserver.UNKNOWN_MODEL, observer.modelTag(null));
+    }
+
+    private static OpenAIRequest request(String model) {
+        OpenAIRequest request = new OpenAIRequest();
+        request.setModel(model);
+        return request;
+    }
+
+    private static OpenAIResponse response(int promptTokens, int completionTokens) {
+        Usage usage = new Usage();
+        usage.setPromptTokens(promptTokens);
+        usage.setCompletionTokens(completionTokens);
+        usage.setTotalTokens(promptTokens + completionTokens);
+        OpenAIResponse response = new OpenAIResponse();
+        response.setUsage(usage);
+        return response;
+    }
+}
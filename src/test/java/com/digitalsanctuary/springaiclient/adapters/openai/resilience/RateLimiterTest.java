@@ -0,0 +1,92 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIRateLimitException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.RequestBuilder;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.HeuristicTokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.support.RateLimitHeaders;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testRejectsWhenWaitExceedsMaximum() {
+        RateLimiter limiter = new RateLimiter(2, 1_000_000, Duration.ZERO, new HeuristicTokenEstimator(), now::get);
+
+        limiter.acquire(request(10));
+        limiter.acquire(request(10));
+        OpenAIRateLimitException e = assertThrows(OpenAIRateLimitException.class, () -> limiter.acquire(request(10)));
+
+        assertEquals(30, e.getRetryAfter().toSeconds());
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        limiter.acquire(request(10));
+    }
+
+    @Test
+    void testRefundsUnusedTokensFromUsage() {
+        RateLimiter limiter = new RateLimiter(100, 10_000, Duration.ZERO, new HeuristicTokenEstimator(), now::get);
+
+        RateLimiter.Permit permit = limiter.acquire(request(1000));
+        assertEquals(10_000 - permit.getReservedTokens(), limiter.getAvailableTokens(), 0.001);
+        Usage usage = new Usage();
+        usage.setTotalTokens(50);
+        limiter.complete(permit, usage, null);
+
+        assertEquals(9_950, limiter.getAvailableTokens(), 0.001);
+    }
+
+    @Test
+    void testAdoptsRateLimitHeaders() {
+        RateLimiter limiter = new RateLimiter(100, 10_000, Duration.ZERO, new HeuristicTokenEstimator(), now::get);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(RateLimitHeaders.LIMIT_REQUESTS, "60");
+        headers.add(RateLimitHeaders.REMAINING_REQUESTS, "5");
+        headers.add(RateLimitHeaders.REMAINING_TOKENS, "2000");
+
+        limiter.complete(limiter.acquire(request(10)), null, headers);
+
+        assertEquals(5, limiter.getAvailableRequests(), 0.001);
+        assertEquals(2000, limiter.getAvailableTokens(), 0.001);
+    }
+
+    @Test
+    void testSettlesEveryPermitOnce() {
+        RateLimiter limiter = new RateLimiter(100, 10_000, Duration.ZERO, new HeuristicTokenEstimator(), now::get);
+
+        RateLimiter.Permit released = limiter.acquire(request(1000));
+        limiter.release(released);
+        limiter.release(released);
+        limiter.failed(released, null);
+        assertEquals(100, limiter.getAvailableRequests(), 0.001);
+        assertEquals(10_000, limiter.getAvailableTokens(), 0.001);
+
+        RateLimiter.Permit failed = limiter.acquire(request(1000));
+        limiter.failed(failed, null);
+        limiter.release(failed);
+        assertEquals(99, limiter.getAvailableRequests(), 0.001);
+        assertEquals(10_000 - failed.getReservedTokens(), limiter.getAvailableTokens(), 0.001);
+    }
+
+    @Test
+    void testAdoptsRateLimitHeadersOfFailedCalls() {
+        RateLimiter limiter = new RateLimiter(100, 10_000, Duration.ZERO, new HeuristicTokenEstimator(), now::get);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(RateLimitHeaders.REMAINING_REQUESTS, "7");
+
+        limiter.failed(limiter.acquire(request(10)), headers);
+
+        assertEquals(7, limiter.getAvailableRequests(), 0.001);
+    }
+
+    private static OpenAIRequest request(int maxTokens) {
+        return new RequestBuilder().model("gpt-4o").outputTokens(maxTokens).systemPrompt("system").userMessage("hello").build();
+    }
+}
@@ -0,0 +1,158 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIRateLimitException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIServerException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAITimeoutException;
+
+class ResilientExecutorTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testRetriesTransientFailures() {
+        ResilientExecutor resilient = new ResilientExecutor(retryPolicy(3), null, executor);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = resilient.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new OpenAIServerException("unavailable", 503, null);
+            }
+            return "ok";
+        }, null);
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, resilient.getRetryCount());
+    }
+
+    @Test
+    void testDoesNotRetryClientErrors() {
+        ResilientExecutor resilient = new ResilientExecutor(retryPolicy(3), null, executor);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(OpenAICommunicationException.class, () -> resilient.execute(() -> {
+            calls.incrementAndGet();
+            throw new OpenAICommunicationException("bad request");
+        }, null));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testHonorsRetryAfterWithinDeadline() {
+        ResilientExecutor resilient = new ResilientExecutor(retryPolicy(5), null, executor);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(OpenAIRateLimitException.class, () -> resilient.execute(() -> {
+            calls.incrementAndGet();
+            throw new OpenAIRateLimitException("slow down", Duration.ofSeconds(10));
+        }, Duration.ofSeconds(1)));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testCancelsAttemptAtDeadline() {
+        ResilientExecutor resilient = new ResilientExecutor(retryPolicy(1), null, executor);
+
+        long start = System.nanoTime();
+        assertThrows(OpenAITimeoutException.class, () -> resilient.execute(() -> {
+            sleep(5_000);
+            return "late";
+        }, Duration.ofMillis(100)));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 2_000);
+    }
+
+    @Test
+    void testHedgeWinsOverSlowAttempt() {
+        HedgingPolicy hedging = new HedgingPolicy(0.5, Duration.ofMillis(10), 1.0, 1);
+        hedging.recordLatency(Duration.ofMillis(20).toNanos());
+        ResilientExecutor resilient = new ResilientExecutor(retryPolicy(1), hedging, executor);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = resilient.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                sleep(5_000);
+                return "slow";
+            }
+            return "hedged";
+        }, Duration.ofSeconds(2));
+
+        assertEquals("hedged", result);
+        assertEquals(1, hedging.getHedgeCount());
+    }
+
+    @Test
+    void testRunsAbortActionsOfAbandonedAttempts() throws InterruptedException {
+        HedgingPolicy hedging = new HedgingPolicy(0.5, Duration.ofMillis(10), 1.0, 1);
+        hedging.recordLatency(Duration.ofMillis(20).toNanos());
+        ResilientExecutor resilient = new ResilientExecutor(retryPolicy(1), hedging, executor);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch aborted = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        String result = resilient.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                ResilientExecutor.onAbort(aborted::countDown);
+                sleep(5_000);
+                return "slow";
+            }
+            ResilientExecutor.onAbort(finished::countDown);
+            return "hedged";
+        }, Duration.ofSeconds(2));
+
+        assertEquals("hedged", result);
+        assertTrue(aborted.await(1, TimeUnit.SECONDS));
+        assertEquals(1, finished.getCount());
+    }
+
+    @Test
+    void testAttemptsDoNotWaitBehindTheirCallers() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(1);
+        try (ResilientExecutor resilient = new ResilientExecutor(retryPolicy(1), null)) {
+            // With the single caller thread as attempt executor, the attempt would queue behind the caller waiting for it
+            Future<String> result = callers.submit(() -> resilient.execute(() -> "ok", Duration.ofSeconds(5)));
+
+            assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCompletesCallsMadeAfterClose() {
+        ResilientExecutor resilient = new ResilientExecutor(retryPolicy(1), null);
+        resilient.close();
+
+        assertEquals("ok", resilient.execute(() -> "ok", Duration.ofSeconds(5)));
+    }
+
+    private static RetryPolicy retryPolicy(int maxAttempts) {
+        return new RetryPolicy(maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5), 2.0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenAICommunicationException("interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIRateLimitException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIServerException;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.HeuristicTokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.support.CircuitBreaker;
+
+class ModelRouterTest {
+
+    private static final String LONG_PROMPT = "Summarize the following report in three bullet points. ".repeat(20);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private OpenAIConfigProperties.ModelRouting settings() {
+        OpenAIConfigProperties.ModelRouting settings = new OpenAIConfigProperties.ModelRouting();
+        settings.setSmallPromptTokens(50);
+        settings.setModels(new ArrayList<>(List.of(model("gpt-4o", ModelTier.PREMIUM, 2.50, 10.00, "gpt-4o-mini"),
+                model("gpt-4o-mini", ModelTier.STANDARD, 0.15, 0.60, "gpt-4.1-nano"), model("gpt-4.1-nano", ModelTier.ECONOMY, 0.10, 0.40))));
+        return settings;
+    }
+
+    private ModelRouter router(OpenAIConfigProperties.ModelRouting settings) {
+        return new ModelRouter(settings, new HeuristicTokenEstimator(), clock::get);
+    }
+
+    @Test
+    void testChoosesCheapestModelOfTier() {
+        ModelRouter router = router(settings());
+
+        assertEquals("gpt-4o", router.plan(request("gpt-4o", LONG_PROMPT), ModelTier.PREMIUM).get(0));
+        assertEquals("gpt-4o-mini", router.plan(request("gpt-4o", LONG_PROMPT), ModelTier.STANDARD).get(0));
+        assertEquals("gpt-4.1-nano", router.plan(request("gpt-4o", LONG_PROMPT), ModelTier.ECONOMY).get(0));
+        // Small prompts may go one tier below the requested one
+        assertEquals("gpt-4.1-nano", router.plan(request("gpt-4o", "Hi"), ModelTier.STANDARD).get(0));
+        // Without a tier the requested model is kept, followed by its fallback chain
+        assertEquals(List.of("gpt-4o", "gpt-4o-mini"), router.plan(request("gpt-4o", LONG_PROMPT), null));
+        assertEquals(List.of("o3"), router.plan(request("o3", LONG_PROMPT), null));
+    }
+
+    @Test
+    void testTradesCostAgainstLatency() {
+        OpenAIConfigProperties.ModelRouting settings = settings();
+        settings.setLatencyCostPerSecond(0.001);
+        settings.getModels().add(model("gpt-4.1-mini", ModelTier.STANDARD, 0.40, 1.60));
+        ModelRouter router = router(settings);
+        observe(router.getRoute("gpt-4o-mini"), Duration.ofSeconds(10), null);
+        observe(router.getRoute("gpt-4.1-mini"), Duration.ofSeconds(1), null);
+
+        assertEquals("gpt-4.1-mini", router.plan(request("gpt-4o", LONG_PROMPT), ModelTier.STANDARD).get(0));
+        settings.setLatencyCostPerSecond(0);
+        assertEquals("gpt-4o-mini", router(settings).plan(request("gpt-4o", LONG_PROMPT), ModelTier.STANDARD).get(0));
+    }
+
+    @Test
+    void testFallsBackWhenRateLimitedAndRecordsServingModel() {
+        ModelRouter router = router(settings());
+        List<String> attempts = new ArrayList<>();
+
+        OpenAIResponse response = router.execute(request("gpt-4o", LONG_PROMPT), null, Duration.ofSeconds(60), (request, remaining) -> {
+            attempts.add(request.getModel());
+            if ("gpt-4o".equals(request.getModel())) {
+                throw new OpenAIRateLimitException("Rate limited", Duration.ofSeconds(20));
+            }
+            return new OpenAIResponse();
+        });
+
+        assertEquals(List.of("gpt-4o", "gpt-4o-mini"), attempts);
+        assertEquals("gpt-4o-mini", response.getRoutedModel());
+        assertTrue(response.isFallback());
+        assertSame(CircuitBreaker.State.OPEN, router.getRoute("gpt-4o").getCircuitBreaker().getState());
+        // The rate limited model goes to the end of its chain until its circuit breaker lets requests through again
+        assertEquals(List.of("gpt-4o-mini", "gpt-4o"), router.plan(request("gpt-4o", LONG_PROMPT), null));
+        clock.addAndGet(Duration.ofSeconds(20).toNanos());
+        assertEquals(List.of("gpt-4o", "gpt-4o-mini"), router.plan(request("gpt-4o", LONG_PROMPT), null));
+    }
+
+    @Test
+    void testRecordsServingModelOnACopy() {
+        ModelRouter router = router(settings());
+        OpenAIResponse shared = new OpenAIResponse();
+        shared.setId("chatcmpl-1");
+
+        OpenAIResponse response = router.execute(request("gpt-4o", LONG_PROMPT), null, null, (request, remaining) -> shared);
+
+        assertNotSame(shared, response);
+        assertEquals("chatcmpl-1", response.getId());
+        assertEquals("gpt-4o", response.getRoutedModel());
+        assertFalse(response.isFallback());
+        assertNull(shared.getRoutedModel());
+    }
+
+    @Test
+    void testSkipsSlowModelUntilItsLatencyIsStale() {
+        OpenAIConfigProperties.ModelRouting settings = settings();
+        settings.setSlowLatency(Duration.ofSeconds(20));
+        ModelRouter router = router(settings);
+        observe(router.getRoute("gpt-4o"), Duration.ofSeconds(30), null);
+
+        assertEquals(List.of("gpt-4o-mini", "gpt-4o"), router.plan(request("gpt-4o", LONG_PROMPT), null));
+        clock.addAndGet(settings.getEwmaDecay().toNanos());
+        assertEquals(List.of("gpt-4o", "gpt-4o-mini"), router.plan(request("gpt-4o", LONG_PROMPT), null));
+    }
+
+    @Test
+    void testStopsFallingBackOnClientErrorsAndAfterDeadline() {
+        ModelRouter router = router(settings());
+        List<String> attempts = new ArrayList<>();
+
+        assertThrows(OpenAICommunicationException.class, () -> router.execute(request("gpt-4o", LONG_PROMPT), null, null, (request, remaining) -> {
+            attempts.add(request.getModel());
+            throw new OpenAICommunicationException("OpenAI returned HTTP status 400");
+        }));
+        assertEquals(List.of("gpt-4o"), attempts);
+
+        attempts.clear();
+        assertThrows(OpenAIServerException.class, () -> router.execute(request("gpt-4o", LONG_PROMPT), null, Duration.ofSeconds(5),
+                (request, remaining) -> {
+                    attempts.add(request.getModel());
+                    clock.addAndGet(Duration.ofSeconds(5).toNanos());
+                    throw new OpenAIServerException("OpenAI returned HTTP status 503", 503, null);
+                }));
+        assertEquals(List.of("gpt-4o"), attempts);
+        // The failure weighs at least a fifth in the moving average of the error rate
+        assertEquals(0.2, router.getRoute("gpt-4o").getErrorRate(), 1e-9);
+    }
+
+    @Test
+    void testRejectsUnknownFallback() {
+        OpenAIConfigProperties.ModelRouting settings = settings();
+        settings.getModels().add(model("o3", ModelTier.PREMIUM, 2.00, 8.00, "o4"));
+
+        assertThrows(IllegalArgumentException.class, () -> router(settings));
+    }
+
+    private void observe(ModelRoute route, Duration latency, Throwable failure) {
+        route.tryAcquire();
+        route.complete(latency.toNanos(), failure);
+    }
+
+    private static OpenAIConfigProperties.ModelRouting.ModelSettings model(String name, ModelTier tier, double inputCost, double outputCost,
+            String... fallbacks) {
+        OpenAIConfigProperties.ModelRouting.ModelSettings model = new OpenAIConfigProperties.ModelRouting.ModelSettings();
+        model.setName(name);
+        model.setTier(tier);
+        model.setInputCostPerMillion(inputCost);
+        model.setOutputCostPerMillion(outputCost);
+        model.setFallbacks(List.of(fallbacks));
+        return model;
+    }
+
+    private static OpenAIRequest request(String model, String prompt) {
+        Message user = new Message();
+        user.setRole("user");
+        user.setContent(prompt);
+        OpenAIRequest request = new OpenAIRequest();
+        request.setModel(model);
+        request.setMaxTokens(500);
+        request.setMessages(List.of(user));
+        return request;
+    }
+}
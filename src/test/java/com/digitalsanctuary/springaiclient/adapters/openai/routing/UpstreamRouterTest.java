@@ -0,0 +1,113 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAICommunicationException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIRateLimitException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIServerException;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIThrottledException;
+import com.digitalsanctuary.springaiclient.adapters.support.CircuitBreaker;
+
+class UpstreamRouterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private Upstream upstream(String name, double weight, Set<String> models) {
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(30), 1, clock::get);
+        return new Upstream(name, "http://" + name, "key-" + name, weight, models, breaker, Duration.ofSeconds(10), clock::get);
+    }
+
+    @Test
+    void testRoutesToLeastOutstandingUpstream() {
+        Upstream a = upstream("a", 1, Set.of());
+        Upstream b = upstream("b", 1, Set.of());
+        UpstreamRouter router = new UpstreamRouter(List.of(a, b), RoutingStrategy.LEAST_OUTSTANDING);
+
+        Upstream first = router.select("gpt-4o");
+        Upstream second = router.select("gpt-4o");
+        first.complete(1_000_000, null);
+        Upstream third = router.select("gpt-4o");
+
+        assertSame(first == a ? b : a, second);
+        assertSame(first, third);
+    }
+
+    @Test
+    void testWeightsAndLatencySteerEwmaRouting() {
+        Upstream slow = upstream("slow", 1, Set.of());
+        Upstream fast = upstream("fast", 1, Set.of());
+        UpstreamRouter router = new UpstreamRouter(List.of(slow, fast), RoutingStrategy.EWMA);
+        slow.tryAcquire();
+        slow.complete(Duration.ofSeconds(2).toNanos(), null);
+        fast.tryAcquire();
+        fast.complete(Duration.ofMillis(200).toNanos(), null);
+
+        // Up to nine requests in flight on the fast upstream still beat an idle slow one
+        for (int i = 0; i < 9; i++) {
+            assertSame(fast, router.select("gpt-4o"));
+        }
+        assertSame(slow, router.select("gpt-4o"));
+    }
+
+    @Test
+    void testHonorsModelAllowList() {
+        Upstream mini = upstream("mini", 1, Set.of("gpt-4o-mini"));
+        Upstream full = upstream("full", 1, Set.of("gpt-4o"));
+        UpstreamRouter router = new UpstreamRouter(List.of(mini, full), RoutingStrategy.LEAST_OUTSTANDING);
+
+        assertSame(full, router.select("gpt-4o"));
+        assertSame(full, router.select("gpt-4o"));
+        assertThrows(OpenAICommunicationException.class, () -> router.select("o3"));
+    }
+
+    @Test
+    void testCircuitBreakerOpensAndProbes() {
+        Upstream a = upstream("a", 1, Set.of());
+        UpstreamRouter router = new UpstreamRouter(List.of(a), RoutingStrategy.LEAST_OUTSTANDING);
+
+        router.select("gpt-4o").complete(1_000, new OpenAIServerException("Bad gateway", 502, null));
+        router.select("gpt-4o").complete(1_000, new OpenAIServerException("Bad gateway", 502, null));
+        assertEquals(CircuitBreaker.State.OPEN, a.getCircuitBreaker().getState());
+        assertThrows(OpenAICommunicationException.class, () -> router.select("gpt-4o"));
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        Upstream probe = router.select("gpt-4o");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, a.getCircuitBreaker().getState());
+        assertThrows(OpenAICommunicationException.class, () -> router.select("gpt-4o"));
+        probe.complete(1_000, null);
+
+        assertEquals(CircuitBreaker.State.CLOSED, a.getCircuitBreaker().getState());
+        assertSame(a, router.select("gpt-4o"));
+    }
+
+    @Test
+    void testRateLimitRoutesAwayForRetryAfter() {
+        Upstream a = upstream("a", 1, Set.of());
+        Upstream b = upstream("b", 1, Set.of());
+        UpstreamRouter router = new UpstreamRouter(List.of(a, b), RoutingStrategy.LEAST_OUTSTANDING);
+        a.tryAcquire();
+        a.complete(1_000, new OpenAIRateLimitException("Rate limited", Duration.ofSeconds(5)));
+
+        assertSame(b, router.select("gpt-4o"));
+        assertSame(b, router.select("gpt-4o"));
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertSame(a, router.select("gpt-4o"));
+    }
+
+    @Test
+    void testIgnoresClientSideThrottling() {
+        Upstream a = upstream("a", 1, Set.of());
+        a.tryAcquire();
+        a.complete(Duration.ofSeconds(30).toNanos(), new OpenAIThrottledException("Throttled", Duration.ofSeconds(30)));
+
+        assertEquals(CircuitBreaker.State.CLOSED, a.getCircuitBreaker().getState());
+        assertEquals(Duration.ZERO, a.getLatencyEwma());
+        assertEquals(0, a.getOutstanding());
+    }
+}
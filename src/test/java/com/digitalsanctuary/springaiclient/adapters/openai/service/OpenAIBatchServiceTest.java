@@ -0,0 +1,177 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.digitalsanctuary.springaiclient.adapters.openai.batch.BatchItem;
+import com.digitalsanctuary.springaiclient.adapters.openai.batch.BatchResult;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Batch;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.BatchFile;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.OpenAIStubServer;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.RecordedRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.StubOutcome;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Tests {@link OpenAIBatchService} against the {@link OpenAIStubServer}.
+ */
+class OpenAIBatchServiceTest {
+
+    private final OpenAIStubServer server = OpenAIStubServer.start().content("Batched answer");
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void testRunsBatchAndMatchesResultsByCustomId() {
+        OpenAIBatchService service = server.createBatchService(properties());
+        Map<String, BatchResult> results = new ConcurrentHashMap<>();
+
+        Batch batch = service.run(items(20), result -> assertNull(results.put(result.getCustomId(), result)));
+
+        assertEquals("completed", batch.getStatus());
+        assertEquals(20, batch.getRequestCounts().getCompleted());
+        assertEquals(20, results.size());
+        for (int i = 0; i < 20; i++) {
+            BatchResult result = results.get("row-" + i);
+            assertTrue(result.isSuccess());
+            assertEquals(200, result.getStatusCode());
+            assertEquals("Batched answer", result.getResponse().getChoices().get(0).getMessage().getContent());
+        }
+        List<RecordedRequest> requests = server.getRequests();
+        assertEquals("/v1/files", requests.get(0).getPath());
+        assertTrue(requests.get(0).getHeader("Content-Type").startsWith("multipart/form-data; boundary="));
+        assertEquals("Bearer stub-api-key", requests.get(0).getHeader("Authorization"));
+        assertEquals("/v1/batches", requests.get(1).getPath());
+        assertEquals(2 + OpenAIStubServer.BATCH_POLLS_TO_COMPLETE + 1, requests.size());
+    }
+
+    @Test
+    void testWritesOneRequestPerLine() {
+        OpenAIBatchService service = server.createBatchService(properties());
+
+        BatchFile file = service.upload(items(3));
+
+        String[] lines = server.getFile(file.getId()).split("\n");
+        assertEquals(3, lines.length);
+        JsonNode line = ProviderJson.mapper().readTree(lines[1]);
+        assertEquals("row-1", line.path("custom_id").asString());
+        assertEquals("POST", line.path("method").asString());
+        assertEquals("/v1/chat/completions", line.path("url").asString());
+        assertEquals("gpt-4o-mini", line.path("body").path("model").asString());
+        assertEquals("Question 1", line.path("body").path("messages").get(1).path("content").asString());
+        assertFalse(line.path("body").has("stream"));
+    }
+
+    @Test
+    void testUploadsInputFileWithRetries() throws Exception {
+        OpenAIConfigProperties properties = properties();
+        properties.getRetry().setEnabled(true);
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        OpenAIBatchService service = server.createBatchService(properties);
+        Path input = directory.resolve("input.jsonl");
+        assertEquals(5, service.writeInput(items(5), input));
+        server.enqueue(StubOutcome.serverError(503));
+
+        BatchFile file = service.upload(input);
+
+        assertEquals(Files.readString(input), server.getFile(file.getId()));
+        assertEquals(2, server.getRequestCount());
+        assertEquals("completed", service.awaitCompletion(service.create(file.getId()).getId()).getStatus());
+    }
+
+    @Test
+    void testRetriesCreatingABatchOnlyWhenItCannotExist() {
+        OpenAIConfigProperties properties = properties();
+        properties.getRetry().setEnabled(true);
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        OpenAIBatchService service = server.createBatchService(properties);
+        String fileId = service.upload(items(1)).getId();
+
+        server.enqueue(StubOutcome.rateLimited(Duration.ofMillis(10)));
+        assertEquals("validating", service.create(fileId).getStatus());
+        assertEquals(3, server.getRequestCount());
+
+        server.enqueue(StubOutcome.serverError(503));
+        assertThrows(OpenAIServerException.class, () -> service.create(fileId));
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    void testReadsFailedRequestsFromErrorFile() {
+        OpenAIBatchService service = server.createBatchService(properties());
+        Stream<OpenAIRequest> requests = Stream.of(request("gpt-4o-mini", "Fine"), request(OpenAIStubServer.UNKNOWN_MODEL, "Broken"));
+        Map<String, BatchResult> results = new ConcurrentHashMap<>();
+
+        Batch batch = service.awaitCompletion(service.submitRequests(requests).getId());
+        assertEquals(2, service.readResults(batch, result -> results.put(result.getCustomId(), result)));
+
+        assertEquals(1, batch.getRequestCounts().getFailed());
+        assertTrue(results.get("0").isSuccess());
+        BatchResult failed = results.get("1");
+        assertFalse(failed.isSuccess());
+        assertEquals(404, failed.getStatusCode());
+        assertTrue(failed.getError().contains("does not exist"));
+    }
+
+    @Test
+    void testRejectsDuplicateCustomIdsAndTimesOut() {
+        OpenAIConfigProperties properties = properties();
+        properties.getBatch().setMaxWait(Duration.ofMillis(1));
+        OpenAIBatchService service = server.createBatchService(properties);
+
+        assertThrows(IllegalArgumentException.class, () -> service.writeInput(Stream.concat(items(2), items(1)), directory.resolve("input.jsonl")));
+        assertFalse(Files.exists(directory.resolve("input.jsonl")));
+
+        Batch batch = service.submit(items(1));
+        assertThrows(OpenAITimeoutException.class, () -> service.awaitCompletion(batch.getId()));
+        assertEquals("cancelled", service.cancel(batch.getId()).getStatus());
+    }
+
+    private OpenAIConfigProperties properties() {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getBatch().setPollInterval(Duration.ofMillis(5));
+        properties.getBatch().setMaxPollInterval(Duration.ofMillis(20));
+        return properties;
+    }
+
+    private static Stream<BatchItem> items(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new BatchItem("row-" + i, request("gpt-4o-mini", "Question " + i)));
+    }
+
+    private static OpenAIRequest request(String model, String question) {
+        Message system = new Message();
+        system.setRole("system");
+        system.setContent("You are a helpful assistant.");
+        Message user = new Message();
+        user.setRole("user");
+        user.setContent(question);
+        OpenAIRequest request = new OpenAIRequest();
+        request.setModel(model);
+        request.setMaxTokens(256);
+        request.setMessages(List.of(system, user));
+        return request;
+    }
+}
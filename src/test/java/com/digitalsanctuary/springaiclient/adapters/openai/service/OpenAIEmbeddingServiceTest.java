@@ -0,0 +1,136 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.embeddings.EncodingFormat;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.OpenAIStubServer;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.StubLatency;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.StubOutcome;
+
+/**
+ * Tests {@link OpenAIEmbeddingService} against the {@link OpenAIStubServer}.
+ */
+class OpenAIEmbeddingServiceTest {
+
+    private final OpenAIStubServer server = OpenAIStubServer.start();
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void testCoalescesConcurrentCallsIntoOneRequest() {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getEmbeddings().setMaxBatchSize(4);
+        properties.getEmbeddings().setMaxLinger(Duration.ofSeconds(5));
+        try (OpenAIEmbeddingService service = server.createEmbeddingService(properties)) {
+            List<CompletableFuture<float[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(service.embedAsync("document " + i));
+            }
+
+            for (int i = 0; i < 4; i++) {
+                assertArrayEquals(OpenAIStubServer.embedding("document " + i, OpenAIStubServer.DEFAULT_EMBEDDING_DIMENSIONS), futures.get(i).join());
+            }
+            assertEquals(1, server.getRequestCount());
+            assertEquals("Bearer stub-api-key", server.getRequests().get(0).getHeader("Authorization"));
+        }
+    }
+
+    @Test
+    void testSendsLingeringTextAlone() {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getEmbeddings().setMaxLinger(Duration.ofMillis(20));
+        try (OpenAIEmbeddingService service = server.createEmbeddingService(properties)) {
+            float[] vector = service.embed("The quick brown fox");
+
+            assertArrayEquals(OpenAIStubServer.embedding("The quick brown fox", OpenAIStubServer.DEFAULT_EMBEDDING_DIMENSIONS), vector);
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void testBoundsTheWaitForAnEmbeddingByTheDeadline() {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getRetry().setDefaultDeadline(Duration.ofMillis(200));
+        server.latency(StubLatency.fixed(Duration.ofSeconds(30)));
+        try (OpenAIEmbeddingService service = server.createEmbeddingService(properties)) {
+            long start = System.nanoTime();
+
+            assertThrows(OpenAITimeoutException.class, () -> service.embed("The quick brown fox"));
+            assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+        }
+    }
+
+    @Test
+    void testDecodesFloatAndBase64Alike() {
+        List<String> texts = List.of("first document", "second document", "third document");
+        OpenAIConfigProperties properties = server.properties();
+        properties.getEmbeddings().setDimensions(64);
+        List<float[]> base64;
+        try (OpenAIEmbeddingService service = server.createEmbeddingService(properties)) {
+            base64 = service.embedAll(texts);
+        }
+        properties.getEmbeddings().setEncodingFormat(EncodingFormat.FLOAT);
+        List<float[]> floats;
+        try (OpenAIEmbeddingService service = server.createEmbeddingService(properties)) {
+            floats = service.embedAll(texts);
+        }
+
+        for (int i = 0; i < texts.size(); i++) {
+            assertArrayEquals(OpenAIStubServer.embedding(texts.get(i), 64), base64.get(i));
+            assertArrayEquals(base64.get(i), floats.get(i));
+        }
+        assertTrue(server.getRequests().get(0).getBody().contains("\"encoding_format\":\"base64\""));
+        assertTrue(server.getRequests().get(1).getBody().contains("\"encoding_format\":\"float\""));
+    }
+
+    @Test
+    void testSplitsListsByBatchSize() {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getEmbeddings().setMaxBatchSize(3);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            texts.add("document " + i);
+        }
+        try (OpenAIEmbeddingService service = server.createEmbeddingService(properties)) {
+            List<float[]> vectors = service.embedAll(texts);
+
+            assertEquals(7, vectors.size());
+            for (int i = 0; i < texts.size(); i++) {
+                assertArrayEquals(OpenAIStubServer.embedding(texts.get(i), OpenAIStubServer.DEFAULT_EMBEDDING_DIMENSIONS), vectors.get(i));
+            }
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void testFailsEveryCallOfFailedBatch() {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getEmbeddings().setMaxBatchSize(3);
+        properties.getEmbeddings().setMaxLinger(Duration.ofSeconds(5));
+        server.enqueue(StubOutcome.serverError(503));
+        try (OpenAIEmbeddingService service = server.createEmbeddingService(properties)) {
+            List<CompletableFuture<float[]>> futures = List.of(service.embedAsync("a"), service.embedAsync("b"), service.embedAsync("c"));
+
+            for (CompletableFuture<float[]> future : futures) {
+                CompletionException e = assertThrows(CompletionException.class, future::join);
+                assertEquals(503, assertInstanceOf(OpenAIServerException.class, e.getCause()).getStatusCode());
+            }
+            assertEquals(1, server.getRequestCount());
+            assertThrows(IllegalArgumentException.class, () -> service.embedAsync(""));
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatRequest;
+import com.digitalsanctuary.springaiclient.adapters.chat.ChatResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.admission.AdmissionController;
+import com.digitalsanctuary.springaiclient.adapters.openai.admission.Priority;
+import com.digitalsanctuary.springaiclient.adapters.openai.cache.InMemoryResponseCache;
+import com.digitalsanctuary.springaiclient.adapters.openai.cache.RequestCoalescer;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.OpenAICodec;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.OpenAICodecHttpMessageConverter;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.PreEncodedRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIHttpClientFactory;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.metrics.MicrometerRequestObserver;
+import com.digitalsanctuary.springaiclient.adapters.openai.resilience.RateLimiter;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.ModelRouter;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.ModelTier;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.Upstream;
+import com.digitalsanctuary.springaiclient.adapters.openai.routing.UpstreamRouter;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.OpenAIStubServer;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.RecordedRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.StubLatency;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.StubOutcome;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.HeuristicTokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.support.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link OpenAIService} end to end against the {@link OpenAIStubServer}.
+ */
+class OpenAIServiceStubTest {
+
+    private final OpenAIStubServer server = OpenAIStubServer.start().content("Paris is the capital of France.");
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void testSendsRequestAndParsesResponse() {
+        OpenAIService service = server.createService(server.properties());
+
+        OpenAIResponse response = service.sendRequest("What is the capital of France?");
+
+        assertEquals("Paris is the capital of France.", response.getMessage());
+        assertEquals(6, response.getUsage().getCompletionTokens());
+        RecordedRequest recorded = server.getRequests().get(0);
+        assertEquals("Bearer stub-api-key", recorded.getHeader("Authorization"));
+        assertEquals("What is the capital of France?", recorded.toOpenAIRequest().getMessages().get(1).getContent());
+    }
+
+    @Test
+    void testRetriesServerErrorsAndResets() {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getRetry().setEnabled(true);
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        OpenAIService service = server.createService(properties);
+        server.enqueue(StubOutcome.serverError(503), StubOutcome.connectionReset());
+
+        OpenAIResponse response = service.sendRequest("What is the capital of France?");
+
+        assertEquals("Paris is the capital of France.", response.getMessage());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void testSurfacesRateLimitWithRetryAfter() {
+        OpenAIService service = server.createService(server.properties());
+        server.enqueue(StubOutcome.rateLimited(Duration.ofSeconds(2)));
+
+        OpenAIRateLimitException e = assertThrows(OpenAIRateLimitException.class, () -> service.sendRequest("What is the capital of France?"));
+
+        assertEquals(Duration.ofSeconds(2), e.getRetryAfter());
+    }
+
+    @Test
+    void testSendsRequestsAsynchronously() throws Exception {
+        try (OpenAIService service = server.createService(server.properties())) {
+            server.enqueue(StubOutcome.success(), StubOutcome.serverError(503));
+
+            OpenAIResponse response = service.sendRequestAsync("What is the capital of France?").get(5, TimeUnit.SECONDS);
+            CompletableFuture<OpenAIResponse> failed = service.sendRequestAsync("What is the capital of France?");
+
+            assertEquals("Paris is the capital of France.", response.getMessage());
+            ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(OpenAIServerException.class, e.getCause());
+            // Invalid input is rejected before anything is submitted
+            assertThrows(IllegalArgumentException.class, () -> service.sendRequestAsync(" "));
+        }
+    }
+
+    @Test
+    void testCancellingAsynchronousRequestFreesItsThread() throws Exception {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getAsync().setVirtualThreads(false);
+        properties.getAsync().setMaxThreads(1);
+        try (OpenAIService service = server.createService(properties)) {
+            server.latency(StubLatency.fixed(Duration.ofSeconds(30)));
+            CompletableFuture<OpenAIResponse> slow = service.sendRequestAsync("What is the capital of France?");
+            awaitRequests(1);
+            server.latency(StubLatency.none());
+
+            assertTrue(slow.cancel(true));
+
+            // The only thread of the executor is interrupted and serves the next request long before the first one would have completed
+            assertEquals("Paris is the capital of France.", service.sendRequestAsync("What is the capital of Italy?").get(5, TimeUnit.SECONDS)
+                    .getMessage());
+            assertThrows(CancellationException.class, slow::join);
+            assertEquals(2, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void testWritesTemplatedRequestsWithTheCodec() {
+        OpenAIConfigProperties properties = server.properties();
+        List<OpenAIRequest> written = new CopyOnWriteArrayList<>();
+        OpenAICodec codec = new OpenAICodec(properties.getCodec()) {
+            @Override
+            public void writeRequest(OpenAIRequest request, OutputStream out) {
+                written.add(request);
+                super.writeRequest(request, out);
+            }
+        };
+        RestClient restClient = RestClient.builder().baseUrl(server.getEndpoint())
+                .requestFactory(OpenAIHttpClientFactory.create(properties.getHttp()))
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .messageConverters(converters -> converters.add(0, new OpenAICodecHttpMessageConverter(codec))).build();
+        OpenAIService service = new OpenAIService(restClient, properties);
+        OpenAIRequest request = service.createRequestBuilder().template().render("What is the capital of France?");
+
+        assertEquals("Paris is the capital of France.", service.sendRequest(request).getMessage());
+
+        // The rendered request reached the codec, and its pre-encoded bytes reached the wire
+        assertInstanceOf(PreEncodedRequest.class, written.get(0));
+        assertEquals(new String(codec.writeRequest(request), StandardCharsets.UTF_8), server.getRequests().get(0).getBody());
+    }
+
+    @Test
+    void testStreamsTokens() {
+        OpenAIService service = server.createService(server.properties());
+        StringBuilder streamed = new StringBuilder();
+
+        OpenAIResponse response = service.streamRequest(service.createRequestBuilder().userMessage("What is the capital of France?").build(),
+                (index, delta) -> streamed.append(delta.getContent()));
+
+        assertEquals("Paris is the capital of France.", streamed.toString());
+        assertEquals("Paris is the capital of France.", response.getMessage());
+        assertTrue(response.getUsage().getTotalTokens() > 0);
+    }
+
+    @Test
+    void testReleasesAdmissionPermitDuringRetryBackoff() throws Exception {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getRetry().setEnabled(true);
+        properties.getAdmission().setMaxConcurrency(1);
+        AdmissionController admission = new AdmissionController(properties.getAdmission());
+        try (OpenAIService service = server.createService(properties)) {
+            service.setAdmissionController(admission);
+            server.enqueue(StubOutcome.rateLimited(Duration.ofSeconds(1)));
+            CompletableFuture<OpenAIResponse> retried = service.sendRequestAsync("What is the capital of France?");
+            awaitRequests(1);
+
+            // The only permit is free while the first request waits to retry
+            assertEquals("Paris is the capital of France.", service.sendRequest("What is the capital of Italy?").getMessage());
+            assertFalse(retried.isDone());
+            assertEquals("Paris is the capital of France.", retried.get(5, TimeUnit.SECONDS).getMessage());
+            assertEquals(0, admission.bulkhead("gpt-4o").getActive());
+        }
+    }
+
+    @Test
+    void testStreamsWithRequestOptions() {
+        OpenAIConfigProperties properties = server.properties();
+        OpenAIService service = server.createService(properties);
+        AdmissionController admission = new AdmissionController(properties.getAdmission());
+        service.setAdmissionController(admission);
+
+        OpenAIResponse response = service.streamRequest(service.createRequestBuilder().userMessage("What is the capital of France?").build(),
+                (index, delta) -> {}, new RequestOptions().apiKey("tenant-key").priority(Priority.BACKGROUND));
+
+        assertEquals("Paris is the capital of France.", response.getMessage());
+        assertEquals("Bearer tenant-key", server.getRequests().get(0).getHeader("Authorization"));
+        assertEquals(0, admission.bulkhead("gpt-4o").getActive());
+    }
+
+    @Test
+    void testCachesRoutedResponsesPerTierAndNotFromFallbacks() {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getModelRouting().setModels(List.of(model("gpt-4o", ModelTier.PREMIUM, 2.50, "gpt-4o-mini"),
+                model("gpt-4o-mini", ModelTier.STANDARD, 0.15, null)));
+        OpenAIService service = server.createService(properties);
+        service.setModelRouter(new ModelRouter(properties.getModelRouting(), new HeuristicTokenEstimator()));
+        service.setResponseCache(new InMemoryResponseCache(properties.getCache()));
+        OpenAIRequest request = service.createRequestBuilder().userMessage("What is the capital of France?").build();
+
+        OpenAIResponse standard = service.sendRequest(request, new RequestOptions().tier(ModelTier.STANDARD));
+        assertSame(standard, service.sendRequest(request, new RequestOptions().tier(ModelTier.STANDARD)));
+        server.enqueue(StubOutcome.rateLimited(Duration.ofSeconds(30)));
+        OpenAIResponse fallback = service.sendRequest(request);
+        OpenAIResponse again = service.sendRequest(request);
+
+        assertFalse(standard.isFallback());
+        assertTrue(fallback.isFallback());
+        assertTrue(again.isFallback());
+        // The standard tier response is not served to the request without a tier, and fallback responses are not cached
+        assertEquals(List.of("gpt-4o-mini", "gpt-4o", "gpt-4o-mini", "gpt-4o-mini"),
+                server.getRequests().stream().map(recorded -> recorded.toOpenAIRequest().getModel()).toList());
+    }
+
+    @Test
+    void testRoutesOverUpstreamsWithTheirKeys() {
+        OpenAIStubServer other = OpenAIStubServer.start().content("Paris.");
+        try {
+            OpenAIConfigProperties properties = server.properties();
+            properties.getRouting().setFailureThreshold(1);
+            properties.getRouting().setUpstreams(List.of(upstream("first", server.getEndpoint(), "key-1"), upstream("second", other.getEndpoint(), "key-2")));
+            OpenAIService service = server.createService(properties);
+            service.setUpstreamRouter(new UpstreamRouter(properties.getRouting()));
+            other.enqueue(StubOutcome.serverError(503));
+
+            service.sendRequest("What is the capital of France?");
+            assertThrows(OpenAIServerException.class, () -> service.sendRequest("What is the capital of France?"));
+            service.sendRequest("What is the capital of France?");
+            service.sendRequest(service.createRequestBuilder().userMessage("What is the capital of France?").build(),
+                    new RequestOptions().apiKey("tenant-key"));
+
+            // The second upstream failed once and is left alone while its circuit breaker is open
+            assertEquals(1, other.getRequestCount());
+            assertEquals("Bearer key-2", other.getRequests().get(0).getHeader("Authorization"));
+            assertEquals(3, server.getRequestCount());
+            assertEquals("Bearer key-1", server.getRequests().get(1).getHeader("Authorization"));
+            assertEquals("Bearer tenant-key", server.getRequests().get(2).getHeader("Authorization"));
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    void testCountsTokensOfACoalescedCallOnce() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OpenAIConfigProperties properties = server.properties();
+        try (OpenAIService service = server.createService(properties)) {
+            service.setRequestCoalescer(new RequestCoalescer());
+            service.setRequestObserver(new MicrometerRequestObserver(registry, properties.getMetrics()));
+            server.latency(StubLatency.fixed(Duration.ofMillis(500)));
+
+            CompletableFuture<OpenAIResponse> first = service.sendRequestAsync("What is the capital of France?");
+            CompletableFuture<OpenAIResponse> second = service.sendRequestAsync("What is the capital of France?");
+            OpenAIResponse response = first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+
+            // Both callers are timed, but only the one that made the call counts the tokens it was billed
+            assertEquals(1, server.getRequestCount());
+            assertEquals(1, registry.get(MicrometerRequestObserver.REQUESTS).tags("outcome", "success").timer().count());
+            assertEquals(1, registry.get(MicrometerRequestObserver.REQUESTS).tags("outcome", "coalesced").timer().count());
+            assertEquals(response.getUsage().getTotalTokens(),
+                    registry.get(MicrometerRequestObserver.TOKENS).tags("type", "total").counter().count());
+        }
+    }
+
+    @Test
+    void testDoesNotShareResponsesAcrossApiKeys() {
+        OpenAIConfigProperties properties = server.properties();
+        OpenAIService service = server.createService(properties);
+        service.setResponseCache(new InMemoryResponseCache(properties.getCache()));
+        service.setRequestCoalescer(new RequestCoalescer());
+        OpenAIRequest request = service.createRequestBuilder().userMessage("What is the capital of France?").build();
+
+        service.sendRequest(request);
+        service.sendRequest(request, new RequestOptions().apiKey("tenant-key"));
+        service.sendRequest(request, new RequestOptions().apiKey("tenant-key"));
+        service.sendRequest(request);
+
+        // Only the request with the configured key is answered from the cache
+        assertEquals(3, server.getRequestCount());
+        assertEquals("Bearer tenant-key", server.getRequests().get(1).getHeader("Authorization"));
+        assertEquals("Bearer tenant-key", server.getRequests().get(2).getHeader("Authorization"));
+    }
+
+    @Test
+    void testFallsBackToAnotherModelWhenRateLimited() {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getModelRouting().setModels(List.of(model("gpt-4o", ModelTier.PREMIUM, 2.50, "gpt-4o-mini"),
+                model("gpt-4o-mini", ModelTier.STANDARD, 0.15, null)));
+        OpenAIService service = server.createService(properties);
+        service.setModelRouter(new ModelRouter(properties.getModelRouting(), new HeuristicTokenEstimator()));
+        server.enqueue(StubOutcome.rateLimited(Duration.ofSeconds(30)));
+
+        OpenAIResponse fallback = service.sendRequest("What is the capital of France?");
+        OpenAIResponse routed = service.sendRequest(service.createRequestBuilder().userMessage("What is the capital of France?").build(),
+                new RequestOptions().tier(ModelTier.STANDARD));
+
+        assertEquals("Paris is the capital of France.", fallback.getMessage());
+        assertEquals("gpt-4o-mini", fallback.getRoutedModel());
+        assertEquals("gpt-4o-mini", routed.getRoutedModel());
+        assertEquals(List.of("gpt-4o", "gpt-4o-mini", "gpt-4o-mini"),
+                server.getRequests().stream().map(request -> request.toOpenAIRequest().getModel()).toList());
+    }
+
+    @Test
+    void testSettlesRateLimiterPermitsOfFailedCalls() {
+        OpenAIConfigProperties properties = server.properties();
+        RateLimiter limiter = new RateLimiter(properties.getRateLimit(), new HeuristicTokenEstimator());
+        OpenAIService service = server.createService(properties);
+        service.setRateLimiter(limiter);
+        server.enqueue(StubOutcome.serverError(503));
+
+        // A server error reached OpenAI and keeps its reservation
+        assertThrows(OpenAIServerException.class, () -> service.sendRequest("What is the capital of France?"));
+        assertTrue(limiter.getAvailableRequests() < properties.getRateLimit().getRequestsPerMinute() - 0.5);
+
+        // A refused connection never reached OpenAI and returns it
+        properties.setApiEndpoint("http://127.0.0.1:1/v1/chat/completions");
+        OpenAIService unreachable = server.createService(properties);
+        unreachable.setRateLimiter(limiter);
+        double requests = limiter.getAvailableRequests();
+        double tokens = limiter.getAvailableTokens();
+        assertThrows(OpenAICommunicationException.class, () -> unreachable.sendRequest("What is the capital of France?"));
+        assertTrue(limiter.getAvailableRequests() >= requests);
+        assertTrue(limiter.getAvailableTokens() >= tokens);
+    }
+
+    @Test
+    void testRateLimitsEachUpstreamOnItsOwnQuota() {
+        OpenAIStubServer other = OpenAIStubServer.start().content("Paris.");
+        try {
+            OpenAIConfigProperties properties = server.properties();
+            properties.getRateLimit().setEnabled(true);
+            properties.getRateLimit().setRequestsPerMinute(1);
+            properties.getRateLimit().setMaxWait(Duration.ZERO);
+            properties.getRouting().setFailureThreshold(1);
+            properties.getRouting().setUpstreams(List.of(upstream("first", server.getEndpoint(), "key-1"),
+                    upstream("second", other.getEndpoint(), "key-2")));
+            UpstreamRouter router = new UpstreamRouter(properties.getRouting(), properties.getRateLimit(), new HeuristicTokenEstimator());
+            OpenAIService service = server.createService(properties);
+            service.setUpstreamRouter(router);
+
+            // Each key has a quota of one request per minute, so the third request is rejected by both limiters
+            service.sendRequest("What is the capital of France?");
+            service.sendRequest("What is the capital of France?");
+            assertThrows(OpenAIThrottledException.class, () -> service.sendRequest("What is the capital of France?"));
+
+            assertEquals(1, server.getRequestCount());
+            assertEquals(1, other.getRequestCount());
+            // The rejected request never reached the upstreams, which stay healthy and idle
+            for (Upstream upstream : router.getUpstreams()) {
+                assertEquals(CircuitBreaker.State.CLOSED, upstream.getCircuitBreaker().getState());
+                assertEquals(0, upstream.getOutstanding());
+            }
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    void testServesProviderNeutralChat() {
+        OpenAIService service = server.createService(server.properties());
+        StringBuilder streamed = new StringBuilder();
+
+        ChatResponse response = service.chat(new ChatRequest().user("What is the capital of France?").maxTokens(100));
+        ChatResponse streamedResponse = service.streamChat(new ChatRequest().system("Answer briefly.").user("What is the capital of France?"),
+                streamed::append);
+
+        assertEquals("openai", response.getProvider());
+        assertEquals("gpt-4o", response.getModel());
+        assertEquals("Paris is the capital of France.", response.getContent());
+        assertEquals(ChatResponse.FINISH_STOP, response.getFinishReason());
+        assertEquals(6, response.getCompletionTokens());
+        assertEquals("Paris is the capital of France.", streamed.toString());
+        assertEquals("Paris is the capital of France.", streamedResponse.getContent());
+        // The configured system prompt is only added when the request has no system message
+        OpenAIRequest sent = server.getRequests().get(0).toOpenAIRequest();
+        assertEquals(List.of("system", "user"), sent.getMessages().stream().map(Message::getRole).toList());
+        assertEquals(100, sent.getMaxTokens());
+        assertEquals("Answer briefly.", server.getRequests().get(1).toOpenAIRequest().getMessages().get(0).getContent());
+        assertEquals(2, server.getRequests().get(1).toOpenAIRequest().getMessages().size());
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.getRequestCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, server.getRequestCount());
+    }
+
+    private static OpenAIConfigProperties.ModelRouting.ModelSettings model(String name, ModelTier tier, double inputCost, String fallback) {
+        OpenAIConfigProperties.ModelRouting.ModelSettings model = new OpenAIConfigProperties.ModelRouting.ModelSettings();
+        model.setName(name);
+        model.setTier(tier);
+        model.setInputCostPerMillion(inputCost);
+        model.setOutputCostPerMillion(inputCost * 4);
+        if (fallback != null) {
+            model.setFallbacks(List.of(fallback));
+        }
+        return model;
+    }
+
+    private static OpenAIConfigProperties.Routing.UpstreamSettings upstream(String name, String endpoint, String apiKey) {
+        OpenAIConfigProperties.Routing.UpstreamSettings upstream = new OpenAIConfigProperties.Routing.UpstreamSettings();
+        upstream.setName(name);
+        upstream.setEndpoint(endpoint);
+        upstream.setApiKey(apiKey);
+        return upstream;
+    }
+}
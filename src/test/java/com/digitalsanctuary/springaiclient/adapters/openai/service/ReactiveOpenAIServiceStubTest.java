@@ -0,0 +1,107 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.ReactiveHttpConnectorFactory;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.ReactiveOpenAIConfig;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChunk;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.OpenAIStubServer;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.RecordedRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.StubLatency;
+import com.digitalsanctuary.springaiclient.adapters.openai.stub.StubOutcome;
+
+/**
+ * Tests {@link ReactiveOpenAIService} end to end against the {@link OpenAIStubServer}.
+ */
+class ReactiveOpenAIServiceStubTest {
+
+    private final OpenAIStubServer server = OpenAIStubServer.start().content("Paris is the capital of France.");
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void testSendsRequestAndParsesResponse() {
+        ReactiveOpenAIService service = createService(server.properties());
+
+        OpenAIResponse response = service.sendRequest("What is the capital of France?").block(Duration.ofSeconds(10));
+
+        assertEquals("Paris is the capital of France.", response.getMessage());
+        RecordedRequest recorded = server.getRequests().get(0);
+        assertEquals("Bearer stub-api-key", recorded.getHeader("Authorization"));
+        assertEquals("What is the capital of France?", recorded.toOpenAIRequest().getMessages().get(1).getContent());
+    }
+
+    @Test
+    void testStreamsChunks() {
+        ReactiveOpenAIService service = createService(server.properties());
+
+        List<StreamChunk> chunks = service.streamRequest(service.createRequestBuilder().userMessage("What is the capital of France?").build())
+                .collectList().block(Duration.ofSeconds(10));
+
+        String content = chunks.stream().flatMap(chunk -> chunk.getChoices().stream()).map(choice -> choice.getDelta().getContent())
+                .filter(Objects::nonNull).collect(Collectors.joining());
+        assertEquals("Paris is the capital of France.", content);
+        assertTrue(server.getRequests().get(0).toOpenAIRequest().getStream());
+    }
+
+    @Test
+    void testMapsRateLimitWithRetryAfter() {
+        ReactiveOpenAIService service = createService(server.properties());
+        server.enqueue(StubOutcome.rateLimited(Duration.ofSeconds(2)));
+
+        OpenAIRateLimitException e = assertThrows(OpenAIRateLimitException.class,
+                () -> service.sendRequest("What is the capital of France?").block(Duration.ofSeconds(10)));
+
+        assertEquals(Duration.ofSeconds(2), e.getRetryAfter());
+    }
+
+    @Test
+    void testMapsServerErrors() {
+        ReactiveOpenAIService service = createService(server.properties());
+        server.enqueue(StubOutcome.serverError(503));
+
+        OpenAIServerException e = assertThrows(OpenAIServerException.class,
+                () -> service.sendRequest("What is the capital of France?").block(Duration.ofSeconds(10)));
+
+        assertEquals(503, e.getStatusCode());
+    }
+
+    @Test
+    void testAppliesReadTimeout() {
+        OpenAIConfigProperties properties = server.properties();
+        properties.getHttp().setReadTimeout(Duration.ofMillis(200));
+        ReactiveOpenAIService service = createService(properties);
+        server.latency(StubLatency.fixed(Duration.ofSeconds(5)));
+
+        long start = System.nanoTime();
+        OpenAITimeoutException e = assertThrows(OpenAITimeoutException.class,
+                () -> service.sendRequest("What is the capital of France?").block(Duration.ofSeconds(10)));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+        assertTrue(e.isTransient());
+    }
+
+    @Test
+    void testCreatesConnectorForTheConfiguredTransport() {
+        assertInstanceOf(JdkClientHttpConnector.class, ReactiveHttpConnectorFactory.create(server.properties().getHttp()));
+    }
+
+    private static ReactiveOpenAIService createService(OpenAIConfigProperties properties) {
+        ReactiveOpenAIConfig config = new ReactiveOpenAIConfig(properties);
+        return new ReactiveOpenAIService(config.openAIWebClient(config.openAIClientHttpConnector()), properties);
+    }
+}
@@ -0,0 +1,67 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.codec.OpenAICodec;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+
+class RequestTemplateTest {
+
+    private static final String SYSTEM_PROMPT = "You are a \"careful\" translator.\nAnswer with JSON such as {\"text\": \"...\"} — nothing else.";
+
+    private final OpenAICodec codec = new OpenAICodec(false, false);
+
+    @Test
+    void testRenderMatchesBuilder() {
+        RequestBuilder builder = new RequestBuilder().model("gpt-4o").outputTokens(200).systemPrompt(SYSTEM_PROMPT);
+        RequestTemplate template = builder.template();
+
+        OpenAIRequest rendered = template.render("Translate \"héllo\"");
+        OpenAIRequest built = builder.userMessage("Translate \"héllo\"").build();
+
+        assertEquals(built, rendered);
+        assertArrayEquals(codec.writeRequest(built), codec.writeRequest(rendered));
+        assertEquals(ProviderJson.mapper().readTree(ProviderJson.mapper().writeValueAsBytes(built)),
+                ProviderJson.mapper().readTree(codec.writeRequest(rendered)));
+    }
+
+    @Test
+    void testStreamingRequestMatchesGenericEncoding() {
+        RequestBuilder builder = new RequestBuilder().model("gpt-4o-mini").outputTokens(50).systemPrompt(SYSTEM_PROMPT);
+        OpenAIRequest rendered = OpenAIService.toStreamingRequest(builder.template().render("Hello"));
+        OpenAIRequest built = OpenAIService.toStreamingRequest(builder.userMessage("Hello").build());
+
+        assertArrayEquals(codec.writeRequest(built), codec.writeRequest(rendered));
+    }
+
+    @Test
+    void testModifiedRequestIsEncodedGenerically() {
+        RequestTemplate template = new RequestBuilder().model("gpt-4o").outputTokens(200).systemPrompt(SYSTEM_PROMPT).template();
+        OpenAIRequest request = template.render("Hello");
+        request.setModel("gpt-4o-mini");
+        request.getMessages().get(0).setContent("Be brief.");
+
+        OpenAIRequest decoded = ProviderJson.mapper().readValue(codec.writeRequest(request), OpenAIRequest.class);
+
+        assertEquals("gpt-4o-mini", decoded.getModel());
+        assertEquals("Be brief.", decoded.getMessages().get(0).getContent());
+        assertEquals(SYSTEM_PROMPT, template.render("Hello").getMessages().get(0).getContent());
+    }
+
+    @Test
+    void testRendersPlaceholders() {
+        RequestTemplate template = new RequestBuilder().model("gpt-4o").outputTokens(200).systemPrompt(SYSTEM_PROMPT)
+                .userMessage("Translate {text} into {language}. Reply as {\"text\": ...}.").template();
+
+        OpenAIRequest request = template.render(Map.of("text", "Good morning", "language", "French"));
+
+        assertEquals(List.of("text", "language"), template.getPlaceholders());
+        assertEquals("Translate Good morning into French. Reply as {\"text\": ...}.", request.getMessages().get(1).getContent());
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of("text", "Good morning")));
+    }
+}
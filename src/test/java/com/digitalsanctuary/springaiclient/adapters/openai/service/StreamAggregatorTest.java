@@ -0,0 +1,62 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChunk;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+
+class StreamAggregatorTest {
+
+    private static final String EVENTS = """
+            : keep-alive
+
+            data: {"id":"chatcmpl-1","object":"chat.completion.chunk","created":1700000000,"model":"gpt-4o","choices":[{"index":0,"delta":{"role":"assistant","content":""},"finish_reason":null}]}
+
+            data: {"id":"chatcmpl-1","object":"chat.completion.chunk","created":1700000000,"model":"gpt-4o","choices":[{"index":0,"delta":{"content":"Hello"},"finish_reason":null}]}
+
+            data: {"id":"chatcmpl-1","object":"chat.completion.chunk","created":1700000000,"model":"gpt-4o","choices":[{"index":0,"delta":{"content":" world"},"finish_reason":null}]}
+
+            data: {"id":"chatcmpl-1","object":"chat.completion.chunk","created":1700000000,"model":"gpt-4o","choices":[{"index":0,"delta":{},"finish_reason":"stop"}]}
+
+            data: {"id":"chatcmpl-1","object":"chat.completion.chunk","created":1700000000,"model":"gpt-4o","choices":[],"usage":{"prompt_tokens":9,"completion_tokens":2,"total_tokens":11}}
+
+            data: [DONE]
+
+            """;
+
+    @Test
+    void testAggregatesContentAndUsage() throws IOException {
+        OpenAIResponse response = aggregate(true);
+
+        assertEquals("chatcmpl-1", response.getId());
+        assertEquals("gpt-4o", response.getModel());
+        assertEquals("Hello world", response.getMessage());
+        assertEquals("assistant", response.getChoices().get(0).getMessage().getRole());
+        assertEquals("stop", response.getChoices().get(0).getFinishReason());
+        assertEquals(11, response.getUsage().getTotalTokens());
+    }
+
+    @Test
+    void testSkipsContentWhenNotAccumulating() throws IOException {
+        OpenAIResponse response = aggregate(false);
+
+        assertNull(response.getMessage());
+        assertEquals("stop", response.getChoices().get(0).getFinishReason());
+        assertEquals(2, response.getUsage().getCompletionTokens());
+    }
+
+    private OpenAIResponse aggregate(boolean accumulateContent) throws IOException {
+        SseEventReader events = new SseEventReader(new ByteArrayInputStream(EVENTS.getBytes(StandardCharsets.UTF_8)));
+        StreamAggregator aggregator = new StreamAggregator(accumulateContent);
+        String data;
+        while ((data = events.next()) != null) {
+            aggregator.accept(ProviderJson.mapper().readValue(data, StreamChunk.class));
+        }
+        return aggregator.toResponse();
+    }
+}
@@ -0,0 +1,103 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.tokenizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.RequestBuilder;
+
+class BpeTokenizerTest {
+
+    private static final Map<BpeEncoding, BpeTokenizer> KNOWN_ANSWER_TOKENIZERS = new ConcurrentHashMap<>();
+
+    /**
+     * Every single byte, followed by merged tokens in rank order.
+     */
+    private static final String[] MERGED = {"he", "ll", "hell", "hello", " w", "or", " wor", "ld", " world"};
+
+    private static BpeTokenizer tokenizer(int cacheSize) {
+        StringBuilder vocabulary = new StringBuilder();
+        Base64.Encoder encoder = Base64.getEncoder();
+        for (int b = 0; b < 256; b++) {
+            vocabulary.append(encoder.encodeToString(new byte[] {(byte) b})).append(' ').append(b).append('\n');
+        }
+        for (int i = 0; i < MERGED.length; i++) {
+            vocabulary.append(encoder.encodeToString(MERGED[i].getBytes(StandardCharsets.UTF_8))).append(' ').append(256 + i).append('\n');
+        }
+        return new BpeTokenizer(BpeEncoding.CL100K_BASE, new ByteArrayInputStream(vocabulary.toString().getBytes(StandardCharsets.US_ASCII)),
+                cacheSize);
+    }
+
+    @Test
+    void testCountsTokens() {
+        BpeTokenizer tokenizer = tokenizer(16);
+
+        assertEquals(0, tokenizer.countTokens(null));
+        assertEquals(3, tokenizer.countTokens("hello world!"));
+        // h e l l p merges to "hell" + "p"
+        assertEquals(2, tokenizer.countTokens("hellp"));
+        assertEquals(2, tokenizer.countTokens(new StringBuilder("hellp")));
+        // é is two bytes without a merge
+        assertEquals(5, tokenizer.countTokens("héllo"));
+        assertEquals(tokenizer(0).countTokens("hellp héllo wor world"), tokenizer.countTokens("hellp héllo wor world"));
+    }
+
+    @Test
+    void testRejectsIncompleteVocabulary() {
+        byte[] vocabulary = (Base64.getEncoder().encodeToString("a".getBytes(StandardCharsets.US_ASCII)) + " 0\n").getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(IllegalArgumentException.class, () -> new BpeTokenizer(BpeEncoding.O200K_BASE, new ByteArrayInputStream(vocabulary), 0));
+    }
+
+    @Test
+    void testClampsOutputTokensToContextWindow() {
+        // 3 for the reply, 3 + 6 + 3 for the system message and 3 + 4 + 2 for the user message
+        RequestBuilder builder = new RequestBuilder().model("gpt-4o").outputTokens(100).systemPrompt("hello world!").userMessage("hellp");
+
+        OpenAIRequest request = builder.clampOutputTokens(tokenizer(16), 30).build();
+
+        assertEquals(6, request.getMaxTokens());
+        assertEquals(100, builder.clampOutputTokens(tokenizer(16), 0).build().getMaxTokens());
+        assertThrows(IllegalArgumentException.class, () -> builder.clampOutputTokens(tokenizer(16), 24).build());
+    }
+
+    /**
+     * Counts published by OpenAI for its tiktoken library. The vocabularies are downloaded into the test resources by the build, and the test is
+     * skipped when they could not be.
+     */
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', textBlock = """
+            CL100K_BASE | tiktoken is great!            | 6
+            CL100K_BASE | antidisestablishmentarianism  | 6
+            CL100K_BASE | 2 + 2 = 4                     | 7
+            CL100K_BASE | お誕生日おめでとう             | 9
+            O200K_BASE  | tiktoken is great!            | 6
+            O200K_BASE  | antidisestablishmentarianism  | 6
+            O200K_BASE  | 2 + 2 = 4                     | 7
+            O200K_BASE  | お誕生日おめでとう             | 8
+            """)
+    void testCountsTokensLikeTiktoken(BpeEncoding encoding, String text, int expected) {
+        assumeTrue(BpeTokenizer.isAvailable(encoding), () -> "No " + encoding.getEncodingName() + " vocabulary on the test classpath");
+        BpeTokenizer tokenizer = KNOWN_ANSWER_TOKENIZERS.computeIfAbsent(encoding, BpeTokenizer::load);
+
+        assertEquals(expected, tokenizer.countTokens(text));
+        // The cached counts of the pieces give the same answer
+        assertEquals(expected, tokenizer.countTokens(text));
+    }
+
+    @Test
+    void testSelectsEncodingByModel() {
+        assertEquals(BpeEncoding.O200K_BASE, BpeEncoding.forModel("gpt-4o-2024-08-06"));
+        assertEquals(BpeEncoding.CL100K_BASE, BpeEncoding.forModel("gpt-4-turbo"));
+        assertEquals(128_000, ContextWindows.forModel("gpt-4o-mini"));
+        assertEquals(0, ContextWindows.forModel("my-model"));
+    }
+}
@@ -0,0 +1,166 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.vectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VectorIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void testFlatIndexReturnsExactTopK() {
+        float[][] vectors = randomVectors(3000, 24);
+        FlatVectorIndex index = new FlatVectorIndex(24, Similarity.DOT_PRODUCT);
+        for (int i = 0; i < vectors.length; i++) {
+            index.add("v" + i, vectors[i]);
+        }
+        float[] query = randomVectors(1, 24)[0];
+
+        List<VectorMatch> matches = index.search(query, 10);
+
+        List<String> expected = IntStream.range(0, vectors.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> dot(query, vectors[i])).reversed()).limit(10).map(i -> "v" + i).toList();
+        assertEquals(expected, matches.stream().map(VectorMatch::getId).toList());
+        assertEquals(dot(query, vectors[Integer.parseInt(expected.get(0).substring(1))]), matches.get(0).getScore(), 1e-4);
+        assertEquals(5, index.search(query, 5).size());
+    }
+
+    @Test
+    void testHnswIndexRecallsNearestNeighbors() {
+        float[][] vectors = randomVectors(5000, 32);
+        FlatVectorIndex exact = new FlatVectorIndex(32, Similarity.COSINE);
+        HnswVectorIndex approximate = new HnswVectorIndex(32, Similarity.COSINE);
+        for (int i = 0; i < vectors.length; i++) {
+            exact.add("v" + i, vectors[i]);
+            approximate.add("v" + i, vectors[i]);
+        }
+
+        int hits = 0;
+        for (float[] query : randomVectors(50, 32)) {
+            Set<String> truth = exact.search(query, 10).stream().map(VectorMatch::getId).collect(Collectors.toSet());
+            List<VectorMatch> matches = approximate.search(query, 10);
+            assertEquals(10, matches.size());
+            hits += (int) matches.stream().filter(match -> truth.contains(match.getId())).count();
+        }
+
+        assertTrue(hits >= 450, "recall@10 was " + hits / 500.0);
+    }
+
+    @Test
+    void testSavesAndLoadsThroughMappedFiles() {
+        float[][] vectors = randomVectors(2500, 16);
+        FlatVectorIndex flat = new FlatVectorIndex(16, Similarity.COSINE);
+        HnswVectorIndex hnsw = new HnswVectorIndex(16, Similarity.COSINE, 8, 100, 32);
+        for (int i = 0; i < vectors.length; i++) {
+            flat.add("doc-" + i + "-é", vectors[i]);
+            hnsw.add("doc-" + i + "-é", vectors[i]);
+        }
+        flat.save(directory.resolve("flat.idx"));
+        hnsw.save(directory.resolve("hnsw.idx"));
+
+        FlatVectorIndex loadedFlat = FlatVectorIndex.load(directory.resolve("flat.idx"));
+        HnswVectorIndex loadedHnsw = HnswVectorIndex.load(directory.resolve("hnsw.idx"));
+
+        assertEquals(2500, loadedFlat.size());
+        assertEquals(16, loadedHnsw.dimensions());
+        assertEquals(Similarity.COSINE, loadedHnsw.similarity());
+        for (float[] query : randomVectors(10, 16)) {
+            assertEquals(flat.search(query, 5), loadedFlat.search(query, 5));
+            assertEquals(hnsw.search(query, 5), loadedHnsw.search(query, 5));
+        }
+        loadedHnsw.add("new", vectors[0]);
+        assertEquals(2501, loadedHnsw.size());
+        assertThrows(IllegalArgumentException.class, () -> loadedFlat.add("doc-0-é", vectors[0]));
+        assertThrows(UncheckedIOException.class, () -> HnswVectorIndex.load(directory.resolve("flat.idx")));
+    }
+
+    @Test
+    void testSearchesWhileAdding() throws InterruptedException {
+        float[][] vectors = randomVectors(4000, 16);
+        HnswVectorIndex index = new HnswVectorIndex(16, Similarity.COSINE, 8, 64, 32);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(1);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            float[][] queries = randomVectors(20, 16);
+            Thread reader = new Thread(() -> {
+                try {
+                    while (done.getCount() > 0) {
+                        for (float[] query : queries) {
+                            List<VectorMatch> matches = index.search(query, 10);
+                            assertEquals(matches.size(), new HashSet<>(matches).size());
+                        }
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (int i = 0; i < vectors.length; i++) {
+            index.add("v" + i, vectors[i]);
+        }
+        done.countDown();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> "Search failed: " + failures.peek());
+        assertEquals(4000, index.size());
+        assertEquals("v1234", index.search(vectors[1234], 1, 200).get(0).getId());
+    }
+
+    @Test
+    void testRejectsWrongDimensionsAndNormalizesCosine() {
+        FlatVectorIndex index = new FlatVectorIndex(3, Similarity.COSINE);
+        index.add("a", new float[] { 10, 0, 0 });
+        index.add("b", new float[] { 0, 2, 0 });
+
+        List<VectorMatch> matches = index.search(new float[] { 3, 0, 0 }, 5);
+
+        assertEquals(2, matches.size());
+        assertEquals("a", matches.get(0).getId());
+        assertEquals(1.0f, matches.get(0).getScore(), 1e-6);
+        assertEquals(0.0f, matches.get(1).getScore(), 1e-6);
+        assertThrows(IllegalArgumentException.class, () -> index.add("c", new float[] { 1, 2 }));
+        assertThrows(IllegalArgumentException.class, () -> index.search(new float[4], 1));
+        assertTrue(new HnswVectorIndex(3, Similarity.COSINE).search(new float[3], 1).isEmpty());
+    }
+
+    private float[][] randomVectors(int count, int dimensions) {
+        float[][] vectors = new float[count][dimensions];
+        for (float[] vector : vectors) {
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,25 @@
+package com.digitalsanctuary.springaiclient.adapters.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+class RateLimitHeadersTest {
+
+    @Test
+    void testParsesResetDurations() {
+        assertEquals(Duration.ofMillis(360_000), RateLimitHeaders.parseDuration("6m0s"));
+        assertEquals(Duration.ofMillis(20), RateLimitHeaders.parseDuration("20ms"));
+        assertEquals(Duration.ofMillis(3_723_500), RateLimitHeaders.parseDuration("1h2m3.5s"));
+        assertEquals(null, RateLimitHeaders.parseDuration("soon"));
+    }
+
+    @Test
+    void testReadsRetryAfterSeconds() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.RETRY_AFTER, "7");
+
+        assertEquals(Duration.ofSeconds(7), RateLimitHeaders.retryAfter(headers));
+    }
+}
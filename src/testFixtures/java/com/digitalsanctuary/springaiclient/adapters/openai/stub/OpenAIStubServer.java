@@ -0,0 +1,1055 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.stub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.config.AnthropicConfig;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.config.AnthropicConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.anthropic.service.AnthropicService;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfig;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIConfigProperties;
+import com.digitalsanctuary.springaiclient.adapters.openai.config.OpenAIHttpClientFactory;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Choice;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Message;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIResponse;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChoice;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.StreamChunk;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.Usage;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.AsyncExecutors;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIBatchService;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIEmbeddingService;
+import com.digitalsanctuary.springaiclient.adapters.openai.service.OpenAIService;
+import com.digitalsanctuary.springaiclient.adapters.openai.tokenizer.HeuristicTokenEstimator;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * An embedded stand-in for the OpenAI chat completions API, for testing throughput and resilience without a network.
+ * <p>
+ * The server listens on the loopback interface and implements {@value #CHAT_COMPLETIONS_PATH} in JSON mode and, for requests with
+ * {@code "stream": true}, in SSE mode. It also implements {@value #EMBEDDINGS_PATH}, returning the vectors of {@link #embedding(String, int)} in
+ * the {@code float} or {@code base64} format, and the files and batches endpoints of the Batch API: a batch is {@code completed} once polled
+ * {@value #BATCH_POLLS_TO_COMPLETE} times, with an output file answering each request as {@value #CHAT_COMPLETIONS_PATH} would and an error
+ * file for the requests to {@value #UNKNOWN_MODEL}. The Anthropic Messages endpoint {@value #MESSAGES_PATH} is served in both modes as well, so
+ * failover between providers can be exercised against one server. Its behavior is configured through chained methods and can be changed while it
+ * is running:
+ * </p>
+ * <ul>
+ *   <li>{@link #latency(StubLatency)}: the time to the first byte of each response</li>
+ *   <li>{@link #tokensPerSecond(double)}: the emission rate of streamed tokens</li>
+ *   <li>{@link #rateLimit(int, int)}: a per-minute request and token budget, reported in {@code x-ratelimit-*} headers and answered with 429 and
+ *   {@code Retry-After} once exhausted</li>
+ *   <li>{@link #errorRate(double, int)} and {@link #resetRate(double)}: random server errors and dropped connections</li>
+ *   <li>{@link #enqueue(StubOutcome...)}: scripted outcomes for the next requests, which take precedence over the random ones</li>
+ * </ul>
+ * <p>
+ * Every request received is recorded and available through {@link #getRequests()}.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@code
+ * try (OpenAIStubServer server = OpenAIStubServer.start().latency(StubLatency.fixed(Duration.ofMillis(50)))) {
+ *     server.enqueue(StubOutcome.serverError(503), StubOutcome.success("Hello"));
+ *     OpenAIService service = server.createService(server.properties());
+ *     OpenAIResponse response = service.sendRequest("Hi");
+ * }
+ * }
+ * </pre>
+ */
+public class OpenAIStubServer implements AutoCloseable {
+
+    /**
+     * The path of the chat completions endpoint.
+     */
+    public static final String CHAT_COMPLETIONS_PATH = "/v1/chat/completions";
+
+    /**
+     * The path of the Anthropic Messages endpoint.
+     */
+    public static final String MESSAGES_PATH = "/v1/messages";
+
+    /**
+     * The path of the embeddings endpoint.
+     */
+    public static final String EMBEDDINGS_PATH = "/v1/embeddings";
+
+    /**
+     * The path prefix of the files endpoints.
+     */
+    public static final String FILES_PATH = "/v1/files";
+
+    /**
+     * The path prefix of the batches endpoints.
+     */
+    public static final String BATCHES_PATH = "/v1/batches";
+
+    /**
+     * The number of polls after which a batch is completed.
+     */
+    public static final int BATCH_POLLS_TO_COMPLETE = 3;
+
+    /**
+     * The model for which requests in a batch fail with a 404 in the error file.
+     */
+    public static final String UNKNOWN_MODEL = "unknown-model";
+
+    /**
+     * The number of dimensions of the embeddings returned when the request does not ask for a number.
+     */
+    public static final int DEFAULT_EMBEDDING_DIMENSIONS = 8;
+
+    private static final Duration RATE_LIMIT_WINDOW = Duration.ofMinutes(1);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final JsonMapper mapper = ProviderJson.mapper();
+    private final Queue<StubOutcome> scripted = new ConcurrentLinkedQueue<>();
+    private final Queue<RecordedRequest> requests = new ConcurrentLinkedQueue<>();
+    private final AtomicLong completionIds = new AtomicLong();
+    private final AtomicLong objectIds = new AtomicLong();
+    private final ConcurrentMap<String, byte[]> files = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, StubBatch> batches = new ConcurrentHashMap<>();
+
+    private volatile String content = "Hello from the OpenAI stub server.";
+    private volatile StubLatency latency = StubLatency.none();
+    private volatile double tokensPerSecond;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+    private volatile double resetRate;
+    private volatile Random random = new Random();
+
+    private final Object budgetLock = new Object();
+    private int requestsPerMinute;
+    private int tokensPerMinute;
+    private long windowStartNanos = System.nanoTime();
+    private int requestsUsed;
+    private long tokensUsed;
+
+    private OpenAIStubServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "openai-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Starts a stub server on a free port.
+     *
+     * @return the running server
+     */
+    public static OpenAIStubServer start() {
+        return start(0);
+    }
+
+    /**
+     * Starts a stub server on the given port.
+     *
+     * @param port the port, or 0 for a free port
+     * @return the running server
+     */
+    public static OpenAIStubServer start(int port) {
+        try {
+            return new OpenAIStubServer(port);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start the OpenAI stub server", e);
+        }
+    }
+
+    /**
+     * Returns the URL of the chat completions endpoint, to be used as {@code ds.ai.openai.api-endpoint}.
+     *
+     * @return the endpoint URL
+     */
+    public String getEndpoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + CHAT_COMPLETIONS_PATH;
+    }
+
+    /**
+     * Returns the URL of the embeddings endpoint, to be used as {@code ds.ai.openai.embeddings.endpoint}.
+     *
+     * @return the endpoint URL
+     */
+    public String getEmbeddingsEndpoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + EMBEDDINGS_PATH;
+    }
+
+    /**
+     * Returns the base URL of the files and batches endpoints, to be used as {@code ds.ai.openai.batch.base-url}.
+     *
+     * @return the base URL
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1";
+    }
+
+    /**
+     * Returns the URL of the Anthropic Messages endpoint, to be used as {@code ds.ai.anthropic.api-endpoint}.
+     *
+     * @return the endpoint URL
+     */
+    public String getMessagesEndpoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + MESSAGES_PATH;
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns configuration properties pointing at this server, with the library defaults for everything else.
+     *
+     * @return the configuration properties
+     */
+    public OpenAIConfigProperties properties() {
+        OpenAIConfigProperties properties = new OpenAIConfigProperties();
+        properties.setApiKey("stub-api-key");
+        properties.setApiEndpoint(getEndpoint());
+        properties.getEmbeddings().setEndpoint(getEmbeddingsEndpoint());
+        properties.getBatch().setBaseUrl(getBaseUrl());
+        properties.setModel("gpt-4o");
+        properties.setOutputTokens(4096);
+        properties.setSystemPrompt("You are a helpful assistant.");
+        // The stub speaks plain HTTP/1.1, avoid an h2c upgrade attempt on every call
+        properties.getHttp().setHttp2(false);
+        return properties;
+    }
+
+    /**
+     * Creates an OpenAI service wired as by the auto-configuration, for the given properties.
+     *
+     * @param properties the configuration properties, typically from {@link #properties()}
+     * @return the OpenAI service
+     */
+    public OpenAIService createService(OpenAIConfigProperties properties) {
+        OpenAIConfig config = new OpenAIConfig(properties);
+        return new OpenAIService(config.openAIRestClient(OpenAIHttpClientFactory.create(properties.getHttp())), properties);
+    }
+
+    /**
+     * Returns Anthropic configuration properties pointing at this server, with the library defaults for everything else.
+     *
+     * @return the configuration properties
+     */
+    public AnthropicConfigProperties anthropicProperties() {
+        AnthropicConfigProperties properties = new AnthropicConfigProperties();
+        properties.setEnabled(true);
+        properties.setApiKey("stub-anthropic-key");
+        properties.setApiEndpoint(getMessagesEndpoint());
+        properties.setApiVersion("2023-06-01");
+        properties.setModel("claude-sonnet-4-5");
+        properties.setOutputTokens(4096);
+        properties.setSystemPrompt("You are a helpful assistant.");
+        return properties;
+    }
+
+    /**
+     * Creates an Anthropic service wired as by the auto-configuration, for the given properties.
+     *
+     * @param properties the configuration properties, typically from {@link #anthropicProperties()}
+     * @return the Anthropic service
+     */
+    public AnthropicService createAnthropicService(AnthropicConfigProperties properties) {
+        OpenAIConfigProperties.Http http = new OpenAIConfigProperties.Http();
+        http.setHttp2(false);
+        return new AnthropicService(new AnthropicConfig(properties).anthropicRestClient(OpenAIHttpClientFactory.create(http)), properties);
+    }
+
+    /**
+     * Creates an embeddings service wired as by the auto-configuration, for the given properties.
+     *
+     * @param properties the configuration properties, typically from {@link #properties()}
+     * @return the embeddings service, to be closed by the caller
+     */
+    public OpenAIEmbeddingService createEmbeddingService(OpenAIConfigProperties properties) {
+        OpenAIConfig config = new OpenAIConfig(properties);
+        return new OpenAIEmbeddingService(config.openAIRestClient(OpenAIHttpClientFactory.create(properties.getHttp())), properties,
+                AsyncExecutors.create(properties.getAsync()), new HeuristicTokenEstimator());
+    }
+
+    /**
+     * Creates a batch service wired as by the auto-configuration, for the given properties.
+     *
+     * @param properties the configuration properties, typically from {@link #properties()}
+     * @return the batch service
+     */
+    public OpenAIBatchService createBatchService(OpenAIConfigProperties properties) {
+        OpenAIConfig config = new OpenAIConfig(properties);
+        return new OpenAIBatchService(config.openAIRestClient(OpenAIHttpClientFactory.create(properties.getHttp())), properties);
+    }
+
+    /**
+     * Returns the content of an uploaded file.
+     *
+     * @param fileId the file identifier
+     * @return the file content, or null if there is no such file
+     */
+    public String getFile(String fileId) {
+        byte[] content = files.get(fileId);
+        return content == null ? null : new String(content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the vector the server returns for a text: a deterministic function of the text, so tests can check which text a vector belongs to.
+     *
+     * @param text the embedded text
+     * @param dimensions the number of dimensions
+     * @return the vector
+     */
+    public static float[] embedding(String text, int dimensions) {
+        float[] vector = new float[dimensions];
+        Random seeded = new Random(text.hashCode());
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = seeded.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    /**
+     * Sets the assistant message content of successful completions.
+     *
+     * @param content the content
+     * @return this server for method chaining
+     */
+    public OpenAIStubServer content(String content) {
+        this.content = content;
+        return this;
+    }
+
+    /**
+     * Sets the distribution of the time to the first byte of each response.
+     *
+     * @param latency the latency distribution
+     * @return this server for method chaining
+     */
+    public OpenAIStubServer latency(StubLatency latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Sets the rate at which streamed tokens are emitted.
+     *
+     * @param tokensPerSecond the tokens per second, or 0 to emit them without delay
+     * @return this server for method chaining
+     */
+    public OpenAIStubServer tokensPerSecond(double tokensPerSecond) {
+        this.tokensPerSecond = tokensPerSecond;
+        return this;
+    }
+
+    /**
+     * Sets the fraction of requests answered with a server error.
+     *
+     * @param errorRate the fraction of requests, between 0 and 1
+     * @param status the HTTP status of the errors
+     * @return this server for method chaining
+     */
+    public OpenAIStubServer errorRate(double errorRate, int status) {
+        this.errorRate = errorRate;
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * Sets the fraction of requests whose connection is dropped.
+     *
+     * @param resetRate the fraction of requests, between 0 and 1
+     * @return this server for method chaining
+     */
+    public OpenAIStubServer resetRate(double resetRate) {
+        this.resetRate = resetRate;
+        return this;
+    }
+
+    /**
+     * Sets the per-minute budget of the server. Successful responses carry the {@code x-ratelimit-*} headers of the OpenAI API, and requests
+     * beyond the budget are answered with 429 and a {@code Retry-After} header until the window resets.
+     *
+     * @param requestsPerMinute the requests per minute, or 0 for no request limit
+     * @param tokensPerMinute the prompt and completion tokens per minute, or 0 for no token limit
+     * @return this server for method chaining
+     */
+    public OpenAIStubServer rateLimit(int requestsPerMinute, int tokensPerMinute) {
+        synchronized (budgetLock) {
+            this.requestsPerMinute = requestsPerMinute;
+            this.tokensPerMinute = tokensPerMinute;
+            this.windowStartNanos = System.nanoTime();
+            this.requestsUsed = 0;
+            this.tokensUsed = 0;
+        }
+        return this;
+    }
+
+    /**
+     * Seeds the random source of latencies and random failures, making a run repeatable.
+     *
+     * @param seed the seed
+     * @return this server for method chaining
+     */
+    public OpenAIStubServer seed(long seed) {
+        this.random = new Random(seed);
+        return this;
+    }
+
+    /**
+     * Scripts the outcomes of the next requests, in order. Scripted outcomes take precedence over random failures and the rate limit.
+     *
+     * @param outcomes the outcomes
+     * @return this server for method chaining
+     */
+    public OpenAIStubServer enqueue(StubOutcome... outcomes) {
+        Collections.addAll(scripted, outcomes);
+        return this;
+    }
+
+    /**
+     * Returns the requests received so far, in order of arrival.
+     *
+     * @return the recorded requests
+     */
+    public List<RecordedRequest> getRequests() {
+        return new ArrayList<>(requests);
+    }
+
+    /**
+     * Returns the number of requests received so far.
+     *
+     * @return the number of recorded requests
+     */
+    public int getRequestCount() {
+        return requests.size();
+    }
+
+    /**
+     * Forgets the requests received so far.
+     */
+    public void clearRequests() {
+        requests.clear();
+    }
+
+    /**
+     * Stops the server.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        exchange.getRequestHeaders().forEach((name, values) -> headers.put(name, List.copyOf(values)));
+        String path = exchange.getRequestURI().getPath();
+        requests.add(new RecordedRequest(exchange.getRequestMethod(), path, headers, new String(body, StandardCharsets.UTF_8), Instant.now()));
+
+        if (path.startsWith(FILES_PATH) || path.startsWith(BATCHES_PATH)) {
+            handleBatchApi(exchange, path, body);
+            return;
+        }
+        boolean embeddings = EMBEDDINGS_PATH.equals(path);
+        boolean messages = MESSAGES_PATH.equals(path);
+        if (!"POST".equals(exchange.getRequestMethod()) || !(CHAT_COMPLETIONS_PATH.equals(path) || embeddings || messages)) {
+            sendError(exchange, 404, "invalid_request_error", "Unknown endpoint " + path, null);
+            return;
+        }
+        JsonNode json;
+        try {
+            json = mapper.readTree(body);
+        } catch (JacksonException e) {
+            sendError(exchange, 400, "invalid_request_error", "The request body is not valid JSON", null);
+            return;
+        }
+
+        sleepNanos(latency.sampleNanos(random));
+        StubOutcome outcome = scripted.poll();
+        boolean isScripted = outcome != null;
+        if (!isScripted) {
+            outcome = randomOutcome();
+        }
+        boolean stream = json.path("stream").asBoolean();
+        switch (outcome.getKind()) {
+            case RATE_LIMITED:
+                sendError(exchange, 429, "requests", "Rate limit reached", outcome.getRetryAfter());
+                return;
+            case SERVER_ERROR:
+                sendError(exchange, outcome.getStatus(), "server_error", "The server had an error while processing your request", null);
+                return;
+            case CONNECTION_RESET:
+                if (!stream) {
+                    throw new ConnectionDrop();
+                }
+                break;
+            default:
+                break;
+        }
+        if (embeddings) {
+            respondEmbeddings(exchange, json);
+            return;
+        }
+
+        String completion = outcome.getContent() != null ? outcome.getContent() : content;
+        List<String> tokens = tokenize(completion);
+        Usage usage = new Usage();
+        usage.setPromptTokens(promptTokens(json));
+        usage.setCompletionTokens(tokens.size());
+        usage.setTotalTokens(usage.getPromptTokens() + usage.getCompletionTokens());
+        Duration retryAfter = consumeBudget(exchange, usage.getTotalTokens());
+        if (retryAfter != null && !isScripted) {
+            sendError(exchange, 429, "tokens", "Rate limit reached", retryAfter);
+            return;
+        }
+
+        String model = json.path("model").asString();
+        if (messages) {
+            if (stream) {
+                streamMessage(exchange, model, tokens, usage, outcome.getKind() == StubOutcome.Kind.CONNECTION_RESET);
+            } else {
+                sendJson(exchange, message(model, completion, usage));
+            }
+            return;
+        }
+        if (stream) {
+            stream(exchange, model, tokens, usage, json.path("stream_options").path("include_usage").asBoolean(),
+                    outcome.getKind() == StubOutcome.Kind.CONNECTION_RESET);
+        } else {
+            respond(exchange, model, completion, usage);
+        }
+    }
+
+    /**
+     * Serves the files and batches endpoints. Scripted failures apply to them as to the other endpoints, random ones do not.
+     */
+    private void handleBatchApi(HttpExchange exchange, String path, byte[] body) throws IOException {
+        StubOutcome outcome = scripted.poll();
+        if (outcome != null && outcome.getKind() == StubOutcome.Kind.RATE_LIMITED) {
+            sendError(exchange, 429, "requests", "Rate limit reached", outcome.getRetryAfter());
+            return;
+        }
+        if (outcome != null && outcome.getKind() == StubOutcome.Kind.SERVER_ERROR) {
+            sendError(exchange, outcome.getStatus(), "server_error", "The server had an error while processing your request", null);
+            return;
+        }
+        String method = exchange.getRequestMethod();
+        String[] segments = path.substring(1).split("/");
+        if ("POST".equals(method) && FILES_PATH.equals(path)) {
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            Map<String, byte[]> parts = multipartParts(contentType, body);
+            if (parts.get("file") == null || !"batch".equals(new String(parts.getOrDefault("purpose", new byte[0]), StandardCharsets.UTF_8))) {
+                sendError(exchange, 400, "invalid_request_error", "Expected a file part and purpose=batch", null);
+                return;
+            }
+            sendJson(exchange, fileObject(storeFile(parts.get("file")), parts.get("file").length, "batch"));
+        } else if ("GET".equals(method) && segments.length == 4 && "content".equals(segments[3]) && path.startsWith(FILES_PATH)) {
+            byte[] content = files.get(segments[2]);
+            if (content == null) {
+                sendError(exchange, 404, "invalid_request_error", "No such file: " + segments[2], null);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(200, content.length == 0 ? -1 : content.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(content);
+            }
+        } else if ("POST".equals(method) && BATCHES_PATH.equals(path)) {
+            JsonNode json = mapper.readTree(body);
+            String inputFileId = json.path("input_file_id").asString();
+            if (!files.containsKey(inputFileId)) {
+                sendError(exchange, 400, "invalid_request_error", "No such file: " + inputFileId, null);
+                return;
+            }
+            StubBatch batch = new StubBatch("batch_stub_" + objectIds.incrementAndGet(), inputFileId, json.path("endpoint").asString(),
+                    json.path("completion_window").asString());
+            batches.put(batch.id, batch);
+            sendJson(exchange, batch.toJson());
+        } else if (segments.length >= 3 && path.startsWith(BATCHES_PATH) && batches.containsKey(segments[2])) {
+            StubBatch batch = batches.get(segments[2]);
+            synchronized (batch) {
+                if ("POST".equals(method) && segments.length == 4 && "cancel".equals(segments[3])) {
+                    if (!batch.isTerminal()) {
+                        batch.status = "cancelled";
+                    }
+                } else if ("GET".equals(method) && segments.length == 3) {
+                    batch.polls++;
+                    if (!batch.isTerminal()) {
+                        batch.status = batch.polls >= BATCH_POLLS_TO_COMPLETE ? "completed" : batch.polls == 1 ? "validating" : "in_progress";
+                        if ("completed".equals(batch.status)) {
+                            completeBatch(batch);
+                        }
+                    }
+                } else {
+                    sendError(exchange, 404, "invalid_request_error", "Unknown endpoint " + path, null);
+                    return;
+                }
+                sendJson(exchange, batch.toJson());
+            }
+        } else {
+            sendError(exchange, 404, "invalid_request_error", "Unknown endpoint " + path, null);
+        }
+    }
+
+    /**
+     * Answers each request of the input file of a batch, writing the output and error files.
+     */
+    private void completeBatch(StubBatch batch) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        for (String line : new String(files.get(batch.inputFileId), StandardCharsets.UTF_8).split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode input = mapper.readTree(line);
+            JsonNode request = input.path("body");
+            String model = request.path("model").asString();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("id", "batch_req_" + objectIds.incrementAndGet());
+            result.put("custom_id", input.path("custom_id").asString());
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("request_id", "req_" + objectIds.incrementAndGet());
+            if (UNKNOWN_MODEL.equals(model)) {
+                response.put("status_code", 404);
+                response.put("body", Map.of("error", Map.of("message", "The model `" + model + "` does not exist", "type", "invalid_request_error")));
+                batch.failed++;
+            } else {
+                Usage usage = new Usage();
+                usage.setPromptTokens(promptTokens(request));
+                usage.setCompletionTokens(tokenize(content).size());
+                usage.setTotalTokens(usage.getPromptTokens() + usage.getCompletionTokens());
+                response.put("status_code", 200);
+                response.put("body", completion(model, content, usage));
+                batch.completed++;
+            }
+            result.put("response", response);
+            result.put("error", null);
+            ByteArrayOutputStream target = UNKNOWN_MODEL.equals(model) ? errors : output;
+            target.writeBytes(mapper.writeValueAsBytes(result));
+            target.write('\n');
+        }
+        batch.outputFileId = output.size() > 0 ? storeFile(output.toByteArray()) : null;
+        batch.errorFileId = errors.size() > 0 ? storeFile(errors.toByteArray()) : null;
+    }
+
+    private String storeFile(byte[] content) {
+        String id = "file-stub-" + objectIds.incrementAndGet();
+        files.put(id, content);
+        return id;
+    }
+
+    private static Map<String, Object> fileObject(String id, long bytes, String purpose) {
+        Map<String, Object> file = new LinkedHashMap<>();
+        file.put("id", id);
+        file.put("object", "file");
+        file.put("bytes", bytes);
+        file.put("created_at", Instant.now().getEpochSecond());
+        file.put("filename", "batch.jsonl");
+        file.put("purpose", purpose);
+        return file;
+    }
+
+    /**
+     * Splits a {@code multipart/form-data} body into its parts by name.
+     */
+    private static Map<String, byte[]> multipartParts(String contentType, byte[] body) {
+        Map<String, byte[]> parts = new LinkedHashMap<>();
+        int boundaryStart = contentType == null ? -1 : contentType.indexOf("boundary=");
+        if (boundaryStart < 0) {
+            return parts;
+        }
+        String boundary = "--" + contentType.substring(boundaryStart + "boundary=".length()).replace("\"", "").trim();
+        // ISO-8859-1 maps bytes to chars one to one, so indexes in the string are byte offsets
+        String text = new String(body, StandardCharsets.ISO_8859_1);
+        int start = text.indexOf(boundary);
+        while (start >= 0) {
+            int headersStart = start + boundary.length() + 2;
+            int headersEnd = text.indexOf("\r\n\r\n", headersStart);
+            int next = text.indexOf("\r\n" + boundary, headersStart);
+            if (headersEnd < 0 || next < 0) {
+                break;
+            }
+            String headers = text.substring(headersStart, headersEnd);
+            int nameStart = headers.indexOf("name=\"");
+            if (nameStart >= 0) {
+                String name = headers.substring(nameStart + 6, headers.indexOf('"', nameStart + 6));
+                parts.put(name, text.substring(headersEnd + 4, next).getBytes(StandardCharsets.ISO_8859_1));
+            }
+            start = next + 2;
+        }
+        return parts;
+    }
+
+    private void sendJson(HttpExchange exchange, Object body) throws IOException {
+        byte[] json = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private StubOutcome randomOutcome() {
+        double draw = random.nextDouble();
+        if (draw < resetRate) {
+            return StubOutcome.connectionReset();
+        }
+        if (draw < resetRate + errorRate) {
+            return StubOutcome.serverError(errorStatus);
+        }
+        return StubOutcome.success();
+    }
+
+    /**
+     * Charges the request against the per-minute budget and adds the rate limit headers.
+     *
+     * @return the time until the window resets if the budget is exhausted, otherwise null
+     */
+    private Duration consumeBudget(HttpExchange exchange, int tokens) {
+        synchronized (budgetLock) {
+            if (requestsPerMinute <= 0 && tokensPerMinute <= 0) {
+                return null;
+            }
+            long now = System.nanoTime();
+            if (now - windowStartNanos >= RATE_LIMIT_WINDOW.toNanos()) {
+                windowStartNanos = now;
+                requestsUsed = 0;
+                tokensUsed = 0;
+            }
+            Duration reset = RATE_LIMIT_WINDOW.minusNanos(now - windowStartNanos);
+            boolean exhausted = (requestsPerMinute > 0 && requestsUsed >= requestsPerMinute) || (tokensPerMinute > 0 && tokensUsed + tokens > tokensPerMinute);
+            if (!exhausted) {
+                requestsUsed++;
+                tokensUsed += tokens;
+            }
+            if (requestsPerMinute > 0) {
+                exchange.getResponseHeaders().set("x-ratelimit-limit-requests", String.valueOf(requestsPerMinute));
+                exchange.getResponseHeaders().set("x-ratelimit-remaining-requests", String.valueOf(Math.max(0, requestsPerMinute - requestsUsed)));
+                exchange.getResponseHeaders().set("x-ratelimit-reset-requests", reset.toMillis() + "ms");
+            }
+            if (tokensPerMinute > 0) {
+                exchange.getResponseHeaders().set("x-ratelimit-limit-tokens", String.valueOf(tokensPerMinute));
+                exchange.getResponseHeaders().set("x-ratelimit-remaining-tokens", String.valueOf(Math.max(0, tokensPerMinute - tokensUsed)));
+                exchange.getResponseHeaders().set("x-ratelimit-reset-tokens", reset.toMillis() + "ms");
+            }
+            return exhausted ? reset : null;
+        }
+    }
+
+    private void respond(HttpExchange exchange, String model, String completion, Usage usage) throws IOException {
+        byte[] json = mapper.writeValueAsBytes(completion(model, completion, usage));
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private OpenAIResponse completion(String model, String completion, Usage usage) {
+        Message message = new Message();
+        message.setRole("assistant");
+        message.setContent(completion);
+        Choice choice = new Choice();
+        choice.setIndex(0);
+        choice.setMessage(message);
+        choice.setFinishReason("stop");
+        OpenAIResponse response = new OpenAIResponse();
+        response.setId(nextId());
+        response.setObject("chat.completion");
+        response.setCreated(Instant.now().getEpochSecond());
+        response.setModel(model);
+        response.setChoices(List.of(choice));
+        response.setUsage(usage);
+        response.setSystemFingerprint("fp_stub");
+        return response;
+    }
+
+    private Map<String, Object> message(String model, String completion, Usage usage) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("id", "msg_stub_" + completionIds.incrementAndGet());
+        message.put("type", "message");
+        message.put("role", "assistant");
+        message.put("model", model);
+        message.put("content", completion == null ? List.of() : List.of(Map.of("type", "text", "text", completion)));
+        message.put("stop_reason", completion == null ? null : "end_turn");
+        message.put("usage", Map.of("input_tokens", usage.getPromptTokens(), "output_tokens", usage.getCompletionTokens()));
+        return message;
+    }
+
+    /**
+     * Streams a Messages API response: {@code message_start}, one text block with a delta per token, {@code message_delta} and
+     * {@code message_stop}.
+     */
+    private void streamMessage(HttpExchange exchange, String model, List<String> tokens, Usage usage, boolean dropHalfway) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        Usage started = new Usage();
+        started.setPromptTokens(usage.getPromptTokens());
+        writeMessageEvent(out, "message_start", Map.of("type", "message_start", "message", message(model, null, started)));
+        writeMessageEvent(out, "content_block_start",
+                Map.of("type", "content_block_start", "index", 0, "content_block", Map.of("type", "text", "text", "")));
+        long tokenNanos = tokensPerSecond > 0 ? (long) (1_000_000_000L / tokensPerSecond) : 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (dropHalfway && i == tokens.size() / 2) {
+                throw new ConnectionDrop();
+            }
+            sleepNanos(tokenNanos);
+            writeMessageEvent(out, "content_block_delta",
+                    Map.of("type", "content_block_delta", "index", 0, "delta", Map.of("type", "text_delta", "text", tokens.get(i))));
+        }
+        writeMessageEvent(out, "content_block_stop", Map.of("type", "content_block_stop", "index", 0));
+        writeMessageEvent(out, "message_delta", Map.of("type", "message_delta", "delta", Map.of("stop_reason", "end_turn"), "usage",
+                Map.of("output_tokens", usage.getCompletionTokens())));
+        writeMessageEvent(out, "message_stop", Map.of("type", "message_stop"));
+        out.close();
+    }
+
+    private void writeMessageEvent(OutputStream out, String event, Map<String, Object> data) throws IOException {
+        out.write(("event: " + event + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+        out.write(mapper.writeValueAsBytes(data));
+        out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void respondEmbeddings(HttpExchange exchange, JsonNode json) throws IOException {
+        int dimensions = json.path("dimensions").asInt(DEFAULT_EMBEDDING_DIMENSIONS);
+        boolean base64 = "base64".equals(json.path("encoding_format").asString());
+        List<Map<String, Object>> data = new ArrayList<>();
+        int promptTokens = 0;
+        for (JsonNode input : json.path("input")) {
+            float[] vector = embedding(input.asString(), dimensions);
+            Map<String, Object> embedding = new LinkedHashMap<>();
+            embedding.put("object", "embedding");
+            embedding.put("index", data.size());
+            if (base64) {
+                ByteBuffer bytes = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                bytes.asFloatBuffer().put(vector);
+                embedding.put("embedding", Base64.getEncoder().encodeToString(bytes.array()));
+            } else {
+                embedding.put("embedding", vector);
+            }
+            data.add(embedding);
+            promptTokens += (input.asString().length() + 3) / 4;
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("object", "list");
+        response.put("data", data);
+        response.put("model", json.path("model").asString());
+        response.put("usage", Map.of("prompt_tokens", promptTokens, "total_tokens", promptTokens));
+        byte[] body = mapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void stream(HttpExchange exchange, String model, List<String> tokens, Usage usage, boolean includeUsage, boolean dropHalfway)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        String id = nextId();
+        long created = Instant.now().getEpochSecond();
+        Message role = new Message();
+        role.setRole("assistant");
+        role.setContent("");
+        writeEvent(out, chunk(id, created, model, role, null, null));
+        long tokenNanos = tokensPerSecond > 0 ? (long) (1_000_000_000L / tokensPerSecond) : 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (dropHalfway && i == tokens.size() / 2) {
+                throw new ConnectionDrop();
+            }
+            sleepNanos(tokenNanos);
+            Message delta = new Message();
+            delta.setContent(tokens.get(i));
+            writeEvent(out, chunk(id, created, model, delta, null, null));
+        }
+        writeEvent(out, chunk(id, created, model, new Message(), "stop", null));
+        if (includeUsage) {
+            writeEvent(out, chunk(id, created, model, null, null, usage));
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.close();
+    }
+
+    private StreamChunk chunk(String id, long created, String model, Message delta, String finishReason, Usage usage) {
+        StreamChunk chunk = new StreamChunk();
+        chunk.setId(id);
+        chunk.setObject("chat.completion.chunk");
+        chunk.setCreated(created);
+        chunk.setModel(model);
+        if (delta != null) {
+            StreamChoice choice = new StreamChoice();
+            choice.setIndex(0);
+            choice.setDelta(delta);
+            choice.setFinishReason(finishReason);
+            chunk.setChoices(List.of(choice));
+        } else {
+            chunk.setChoices(List.of());
+        }
+        chunk.setUsage(usage);
+        return chunk;
+    }
+
+    private void writeEvent(OutputStream out, StreamChunk chunk) throws IOException {
+        out.write("data: ".getBytes(StandardCharsets.UTF_8));
+        out.write(mapper.writeValueAsBytes(chunk));
+        out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sendError(HttpExchange exchange, int status, String type, String message, Duration retryAfter) throws IOException {
+        if (retryAfter != null) {
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+            exchange.getResponseHeaders().set("retry-after-ms", String.valueOf(retryAfter.toMillis()));
+        }
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("message", message);
+        error.put("type", type);
+        error.put("code", status == 429 ? "rate_limit_exceeded" : null);
+        byte[] json = mapper.writeValueAsBytes(Map.of("error", error));
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private String nextId() {
+        return "chatcmpl-stub-" + completionIds.incrementAndGet();
+    }
+
+    /**
+     * Estimates the prompt tokens of the request with the same four characters per token rule as the heuristic token estimator.
+     */
+    private static int promptTokens(JsonNode json) {
+        int tokens = 3;
+        if (json.has("system")) {
+            tokens += 3 + (json.path("system").asString().length() + 3) / 4;
+        }
+        for (JsonNode message : json.path("messages")) {
+            tokens += 3 + (message.path("content").asString().length() + 3) / 4;
+        }
+        return tokens;
+    }
+
+    /**
+     * Splits the content into word-sized tokens, each keeping its trailing whitespace.
+     */
+    private static List<String> tokenize(String content) {
+        List<String> tokens = new ArrayList<>();
+        if (content == null || content.isEmpty()) {
+            return tokens;
+        }
+        for (String token : content.split("(?<=\\s)")) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private static void sleepNanos(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Thrown from the handler to make the HTTP server close the connection without completing the response.
+     */
+    private static final class ConnectionDrop extends RuntimeException {
+
+        ConnectionDrop() {
+            super("Simulated connection reset", null, false, false);
+        }
+    }
+
+    /**
+     * The state of a batch created on the server.
+     */
+    private static final class StubBatch {
+        final String id;
+        final String inputFileId;
+        final String endpoint;
+        final String completionWindow;
+        final long createdAt = Instant.now().getEpochSecond();
+        String status = "validating";
+        String outputFileId;
+        String errorFileId;
+        int polls;
+        int completed;
+        int failed;
+
+        StubBatch(String id, String inputFileId, String endpoint, String completionWindow) {
+            this.id = id;
+            this.inputFileId = inputFileId;
+            this.endpoint = endpoint;
+            this.completionWindow = completionWindow;
+        }
+
+        boolean isTerminal() {
+            return "completed".equals(status) || "cancelled".equals(status);
+        }
+
+        Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("id", id);
+            json.put("object", "batch");
+            json.put("endpoint", endpoint);
+            json.put("status", status);
+            json.put("input_file_id", inputFileId);
+            json.put("output_file_id", outputFileId);
+            json.put("error_file_id", errorFileId);
+            json.put("completion_window", completionWindow);
+            json.put("created_at", createdAt);
+            json.put("request_counts", Map.of("total", completed + failed, "completed", completed, "failed", failed));
+            return json;
+        }
+    }
+}
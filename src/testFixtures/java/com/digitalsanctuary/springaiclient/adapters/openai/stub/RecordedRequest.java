@@ -0,0 +1,96 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.stub;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import com.digitalsanctuary.springaiclient.adapters.openai.dto.OpenAIRequest;
+import com.digitalsanctuary.springaiclient.adapters.support.ProviderJson;
+
+/**
+ * A request received by the {@link OpenAIStubServer}.
+ */
+public final class RecordedRequest {
+
+    private final String method;
+    private final String path;
+    private final Map<String, List<String>> headers;
+    private final String body;
+    private final Instant receivedAt;
+
+    RecordedRequest(String method, String path, Map<String, List<String>> headers, String body, Instant receivedAt) {
+        this.method = method;
+        this.path = path;
+        this.headers = headers;
+        this.body = body;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * Returns the HTTP method.
+     *
+     * @return the HTTP method
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the request path.
+     *
+     * @return the request path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the request headers.
+     *
+     * @return the request headers
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the first value of the given header.
+     *
+     * @param name the header name, matched case-insensitively
+     * @return the header value, or null if the header is absent
+     */
+    public String getHeader(String name) {
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name) && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the request body.
+     *
+     * @return the request body
+     */
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Parses the request body as a chat completion request.
+     *
+     * @return the request
+     */
+    public OpenAIRequest toOpenAIRequest() {
+        return ProviderJson.mapper().readValue(body, OpenAIRequest.class);
+    }
+
+    /**
+     * Returns the time at which the request was received.
+     *
+     * @return the time of receipt
+     */
+    public Instant getReceivedAt() {
+        return receivedAt;
+    }
+}
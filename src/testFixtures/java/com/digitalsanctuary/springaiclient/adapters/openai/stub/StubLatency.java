@@ -0,0 +1,66 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.stub;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * The distribution of the time the {@link OpenAIStubServer} waits before it starts answering a request.
+ */
+@FunctionalInterface
+public interface StubLatency {
+
+    /**
+     * Draws a latency from the distribution.
+     *
+     * @param random the source of randomness
+     * @return the latency in nanoseconds
+     */
+    long sampleNanos(Random random);
+
+    /**
+     * Returns a distribution that answers immediately.
+     *
+     * @return the latency distribution
+     */
+    static StubLatency none() {
+        return random -> 0;
+    }
+
+    /**
+     * Returns a distribution that always waits the same time.
+     *
+     * @param latency the latency
+     * @return the latency distribution
+     */
+    static StubLatency fixed(Duration latency) {
+        long nanos = latency.toNanos();
+        return random -> nanos;
+    }
+
+    /**
+     * Returns a distribution that waits a uniformly distributed time.
+     *
+     * @param min the minimum latency
+     * @param max the maximum latency
+     * @return the latency distribution
+     */
+    static StubLatency uniform(Duration min, Duration max) {
+        long minNanos = min.toNanos();
+        long range = max.toNanos() - minNanos;
+        return random -> minNanos + (long) (random.nextDouble() * range);
+    }
+
+    /**
+     * Returns a log-normal distribution with the given median and 99th percentile, which resembles the long-tailed latencies of a real API.
+     *
+     * @param median the median latency
+     * @param p99 the 99th percentile latency
+     * @return the latency distribution
+     */
+    static StubLatency logNormal(Duration median, Duration p99) {
+        double mu = Math.log(median.toNanos());
+        // 2.326 is the z-score of the 99th percentile of the standard normal distribution
+        double sigma = Math.max(0, (Math.log(p99.toNanos()) - mu) / 2.326);
+        return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+    }
+}
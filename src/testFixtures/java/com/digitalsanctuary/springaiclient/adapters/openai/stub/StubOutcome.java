@@ -0,0 +1,131 @@
+package com.digitalsanctuary.springaiclient.adapters.openai.stub;
+
+import java.time.Duration;
+
+/**
+ * The outcome of a single request to the {@link OpenAIStubServer}, scripted through {@link OpenAIStubServer#enqueue(StubOutcome...)}.
+ */
+public final class StubOutcome {
+
+    /**
+     * The kinds of outcome.
+     */
+    public enum Kind {
+
+        /**
+         * A successful completion.
+         */
+        SUCCESS,
+
+        /**
+         * An HTTP 429 response with a {@code Retry-After} header.
+         */
+        RATE_LIMITED,
+
+        /**
+         * An HTTP 5xx response.
+         */
+        SERVER_ERROR,
+
+        /**
+         * The connection is dropped without a complete response. Streaming requests are dropped halfway through the stream.
+         */
+        CONNECTION_RESET
+    }
+
+    private final Kind kind;
+    private final int status;
+    private final Duration retryAfter;
+    private final String content;
+
+    private StubOutcome(Kind kind, int status, Duration retryAfter, String content) {
+        this.kind = kind;
+        this.status = status;
+        this.retryAfter = retryAfter;
+        this.content = content;
+    }
+
+    /**
+     * Returns a successful completion with the server's configured content.
+     *
+     * @return the outcome
+     */
+    public static StubOutcome success() {
+        return new StubOutcome(Kind.SUCCESS, 200, null, null);
+    }
+
+    /**
+     * Returns a successful completion with the given content.
+     *
+     * @param content the assistant message content
+     * @return the outcome
+     */
+    public static StubOutcome success(String content) {
+        return new StubOutcome(Kind.SUCCESS, 200, null, content);
+    }
+
+    /**
+     * Returns a rate limit response.
+     *
+     * @param retryAfter the time sent in the {@code Retry-After} header
+     * @return the outcome
+     */
+    public static StubOutcome rateLimited(Duration retryAfter) {
+        return new StubOutcome(Kind.RATE_LIMITED, 429, retryAfter, null);
+    }
+
+    /**
+     * Returns a server error response.
+     *
+     * @param status the HTTP status, for example 500 or 503
+     * @return the outcome
+     */
+    public static StubOutcome serverError(int status) {
+        return new StubOutcome(Kind.SERVER_ERROR, status, null, null);
+    }
+
+    /**
+     * Returns a dropped connection.
+     *
+     * @return the outcome
+     */
+    public static StubOutcome connectionReset() {
+        return new StubOutcome(Kind.CONNECTION_RESET, 0, null, null);
+    }
+
+    /**
+     * Returns the kind of outcome.
+     *
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the HTTP status of the outcome.
+     *
+     * @return the HTTP status, or 0 for a dropped connection
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the time sent in the {@code Retry-After} header of a rate limit response.
+     *
+     * @return the retry delay, or null
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Returns the content of a successful completion.
+     *
+     * @return the content, or null for the server's configured content
+     */
+    public String getContent() {
+        return content;
+    }
+}